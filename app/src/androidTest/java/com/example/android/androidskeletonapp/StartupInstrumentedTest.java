@@ -0,0 +1,56 @@
+package com.example.android.androidskeletonapp;
+
+import android.app.Activity;
+import android.app.Instrumentation;
+import android.content.Intent;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.android.androidskeletonapp.ui.splash.SplashActivity;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Measures the real startup path on a device with the application's own trace: the application
+ * phase as created by the instrumentation, then a launch of the splash screen.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupInstrumentedTest {
+
+    private static final String TAG = "Startup";
+
+    @Test
+    public void main_thread_phases_stay_within_budget() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        StartupTrace trace = StartupTrace.shared();
+
+        Long applicationMillis = trace.phaseMillis().get(StartupTrace.APPLICATION_CREATED);
+        assertTrue("The application phase was not traced", applicationMillis != null);
+        assertTrue(StartupTrace.APPLICATION_CREATED + " took " + applicationMillis + " ms",
+                applicationMillis <= StartupTrace.MAIN_THREAD_BUDGETS.get(StartupTrace.APPLICATION_CREATED));
+
+        // The time the runner spends between creating the application and starting this test is
+        // not startup, so the activity phases are measured from the launch.
+        trace.begin();
+        Intent intent = new Intent(Intent.ACTION_MAIN)
+                .setClassName(instrumentation.getTargetContext(), SplashActivity.class.getName())
+                .addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        Activity splash = instrumentation.startActivitySync(intent);
+        instrumentation.waitForIdleSync();
+
+        Map<String, Long> phases = trace.phaseMillis();
+        Log.i(TAG, StartupTrace.APPLICATION_CREATED + "=" + applicationMillis + " ms, " + trace);
+        assertTrue(phases.containsKey(StartupTrace.SPLASH_CREATED));
+        assertEquals(Collections.emptyList(), trace.overBudget(StartupTrace.MAIN_THREAD_BUDGETS));
+        splash.finish();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.android.androidskeletonapp.data.service.maintenance;
+
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.android.androidskeletonapp.SkeletonApplication;
+
+import org.hisp.dhis.android.core.arch.db.access.DatabaseAdapter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs maintenance passes on the SDK database of the device.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseMaintenanceInstrumentedTest {
+
+    private static final String SCRATCH_TABLE = "app_maintenance_test";
+
+    private DatabaseAdapter databaseAdapter;
+
+    @Before
+    public void setUp() {
+        databaseAdapter = SkeletonApplication.from(InstrumentationRegistry.getInstrumentation().getTargetContext())
+                .d2().blockingGet().databaseAdapter();
+    }
+
+    @After
+    public void tearDown() {
+        databaseAdapter.execSQL("DROP TABLE IF EXISTS " + SCRATCH_TABLE);
+    }
+
+    @Test
+    public void creates_the_indexes_once() {
+        new DatabaseMaintenance(databaseAdapter).run();
+
+        for (String index : new String[]{"app_tracked_entity_instance_state", "app_event_state",
+                "app_data_value_state", "app_event_enrollment", "app_attribute_value_instance"}) {
+            assertEquals(index, 1, count("SELECT COUNT(*) FROM sqlite_master WHERE type = 'index' AND name = ?",
+                    index));
+        }
+        assertEquals(0, new DatabaseMaintenance(databaseAdapter).run().getIndexesCreated());
+    }
+
+    @Test
+    public void queries_use_the_indexes() {
+        new DatabaseMaintenance(databaseAdapter).run();
+
+        assertTrue(plan("SELECT COUNT(*) FROM Event WHERE state = 'TO_POST'").contains("app_event_state"));
+        assertTrue(plan("SELECT uid FROM Event WHERE enrollment IS NULL").contains("app_event_enrollment"));
+        assertTrue(plan("SELECT COUNT(*) FROM TrackedEntityInstance WHERE state = 'TO_UPDATE'")
+                .contains("app_tracked_entity_instance_state"));
+        assertTrue(plan("SELECT value FROM TrackedEntityAttributeValue WHERE trackedEntityInstance = 'x'")
+                .contains("app_attribute_value_instance"));
+    }
+
+    @Test
+    public void gives_free_pages_back_and_converts_to_incremental_vacuum() {
+        // Freed pages well above the full vacuum ratio of a freshly synced database.
+        databaseAdapter.execSQL("CREATE TABLE " + SCRATCH_TABLE + " (data BLOB)");
+        for (int i = 0; i < 32; i++) {
+            databaseAdapter.execSQL("INSERT INTO " + SCRATCH_TABLE + " VALUES (randomblob(1024 * 1024))");
+        }
+        databaseAdapter.execSQL("DROP TABLE " + SCRATCH_TABLE);
+        long freeBefore = count("PRAGMA freelist_count");
+
+        MaintenanceReport report = new DatabaseMaintenance(databaseAdapter).run();
+
+        assertNotEquals(Compaction.NONE, report.getCompaction());
+        assertTrue(report.getBytesAfter() < report.getBytesBefore());
+        assertTrue(count("PRAGMA freelist_count") < freeBefore);
+        // A full vacuum converts the file, so later passes only need the incremental one.
+        assertEquals(Compaction.AUTO_VACUUM_INCREMENTAL, count("PRAGMA auto_vacuum"));
+    }
+
+    private long count(String sql, String... arguments) {
+        try (Cursor cursor = databaseAdapter.query(sql, arguments)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    private String plan(String sql) {
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = databaseAdapter.query("EXPLAIN QUERY PLAN " + sql)) {
+            int detail = cursor.getColumnIndex("detail");
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(detail)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+}
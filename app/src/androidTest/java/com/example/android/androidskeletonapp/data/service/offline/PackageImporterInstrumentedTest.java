@@ -0,0 +1,320 @@
+package com.example.android.androidskeletonapp.data.service.offline;
+
+import android.database.Cursor;
+import android.util.JsonWriter;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.android.androidskeletonapp.SkeletonApplication;
+
+import org.hisp.dhis.android.core.arch.db.access.DatabaseAdapter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Imports generated and exported packages into the SDK database of the device, against a few
+ * metadata rows the test adds and removes again.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PackageImporterInstrumentedTest {
+
+    private static final String PREFIX = "pkgTest";
+    private static final String ORG_UNIT = PREFIX + "Ou001";
+    private static final String TRACKED_ENTITY_TYPE = PREFIX + "Tet01";
+    private static final String ATTRIBUTE = PREFIX + "Tea01";
+    private static final String PROGRAM = PREFIX + "Prg01";
+    private static final String PROGRAM_STAGE = PREFIX + "Pst01";
+    private static final String DATA_ELEMENT = PREFIX + "Dte01";
+    private static final String ATTRIBUTE_OPTION_COMBO = PREFIX + "Aoc01";
+    private static final String CATEGORY_OPTION_COMBO = PREFIX + "Coc01";
+    private static final String PERIOD = PREFIX + "Pe01";
+
+    private DatabaseAdapter databaseAdapter;
+
+    @Before
+    public void setUp() {
+        databaseAdapter = SkeletonApplication.from(InstrumentationRegistry.getInstrumentation().getTargetContext())
+                .d2().blockingGet().databaseAdapter();
+        removeTestRows();
+        databaseAdapter.execSQL("INSERT INTO OrganisationUnit (uid) VALUES ('" + ORG_UNIT + "')");
+        databaseAdapter.execSQL("INSERT INTO TrackedEntityType (uid) VALUES ('" + TRACKED_ENTITY_TYPE + "')");
+        databaseAdapter.execSQL("INSERT INTO TrackedEntityAttribute (uid) VALUES ('" + ATTRIBUTE + "')");
+        databaseAdapter.execSQL("INSERT INTO Program (uid, trackedEntityType) VALUES ('" + PROGRAM + "', '"
+                + TRACKED_ENTITY_TYPE + "')");
+        databaseAdapter.execSQL("INSERT INTO ProgramStage (uid, program) VALUES ('" + PROGRAM_STAGE + "', '"
+                + PROGRAM + "')");
+        databaseAdapter.execSQL("INSERT INTO DataElement (uid) VALUES ('" + DATA_ELEMENT + "')");
+        databaseAdapter.execSQL("INSERT INTO CategoryOptionCombo (uid) VALUES ('" + ATTRIBUTE_OPTION_COMBO + "')");
+        databaseAdapter.execSQL("INSERT INTO CategoryOptionCombo (uid) VALUES ('" + CATEGORY_OPTION_COMBO + "')");
+        databaseAdapter.execSQL("INSERT INTO Period (periodId, periodType, startDate, endDate) VALUES ('"
+                + PERIOD + "', 'Monthly', '2019-01-01T00:00:00.000', '2019-01-31T00:00:00.000')");
+    }
+
+    @After
+    public void tearDown() {
+        removeTestRows();
+    }
+
+    @Test
+    public void streams_a_large_gzip_package() throws Exception {
+        int trackedEntityInstances = 20_000;
+        // The package is generated again for each pass, so it is never held in memory.
+        ImportProgress progress = importPackage(() -> {
+            PipedInputStream input = new PipedInputStream(64 * 1024);
+            PipedOutputStream output = new PipedOutputStream(input);
+            new Thread(() -> {
+                try (OutputStream gzip = new GZIPOutputStream(output)) {
+                    writePackage(gzip, trackedEntityInstances, "1");
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }).start();
+            return input;
+        });
+
+        assertEquals(3 * trackedEntityInstances, progress.getRecords());
+        assertEquals(0, progress.getSkipped());
+        assertEquals(trackedEntityInstances, count("TrackedEntityInstance"));
+        assertEquals(trackedEntityInstances, count("Event"));
+        assertEquals(trackedEntityInstances, count("TrackedEntityDataValue"));
+    }
+
+    @Test
+    public void reimport_updates_in_place_and_keeps_local_changes() throws Exception {
+        importPackage(packageOf(2, "1"));
+        String dirtyEvent = PREFIX + "Evt00000";
+        databaseAdapter.execSQL("UPDATE Event SET state = 'TO_UPDATE' WHERE uid = '" + dirtyEvent + "'");
+        databaseAdapter.execSQL("UPDATE TrackedEntityDataValue SET value = 'local' WHERE event = '"
+                + dirtyEvent + "'");
+
+        ImportProgress progress = importPackage(packageOf(2, "2"));
+
+        assertEquals(5, progress.getRecords());
+        assertEquals(1, progress.getSkipped());
+        assertEquals(2, count("TrackedEntityInstance"));
+        assertEquals(2, count("Enrollment"));
+        assertEquals(2, count("Event"));
+        assertEquals(2, count("TrackedEntityDataValue"));
+        assertEquals(2, count("TrackedEntityAttributeValue"));
+        assertEquals("TO_UPDATE", string("SELECT state FROM Event WHERE uid = ?", dirtyEvent));
+        assertEquals("local", string("SELECT value FROM TrackedEntityDataValue WHERE event = ?", dirtyEvent));
+        assertEquals("2", string("SELECT value FROM TrackedEntityDataValue WHERE event = ?", PREFIX + "Evt00001"));
+    }
+
+    @Test
+    public void skips_events_with_unknown_enrollment_or_attribute_option_combo() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(bytes, "UTF-8"))) {
+            writer.beginObject().name("events").beginArray();
+            writeEvent(writer, PREFIX + "Orph1", PREFIX + "NoEnr", ATTRIBUTE_OPTION_COMBO, "1");
+            writeEvent(writer, PREFIX + "Orph2", null, PREFIX + "NoAoc", "1");
+            writeEvent(writer, PREFIX + "Evnt3", null, ATTRIBUTE_OPTION_COMBO, "1");
+            writer.endArray().endObject();
+        }
+
+        ImportProgress progress = importPackage(bytes.toByteArray());
+
+        assertEquals(1, progress.getRecords());
+        assertEquals(2, progress.getSkipped());
+        assertEquals(1, count("Event"));
+    }
+
+    @Test
+    public void exported_changes_import_on_another_device() throws Exception {
+        byte[] exported = exportChanges();
+        // The other device holds the instances and one of the events, as downloaded from the server.
+        removeRows("DataValue");
+        databaseAdapter.execSQL("DELETE FROM TrackedEntityDataValue WHERE event = '" + PREFIX + "Evt00002'");
+        databaseAdapter.execSQL("DELETE FROM Event WHERE uid = '" + PREFIX + "Evt00002'");
+        for (String table : new String[]{"TrackedEntityInstance", "Enrollment", "Event"}) {
+            databaseAdapter.execSQL("UPDATE " + table + " SET state = 'SYNCED' WHERE " + testRows(table));
+        }
+
+        importPackage(exported);
+
+        assertEquals(3, count("TrackedEntityInstance"));
+        assertEquals(3, count("TrackedEntityAttributeValue"));
+        assertEquals(3, count("Enrollment"));
+        assertEquals(3, count("Event"));
+        assertEquals(3, count("TrackedEntityDataValue"));
+        assertEquals(2, count("DataValue"));
+        assertEquals("TO_UPDATE", string("SELECT state FROM Event WHERE uid = ?", PREFIX + "Evt00001"));
+        assertEquals("TO_POST", string("SELECT state FROM Event WHERE uid = ?", PREFIX + "Evt00002"));
+        assertEquals("1", string("SELECT value FROM TrackedEntityDataValue WHERE event = ?", PREFIX + "Evt00002"));
+        assertEquals("TO_POST", string("SELECT state FROM DataValue WHERE dataElement = ?", DATA_ELEMENT));
+        assertEquals("42", string("SELECT value FROM DataValue WHERE categoryOptionCombo = ?", CATEGORY_OPTION_COMBO));
+    }
+
+    @Test
+    public void rejects_a_package_that_does_not_match_its_manifest() throws Exception {
+        String exported = inflate(exportChanges());
+        removeRows("DataValue", "TrackedEntityDataValue", "Event", "Enrollment", "TrackedEntityAttributeValue",
+                "TrackedEntityInstance");
+        byte[] damaged = exported.replaceFirst("\"value\":\"42\"", "\"value\":\"43\"").getBytes("UTF-8");
+
+        try {
+            importPackage(damaged);
+            fail("A damaged package must not be imported");
+        } catch (RuntimeException expected) {
+            // The verification error, before anything was written.
+        }
+
+        assertEquals(0, count("TrackedEntityInstance"));
+        assertEquals(0, count("DataValue"));
+    }
+
+    // Imports three instances, marks them changed and adds two changed data values, then exports.
+    private byte[] exportChanges() throws IOException {
+        importPackage(packageOf(3, "1"));
+        for (String table : new String[]{"TrackedEntityInstance", "Enrollment", "Event"}) {
+            databaseAdapter.execSQL("UPDATE " + table + " SET state = 'TO_UPDATE' WHERE " + testRows(table));
+        }
+        insertDataValue(CATEGORY_OPTION_COMBO, "42", "TO_UPDATE");
+        insertDataValue(ATTRIBUTE_OPTION_COMBO, "7", "TO_POST");
+
+        ByteArrayOutputStream exported = new ByteArrayOutputStream();
+        ExportReport report = new PackageExporter().exportPackage(exported).blockingGet();
+        assertEquals(Arrays.asList(PackageExporter.TRACKED_ENTITY_INSTANCES, PackageExporter.EVENTS,
+                PackageExporter.DATA_VALUES), names(report.getEntries()));
+        return exported.toByteArray();
+    }
+
+    private void insertDataValue(String categoryOptionCombo, String value, String state) {
+        databaseAdapter.execSQL("INSERT INTO DataValue (dataElement, period, organisationUnit, categoryOptionCombo, "
+                + "attributeOptionCombo, value, state) VALUES ('" + DATA_ELEMENT + "', '" + PERIOD + "', '"
+                + ORG_UNIT + "', '" + categoryOptionCombo + "', '" + ATTRIBUTE_OPTION_COMBO + "', '" + value + "', '"
+                + state + "')");
+    }
+
+    private ImportProgress importPackage(byte[] bytes) {
+        return importPackage(() -> new ByteArrayInputStream(bytes));
+    }
+
+    private ImportProgress importPackage(PackageImporter.Source source) {
+        return new PackageImporter().importPackage(source, -1).blockingLast();
+    }
+
+    private static byte[] packageOf(int trackedEntityInstances, String value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writePackage(bytes, trackedEntityInstances, value);
+        return bytes.toByteArray();
+    }
+
+    private static String inflate(byte[] gzip) throws IOException {
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            byte[] buffer = new byte[8 * 1024];
+            for (int read; (read = input.read(buffer)) != -1; ) {
+                inflated.write(buffer, 0, read);
+            }
+        }
+        return new String(inflated.toByteArray(), "UTF-8");
+    }
+
+    private static void writePackage(OutputStream output, int trackedEntityInstances, String value)
+            throws IOException {
+        JsonWriter writer = new JsonWriter(new OutputStreamWriter(output, "UTF-8"));
+        writer.beginObject().name("trackedEntityInstances").beginArray();
+        for (int i = 0; i < trackedEntityInstances; i++) {
+            String suffix = String.format("%05d", i);
+            String enrollment = PREFIX + "Enr" + suffix;
+            writer.beginObject()
+                    .name("trackedEntityInstance").value(PREFIX + "Tei" + suffix)
+                    .name("orgUnit").value(ORG_UNIT)
+                    .name("trackedEntityType").value(TRACKED_ENTITY_TYPE);
+            writer.name("attributes").beginArray().beginObject()
+                    .name("attribute").value(ATTRIBUTE)
+                    .name("value").value(value)
+                    .endObject().endArray();
+            writer.name("enrollments").beginArray().beginObject()
+                    .name("enrollment").value(enrollment)
+                    .name("orgUnit").value(ORG_UNIT)
+                    .name("program").value(PROGRAM)
+                    .name("status").value("ACTIVE");
+            writer.name("events").beginArray();
+            writeEvent(writer, PREFIX + "Evt" + suffix, enrollment, ATTRIBUTE_OPTION_COMBO, value);
+            writer.endArray().endObject().endArray().endObject();
+        }
+        writer.endArray().endObject();
+        writer.flush();
+    }
+
+    private static void writeEvent(JsonWriter writer, String uid, String enrollment, String attributeOptionCombo,
+                                   String value) throws IOException {
+        writer.beginObject()
+                .name("event").value(uid)
+                .name("enrollment").value(enrollment)
+                .name("orgUnit").value(ORG_UNIT)
+                .name("program").value(PROGRAM)
+                .name("programStage").value(PROGRAM_STAGE)
+                .name("attributeOptionCombo").value(attributeOptionCombo)
+                .name("status").value("ACTIVE");
+        writer.name("dataValues").beginArray().beginObject()
+                .name("dataElement").value(DATA_ELEMENT)
+                .name("value").value(value)
+                .endObject().endArray();
+        writer.endObject();
+    }
+
+    private int count(String table) {
+        try (Cursor cursor = databaseAdapter.query("SELECT COUNT(*) FROM " + table
+                + " WHERE " + testRows(table))) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+
+    private String string(String sql, String argument) {
+        try (Cursor cursor = databaseAdapter.query(sql, argument)) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
+    private void removeTestRows() {
+        removeRows("DataValue", "TrackedEntityDataValue", "Event", "Enrollment", "TrackedEntityAttributeValue",
+                "TrackedEntityInstance", "Period", "CategoryOptionCombo", "DataElement", "ProgramStage", "Program",
+                "TrackedEntityAttribute", "TrackedEntityType", "OrganisationUnit");
+    }
+
+    private void removeRows(String... tables) {
+        for (String table : tables) {
+            databaseAdapter.execSQL("DELETE FROM " + table + " WHERE " + testRows(table));
+        }
+    }
+
+    private static List<String> names(List<PackageEntry> entries) {
+        List<String> names = new ArrayList<>();
+        for (PackageEntry entry : entries) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+
+    private static String testRows(String table) {
+        String column = "TrackedEntityDataValue".equals(table) ? "event"
+                : "TrackedEntityAttributeValue".equals(table) ? "trackedEntityInstance"
+                : "DataValue".equals(table) ? "dataElement"
+                : "Period".equals(table) ? "periodId" : "uid";
+        return column + " LIKE '" + PREFIX + "%'";
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.android.androidskeletonapp.data;
+
+import android.content.Context;
+
+import com.facebook.stetho.Stetho;
+import com.facebook.stetho.okhttp3.StethoInterceptor;
+
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.Interceptor;
+
+public class NetworkProfile {
+
+    public static void initialize(Context context) {
+        Stetho.initializeWithDefaults(context);
+    }
+
+    static List<Interceptor> networkInterceptors() {
+        return Collections.singletonList(new StethoInterceptor());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.android.androidskeletonapp;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.multidex.MultiDexApplication;
+import androidx.work.Configuration;
+
+import com.example.android.androidskeletonapp.data.NetworkProfile;
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.sync.SyncEngine;
+import com.example.android.androidskeletonapp.data.service.tracing.Tracing;
+
+import org.hisp.dhis.android.core.D2;
+import org.hisp.dhis.android.core.D2Manager;
+
+import java.util.concurrent.Executors;
+
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
+public class SkeletonApplication extends MultiDexApplication implements Configuration.Provider {
+
+    private static final String TAG = "Startup";
+
+    private Single<D2> d2;
+
+    public static SkeletonApplication from(Context context) {
+        return (SkeletonApplication) context.getApplicationContext();
+    }
+
+    @Override
+    public void onCreate() {
+        StartupTrace.shared().begin();
+        super.onCreate();
+        Tracing.install(this);
+        NetworkProfile.initialize(this);
+        StartupTrace.shared().mark(StartupTrace.APPLICATION_CREATED);
+    }
+
+    /**
+     * D2 is instantiated on first use, off the main thread, and shared by every screen and worker.
+     * A failed instantiation is not cached, so the next caller tries again.
+     */
+    public synchronized Single<D2> d2() {
+        if (d2 == null) {
+            d2 = Single.defer(() -> D2Manager.instantiateD2(Sdk.getD2Configuration(this)))
+                    .subscribeOn(Schedulers.io())
+                    .doOnSuccess(instance -> StartupTrace.shared().mark(StartupTrace.D2_READY))
+                    .doOnError(throwable -> resetD2())
+                    .cache();
+        }
+        return d2;
+    }
+
+    private synchronized void resetD2() {
+        d2 = null;
+    }
+
+    public static void logStartup() {
+        StartupTrace trace = StartupTrace.shared();
+        Log.i(TAG, trace.toString());
+        for (String violation : trace.overBudget(StartupTrace.MAIN_THREAD_BUDGETS)) {
+            Log.w(TAG, violation);
+        }
+    }
+
+    @NonNull
+    @Override
+    public Configuration getWorkManagerConfiguration() {
+        return new Configuration.Builder()
+                .setExecutor(Executors.newFixedThreadPool(SyncEngine.MAX_CONCURRENT_JOBS))
+                .build();
+    }
+}
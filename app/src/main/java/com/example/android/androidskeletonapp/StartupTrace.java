@@ -0,0 +1,98 @@
+package com.example.android.androidskeletonapp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records how long each cold start phase takes, measured from the previous mark. Phases are
+ * marked once; later marks with the same name are ignored so resumed screens do not skew it.
+ */
+public class StartupTrace {
+
+    public static final String APPLICATION_CREATED = "application_created";
+    public static final String SPLASH_CREATED = "splash_created";
+    public static final String D2_READY = "d2_ready";
+    public static final String MAIN_CREATED = "main_created";
+    public static final String FIRST_FRAME = "first_frame";
+    public static final String USER_LOADED = "user_loaded";
+    public static final String COUNTERS_LOADED = "counters_loaded";
+
+    // Phases that run on the main thread before the first frame of the dashboard.
+    public static final Map<String, Long> MAIN_THREAD_BUDGETS;
+
+    static {
+        Map<String, Long> budgets = new LinkedHashMap<>();
+        budgets.put(APPLICATION_CREATED, 100L);
+        budgets.put(SPLASH_CREATED, 100L);
+        budgets.put(MAIN_CREATED, 150L);
+        budgets.put(FIRST_FRAME, 200L);
+        MAIN_THREAD_BUDGETS = Collections.unmodifiableMap(budgets);
+    }
+
+    public interface Clock {
+        long nanoTime();
+    }
+
+    private static final StartupTrace shared = new StartupTrace(System::nanoTime);
+
+    private final Clock clock;
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private long start;
+    private long last;
+
+    public StartupTrace(Clock clock) {
+        this.clock = clock;
+        this.start = clock.nanoTime();
+        this.last = start;
+    }
+
+    public static StartupTrace shared() {
+        return shared;
+    }
+
+    public synchronized void begin() {
+        start = clock.nanoTime();
+        last = start;
+        phases.clear();
+    }
+
+    public synchronized void mark(String phase) {
+        if (phases.containsKey(phase)) {
+            return;
+        }
+        long now = clock.nanoTime();
+        phases.put(phase, (now - last) / 1_000_000);
+        last = now;
+    }
+
+    public synchronized Map<String, Long> phaseMillis() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+    }
+
+    public synchronized long totalMillis() {
+        return (last - start) / 1_000_000;
+    }
+
+    public synchronized List<String> overBudget(Map<String, Long> budgetMillis) {
+        List<String> violations = new ArrayList<>();
+        for (Map.Entry<String, Long> budget : budgetMillis.entrySet()) {
+            Long measured = phases.get(budget.getKey());
+            if (measured != null && measured > budget.getValue()) {
+                violations.add(budget.getKey() + " took " + measured + " ms, budget " + budget.getValue() + " ms");
+            }
+        }
+        return violations;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder builder = new StringBuilder("startup ").append(totalMillis()).append(" ms");
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            builder.append(", ").append(phase.getKey()).append('=').append(phase.getValue()).append(" ms");
+        }
+        return builder.toString();
+    }
+}
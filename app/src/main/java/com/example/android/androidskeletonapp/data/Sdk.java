@@ -2,13 +2,19 @@ package com.example.android.androidskeletonapp.data;
 
 import android.content.Context;
 
-import com.facebook.stetho.okhttp3.StethoInterceptor;
+import com.example.android.androidskeletonapp.data.network.NetworkSettings;
+import com.example.android.androidskeletonapp.data.service.adaptive.AdaptiveDownload;
+import com.example.android.androidskeletonapp.data.service.telemetry.SyncTelemetry;
 
 import org.hisp.dhis.android.core.D2;
 import org.hisp.dhis.android.core.D2Configuration;
 import org.hisp.dhis.android.core.D2Manager;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+
+import okhttp3.Interceptor;
 
 public class Sdk {
 
@@ -17,14 +23,23 @@ public class Sdk {
     }
 
     public static D2Configuration getD2Configuration(Context context) {
+        // OkHttp asks for gzip and inflates responses below the application interceptors, so the
+        // cache stores inflated bodies.
+        List<Interceptor> interceptors = Collections.singletonList(NetworkSettings.metadataCache(context));
+
+        List<Interceptor> networkInterceptors = new ArrayList<>(NetworkProfile.networkInterceptors());
+        networkInterceptors.add(SyncTelemetry.networkInterceptor());
+        networkInterceptors.add(AdaptiveDownload.networkInterceptor());
+
         return D2Configuration.builder()
                 .appName("skeleton_App")
                 .appVersion("0.0.1")
-                .readTimeoutInSeconds(30)
-                .connectTimeoutInSeconds(30)
-                .writeTimeoutInSeconds(30)
-                .networkInterceptors(Collections.singletonList(new StethoInterceptor()))
+                .readTimeoutInSeconds(NetworkSettings.READ_TIMEOUT_SECONDS)
+                .connectTimeoutInSeconds(NetworkSettings.CONNECT_TIMEOUT_SECONDS)
+                .writeTimeoutInSeconds(NetworkSettings.WRITE_TIMEOUT_SECONDS)
+                .interceptors(interceptors)
+                .networkInterceptors(networkInterceptors)
                 .context(context)
                 .build();
     }
-}
\ No newline at end of file
+}
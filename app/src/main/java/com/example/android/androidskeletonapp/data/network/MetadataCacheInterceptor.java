@@ -0,0 +1,270 @@
+package com.example.android.androidskeletonapp.data.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * On-disk cache for metadata GET responses. Cached entries are revalidated with If-None-Match and
+ * If-Modified-Since, and a 304 is answered from disk. Bodies are written to disk while the caller
+ * reads them, so large responses are never held in memory. The key includes the credentials, so
+ * users of the same device never share entries.
+ */
+public class MetadataCacheInterceptor implements Interceptor {
+
+    private static final String TAG = "MetadataCache";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String META_SUFFIX = ".meta";
+    private static final String BODY_SUFFIX = ".body";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final long maxSizeBytes;
+    private final Set<String> cacheableResources;
+
+    public MetadataCacheInterceptor(File directory, long maxSizeBytes, Set<String> cacheableResources) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+        this.cacheableResources = cacheableResources;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!isCacheable(request)) {
+            return chain.proceed(request);
+        }
+
+        String key = key(request);
+        File metaFile = new File(directory, key + META_SUFFIX);
+        File bodyFile = new File(directory, key + BODY_SUFFIX);
+        Entry entry = Entry.read(metaFile);
+
+        Request.Builder conditional = request.newBuilder();
+        if (entry != null && bodyFile.exists()) {
+            if (entry.etag != null) {
+                conditional.header("If-None-Match", entry.etag);
+            }
+            if (entry.lastModified != null) {
+                conditional.header("If-Modified-Since", entry.lastModified);
+            }
+        }
+
+        Response response = chain.proceed(conditional.build());
+        if (response.code() == 304 && entry != null && bodyFile.exists()) {
+            response.close();
+            bodyFile.setLastModified(System.currentTimeMillis());
+            return response.newBuilder()
+                    .code(200)
+                    .message("OK")
+                    .body(ResponseBody.create(entry.contentType == null ? null : MediaType.parse(entry.contentType),
+                            bodyFile.length(), Okio.buffer(Okio.source(bodyFile))))
+                    .build();
+        }
+
+        ResponseBody body = response.body();
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+        if (!response.isSuccessful() || body == null || (etag == null && lastModified == null)
+                || "no-store".equalsIgnoreCase(response.header("Cache-Control"))) {
+            return response;
+        }
+
+        Entry newEntry = new Entry(etag, lastModified, response.header("Content-Type"));
+        return response.newBuilder()
+                .body(ResponseBody.create(body.contentType(), body.contentLength(),
+                        Okio.buffer(new TeeSource(body.source(), key, newEntry))))
+                .build();
+    }
+
+    private boolean isCacheable(Request request) {
+        if (!"GET".equals(request.method())) {
+            return false;
+        }
+        List<String> segments = request.url().pathSegments();
+        int apiIndex = segments.indexOf("api");
+        return apiIndex >= 0 && apiIndex + 1 < segments.size()
+                && cacheableResources.contains(segments.get(apiIndex + 1));
+    }
+
+    private static String key(Request request) {
+        String authorization = request.header("Authorization");
+        return ByteString.encodeUtf8(request.url().toString() + "|" + (authorization == null ? "" : authorization))
+                .sha256().hex();
+    }
+
+    private void commit(String key, File tempBody, Entry entry) {
+        File bodyFile = new File(directory, key + BODY_SUFFIX);
+        if (!tempBody.renameTo(bodyFile)) {
+            tempBody.delete();
+            return;
+        }
+        try {
+            entry.write(new File(directory, key + META_SUFFIX));
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write cache entry", e);
+            bodyFile.delete();
+        }
+        trim();
+    }
+
+    // Least recently used bodies go first until the cache fits its budget again.
+    private synchronized void trim() {
+        File[] bodies = directory.listFiles((dir, name) -> name.endsWith(BODY_SUFFIX));
+        if (bodies == null) {
+            return;
+        }
+        long size = 0;
+        for (File body : bodies) {
+            size += body.length();
+        }
+        Arrays.sort(bodies, (first, second) -> Long.compare(first.lastModified(), second.lastModified()));
+        for (int i = 0; i < bodies.length && size > maxSizeBytes; i++) {
+            size -= bodies[i].length();
+            String key = bodies[i].getName().substring(0, bodies[i].getName().length() - BODY_SUFFIX.length());
+            bodies[i].delete();
+            new File(directory, key + META_SUFFIX).delete();
+        }
+    }
+
+    private class TeeSource extends ForwardingSource {
+
+        private final String key;
+        private final Entry entry;
+        @Nullable
+        private File tempBody;
+        @Nullable
+        private BufferedSink sink;
+
+        TeeSource(Source delegate, String key, Entry entry) {
+            super(delegate);
+            this.key = key;
+            this.entry = entry;
+            try {
+                if (directory.isDirectory() || directory.mkdirs()) {
+                    tempBody = File.createTempFile(key, TEMP_SUFFIX, directory);
+                    sink = Okio.buffer(Okio.sink(tempBody));
+                }
+            } catch (IOException e) {
+                abort();
+            }
+        }
+
+        @Override
+        public long read(@NonNull Buffer buffer, long byteCount) throws IOException {
+            long read = super.read(buffer, byteCount);
+            if (sink != null) {
+                try {
+                    if (read == -1) {
+                        sink.close();
+                        sink = null;
+                        commit(key, tempBody, entry);
+                        tempBody = null;
+                    } else {
+                        buffer.copyTo(sink.buffer(), buffer.size() - read, read);
+                        sink.emitCompleteSegments();
+                    }
+                } catch (IOException e) {
+                    abort();
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // A body that was not read to the end is incomplete and must not be cached.
+            abort();
+            super.close();
+        }
+
+        private void abort() {
+            if (sink != null) {
+                try {
+                    sink.close();
+                } catch (IOException ignored) {
+                    // Nothing left to do with a temporary file that is deleted anyway.
+                }
+                sink = null;
+            }
+            if (tempBody != null) {
+                tempBody.delete();
+                tempBody = null;
+            }
+        }
+    }
+
+    private static class Entry {
+
+        @Nullable
+        private final String etag;
+        @Nullable
+        private final String lastModified;
+        @Nullable
+        private final String contentType;
+
+        Entry(@Nullable String etag, @Nullable String lastModified, @Nullable String contentType) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.contentType = contentType;
+        }
+
+        @Nullable
+        static Entry read(File file) {
+            if (!file.exists()) {
+                return null;
+            }
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(file), UTF_8))) {
+                return new Entry(emptyToNull(reader.readLine()), emptyToNull(reader.readLine()),
+                        emptyToNull(reader.readLine()));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        void write(File file) throws IOException {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8)) {
+                writer.write(nullToEmpty(etag) + "\n" + nullToEmpty(lastModified) + "\n"
+                        + nullToEmpty(contentType) + "\n");
+            }
+        }
+
+        @Nullable
+        private static String emptyToNull(@Nullable String value) {
+            return value == null || value.isEmpty() ? null : value;
+        }
+
+        private static String nullToEmpty(@Nullable String value) {
+            return value == null ? "" : value;
+        }
+    }
+}
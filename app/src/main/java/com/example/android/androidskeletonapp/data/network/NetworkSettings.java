@@ -0,0 +1,46 @@
+package com.example.android.androidskeletonapp.data.network;
+
+import android.content.Context;
+
+import com.example.android.androidskeletonapp.BuildConfig;
+import com.example.android.androidskeletonapp.data.service.metadata.MetadataModule;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+import okhttp3.Interceptor;
+
+public class NetworkSettings {
+
+    public static final int READ_TIMEOUT_SECONDS = BuildConfig.READ_TIMEOUT_SECONDS;
+    public static final int CONNECT_TIMEOUT_SECONDS = BuildConfig.CONNECT_TIMEOUT_SECONDS;
+    public static final int WRITE_TIMEOUT_SECONDS = BuildConfig.WRITE_TIMEOUT_SECONDS;
+
+    public static final long SLOW_REQUEST_MILLIS = 3000;
+
+    private static final String METADATA_CACHE_DIRECTORY = "metadata-http-cache";
+    private static final long METADATA_CACHE_MAX_BYTES = 20 * 1024 * 1024;
+
+    public static Interceptor metadataCache(Context context) {
+        Set<String> resources = new HashSet<>();
+        for (MetadataModule module : MetadataModule.values()) {
+            // The cache matches the first path segment after api/.
+            resources.add(module.getResource().split("/")[0]);
+        }
+        return new MetadataCacheInterceptor(metadataCacheDirectory(context), METADATA_CACHE_MAX_BYTES, resources);
+    }
+
+    public static void clearMetadataCache(Context context) {
+        File[] files = metadataCacheDirectory(context).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    private static File metadataCacheDirectory(Context context) {
+        return new File(context.getCacheDir(), METADATA_CACHE_DIRECTORY);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.android.androidskeletonapp.data.network;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Logs requests slower than a threshold. It only reads the clock twice per request, so it is
+ * cheap enough to keep in release builds.
+ */
+public class TimingInterceptor implements Interceptor {
+
+    private static final String TAG = "HttpTiming";
+
+    private final long slowRequestMillis;
+
+    public TimingInterceptor(long slowRequestMillis) {
+        this.slowRequestMillis = slowRequestMillis;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        long start = System.nanoTime();
+        Response response = chain.proceed(request);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        if (millis >= slowRequestMillis) {
+            Log.w(TAG, request.method() + " " + request.url().encodedPath() + " took " + millis
+                    + " ms (" + response.code() + ")");
+        }
+        return response;
+    }
+}
@@ -3,17 +3,26 @@ package com.example.android.androidskeletonapp.data.service;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.network.NetworkSettings;
+import com.example.android.androidskeletonapp.data.service.aggregate.AggregateEngine;
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
+import com.example.android.androidskeletonapp.data.service.search.SearchIndexEngine;
+import com.example.android.androidskeletonapp.data.service.tracing.Tracing;
 import com.example.android.androidskeletonapp.ui.login.LoginActivity;
 
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
-import io.reactivex.schedulers.Schedulers;
 
 public class LogOutService {
 
     public static Disposable logOut(AppCompatActivity activity) {
         return Sdk.d2().userModule().logOut()
-                .subscribeOn(Schedulers.io())
+                .doOnComplete(SyncStatusService::clear)
+                .doOnComplete(AggregateEngine::clear)
+                .doOnComplete(SearchIndexEngine::clear)
+                .doOnComplete(() -> NetworkSettings.clearMetadataCache(activity.getApplicationContext()))
+                .compose(Tracing.traceCompletable("log_out"))
+                .subscribeOn(AppSchedulers.interactive())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribe(() -> ActivityStarter.startActivity(activity, LoginActivity.getLoginActivityIntent(activity.getApplicationContext()), true),
                         Throwable::printStackTrace);
@@ -0,0 +1,65 @@
+package com.example.android.androidskeletonapp.data.service;
+
+import com.example.android.androidskeletonapp.data.service.resilience.CircuitOpenException;
+import com.example.android.androidskeletonapp.data.service.resilience.FailureClass;
+import com.example.android.androidskeletonapp.data.service.resilience.FailureClassifier;
+
+import org.reactivestreams.Publisher;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Flowable;
+import io.reactivex.functions.Function;
+
+/**
+ * {@code retryWhen} handler that retries up to {@code maxRetries} times, doubling the delay
+ * after each attempt up to {@code maxDelayMillis}. Only transient and overload failures are
+ * retried; overload failures wait one step longer. Delays are jittered between half and the full
+ * step so devices that failed together do not come back together, and a call rejected by an open
+ * circuit waits at least until the circuit lets a probe through.
+ */
+public class RetryWithBackoff implements Function<Flowable<Throwable>, Publisher<?>> {
+
+    private final int maxRetries;
+    private final long initialDelayMillis;
+    private final long maxDelayMillis;
+    private final Random random;
+
+    public RetryWithBackoff(int maxRetries, long initialDelayMillis) {
+        this(maxRetries, initialDelayMillis, initialDelayMillis << maxRetries, new Random());
+    }
+
+    public RetryWithBackoff(int maxRetries, long initialDelayMillis, long maxDelayMillis, Random random) {
+        this.maxRetries = maxRetries;
+        this.initialDelayMillis = initialDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.random = random;
+    }
+
+    @Override
+    public Publisher<?> apply(Flowable<Throwable> errors) {
+        AtomicInteger attempt = new AtomicInteger();
+        return errors.flatMap(throwable -> {
+            FailureClass failureClass = FailureClassifier.classify(throwable);
+            int current = attempt.getAndIncrement();
+            if (!failureClass.isRetryable() || current >= maxRetries) {
+                return Flowable.error(throwable);
+            }
+            long delay = delayMillis(failureClass == FailureClass.OVERLOAD ? current + 1 : current);
+            if (throwable instanceof CircuitOpenException) {
+                delay = Math.max(delay, ((CircuitOpenException) throwable).getRetryAfterMillis());
+            }
+            return Flowable.timer(delay, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    long delayMillis(int step) {
+        // Shifting past the sign bit would wrap around, so large steps go straight to the cap.
+        long ceiling = step < Long.numberOfLeadingZeros(initialDelayMillis) - 1
+                ? Math.min(maxDelayMillis, initialDelayMillis << step) : maxDelayMillis;
+        long half = ceiling / 2;
+        return half + (long) (random.nextDouble() * (ceiling - half + 1));
+    }
+}
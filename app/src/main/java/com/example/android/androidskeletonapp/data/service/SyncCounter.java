@@ -0,0 +1,26 @@
+package com.example.android.androidskeletonapp.data.service;
+
+public enum SyncCounter {
+    PROGRAMS,
+    DATA_SETS,
+    TRACKED_ENTITY_INSTANCES,
+    SINGLE_EVENTS,
+    DATA_VALUES;
+
+    int count() {
+        switch (this) {
+            case PROGRAMS:
+                return SyncStatusHelper.programCount();
+            case DATA_SETS:
+                return SyncStatusHelper.dataSetCount();
+            case TRACKED_ENTITY_INSTANCES:
+                return SyncStatusHelper.trackedEntityInstanceCount();
+            case SINGLE_EVENTS:
+                return SyncStatusHelper.singleEventCount();
+            case DATA_VALUES:
+                return SyncStatusHelper.dataValueCount();
+            default:
+                throw new IllegalStateException("Unknown counter " + this);
+        }
+    }
+}
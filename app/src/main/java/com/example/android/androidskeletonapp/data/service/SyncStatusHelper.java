@@ -26,4 +26,13 @@ public class SyncStatusHelper {
     public static int dataValueCount() {
         return Sdk.d2().dataValueModule().dataValues().blockingCount();
     }
+
+    public static SyncStatusSnapshot snapshot() {
+        return new SyncStatusSnapshot(
+                programCount(),
+                dataSetCount(),
+                trackedEntityInstanceCount(),
+                singleEventCount(),
+                dataValueCount());
+    }
 }
@@ -0,0 +1,136 @@
+package com.example.android.androidskeletonapp.data.service;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Single;
+
+/**
+ * Keeps the dashboard counters in memory so screens can paint them at once. All counters are
+ * counted once as a baseline; after that, each sync stage moves the counters its tables feed by
+ * what it downloads and recounts them once when it is done, and a wipe resets counters without
+ * counting at all.
+ */
+public class SyncStatusService {
+
+    private static final MutableLiveData<SyncStatusSnapshot> snapshot = new MutableLiveData<>();
+    private static final Object lock = new Object();
+    @Nullable
+    private static SyncStatusSnapshot current;
+
+    private static final AtomicBoolean baselineRunning = new AtomicBoolean(false);
+    private static final Map<SyncCounter, AtomicBoolean> reconciling = new EnumMap<>(SyncCounter.class);
+    private static final Map<SyncCounter, AtomicBoolean> reconcilePending = new EnumMap<>(SyncCounter.class);
+
+    static {
+        for (SyncCounter counter : SyncCounter.values()) {
+            reconciling.put(counter, new AtomicBoolean(false));
+            reconcilePending.put(counter, new AtomicBoolean(false));
+        }
+    }
+
+    public static LiveData<SyncStatusSnapshot> snapshot() {
+        return snapshot;
+    }
+
+    public static SyncStatusSnapshot currentSnapshot() {
+        synchronized (lock) {
+            return current == null ? SyncStatusSnapshot.empty() : current;
+        }
+    }
+
+    public static void refreshIfEmpty() {
+        synchronized (lock) {
+            if (current != null) {
+                return;
+            }
+        }
+        if (!baselineRunning.compareAndSet(false, true)) {
+            return;
+        }
+        Single.fromCallable(SyncStatusHelper::snapshot)
+                .subscribeOn(AppSchedulers.interactive())
+                .doFinally(() -> baselineRunning.set(false))
+                .subscribe(SyncStatusService::publish, Throwable::printStackTrace);
+    }
+
+    /**
+     * Recounts only the given counters, on the sync threads: the stages that ask for it run there,
+     * and a recount must not hold up reads a screen is waiting for. Requests for a counter that is
+     * already being counted are merged into one more count after it, so a stream of page
+     * downloads never queues up scans.
+     */
+    public static void reconcile(SyncCounter... counters) {
+        for (SyncCounter counter : counters) {
+            reconcile(counter);
+        }
+    }
+
+    private static void reconcile(SyncCounter counter) {
+        if (!reconciling.get(counter).compareAndSet(false, true)) {
+            reconcilePending.get(counter).set(true);
+            return;
+        }
+        Single.fromCallable(counter::count)
+                .subscribeOn(AppSchedulers.sync())
+                .doFinally(() -> {
+                    reconciling.get(counter).set(false);
+                    if (reconcilePending.get(counter).compareAndSet(true, false)) {
+                        reconcile(counter);
+                    }
+                })
+                .subscribe(count -> update(counter, count), Throwable::printStackTrace);
+    }
+
+    /**
+     * Moves a counter by a known change, without counting. Downloads use it while pages arrive:
+     * a downloaded record may update one already stored, so the stage reconciles once at its end.
+     */
+    public static void increment(SyncCounter counter, int delta) {
+        synchronized (lock) {
+            if (current == null || delta == 0) {
+                return;
+            }
+            current = current.with(counter, current.get(counter) + delta);
+            snapshot.postValue(current);
+        }
+    }
+
+    public static void reset(SyncCounter... counters) {
+        for (SyncCounter counter : counters) {
+            update(counter, 0);
+        }
+    }
+
+    public static void clear() {
+        synchronized (lock) {
+            current = null;
+        }
+        snapshot.postValue(null);
+    }
+
+    private static void update(SyncCounter counter, int count) {
+        synchronized (lock) {
+            // Without a baseline the other counters are unknown; the baseline will include this one.
+            if (current == null || current.get(counter) == count) {
+                return;
+            }
+            current = current.with(counter, count);
+            snapshot.postValue(current);
+        }
+    }
+
+    private static void publish(SyncStatusSnapshot baseline) {
+        synchronized (lock) {
+            current = baseline;
+            snapshot.postValue(baseline);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.android.androidskeletonapp.data.service;
+
+public class SyncStatusSnapshot {
+
+    private final int programCount;
+    private final int dataSetCount;
+    private final int trackedEntityInstanceCount;
+    private final int singleEventCount;
+    private final int dataValueCount;
+
+    public SyncStatusSnapshot(int programCount, int dataSetCount, int trackedEntityInstanceCount,
+                              int singleEventCount, int dataValueCount) {
+        this.programCount = programCount;
+        this.dataSetCount = dataSetCount;
+        this.trackedEntityInstanceCount = trackedEntityInstanceCount;
+        this.singleEventCount = singleEventCount;
+        this.dataValueCount = dataValueCount;
+    }
+
+    public static SyncStatusSnapshot empty() {
+        return new SyncStatusSnapshot(0, 0, 0, 0, 0);
+    }
+
+    public int getProgramCount() {
+        return programCount;
+    }
+
+    public int getDataSetCount() {
+        return dataSetCount;
+    }
+
+    public int getTrackedEntityInstanceCount() {
+        return trackedEntityInstanceCount;
+    }
+
+    public int getSingleEventCount() {
+        return singleEventCount;
+    }
+
+    public int getDataValueCount() {
+        return dataValueCount;
+    }
+
+    public int get(SyncCounter counter) {
+        switch (counter) {
+            case PROGRAMS:
+                return programCount;
+            case DATA_SETS:
+                return dataSetCount;
+            case TRACKED_ENTITY_INSTANCES:
+                return trackedEntityInstanceCount;
+            case SINGLE_EVENTS:
+                return singleEventCount;
+            case DATA_VALUES:
+                return dataValueCount;
+            default:
+                throw new IllegalStateException("Unknown counter " + counter);
+        }
+    }
+
+    public SyncStatusSnapshot with(SyncCounter counter, int count) {
+        return new SyncStatusSnapshot(
+                counter == SyncCounter.PROGRAMS ? count : programCount,
+                counter == SyncCounter.DATA_SETS ? count : dataSetCount,
+                counter == SyncCounter.TRACKED_ENTITY_INSTANCES ? count : trackedEntityInstanceCount,
+                counter == SyncCounter.SINGLE_EVENTS ? count : singleEventCount,
+                counter == SyncCounter.DATA_VALUES ? count : dataValueCount);
+    }
+
+    public boolean isMetadataSynced() {
+        return programCount + dataSetCount > 0;
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.android.androidskeletonapp.data.service.adaptive;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableEmitter;
+import io.reactivex.CompletableTransformer;
+
+/**
+ * Tunes the download page size and the number of requests in flight to the link, AIMD style.
+ * Every download answered within the target latency grows the page size by a step and, once per
+ * round of requests, lets one more request run; a slow or failed download halves both. Cuts
+ * happen at most once per round, because the requests already in flight when the link got worse
+ * would otherwise halve the limits again.
+ */
+public class AdaptiveController {
+
+    private static final double THROUGHPUT_WEIGHT = 0.2;
+
+    private final int minPageSize;
+    private final int maxPageSize;
+    private final int minConcurrency;
+    private final int maxConcurrency;
+    private final long targetLatencyMillis;
+
+    private int pageSize;
+    private int concurrency;
+    private int samplesSinceIncrease;
+    private int samplesSinceDecrease;
+    private int lastRound;
+    private double bytesPerSecond;
+
+    private int inFlight;
+    private final Deque<Permit> waiting = new ArrayDeque<>();
+
+    public AdaptiveController(int minPageSize, int initialPageSize, int maxPageSize,
+                              int minConcurrency, int initialConcurrency, int maxConcurrency,
+                              long targetLatencyMillis) {
+        if (minPageSize < 1 || minConcurrency < 1) {
+            throw new IllegalArgumentException("Page size and concurrency must be positive");
+        }
+        if (initialPageSize < minPageSize || initialPageSize > maxPageSize
+                || initialConcurrency < minConcurrency || initialConcurrency > maxConcurrency) {
+            throw new IllegalArgumentException("Initial values must lie within their bounds");
+        }
+        this.minPageSize = minPageSize;
+        this.maxPageSize = maxPageSize;
+        this.minConcurrency = minConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.pageSize = initialPageSize;
+        this.concurrency = initialConcurrency;
+    }
+
+    public static AdaptiveController fixed(int pageSize, int concurrency) {
+        return new AdaptiveController(pageSize, pageSize, pageSize, concurrency, concurrency, concurrency,
+                Long.MAX_VALUE);
+    }
+
+    public synchronized int getPageSize() {
+        return pageSize;
+    }
+
+    public synchronized int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public synchronized long getBytesPerSecond() {
+        return (long) bytesPerSecond;
+    }
+
+    public void onResponse(long latencyMillis, long bytes) {
+        List<Permit> granted;
+        synchronized (this) {
+            if (latencyMillis > 0 && bytes > 0) {
+                double sample = bytes * 1000.0 / latencyMillis;
+                bytesPerSecond = bytesPerSecond == 0
+                        ? sample : bytesPerSecond + THROUGHPUT_WEIGHT * (sample - bytesPerSecond);
+            }
+            samplesSinceDecrease++;
+            if (latencyMillis > targetLatencyMillis) {
+                decrease();
+                return;
+            }
+            pageSize = Math.min(maxPageSize, pageSize + minPageSize);
+            if (++samplesSinceIncrease >= concurrency) {
+                samplesSinceIncrease = 0;
+                concurrency = Math.min(maxConcurrency, concurrency + 1);
+            }
+            granted = grant();
+        }
+        complete(granted);
+    }
+
+    public synchronized void onFailure() {
+        samplesSinceDecrease++;
+        decrease();
+    }
+
+    /**
+     * Holds each subscription back until fewer than {@link #getConcurrency()} subscriptions are
+     * running, in subscription order. Lowering the concurrency never cancels running calls; it
+     * only delays the next ones. A held back call is subscribed on the thread that freed its slot.
+     */
+    public CompletableTransformer limit() {
+        return upstream -> Completable.defer(() -> {
+            Permit permit = new Permit();
+            return Completable.create(emitter -> acquire(permit, emitter))
+                    .andThen(upstream)
+                    .doFinally(() -> release(permit));
+        });
+    }
+
+    private void decrease() {
+        if (samplesSinceDecrease <= lastRound) {
+            return;
+        }
+        lastRound = concurrency;
+        samplesSinceDecrease = 0;
+        samplesSinceIncrease = 0;
+        pageSize = Math.max(minPageSize, pageSize / 2);
+        concurrency = Math.max(minConcurrency, concurrency / 2);
+    }
+
+    private void acquire(Permit permit, CompletableEmitter emitter) {
+        List<Permit> granted;
+        synchronized (this) {
+            permit.emitter = emitter;
+            waiting.add(permit);
+            granted = grant();
+        }
+        complete(granted);
+    }
+
+    private void release(Permit permit) {
+        List<Permit> granted;
+        synchronized (this) {
+            if (permit.granted) {
+                permit.granted = false;
+                inFlight--;
+            } else {
+                waiting.remove(permit);
+            }
+            granted = grant();
+        }
+        complete(granted);
+    }
+
+    private List<Permit> grant() {
+        List<Permit> granted = new ArrayList<>();
+        while (inFlight < concurrency && !waiting.isEmpty()) {
+            Permit permit = waiting.poll();
+            permit.granted = true;
+            inFlight++;
+            granted.add(permit);
+        }
+        return granted;
+    }
+
+    // Started outside the lock: the call subscribes right away and may run on this thread.
+    private static void complete(List<Permit> granted) {
+        for (Permit permit : granted) {
+            permit.emitter.onComplete();
+        }
+    }
+
+    private static class Permit {
+        CompletableEmitter emitter;
+        boolean granted;
+    }
+}
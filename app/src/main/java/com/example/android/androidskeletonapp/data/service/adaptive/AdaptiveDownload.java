@@ -0,0 +1,45 @@
+package com.example.android.androidskeletonapp.data.service.adaptive;
+
+import com.example.android.androidskeletonapp.data.network.NetworkSettings;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import okhttp3.Interceptor;
+
+/**
+ * The controller shared by the tracker and aggregate downloads, fed by a network interceptor on
+ * the SDK client. Both downloads take their requests from the same budget, since they share the
+ * link.
+ */
+public class AdaptiveDownload {
+
+    public static final int MIN_PAGE_SIZE = 10;
+    public static final int INITIAL_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MIN_CONCURRENT_REQUESTS = 1;
+    public static final int INITIAL_CONCURRENT_REQUESTS = 3;
+    public static final int MAX_CONCURRENT_REQUESTS = 6;
+
+    // A third of the read timeout leaves room for the link to get worse before requests time out.
+    public static final long TARGET_LATENCY_MILLIS = NetworkSettings.READ_TIMEOUT_SECONDS * 1000L / 3;
+
+    private static final String[] MEASURED_RESOURCES = {
+            "trackedEntityInstances", "dataValueSets", "completeDataSetRegistrations", "dataApprovals"
+    };
+
+    private static final AdaptiveController controller = new AdaptiveController(
+            MIN_PAGE_SIZE, INITIAL_PAGE_SIZE, MAX_PAGE_SIZE,
+            MIN_CONCURRENT_REQUESTS, INITIAL_CONCURRENT_REQUESTS, MAX_CONCURRENT_REQUESTS,
+            TARGET_LATENCY_MILLIS);
+    private static final Interceptor interceptor =
+            new AdaptiveInterceptor(controller, new HashSet<>(Arrays.asList(MEASURED_RESOURCES)));
+
+    public static AdaptiveController controller() {
+        return controller;
+    }
+
+    public static Interceptor networkInterceptor() {
+        return interceptor;
+    }
+}
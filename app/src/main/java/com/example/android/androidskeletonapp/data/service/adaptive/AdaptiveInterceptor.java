@@ -0,0 +1,159 @@
+package com.example.android.androidskeletonapp.data.service.adaptive;
+
+import androidx.annotation.NonNull;
+
+import com.example.android.androidskeletonapp.data.service.resilience.FailureClassifier;
+
+import java.io.IOException;
+import java.util.Set;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Network interceptor feeding the latency and size of downloads from the given resources to an
+ * {@link AdaptiveController}. A download is measured until its body is consumed or closed, so a
+ * page that trickles in counts as slow even when its headers came back at once.
+ */
+class AdaptiveInterceptor implements Interceptor {
+
+    interface Clock {
+        long nanoTime();
+    }
+
+    private final AdaptiveController controller;
+    private final Set<String> resources;
+    private final Clock clock;
+
+    AdaptiveInterceptor(AdaptiveController controller, Set<String> resources) {
+        this(controller, resources, System::nanoTime);
+    }
+
+    AdaptiveInterceptor(AdaptiveController controller, Set<String> resources, Clock clock) {
+        this.controller = controller;
+        this.resources = resources;
+        this.clock = clock;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!isMeasured(request)) {
+            return chain.proceed(request);
+        }
+
+        long start = clock.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            controller.onFailure();
+            throw e;
+        }
+        if (!response.isSuccessful() && response.code() != 304) {
+            if (FailureClassifier.classifyHttp(response.code()).isRetryable()) {
+                controller.onFailure();
+            }
+            return response;
+        }
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            controller.onResponse(millisSince(start), 0);
+            return response;
+        }
+        return response.newBuilder()
+                .body(new MeasuredResponseBody(body, start))
+                .build();
+    }
+
+    private boolean isMeasured(Request request) {
+        if (!"GET".equals(request.method())) {
+            return false;
+        }
+        for (String segment : request.url().pathSegments()) {
+            if (resources.contains(segment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long millisSince(long startNanos) {
+        return (clock.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private class MeasuredResponseBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+        private final long start;
+        private long bytes;
+        private boolean reported;
+
+        MeasuredResponseBody(ResponseBody delegate, long start) {
+            this.delegate = delegate;
+            this.start = start;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                    long read;
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException e) {
+                        report(true);
+                        throw e;
+                    }
+                    if (read == -1) {
+                        report(false);
+                    } else {
+                        bytes += read;
+                    }
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    report(false);
+                    super.close();
+                }
+            });
+        }
+
+        private synchronized void report(boolean failed) {
+            if (reported) {
+                return;
+            }
+            reported = true;
+            if (failed) {
+                controller.onFailure();
+            } else {
+                controller.onResponse(millisSince(start), bytes);
+            }
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.android.androidskeletonapp.data.service.aggregate;
+
+public enum AggregateDimension {
+    DATA_ELEMENT,
+    PERIOD,
+    ORGANISATION_UNIT
+}
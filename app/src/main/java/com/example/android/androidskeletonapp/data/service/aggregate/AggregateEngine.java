@@ -0,0 +1,121 @@
+package com.example.android.androidskeletonapp.data.service.aggregate;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Local totals of the stored data values, grouped by data element, period and org unit. Every
+ * refresh rebuilds the totals from the whole table and swaps them in once done, so queries keep
+ * answering from the previous totals meanwhile. Neither the server's lastUpdated, which a download
+ * can move backwards, nor any column of the table tells which rows changed or disappeared since
+ * the last load, so nothing cheaper is correct. Values are streamed from the database, so no SDK
+ * model objects are built.
+ */
+public class AggregateEngine {
+
+    public static final long MEMORY_BUDGET_BYTES = 16L * 1024 * 1024;
+
+    private static final String TAG = "AggregateEngine";
+    private static final String QUERY = "SELECT dataElement, period, organisationUnit, categoryOptionCombo, "
+            + "attributeOptionCombo, value FROM DataValue WHERE deleted IS NOT 1";
+
+    private static final Object loadLock = new Object();
+    private static final AtomicBoolean loaded = new AtomicBoolean(false);
+    private static DataValueColumnStore store = new DataValueColumnStore(MEMORY_BUDGET_BYTES);
+
+    public static Single<Integer> refresh() {
+        return Single.fromCallable(AggregateEngine::load).subscribeOn(AppSchedulers.sync());
+    }
+
+    /**
+     * Loads the totals when nothing was loaded since the process started, e.g. when the app opens
+     * on data downloaded in an earlier session.
+     */
+    public static void refreshIfEmpty() {
+        if (loaded.get()) {
+            return;
+        }
+        Single.fromCallable(() -> {
+            synchronized (loadLock) {
+                return loaded.get() ? 0 : load();
+            }
+        })
+                .subscribeOn(AppSchedulers.sync())
+                .subscribe(values -> { }, Throwable::printStackTrace);
+    }
+
+    /**
+     * Totals are summed on a computation thread. The first query after the process started first
+     * scans the table on an interactive thread, since the caller is waiting for it; once loaded,
+     * queries never wait for a refresh.
+     */
+    public static Single<List<AggregateRow>> query(AggregateQuery query) {
+        return Single.fromCallable(() -> {
+            if (!loaded.get()) {
+                synchronized (loadLock) {
+                    if (!loaded.get()) {
+                        load();
+                    }
+                }
+            }
+            return current();
+        })
+                .subscribeOn(AppSchedulers.interactive())
+                .observeOn(Schedulers.computation())
+                .map(store -> store.query(query));
+    }
+
+    /**
+     * False when some values did not fit in {@link #MEMORY_BUDGET_BYTES}, so totals are partial.
+     */
+    public static boolean isComplete() {
+        return current().isComplete();
+    }
+
+    public static void clear() {
+        synchronized (loadLock) {
+            swap(new DataValueColumnStore(MEMORY_BUDGET_BYTES));
+            loaded.set(false);
+        }
+    }
+
+    private static synchronized DataValueColumnStore current() {
+        return store;
+    }
+
+    private static synchronized void swap(DataValueColumnStore next) {
+        store = next;
+    }
+
+    private static int load() {
+        synchronized (loadLock) {
+            long start = System.currentTimeMillis();
+            DataValueColumnStore next = new DataValueColumnStore(MEMORY_BUDGET_BYTES);
+            int rows = 0;
+            try (Cursor cursor = Sdk.d2().databaseAdapter().query(QUERY)) {
+                while (cursor.moveToNext()) {
+                    next.upsert(cursor.getString(0), cursor.getString(1), cursor.getString(2),
+                            cursor.getString(3), cursor.getString(4), cursor.getString(5));
+                    rows++;
+                }
+            }
+            swap(next);
+            loaded.set(true);
+            Log.i(TAG, "Loaded " + rows + " values in " + (System.currentTimeMillis() - start) + " ms, "
+                    + next.size() + " rows, ~" + next.estimatedBytes() / 1024 + " KB");
+            if (!next.isComplete()) {
+                Log.w(TAG, "Memory budget of " + MEMORY_BUDGET_BYTES / 1024 + " KB reached, totals are partial");
+            }
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.android.androidskeletonapp.data.service.aggregate;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+public class AggregateQuery {
+
+    private final Set<AggregateDimension> groupBy;
+    private final Map<AggregateDimension, String> filters;
+
+    private AggregateQuery(Set<AggregateDimension> groupBy, Map<AggregateDimension, String> filters) {
+        this.groupBy = Collections.unmodifiableSet(groupBy);
+        this.filters = Collections.unmodifiableMap(filters);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    Set<AggregateDimension> getGroupBy() {
+        return groupBy;
+    }
+
+    Map<AggregateDimension, String> getFilters() {
+        return filters;
+    }
+
+    public static class Builder {
+
+        private final Set<AggregateDimension> groupBy = EnumSet.noneOf(AggregateDimension.class);
+        private final Map<AggregateDimension, String> filters = new EnumMap<>(AggregateDimension.class);
+
+        public Builder groupBy(AggregateDimension... dimensions) {
+            Collections.addAll(groupBy, dimensions);
+            return this;
+        }
+
+        public Builder filter(AggregateDimension dimension, String uid) {
+            filters.put(dimension, uid);
+            return this;
+        }
+
+        public AggregateQuery build() {
+            return new AggregateQuery(EnumSet.copyOf(groupBy), new EnumMap<>(filters));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.android.androidskeletonapp.data.service.aggregate;
+
+import androidx.annotation.Nullable;
+
+import java.util.Map;
+
+public class AggregateRow {
+
+    private final Map<AggregateDimension, String> dimensions;
+    private final double sum;
+    private final int count;
+
+    AggregateRow(Map<AggregateDimension, String> dimensions, double sum, int count) {
+        this.dimensions = dimensions;
+        this.sum = sum;
+        this.count = count;
+    }
+
+    /**
+     * The UID of the given dimension, or null when the query did not group by it.
+     */
+    @Nullable
+    public String get(AggregateDimension dimension) {
+        return dimensions.get(dimension);
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.android.androidskeletonapp.data.service.aggregate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numeric data values in columns of primitive arrays, one row per value, with every UID
+ * dictionary encoded. Rows are found for updates through an open addressing index over the key
+ * columns, so neither lookups nor scans allocate per row. The store never grows beyond its memory
+ * budget: values that do not fit are rejected and the store reports itself as incomplete.
+ */
+class DataValueColumnStore {
+
+    // Five int key columns and one double value column, plus up to four int index slots per row.
+    private static final int COLUMN_BYTES_PER_ROW = 5 * 4 + 8;
+    static final int BYTES_PER_ROW = COLUMN_BYTES_PER_ROW + 4 * 4;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int CODE_BITS = 21;
+    private static final long CODE_MASK = (1L << CODE_BITS) - 1;
+
+    private final long memoryBudgetBytes;
+
+    private final UidDictionary dataElements = new UidDictionary();
+    private final UidDictionary periods = new UidDictionary();
+    private final UidDictionary organisationUnits = new UidDictionary();
+    private final UidDictionary optionCombos = new UidDictionary();
+
+    private int[] dataElementColumn = new int[0];
+    private int[] periodColumn = new int[0];
+    private int[] organisationUnitColumn = new int[0];
+    private int[] categoryOptionComboColumn = new int[0];
+    private int[] attributeOptionComboColumn = new int[0];
+    private double[] valueColumn = new double[0];
+    private int size;
+
+    // Row + 1 per slot, 0 for an empty slot; a power of two of at least twice the row capacity.
+    private int[] index = new int[0];
+
+    private boolean complete = true;
+
+    DataValueColumnStore(long memoryBudgetBytes) {
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /**
+     * Inserts or updates a value. Values that are not numeric are kept as NaN so a later update
+     * of the same key still finds its row, and are left out of sums.
+     *
+     * @return false when the value did not fit in the memory budget.
+     */
+    boolean upsert(String dataElement, String period, String organisationUnit, String categoryOptionCombo,
+                   String attributeOptionCombo, String value) {
+        if (dataElements.size() > CODE_MASK || periods.size() > CODE_MASK || organisationUnits.size() > CODE_MASK) {
+            complete = false;
+            return false;
+        }
+        int de = dataElements.encode(dataElement);
+        int pe = periods.encode(period);
+        int ou = organisationUnits.encode(organisationUnit);
+        int coc = optionCombos.encode(categoryOptionCombo);
+        int aoc = optionCombos.encode(attributeOptionCombo);
+        double number = parse(value);
+
+        int row = find(de, pe, ou, coc, aoc);
+        if (row >= 0) {
+            valueColumn[row] = number;
+            return true;
+        }
+        if (size == valueColumn.length && !grow()) {
+            complete = false;
+            return false;
+        }
+        row = size++;
+        dataElementColumn[row] = de;
+        periodColumn[row] = pe;
+        organisationUnitColumn[row] = ou;
+        categoryOptionComboColumn[row] = coc;
+        attributeOptionComboColumn[row] = aoc;
+        valueColumn[row] = number;
+        insertIntoIndex(row);
+        return true;
+    }
+
+    List<AggregateRow> query(AggregateQuery query) {
+        int deFilter = filterCode(query, AggregateDimension.DATA_ELEMENT, dataElements);
+        int peFilter = filterCode(query, AggregateDimension.PERIOD, periods);
+        int ouFilter = filterCode(query, AggregateDimension.ORGANISATION_UNIT, organisationUnits);
+        if (deFilter == UidDictionary.MISSING || peFilter == UidDictionary.MISSING
+                || ouFilter == UidDictionary.MISSING) {
+            return new ArrayList<>();
+        }
+        boolean byDe = query.getGroupBy().contains(AggregateDimension.DATA_ELEMENT);
+        boolean byPe = query.getGroupBy().contains(AggregateDimension.PERIOD);
+        boolean byOu = query.getGroupBy().contains(AggregateDimension.ORGANISATION_UNIT);
+
+        // Group keys pack the three dimension codes, plus one so that 0 means "not grouped".
+        Map<Long, double[]> groups = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            double value = valueColumn[row];
+            if (Double.isNaN(value)
+                    || (deFilter >= 0 && dataElementColumn[row] != deFilter)
+                    || (peFilter >= 0 && periodColumn[row] != peFilter)
+                    || (ouFilter >= 0 && organisationUnitColumn[row] != ouFilter)) {
+                continue;
+            }
+            long key = (byDe ? dataElementColumn[row] + 1L : 0L) << (2 * CODE_BITS)
+                    | (byPe ? periodColumn[row] + 1L : 0L) << CODE_BITS
+                    | (byOu ? organisationUnitColumn[row] + 1L : 0L);
+            double[] group = groups.get(key);
+            if (group == null) {
+                group = new double[2];
+                groups.put(key, group);
+            }
+            group[0] += value;
+            group[1]++;
+        }
+
+        List<AggregateRow> rows = new ArrayList<>(groups.size());
+        for (Map.Entry<Long, double[]> group : groups.entrySet()) {
+            long key = group.getKey();
+            Map<AggregateDimension, String> dimensions = new EnumMap<>(AggregateDimension.class);
+            putDimension(dimensions, AggregateDimension.DATA_ELEMENT, dataElements, key >>> (2 * CODE_BITS));
+            putDimension(dimensions, AggregateDimension.PERIOD, periods, (key >>> CODE_BITS) & CODE_MASK);
+            putDimension(dimensions, AggregateDimension.ORGANISATION_UNIT, organisationUnits, key & CODE_MASK);
+            rows.add(new AggregateRow(dimensions, group.getValue()[0], (int) group.getValue()[1]));
+        }
+        return rows;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isComplete() {
+        return complete;
+    }
+
+    long estimatedBytes() {
+        return (long) valueColumn.length * COLUMN_BYTES_PER_ROW + (long) index.length * 4
+                + dataElements.estimatedBytes() + periods.estimatedBytes()
+                + organisationUnits.estimatedBytes() + optionCombos.estimatedBytes();
+    }
+
+    private static double parse(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static int filterCode(AggregateQuery query, AggregateDimension dimension, UidDictionary dictionary) {
+        String uid = query.getFilters().get(dimension);
+        // -2 means no filter; MISSING means a filter on a UID the store has never seen.
+        return uid == null ? -2 : dictionary.lookup(uid);
+    }
+
+    private static void putDimension(Map<AggregateDimension, String> dimensions, AggregateDimension dimension,
+                                     UidDictionary dictionary, long code) {
+        if (code != 0) {
+            dimensions.put(dimension, dictionary.decode((int) code - 1));
+        }
+    }
+
+    private boolean grow() {
+        int capacity = valueColumn.length == 0 ? INITIAL_CAPACITY : valueColumn.length * 2;
+        long fixedBytes = estimatedBytes() - (long) valueColumn.length * COLUMN_BYTES_PER_ROW
+                - (long) index.length * 4;
+        long maxRows = (memoryBudgetBytes - fixedBytes) / BYTES_PER_ROW;
+        capacity = (int) Math.min(capacity, maxRows);
+        if (capacity <= size) {
+            return false;
+        }
+        dataElementColumn = Arrays.copyOf(dataElementColumn, capacity);
+        periodColumn = Arrays.copyOf(periodColumn, capacity);
+        organisationUnitColumn = Arrays.copyOf(organisationUnitColumn, capacity);
+        categoryOptionComboColumn = Arrays.copyOf(categoryOptionComboColumn, capacity);
+        attributeOptionComboColumn = Arrays.copyOf(attributeOptionComboColumn, capacity);
+        valueColumn = Arrays.copyOf(valueColumn, capacity);
+
+        index = new int[Integer.highestOneBit(2 * capacity - 1) << 1];
+        for (int row = 0; row < size; row++) {
+            insertIntoIndex(row);
+        }
+        return true;
+    }
+
+    private int find(int de, int pe, int ou, int coc, int aoc) {
+        if (index.length == 0) {
+            return -1;
+        }
+        int mask = index.length - 1;
+        for (int slot = hash(de, pe, ou, coc, aoc) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            int row = index[slot] - 1;
+            if (dataElementColumn[row] == de && periodColumn[row] == pe && organisationUnitColumn[row] == ou
+                    && categoryOptionComboColumn[row] == coc && attributeOptionComboColumn[row] == aoc) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    private void insertIntoIndex(int row) {
+        int mask = index.length - 1;
+        int slot = hash(dataElementColumn[row], periodColumn[row], organisationUnitColumn[row],
+                categoryOptionComboColumn[row], attributeOptionComboColumn[row]) & mask;
+        while (index[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        index[slot] = row + 1;
+    }
+
+    private static int hash(int de, int pe, int ou, int coc, int aoc) {
+        int hash = de;
+        hash = 31 * hash + pe;
+        hash = 31 * hash + ou;
+        hash = 31 * hash + coc;
+        hash = 31 * hash + aoc;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.android.androidskeletonapp.data.service.aggregate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes UIDs as dense ints, so columns hold four bytes per cell instead of a string reference.
+ */
+class UidDictionary {
+
+    static final int MISSING = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> uids = new ArrayList<>();
+    private long stringBytes;
+
+    int encode(String uid) {
+        Integer code = codes.get(uid);
+        if (code == null) {
+            code = uids.size();
+            codes.put(uid, code);
+            uids.add(uid);
+            stringBytes += 40 + 2L * uid.length();
+        }
+        return code;
+    }
+
+    int lookup(String uid) {
+        Integer code = codes.get(uid);
+        return code == null ? MISSING : code;
+    }
+
+    String decode(int code) {
+        return uids.get(code);
+    }
+
+    int size() {
+        return uids.size();
+    }
+
+    // String, map entry and list slot per UID; an estimate, not an exact heap measurement.
+    long estimatedBytes() {
+        return stringBytes + uids.size() * (32L + 4L);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.android.androidskeletonapp.data.service.download;
+
+import java.util.Set;
+
+public interface CheckpointStore {
+
+    Set<String> completedPages();
+
+    void markCompleted(String pageKey);
+
+    void clear();
+}
@@ -0,0 +1,29 @@
+package com.example.android.androidskeletonapp.data.service.download;
+
+public class DownloadPage {
+
+    private final String programUid;
+    private final String orgUnitUid;
+
+    public DownloadPage(String programUid, String orgUnitUid) {
+        this.programUid = programUid;
+        this.orgUnitUid = orgUnitUid;
+    }
+
+    public String getProgramUid() {
+        return programUid;
+    }
+
+    public String getOrgUnitUid() {
+        return orgUnitUid;
+    }
+
+    public String key() {
+        return programUid + "/" + orgUnitUid;
+    }
+
+    @Override
+    public String toString() {
+        return key();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.android.androidskeletonapp.data.service.download;
+
+public class DownloadPageProgress {
+
+    private final DownloadPage page;
+    private final int completedPages;
+    private final int totalPages;
+    private final int records;
+    private final long pageDurationMillis;
+
+    DownloadPageProgress(DownloadPage page, int completedPages, int totalPages, int records,
+                         long pageDurationMillis) {
+        this.page = page;
+        this.completedPages = completedPages;
+        this.totalPages = totalPages;
+        this.records = records;
+        this.pageDurationMillis = pageDurationMillis;
+    }
+
+    public DownloadPage getPage() {
+        return page;
+    }
+
+    public int getCompletedPages() {
+        return completedPages;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public int getRecords() {
+        return records;
+    }
+
+    public long getPageDurationMillis() {
+        return pageDurationMillis;
+    }
+
+    public boolean isComplete() {
+        return completedPages == totalPages;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.android.androidskeletonapp.data.service.download;
+
+import io.reactivex.Single;
+
+public interface PageDownloader {
+
+    /**
+     * Downloads one server page of the tracked entity instances of a program x org unit pair and
+     * returns how many instances it held. Page numbers start at 1.
+     */
+    Single<Integer> download(DownloadPage page, int pageNumber, int pageSize);
+}
@@ -0,0 +1,72 @@
+package com.example.android.androidskeletonapp.data.service.download;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.resilience.HttpStatusException;
+import com.example.android.androidskeletonapp.data.service.search.SearchIndexEngine;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.reactivex.Single;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import retrofit2.Retrofit;
+
+/**
+ * The SDK downloader only takes a total limit per program and org unit, not a page, so the uids
+ * of a page are read first with the SDK's authenticated client and the SDK then downloads and
+ * stores exactly those instances.
+ */
+public class SdkPageDownloader implements PageDownloader {
+
+    private static final String RESOURCE = "trackedEntityInstances";
+
+    @Override
+    public Single<Integer> download(DownloadPage page, int pageNumber, int pageSize) {
+        return Single.fromCallable(() -> uids(page, pageNumber, pageSize))
+                .flatMap(uids -> uids.isEmpty()
+                        ? Single.just(0)
+                        : Sdk.d2().trackedEntityModule().trackedEntityInstanceDownloader()
+                                .byProgramUid(page.getProgramUid())
+                                .byUid().in(uids)
+                                .download()
+                                .ignoreElements()
+                                .doOnComplete(() -> SearchIndexEngine.markChanged(uids))
+                                .toSingleDefault(uids.size()));
+    }
+
+    private static List<String> uids(DownloadPage page, int pageNumber, int pageSize) throws IOException {
+        Retrofit retrofit = Sdk.d2().retrofit();
+        HttpUrl url = retrofit.baseUrl().resolve(RESOURCE).newBuilder()
+                .addQueryParameter("program", page.getProgramUid())
+                .addQueryParameter("ou", page.getOrgUnitUid())
+                .addQueryParameter("ouMode", "SELECTED")
+                .addQueryParameter("fields", "trackedEntityInstance")
+                .addQueryParameter("order", "created:asc")
+                .addQueryParameter("page", String.valueOf(pageNumber))
+                .addQueryParameter("pageSize", String.valueOf(pageSize))
+                .addQueryParameter("totalPages", "false")
+                .build();
+        try (Response response = retrofit.callFactory().newCall(new Request.Builder().url(url).build()).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new HttpStatusException(response.code());
+            }
+            JSONArray instances = new JSONObject(body.string()).optJSONArray(RESOURCE);
+            List<String> uids = new ArrayList<>();
+            for (int i = 0; instances != null && i < instances.length(); i++) {
+                uids.add(instances.getJSONObject(i).getString("trackedEntityInstance"));
+            }
+            return uids;
+        } catch (JSONException e) {
+            throw new IOException("Unable to parse page " + pageNumber + " of " + page, e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.android.androidskeletonapp.data.service.download;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SharedPreferencesCheckpointStore implements CheckpointStore {
+
+    private static final String PREFERENCES = "download_checkpoints";
+
+    private final SharedPreferences preferences;
+    private final String name;
+
+    public SharedPreferencesCheckpointStore(Context context, String name) {
+        this.preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+        this.name = name;
+    }
+
+    /**
+     * Removes the stores whose name starts with {@code prefix}, except {@code keep}: the
+     * checkpoints of runs that ended without clearing them.
+     */
+    public static void removeOthers(Context context, String prefix, String keep) {
+        SharedPreferences preferences = context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = preferences.edit();
+        for (String name : preferences.getAll().keySet()) {
+            if (name.startsWith(prefix) && !name.equals(keep)) {
+                editor.remove(name);
+            }
+        }
+        editor.commit();
+    }
+
+    @Override
+    public synchronized Set<String> completedPages() {
+        return Collections.unmodifiableSet(
+                new HashSet<>(preferences.getStringSet(name, Collections.emptySet())));
+    }
+
+    @Override
+    public synchronized void markCompleted(String pageKey) {
+        // The returned set must not be modified in place, so it is always copied before writing.
+        Set<String> completed = new HashSet<>(preferences.getStringSet(name, Collections.emptySet()));
+        completed.add(pageKey);
+        preferences.edit().putStringSet(name, completed).commit();
+    }
+
+    @Override
+    public synchronized void clear() {
+        preferences.edit().remove(name).commit();
+    }
+}
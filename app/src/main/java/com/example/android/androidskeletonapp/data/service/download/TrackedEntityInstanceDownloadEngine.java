@@ -0,0 +1,193 @@
+package com.example.android.androidskeletonapp.data.service.download;
+
+import androidx.annotation.Nullable;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.RetryWithBackoff;
+import com.example.android.androidskeletonapp.data.service.adaptive.AdaptiveController;
+import com.example.android.androidskeletonapp.data.service.adaptive.AdaptiveDownload;
+import com.example.android.androidskeletonapp.data.service.resilience.CircuitBreaker;
+import com.example.android.androidskeletonapp.data.service.resilience.SyncResilience;
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
+
+import org.hisp.dhis.android.core.organisationunit.OrganisationUnit;
+import org.hisp.dhis.android.core.program.Program;
+import org.hisp.dhis.android.core.program.ProgramType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+
+/**
+ * Downloads tracked entity instances as program x org unit pages, running a bounded number of
+ * pages at once. Each finished page is checkpointed, so an interrupted download resumes with the
+ * pages that are still missing. Checkpoints are cleared once every page has been downloaded.
+ * A failed page does not stop the others; the download fails after all pages have been tried.
+ * Each pair is read from the server in pages until a short page comes back. The page size and
+ * the number of requests at once come from an {@link AdaptiveController}.
+ */
+public class TrackedEntityInstanceDownloadEngine {
+
+    private final PageDownloader pageDownloader;
+    private final CheckpointStore checkpointStore;
+    private final Scheduler scheduler;
+    private final AdaptiveController controller;
+    @Nullable
+    private final CircuitBreaker breaker;
+    @Nullable
+    private final RetryWithBackoff retry;
+
+    public TrackedEntityInstanceDownloadEngine(PageDownloader pageDownloader,
+                                               CheckpointStore checkpointStore,
+                                               Scheduler scheduler,
+                                               int pageSize,
+                                               int maxConcurrentPages) {
+        this(pageDownloader, checkpointStore, scheduler, pageSize, maxConcurrentPages, null, null);
+    }
+
+    /**
+     * Pages are retried with {@code retry} and go through {@code breaker}, so an overloaded
+     * server is not sent the remaining pages at full speed.
+     */
+    public TrackedEntityInstanceDownloadEngine(PageDownloader pageDownloader,
+                                               CheckpointStore checkpointStore,
+                                               Scheduler scheduler,
+                                               int pageSize,
+                                               int maxConcurrentPages,
+                                               @Nullable CircuitBreaker breaker,
+                                               @Nullable RetryWithBackoff retry) {
+        this(pageDownloader, checkpointStore, scheduler, AdaptiveController.fixed(pageSize, maxConcurrentPages),
+                breaker, retry);
+    }
+
+    public TrackedEntityInstanceDownloadEngine(PageDownloader pageDownloader,
+                                               CheckpointStore checkpointStore,
+                                               Scheduler scheduler,
+                                               AdaptiveController controller,
+                                               @Nullable CircuitBreaker breaker,
+                                               @Nullable RetryWithBackoff retry) {
+        this.pageDownloader = pageDownloader;
+        this.checkpointStore = checkpointStore;
+        this.scheduler = scheduler;
+        this.controller = controller;
+        this.breaker = breaker;
+        this.retry = retry;
+    }
+
+    /**
+     * @param checkpointStore the finished pages of this download; the caller decides how long
+     *                        they are trusted, e.g. for the retries of one sync.
+     */
+    public static TrackedEntityInstanceDownloadEngine create(CheckpointStore checkpointStore) {
+        return new TrackedEntityInstanceDownloadEngine(
+                new SdkPageDownloader(),
+                checkpointStore,
+                AppSchedulers.sync(),
+                AdaptiveDownload.controller(),
+                SyncResilience.breaker(),
+                SyncResilience.retry());
+    }
+
+    public Observable<DownloadPageProgress> download() {
+        return Observable.defer(() -> download(buildPages()));
+    }
+
+    public Observable<DownloadPageProgress> download(List<DownloadPage> pages) {
+        return Observable.defer(() -> {
+            Set<String> completed = checkpointStore.completedPages();
+            List<DownloadPage> pending = new ArrayList<>();
+            for (DownloadPage page : pages) {
+                if (!completed.contains(page.key())) {
+                    pending.add(page);
+                }
+            }
+
+            int totalPages = pages.size();
+            AtomicInteger completedPages = new AtomicInteger(totalPages - pending.size());
+
+            return Observable.fromIterable(pending)
+                    .flatMap(page -> downloadPage(page, completedPages, totalPages), true,
+                            controller.getMaxConcurrency())
+                    .doOnComplete(checkpointStore::clear);
+        });
+    }
+
+    private Observable<DownloadPageProgress> downloadPage(DownloadPage page, AtomicInteger completedPages,
+                                                          int totalPages) {
+        return Observable.defer(() -> {
+            long start = System.currentTimeMillis();
+            return downloadFrom(page, 1, controller.getPageSize(), 0)
+                    .map(records -> {
+                        checkpointStore.markCompleted(page.key());
+                        return new DownloadPageProgress(page, completedPages.incrementAndGet(), totalPages,
+                                records, System.currentTimeMillis() - start);
+                    })
+                    .toObservable();
+        }).subscribeOn(scheduler);
+    }
+
+    /**
+     * Server pages of a pair are fetched one after another until a page comes back short, so
+     * pairs holding more instances than one page are downloaded in full. The controller's page
+     * size is taken up between pages whenever the next page can start where the last one ended.
+     */
+    private Single<Integer> downloadFrom(DownloadPage page, int pageNumber, int pageSize, int records) {
+        return downloadServerPage(page, pageNumber, pageSize)
+                .flatMap(count -> {
+                    if (count < pageSize) {
+                        return Single.just(records + count);
+                    }
+                    int offset = pageNumber * pageSize;
+                    int nextPageSize = nextPageSize(offset, pageSize, controller.getPageSize());
+                    return downloadFrom(page, offset / nextPageSize + 1, nextPageSize, records + count);
+                });
+    }
+
+    /**
+     * The size of the page starting at {@code offset}. The server numbers pages in multiples of
+     * the page size, so the wanted size is only taken when the offset is one of its multiples;
+     * otherwise the pages would skip or repeat instances.
+     */
+    static int nextPageSize(int offset, int pageSize, int wantedPageSize) {
+        return offset % wantedPageSize == 0 ? wantedPageSize : pageSize;
+    }
+
+    private Single<Integer> downloadServerPage(DownloadPage page, int pageNumber, int pageSize) {
+        AtomicInteger count = new AtomicInteger();
+        Completable download = Completable.defer(() -> pageDownloader.download(page, pageNumber, pageSize)
+                .doOnSuccess(count::set)
+                .ignoreElement());
+        if (breaker != null) {
+            download = download.compose(breaker.protectCompletable());
+        }
+        // A request let through by the limit starts on the thread that freed its slot, so it hops back.
+        download = download.subscribeOn(scheduler).compose(controller.limit());
+        if (retry != null) {
+            download = download.retryWhen(retry);
+        }
+        return download.andThen(Single.fromCallable(count::get));
+    }
+
+    private static List<DownloadPage> buildPages() {
+        List<Program> programs = Sdk.d2().programModule().programs()
+                .byProgramType().eq(ProgramType.WITH_REGISTRATION)
+                .blockingGet();
+        List<OrganisationUnit> orgUnits = Sdk.d2().organisationUnitModule().organisationUnits()
+                .byOrganisationUnitScope(OrganisationUnit.Scope.SCOPE_DATA_CAPTURE)
+                .blockingGet();
+
+        List<DownloadPage> pages = new ArrayList<>();
+        for (Program program : programs) {
+            for (OrganisationUnit orgUnit : orgUnits) {
+                pages.add(new DownloadPage(program.uid(), orgUnit.uid()));
+            }
+        }
+        return pages;
+    }
+}
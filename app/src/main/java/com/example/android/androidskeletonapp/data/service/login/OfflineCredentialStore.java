@@ -0,0 +1,58 @@
+package com.example.android.androidskeletonapp.data.service.login;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.security.GeneralSecurityException;
+
+/**
+ * The credentials of the last successful online login, kept as a salted hash. The SDK database
+ * belongs to one user on one server, so only that pair can log in offline.
+ */
+public class OfflineCredentialStore {
+
+    private static final String PREFERENCES = "offline_credentials";
+    private static final String KEY_SERVER_URL = "server_url";
+    private static final String KEY_USERNAME = "username";
+    private static final String KEY_HASH = "hash";
+
+    private final SharedPreferences preferences;
+    private final PasswordHasher hasher;
+
+    public OfflineCredentialStore(Context context) {
+        this(context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE), new PasswordHasher());
+    }
+
+    OfflineCredentialStore(SharedPreferences preferences, PasswordHasher hasher) {
+        this.preferences = preferences;
+        this.hasher = hasher;
+    }
+
+    public void save(String serverUrl, String username, String password) throws GeneralSecurityException {
+        preferences.edit()
+                .putString(KEY_SERVER_URL, normalize(serverUrl))
+                .putString(KEY_USERNAME, username)
+                .putString(KEY_HASH, hasher.hash(password))
+                .apply();
+    }
+
+    public boolean matches(String serverUrl, String username, String password) throws GeneralSecurityException {
+        String hash = preferences.getString(KEY_HASH, null);
+        return hash != null
+                && normalize(serverUrl).equals(preferences.getString(KEY_SERVER_URL, null))
+                && username.equals(preferences.getString(KEY_USERNAME, null))
+                && hasher.verify(password, hash);
+    }
+
+    public void clear() {
+        preferences.edit().clear().apply();
+    }
+
+    private static String normalize(String serverUrl) {
+        String url = serverUrl.trim();
+        while (url.endsWith("/")) {
+            url = url.substring(0, url.length() - 1);
+        }
+        return url;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.android.androidskeletonapp.data.service.login;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.resilience.SyncResilience;
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
+
+import org.hisp.dhis.android.core.maintenance.D2Error;
+import org.hisp.dhis.android.core.maintenance.D2ErrorCode;
+import org.hisp.dhis.android.core.user.User;
+
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+
+/**
+ * Offline-first login. Credentials that match the last successful online login open the stored
+ * database at once, and the server confirms them in the background. When the server rejects them,
+ * for example because the password was changed, the local session is revoked. The SDK keeps no
+ * credentials across a logout, so it only has a session once the server confirmed the login;
+ * until then network jobs wait for it (see {@link SessionPendingException}). A confirmation that
+ * keeps failing is reported, so the user knows the data is not syncing.
+ */
+public class OfflineLoginService {
+
+    public static final long LOCAL_LOGIN_BUDGET_MILLIS = 100;
+
+    private static final String TAG = "OfflineLogin";
+
+    private static final MutableLiveData<Boolean> credentialsRejected = new MutableLiveData<>();
+    private static final MutableLiveData<Boolean> verificationFailed = new MutableLiveData<>();
+
+    private static Disposable verification = Disposables.disposed();
+
+    private final OfflineCredentialStore store;
+
+    public OfflineLoginService(Context context) {
+        this.store = new OfflineCredentialStore(context.getApplicationContext());
+    }
+
+    public static LiveData<Boolean> credentialsRejected() {
+        return credentialsRejected;
+    }
+
+    public static void consumeRejection() {
+        credentialsRejected.setValue(false);
+    }
+
+    public static LiveData<Boolean> verificationFailed() {
+        return verificationFailed;
+    }
+
+    public static void consumeVerificationFailure() {
+        verificationFailed.setValue(false);
+    }
+
+    /**
+     * Emits the stored user when the credentials match the last online login, and completes
+     * without a value otherwise.
+     */
+    public Maybe<User> logInLocally(String username, String password, String serverUrl) {
+        return Maybe.fromCallable(() -> {
+            long start = SystemClock.elapsedRealtime();
+            if (!store.matches(serverUrl, username, password)) {
+                return null;
+            }
+            User user = Sdk.d2().userModule().user().blockingGet();
+            long elapsed = SystemClock.elapsedRealtime() - start;
+            if (elapsed > LOCAL_LOGIN_BUDGET_MILLIS) {
+                Log.w(TAG, "Local login took " + elapsed + " ms, budget " + LOCAL_LOGIN_BUDGET_MILLIS + " ms");
+            } else {
+                Log.i(TAG, "Local login took " + elapsed + " ms");
+            }
+            return user;
+        }).subscribeOn(AppSchedulers.interactive());
+    }
+
+    public Single<User> logInOnline(String username, String password, String serverUrl) {
+        return Sdk.d2().userModule().logIn(username, password, serverUrl)
+                .doOnSuccess(user -> store.save(serverUrl, username, password))
+                .subscribeOn(AppSchedulers.interactive());
+    }
+
+    /**
+     * Confirms a local login with the server, retrying while it is unreachable. A later login
+     * replaces a confirmation still in progress.
+     */
+    public void verifyInBackground(String username, String password, String serverUrl) {
+        long start = SystemClock.elapsedRealtime();
+        Disposable disposable = logInOnline(username, password, serverUrl)
+                .retryWhen(SyncResilience.retry())
+                .subscribe(
+                        user -> Log.i(TAG, "Online login confirmed after "
+                                + (SystemClock.elapsedRealtime() - start) + " ms"),
+                        throwable -> {
+                            if (isRejected(throwable)) {
+                                store.clear();
+                                credentialsRejected.postValue(true);
+                            } else {
+                                // Offline or server unreachable: the local session stays valid,
+                                // but nothing syncs until the next login is confirmed.
+                                Log.w(TAG, "Online login could not be confirmed", throwable);
+                                verificationFailed.postValue(true);
+                            }
+                        });
+        synchronized (OfflineLoginService.class) {
+            verification.dispose();
+            verification = disposable;
+        }
+    }
+
+    private static boolean isRejected(Throwable throwable) {
+        return throwable instanceof D2Error
+                && ((D2Error) throwable).errorCode() == D2ErrorCode.BAD_CREDENTIALS;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.android.androidskeletonapp.data.service.login;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+import java.util.Locale;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Salted PBKDF2 password hashes, stored as {@code iterations:salt:hash} with hex encoded bytes.
+ * The iteration count keeps a verification well under the local login budget on a mid-range
+ * device while making offline guessing expensive; it is stored with the hash so it can be raised
+ * without invalidating hashes saved by older versions.
+ */
+public class PasswordHasher {
+
+    public static final int DEFAULT_ITERATIONS = 10000;
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA1";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    public PasswordHasher() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    public PasswordHasher(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public String hash(String password) throws GeneralSecurityException {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        return String.format(Locale.US, "%d:%s:%s", iterations, toHex(salt), toHex(hash));
+    }
+
+    public boolean verify(String password, String stored) throws GeneralSecurityException {
+        String[] parts = stored.split(":");
+        if (parts.length != 3) {
+            return false;
+        }
+        int storedIterations;
+        byte[] salt;
+        byte[] expected;
+        try {
+            storedIterations = Integer.parseInt(parts[0]);
+            salt = fromHex(parts[1]);
+            expected = fromHex(parts[2]);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // Constant time, so the comparison does not leak how many leading bytes matched.
+        return MessageDigest.isEqual(expected, pbkdf2(password, salt, storedIterations));
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) throws GeneralSecurityException {
+        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Odd hex length");
+        }
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(hex.charAt(2 * i), 16);
+            int low = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (high < 0 || low < 0) {
+                throw new IllegalArgumentException("Invalid hex digit");
+            }
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+}
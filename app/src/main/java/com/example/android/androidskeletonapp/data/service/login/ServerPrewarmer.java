@@ -0,0 +1,63 @@
+package com.example.android.androidskeletonapp.data.service.login;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
+
+import java.net.InetAddress;
+
+import io.reactivex.Completable;
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Warms up the connection to a server while the user is still typing: resolves its host, opens
+ * the TLS connection and probes the system info endpoint. The SDK's own client is used, so the
+ * pooled connection is the one the login request goes out on. The probe is not authenticated, so
+ * any HTTP status, including 401, means the server is reachable.
+ */
+public class ServerPrewarmer {
+
+    private static final String TAG = "ServerPrewarmer";
+
+    public Completable prewarm(String serverUrl) {
+        return Completable.fromAction(() -> {
+            HttpUrl url = systemInfoUrl(serverUrl);
+            if (url == null) {
+                return;
+            }
+            Call.Factory callFactory = Sdk.d2().retrofit().callFactory();
+
+            long start = SystemClock.elapsedRealtime();
+            if (callFactory instanceof OkHttpClient) {
+                ((OkHttpClient) callFactory).dns().lookup(url.host());
+            } else {
+                InetAddress.getAllByName(url.host());
+            }
+            long resolved = SystemClock.elapsedRealtime();
+
+            Request request = new Request.Builder().url(url).build();
+            try (Response response = callFactory.newCall(request).execute()) {
+                Log.i(TAG, "Prewarmed " + url.host() + ": dns " + (resolved - start) + " ms, connect and probe "
+                        + (SystemClock.elapsedRealtime() - resolved) + " ms, status " + response.code());
+            }
+        }).subscribeOn(AppSchedulers.interactive());
+    }
+
+    @Nullable
+    static HttpUrl systemInfoUrl(String serverUrl) {
+        String url = serverUrl.trim();
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            url = "https://" + url;
+        }
+        HttpUrl base = HttpUrl.parse(url.endsWith("/") ? url : url + "/");
+        return base == null ? null : base.resolve("api/system/info");
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.android.androidskeletonapp.data.service.login;
+
+/**
+ * The user logged in offline and the server has not confirmed the credentials yet, so the SDK has
+ * no session to call the server with.
+ */
+public class SessionPendingException extends Exception {
+
+    public SessionPendingException() {
+        super("The login has not been confirmed by the server yet");
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.android.androidskeletonapp.data.service.maintenance;
+
+/**
+ * How to give free pages back to the file system. Pages freed by deletes stay in the file and are
+ * reused by later inserts, so compacting only pays off once a good share of the file is free.
+ * Incremental vacuum needs the database built in that mode, and converting it takes one full
+ * vacuum, which rewrites the whole file and needs as much spare disk space again.
+ */
+public enum Compaction {
+    NONE,
+    INCREMENTAL,
+    FULL;
+
+    public static final double MIN_FREE_RATIO = 0.1;
+    public static final double FULL_VACUUM_FREE_RATIO = 0.25;
+
+    static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    public static Compaction choose(long pageCount, long freePages, int autoVacuum, boolean roomToRebuild) {
+        if (pageCount == 0 || freePages < pageCount * MIN_FREE_RATIO) {
+            return NONE;
+        }
+        if (autoVacuum == AUTO_VACUUM_INCREMENTAL) {
+            return INCREMENTAL;
+        }
+        return roomToRebuild && freePages >= pageCount * FULL_VACUUM_FREE_RATIO ? FULL : NONE;
+    }
+}
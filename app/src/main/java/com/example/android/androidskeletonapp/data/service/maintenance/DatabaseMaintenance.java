@@ -0,0 +1,162 @@
+package com.example.android.androidskeletonapp.data.service.maintenance;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import com.example.android.androidskeletonapp.data.service.SyncStatusHelper;
+
+import org.hisp.dhis.android.core.arch.db.access.DatabaseAdapter;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps the SDK database quick after large downloads, imports and wipes: adds indexes for the
+ * predicates the app queries most, refreshes the planner statistics, compacts the file once
+ * enough of it is free and truncates the write-ahead log. The status counts are timed before
+ * and after, so the log shows what the pass bought. Each timing is the median of a few runs after
+ * an untimed one, so a cold page cache or compiling the statements is not taken for the win.
+ */
+public class DatabaseMaintenance {
+
+    private static final String TAG = "DbMaintenance";
+    private static final int TIMED_RUNS = 5;
+
+    // Index name, table, columns. The SDK only indexes its unique keys.
+    private static final String[][] INDEXES = {
+            // Status counts and uploads filter on state; a != predicate is answered by scanning
+            // the small index instead of the table.
+            {"app_tracked_entity_instance_state", "TrackedEntityInstance", "state"},
+            {"app_event_state", "Event", "state"},
+            {"app_data_value_state", "DataValue", "state"},
+            // Single events are the ones without an enrollment.
+            {"app_event_enrollment", "Event", "enrollment"},
+            // The search index reads attribute values by instance.
+            {"app_attribute_value_instance", "TrackedEntityAttributeValue", "trackedEntityInstance"}
+    };
+
+    private final DatabaseAdapter databaseAdapter;
+
+    public DatabaseMaintenance(DatabaseAdapter databaseAdapter) {
+        this.databaseAdapter = databaseAdapter;
+    }
+
+    public MaintenanceReport run() {
+        long bytesBefore = size();
+        long queryMillisBefore = timeStatusCounts();
+
+        int indexesCreated = createIndexes();
+        execute("ANALYZE");
+
+        long pageCount = pragma("page_count");
+        File file = databaseFile();
+        boolean roomToRebuild = file != null && file.getUsableSpace() > 2 * bytesBefore;
+        Compaction compaction = Compaction.choose(pageCount, pragma("freelist_count"),
+                (int) pragma("auto_vacuum"), roomToRebuild);
+        try {
+            compact(compaction);
+        } catch (SQLiteException e) {
+            // A vacuum gives up when other connections are reading; the next pass tries again.
+            Log.w(TAG, "Compaction skipped", e);
+            compaction = Compaction.NONE;
+        }
+        drain("PRAGMA wal_checkpoint(TRUNCATE)");
+
+        MaintenanceReport report = new MaintenanceReport(bytesBefore, size(), queryMillisBefore,
+                timeStatusCounts(), indexesCreated, compaction);
+        Log.i(TAG, report.toString());
+        return report;
+    }
+
+    private int createIndexes() {
+        Set<String> tables = names("table");
+        Set<String> indexes = names("index");
+        int created = 0;
+        for (String[] index : INDEXES) {
+            if (!tables.contains(index[1]) || indexes.contains(index[0])) {
+                continue;
+            }
+            execute("CREATE INDEX IF NOT EXISTS " + index[0] + " ON " + index[1] + " (" + index[2] + ")");
+            created++;
+        }
+        return created;
+    }
+
+    private void compact(Compaction compaction) {
+        switch (compaction) {
+            case FULL:
+                // The mode only takes effect with the rebuild; later passes go incremental.
+                execute("PRAGMA auto_vacuum = INCREMENTAL");
+                execute("VACUUM");
+                break;
+            case INCREMENTAL:
+                drain("PRAGMA incremental_vacuum");
+                break;
+            default:
+                break;
+        }
+    }
+
+    private long timeStatusCounts() {
+        SyncStatusHelper.snapshot();
+        long[] millis = new long[TIMED_RUNS];
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            long start = System.nanoTime();
+            SyncStatusHelper.snapshot();
+            millis[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(millis);
+        return millis[TIMED_RUNS / 2];
+    }
+
+    private long size() {
+        return pragma("page_count") * pragma("page_size");
+    }
+
+    private File databaseFile() {
+        try (Cursor cursor = databaseAdapter.query("PRAGMA database_list")) {
+            while (cursor.moveToNext()) {
+                if ("main".equals(cursor.getString(1))) {
+                    String path = cursor.getString(2);
+                    return path == null || path.isEmpty() ? null : new File(path);
+                }
+            }
+        }
+        return null;
+    }
+
+    private Set<String> names(String type) {
+        Set<String> names = new HashSet<>();
+        try (Cursor cursor = databaseAdapter.query("SELECT name FROM sqlite_master WHERE type = ?", type)) {
+            while (cursor.moveToNext()) {
+                names.add(cursor.getString(0));
+            }
+        }
+        return names;
+    }
+
+    private long pragma(String name) {
+        try (Cursor cursor = databaseAdapter.query("PRAGMA " + name)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    // Some pragmas return rows, which a compiled statement refuses to run.
+    private void drain(String sql) {
+        try (Cursor cursor = databaseAdapter.query(sql)) {
+            while (cursor.moveToNext()) {
+                // Stepping through the rows runs the pragma.
+            }
+        }
+    }
+
+    private void execute(String sql) {
+        try (SQLiteStatement statement = databaseAdapter.compileStatement(sql)) {
+            statement.execute();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.android.androidskeletonapp.data.service.maintenance;
+
+import java.util.Locale;
+
+public class MaintenanceReport {
+
+    private final long bytesBefore;
+    private final long bytesAfter;
+    private final long queryMillisBefore;
+    private final long queryMillisAfter;
+    private final int indexesCreated;
+    private final Compaction compaction;
+
+    MaintenanceReport(long bytesBefore, long bytesAfter, long queryMillisBefore, long queryMillisAfter,
+                      int indexesCreated, Compaction compaction) {
+        this.bytesBefore = bytesBefore;
+        this.bytesAfter = bytesAfter;
+        this.queryMillisBefore = queryMillisBefore;
+        this.queryMillisAfter = queryMillisAfter;
+        this.indexesCreated = indexesCreated;
+        this.compaction = compaction;
+    }
+
+    public long getBytesBefore() {
+        return bytesBefore;
+    }
+
+    public long getBytesAfter() {
+        return bytesAfter;
+    }
+
+    public long getQueryMillisBefore() {
+        return queryMillisBefore;
+    }
+
+    public long getQueryMillisAfter() {
+        return queryMillisAfter;
+    }
+
+    public int getIndexesCreated() {
+        return indexesCreated;
+    }
+
+    public Compaction getCompaction() {
+        return compaction;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "size %d KB -> %d KB, status counts %d ms -> %d ms, "
+                        + "%d indexes created, compaction %s",
+                bytesBefore / 1024, bytesAfter / 1024, queryMillisBefore, queryMillisAfter,
+                indexesCreated, compaction.name().toLowerCase(Locale.US));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.android.androidskeletonapp.data.service.metadata;
+
+import android.content.Context;
+import android.net.TrafficStats;
+import android.os.Process;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.SyncStatusHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import io.reactivex.Observable;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Skips the metadata download when no module changed on the server since the last download.
+ * The SDK only exposes the metadata download as a whole, so as soon as one module changed the
+ * full download runs; the report lists which modules triggered it.
+ */
+public class MetadataDeltaSync {
+
+    private static final int MAX_CONCURRENT_PROBES = 4;
+
+    private final MetadataWatermarkStore store;
+
+    public MetadataDeltaSync(Context context) {
+        this.store = new MetadataWatermarkStore(context);
+    }
+
+    public Single<MetadataSyncReport> sync(boolean fullRefresh) {
+        return Single.fromCallable(() -> fullRefresh || !store.hasWatermarks() || !hasLocalMetadata()
+                ? downloadAll()
+                : downloadChanged());
+    }
+
+    public void reset() {
+        store.clear();
+    }
+
+    private MetadataSyncReport downloadAll() throws Exception {
+        long start = System.currentTimeMillis();
+        long startBytes = receivedBytes();
+
+        // Watermarks are read before downloading, so changes made during the download are not lost.
+        // A failing probe must not block a full refresh; the next sync will simply be a full one too.
+        Map<MetadataModule, MetadataWatermark> watermarks;
+        try {
+            watermarks = probeAll();
+        } catch (Exception e) {
+            e.printStackTrace();
+            watermarks = null;
+        }
+        Sdk.d2().metadataModule().blockingDownload();
+
+        long duration = System.currentTimeMillis() - start;
+        long bytes = receivedBytes() - startBytes;
+        if (watermarks == null) {
+            store.clear();
+        } else {
+            store.saveFullDownload(watermarks, duration, bytes);
+        }
+        return new MetadataSyncReport(true, Arrays.asList(MetadataModule.values()), duration, bytes, 0, 0);
+    }
+
+    private MetadataSyncReport downloadChanged() throws Exception {
+        long start = System.currentTimeMillis();
+        long startBytes = receivedBytes();
+
+        Map<MetadataModule, MetadataWatermark> watermarks = probeAll();
+        List<MetadataModule> changed = new ArrayList<>();
+        for (Map.Entry<MetadataModule, MetadataWatermark> entry : watermarks.entrySet()) {
+            if (!entry.getValue().isSameVersion(store.get(entry.getKey()))) {
+                changed.add(entry.getKey());
+            }
+        }
+
+        if (changed.isEmpty()) {
+            long duration = System.currentTimeMillis() - start;
+            long bytes = receivedBytes() - startBytes;
+            return new MetadataSyncReport(false, changed, duration, bytes,
+                    Math.max(0, store.lastFullDurationMillis() - duration),
+                    Math.max(0, store.lastFullBytes() - bytes));
+        }
+
+        Sdk.d2().metadataModule().blockingDownload();
+
+        long duration = System.currentTimeMillis() - start;
+        long bytes = receivedBytes() - startBytes;
+        store.saveFullDownload(watermarks, duration, bytes);
+        return new MetadataSyncReport(false, changed, duration, bytes, 0, 0);
+    }
+
+    // A probe only reads the server, so all modules are probed at the same time regardless of how
+    // they reference each other, a few at once.
+    private Map<MetadataModule, MetadataWatermark> probeAll() {
+        MetadataWatermarkProbe probe = MetadataWatermarkProbe.create();
+        Map<MetadataModule, MetadataWatermark> watermarks = new EnumMap<>(MetadataModule.class);
+        Observable.fromArray(MetadataModule.values())
+                .flatMap(module -> Observable.fromCallable(() -> {
+                    MetadataWatermark watermark = probe.probe(module, store.get(module));
+                    synchronized (watermarks) {
+                        watermarks.put(module, watermark);
+                    }
+                    return module;
+                }).subscribeOn(Schedulers.io()), MAX_CONCURRENT_PROBES)
+                .ignoreElements()
+                .blockingAwait();
+        return watermarks;
+    }
+
+    // Watermarks outlive the database, e.g. when a different user logs in and the SDK wipes it.
+    private static boolean hasLocalMetadata() {
+        return SyncStatusHelper.programCount() + SyncStatusHelper.dataSetCount() > 0;
+    }
+
+    private static long receivedBytes() {
+        long bytes = TrafficStats.getUidRxBytes(Process.myUid());
+        return bytes == TrafficStats.UNSUPPORTED ? 0 : bytes;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.android.androidskeletonapp.data.service.metadata;
+
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public enum MetadataModule {
+    PROGRAMS("programs"),
+    PROGRAM_STAGES("programStages"),
+    PROGRAM_RULES("programRules"),
+    PROGRAM_RULE_VARIABLES("programRuleVariables"),
+    PROGRAM_INDICATORS("programIndicators"),
+    RELATIONSHIP_TYPES("relationshipTypes"),
+    TRACKED_ENTITY_TYPES("trackedEntityTypes"),
+    TRACKED_ENTITY_ATTRIBUTES("trackedEntityAttributes"),
+    DATA_SETS("dataSets"),
+    DATA_ELEMENTS("dataElements"),
+    CATEGORIES("categories"),
+    CATEGORY_OPTIONS("categoryOptions"),
+    CATEGORY_COMBOS("categoryCombos"),
+    CATEGORY_OPTION_COMBOS("categoryOptionCombos"),
+    OPTION_SETS("optionSets"),
+    OPTIONS("options"),
+    OPTION_GROUPS("optionGroups"),
+    INDICATORS("indicators"),
+    LEGEND_SETS("legendSets"),
+    CONSTANTS("constants"),
+    ORGANISATION_UNITS("organisationUnits"),
+    SYSTEM_INFO("system/info", "version,revision,contextPath,calendar,dateFormat"),
+    SYSTEM_SETTINGS("systemSettings", null, "keyFlag", "keyStyle"),
+    USER("me", "id,lastUpdated,organisationUnits[id],dataViewOrganisationUnits[id],"
+            + "teiSearchOrganisationUnits[id],programs,dataSets,userCredentials[lastUpdated,userRoles[id]]");
+
+    private final String resource;
+    private final boolean document;
+    @Nullable
+    private final String fields;
+    private final List<String> keys;
+
+    MetadataModule(String resource) {
+        this.resource = resource;
+        this.document = false;
+        this.fields = null;
+        this.keys = Collections.emptyList();
+    }
+
+    /**
+     * A single document rather than a collection: it has no lastUpdated to order by, so the probe
+     * reads the given fields or keys and compares their content.
+     */
+    MetadataModule(String resource, @Nullable String fields, String... keys) {
+        this.resource = resource;
+        this.document = true;
+        this.fields = fields;
+        this.keys = Collections.unmodifiableList(Arrays.asList(keys));
+    }
+
+    public String getResource() {
+        return resource;
+    }
+
+    boolean isDocument() {
+        return document;
+    }
+
+    @Nullable
+    String getFields() {
+        return fields;
+    }
+
+    List<String> getKeys() {
+        return keys;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.android.androidskeletonapp.data.service.metadata;
+
+import java.util.Collections;
+import java.util.List;
+
+public class MetadataSyncReport {
+
+    private final boolean fullRefresh;
+    private final List<MetadataModule> changedModules;
+    private final long durationMillis;
+    private final long bytesTransferred;
+    private final long timeSavedMillis;
+    private final long bytesSaved;
+
+    MetadataSyncReport(boolean fullRefresh, List<MetadataModule> changedModules, long durationMillis,
+                       long bytesTransferred, long timeSavedMillis, long bytesSaved) {
+        this.fullRefresh = fullRefresh;
+        this.changedModules = Collections.unmodifiableList(changedModules);
+        this.durationMillis = durationMillis;
+        this.bytesTransferred = bytesTransferred;
+        this.timeSavedMillis = timeSavedMillis;
+        this.bytesSaved = bytesSaved;
+    }
+
+    public boolean isFullRefresh() {
+        return fullRefresh;
+    }
+
+    public boolean isSkipped() {
+        return !fullRefresh && changedModules.isEmpty();
+    }
+
+    public List<MetadataModule> getChangedModules() {
+        return changedModules;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getBytesTransferred() {
+        return bytesTransferred;
+    }
+
+    public long getTimeSavedMillis() {
+        return timeSavedMillis;
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.android.androidskeletonapp.data.service.metadata;
+
+import androidx.annotation.Nullable;
+
+public class MetadataWatermark {
+
+    private static final String SEPARATOR = "|";
+
+    @Nullable
+    private final String lastUpdated;
+    private final int total;
+    @Nullable
+    private final String etag;
+
+    MetadataWatermark(@Nullable String lastUpdated, int total, @Nullable String etag) {
+        this.lastUpdated = lastUpdated;
+        this.total = total;
+        this.etag = etag;
+    }
+
+    @Nullable
+    String getLastUpdated() {
+        return lastUpdated;
+    }
+
+    int getTotal() {
+        return total;
+    }
+
+    @Nullable
+    String getEtag() {
+        return etag;
+    }
+
+    // The total is part of the watermark because deletions do not move lastUpdated forward.
+    boolean isSameVersion(@Nullable MetadataWatermark other) {
+        if (other == null) {
+            return false;
+        }
+        if (etag != null && etag.equals(other.etag)) {
+            return true;
+        }
+        return total == other.total && lastUpdated != null && lastUpdated.equals(other.lastUpdated);
+    }
+
+    String serialize() {
+        return (lastUpdated == null ? "" : lastUpdated) + SEPARATOR + total + SEPARATOR
+                + (etag == null ? "" : etag);
+    }
+
+    @Nullable
+    static MetadataWatermark deserialize(@Nullable String value) {
+        if (value == null) {
+            return null;
+        }
+        String[] parts = value.split("\\|", -1);
+        if (parts.length != 3) {
+            return null;
+        }
+        try {
+            return new MetadataWatermark(
+                    parts[0].isEmpty() ? null : parts[0],
+                    Integer.parseInt(parts[1]),
+                    parts[2].isEmpty() ? null : parts[2]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.android.androidskeletonapp.data.service.metadata;
+
+import androidx.annotation.Nullable;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.HttpUrl;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.ByteString;
+import retrofit2.Retrofit;
+
+/**
+ * Reads the newest lastUpdated and the total count of a metadata resource with a single-row
+ * request, or a content hash for single documents like the system settings. The SDK's
+ * authenticated client is reused so no credentials are handled here.
+ */
+class MetadataWatermarkProbe {
+
+    private final Call.Factory callFactory;
+    private final HttpUrl baseUrl;
+
+    private MetadataWatermarkProbe(Call.Factory callFactory, HttpUrl baseUrl) {
+        this.callFactory = callFactory;
+        this.baseUrl = baseUrl;
+    }
+
+    static MetadataWatermarkProbe create() {
+        Retrofit retrofit = Sdk.d2().retrofit();
+        return new MetadataWatermarkProbe(retrofit.callFactory(), retrofit.baseUrl());
+    }
+
+    MetadataWatermark probe(MetadataModule module, @Nullable MetadataWatermark previous)
+            throws IOException {
+        HttpUrl url = url(module);
+
+        Request.Builder request = new Request.Builder().url(url);
+        if (previous != null && previous.getEtag() != null) {
+            request.header("If-None-Match", previous.getEtag());
+        }
+
+        try (Response response = callFactory.newCall(request.build()).execute()) {
+            if (response.code() == 304 && previous != null) {
+                return previous;
+            }
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("Unexpected response " + response.code() + " for " + url);
+            }
+            String etag = response.header("ETag");
+            return module.isDocument()
+                    ? new MetadataWatermark(ByteString.encodeUtf8(body.string()).sha256().hex(), 0, etag)
+                    : parse(module, body.string(), etag);
+        }
+    }
+
+    private HttpUrl url(MetadataModule module) {
+        HttpUrl.Builder url = baseUrl.resolve(module.getResource()).newBuilder();
+        if (!module.isDocument()) {
+            return url.addQueryParameter("fields", "lastUpdated")
+                    .addQueryParameter("order", "lastUpdated:desc")
+                    .addQueryParameter("pageSize", "1")
+                    .build();
+        }
+        if (module.getFields() != null) {
+            url.addQueryParameter("fields", module.getFields());
+        }
+        for (String key : module.getKeys()) {
+            url.addQueryParameter("key", key);
+        }
+        return url.build();
+    }
+
+    private static MetadataWatermark parse(MetadataModule module, String body, @Nullable String etag)
+            throws IOException {
+        try {
+            JSONObject json = new JSONObject(body);
+            JSONArray items = json.optJSONArray(module.getResource());
+            String lastUpdated = items != null && items.length() > 0
+                    ? items.getJSONObject(0).optString("lastUpdated", null)
+                    : null;
+            JSONObject pager = json.optJSONObject("pager");
+            int total = pager != null ? pager.optInt("total", 0) : (items != null ? items.length() : 0);
+            return new MetadataWatermark(lastUpdated, total, etag);
+        } catch (JSONException e) {
+            throw new IOException("Unable to parse watermark for " + module.getResource(), e);
+        }
+    }
+}
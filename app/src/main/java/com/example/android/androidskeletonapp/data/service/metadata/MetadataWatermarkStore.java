@@ -0,0 +1,59 @@
+package com.example.android.androidskeletonapp.data.service.metadata;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.Nullable;
+
+import java.util.Map;
+
+class MetadataWatermarkStore {
+
+    private static final String PREFERENCES = "metadata_watermarks";
+    private static final String MODULE_PREFIX = "module_";
+    private static final String LAST_FULL_DURATION = "last_full_duration_millis";
+    private static final String LAST_FULL_BYTES = "last_full_bytes";
+
+    private final SharedPreferences preferences;
+
+    MetadataWatermarkStore(Context context) {
+        this.preferences = context.getApplicationContext()
+                .getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+    }
+
+    @Nullable
+    MetadataWatermark get(MetadataModule module) {
+        return MetadataWatermark.deserialize(preferences.getString(MODULE_PREFIX + module.name(), null));
+    }
+
+    boolean hasWatermarks() {
+        for (MetadataModule module : MetadataModule.values()) {
+            if (get(module) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void saveFullDownload(Map<MetadataModule, MetadataWatermark> watermarks, long durationMillis, long bytes) {
+        SharedPreferences.Editor editor = preferences.edit();
+        for (Map.Entry<MetadataModule, MetadataWatermark> entry : watermarks.entrySet()) {
+            editor.putString(MODULE_PREFIX + entry.getKey().name(), entry.getValue().serialize());
+        }
+        editor.putLong(LAST_FULL_DURATION, durationMillis)
+                .putLong(LAST_FULL_BYTES, bytes)
+                .apply();
+    }
+
+    long lastFullDurationMillis() {
+        return preferences.getLong(LAST_FULL_DURATION, 0);
+    }
+
+    long lastFullBytes() {
+        return preferences.getLong(LAST_FULL_BYTES, 0);
+    }
+
+    void clear() {
+        preferences.edit().clear().apply();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.android.androidskeletonapp.data.service.offline;
+
+import java.util.List;
+
+public class ExportReport {
+
+    private final List<PackageEntry> entries;
+    private final long durationMillis;
+
+    ExportReport(List<PackageEntry> entries, long durationMillis) {
+        this.entries = entries;
+        this.durationMillis = durationMillis;
+    }
+
+    public List<PackageEntry> getEntries() {
+        return entries;
+    }
+
+    public int getRecords() {
+        int records = 0;
+        for (PackageEntry entry : entries) {
+            records += entry.getRecords();
+        }
+        return records;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+}
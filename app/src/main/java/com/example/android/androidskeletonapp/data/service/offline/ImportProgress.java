@@ -0,0 +1,55 @@
+package com.example.android.androidskeletonapp.data.service.offline;
+
+public class ImportProgress {
+
+    private final int records;
+    private final int skipped;
+    private final long bytesRead;
+    private final long totalBytes;
+    private final long elapsedMillis;
+
+    ImportProgress(int records, int skipped, long bytesRead, long totalBytes, long elapsedMillis) {
+        this.records = records;
+        this.skipped = skipped;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * Tracked entity instances, enrollments, events and data values written so far.
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * Records left out because their metadata is not on the device or they have local changes.
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Size of the package file, or -1 when the provider does not report it.
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double getRecordsPerSecond() {
+        return elapsedMillis == 0 ? 0 : records * 1000.0 / elapsedMillis;
+    }
+
+    public int getPercentage() {
+        return totalBytes <= 0 ? 0 : (int) Math.min(100, bytesRead * 100 / totalBytes);
+    }
+}
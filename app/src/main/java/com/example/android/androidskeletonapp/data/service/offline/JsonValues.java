@@ -0,0 +1,81 @@
+package com.example.android.androidskeletonapp.data.service.offline;
+
+import android.util.JsonReader;
+
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads one JSON value into plain maps, lists and strings. Used for a single record at a time,
+ * so memory is bounded by the largest record, not by the package.
+ */
+class JsonValues {
+
+    @Nullable
+    static Object read(JsonReader reader) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> object = new HashMap<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    object.put(reader.nextName(), read(reader));
+                }
+                reader.endObject();
+                return object;
+            case BEGIN_ARRAY:
+                List<Object> array = new ArrayList<>();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    array.add(read(reader));
+                }
+                reader.endArray();
+                return array;
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return null;
+            default:
+                // Numbers are kept as written, the SDK stores values as text.
+                return reader.nextString();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> readObject(JsonReader reader) throws IOException {
+        Object value = read(reader);
+        return value instanceof Map ? (Map<String, Object>) value : Collections.emptyMap();
+    }
+
+    @Nullable
+    static String string(Map<String, Object> object, String name) {
+        Object value = object.get(name);
+        return value == null ? null : value.toString();
+    }
+
+    static boolean bool(Map<String, Object> object, String name) {
+        Object value = object.get(name);
+        return Boolean.TRUE.equals(value) || "true".equals(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Map<String, Object>> objects(Map<String, Object> object, String name) {
+        Object value = object.get(name);
+        if (!(value instanceof List)) {
+            return Collections.emptyList();
+        }
+        List<Map<String, Object>> objects = new ArrayList<>();
+        for (Object item : (List<Object>) value) {
+            if (item instanceof Map) {
+                objects.add((Map<String, Object>) item);
+            }
+        }
+        return objects;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.android.androidskeletonapp.data.service.offline;
+
+import android.database.Cursor;
+
+import org.hisp.dhis.android.core.arch.db.access.DatabaseAdapter;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Uids of the metadata on the device. Records pointing at anything else would break the SDK's
+ * foreign keys, so they are skipped instead of failing the whole batch.
+ */
+class KnownMetadata {
+
+    final Set<String> organisationUnits;
+    final Set<String> trackedEntityTypes;
+    final Set<String> trackedEntityAttributes;
+    final Set<String> programs;
+    final Set<String> programStages;
+    final Set<String> dataElements;
+    final Set<String> categoryOptionCombos;
+    final Set<String> periods;
+
+    private KnownMetadata(DatabaseAdapter databaseAdapter) {
+        organisationUnits = uids(databaseAdapter, "OrganisationUnit");
+        trackedEntityTypes = uids(databaseAdapter, "TrackedEntityType");
+        trackedEntityAttributes = uids(databaseAdapter, "TrackedEntityAttribute");
+        programs = uids(databaseAdapter, "Program");
+        programStages = uids(databaseAdapter, "ProgramStage");
+        dataElements = uids(databaseAdapter, "DataElement");
+        categoryOptionCombos = uids(databaseAdapter, "CategoryOptionCombo");
+        periods = ids(databaseAdapter, "SELECT periodId FROM Period");
+    }
+
+    static KnownMetadata load(DatabaseAdapter databaseAdapter) {
+        return new KnownMetadata(databaseAdapter);
+    }
+
+    private static Set<String> uids(DatabaseAdapter databaseAdapter, String table) {
+        return ids(databaseAdapter, "SELECT uid FROM " + table);
+    }
+
+    private static Set<String> ids(DatabaseAdapter databaseAdapter, String sql) {
+        Set<String> ids = new HashSet<>();
+        try (Cursor cursor = databaseAdapter.query(sql)) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getString(0));
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.android.androidskeletonapp.data.service.offline;
+
+/**
+ * One section of an exported package, as listed in its manifest.
+ */
+public class PackageEntry {
+
+    private final String name;
+    private final int records;
+    private final long bytes;
+    private final String sha256;
+
+    PackageEntry(String name, int records, long bytes, String sha256) {
+        this.name = name;
+        this.records = records;
+        this.bytes = bytes;
+        this.sha256 = sha256;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * Uncompressed size.
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    public String getSha256() {
+        return sha256;
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.android.androidskeletonapp.data.service.offline;
+
+import android.database.Cursor;
+import android.util.JsonWriter;
+import android.util.Log;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.upload.UploadScheduler;
+
+import org.hisp.dhis.android.core.D2;
+import org.hisp.dhis.android.core.arch.db.access.DatabaseAdapter;
+import org.hisp.dhis.android.core.common.State;
+import org.hisp.dhis.android.core.systeminfo.SystemInfo;
+import org.hisp.dhis.android.core.user.UserCredentials;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.zip.GZIPOutputStream;
+
+import io.reactivex.Single;
+
+/**
+ * Writes every locally modified tracked entity instance, event and data value into a gzip JSON
+ * package for sites without a usable network, in the layout {@link PackageImporter} reads: one
+ * object with {@code trackedEntityInstances}, {@code events} and {@code dataValues} arrays of Web
+ * API records, ready to be imported or posted by a connected device. A {@code manifest} closes
+ * the object and lists the record count, size and SHA-256 of every array as written, so the
+ * receiving side can check the package before uploading it. It comes last because the checksums
+ * are only known once the rows have been streamed; nothing is collected in memory.
+ */
+public class PackageExporter {
+
+    public static final String MANIFEST = "manifest";
+    public static final String TRACKED_ENTITY_INSTANCES = "trackedEntityInstances";
+    public static final String EVENTS = "events";
+    public static final String DATA_VALUES = "dataValues";
+    public static final int FORMAT_VERSION = 2;
+
+    private static final String TAG = "PackageExporter";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // The rows an upload would send, including deletions and rows the server rejected before.
+    private static final String DIRTY = stateIn(UploadScheduler.DIRTY_STATES);
+
+    public Single<ExportReport> exportPackage(OutputStream output) {
+        return Single.fromCallable(() -> {
+            long start = System.currentTimeMillis();
+            DatabaseAdapter databaseAdapter = Sdk.d2().databaseAdapter();
+            List<PackageEntry> entries = new ArrayList<>();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(output, BUFFER_SIZE)) {
+                raw(gzip, "{");
+                entries.add(writeSection(gzip, TRACKED_ENTITY_INSTANCES,
+                        writer -> writeTrackedEntityInstances(databaseAdapter, writer)));
+                raw(gzip, ",");
+                entries.add(writeSection(gzip, EVENTS, writer -> writeEvents(databaseAdapter, writer)));
+                raw(gzip, ",");
+                entries.add(writeSection(gzip, DATA_VALUES, writer -> writeDataValues(databaseAdapter, writer)));
+                raw(gzip, ",");
+                writeSection(gzip, MANIFEST, writer -> {
+                    writeManifest(writer, entries);
+                    return 0;
+                });
+                raw(gzip, "}");
+            }
+            ExportReport report = new ExportReport(entries, System.currentTimeMillis() - start);
+            Log.i(TAG, "Exported " + report.getRecords() + " records in " + report.getDurationMillis() + " ms");
+            return report;
+        });
+    }
+
+    /**
+     * Writes one member of the package object. The checksum covers its value, the bytes after the
+     * name and colon.
+     */
+    private static PackageEntry writeSection(OutputStream output, String name, SectionContent content)
+            throws IOException {
+        raw(output, "\"" + name + "\":");
+        ChecksumOutputStream checksum = new ChecksumOutputStream(output);
+        int records;
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(checksum, UTF_8))) {
+            records = content.write(writer);
+        }
+        return new PackageEntry(name, records, checksum.getCount(), checksum.getSha256());
+    }
+
+    private static String stateIn(List<State> states) {
+        StringBuilder names = new StringBuilder();
+        for (State state : states) {
+            names.append(names.length() == 0 ? "'" : ", '").append(state.name()).append('\'');
+        }
+        return "state IN (" + names + ")";
+    }
+
+    private static void raw(OutputStream output, String json) throws IOException {
+        output.write(json.getBytes(UTF_8));
+    }
+
+    private static int writeTrackedEntityInstances(DatabaseAdapter databaseAdapter, JsonWriter writer)
+            throws IOException {
+        int records = 0;
+        writer.beginArray();
+        try (Cursor cursor = databaseAdapter.query("SELECT uid, trackedEntityType, organisationUnit, created, "
+                + "lastUpdated, deleted FROM TrackedEntityInstance WHERE " + DIRTY)) {
+            while (cursor.moveToNext()) {
+                String uid = cursor.getString(0);
+                writer.beginObject();
+                put(writer, "trackedEntityInstance", cursor, 0);
+                put(writer, "trackedEntityType", cursor, 1);
+                put(writer, "orgUnit", cursor, 2);
+                put(writer, "created", cursor, 3);
+                put(writer, "lastUpdated", cursor, 4);
+                writer.name("deleted").value(cursor.getInt(5) == 1);
+                writeAttributes(databaseAdapter, writer, uid);
+                writeEnrollments(databaseAdapter, writer, uid);
+                writer.endObject();
+                records++;
+            }
+        }
+        writer.endArray();
+        return records;
+    }
+
+    private static void writeAttributes(DatabaseAdapter databaseAdapter, JsonWriter writer, String uid)
+            throws IOException {
+        writer.name("attributes").beginArray();
+        try (Cursor cursor = databaseAdapter.query("SELECT trackedEntityAttribute, value "
+                + "FROM TrackedEntityAttributeValue WHERE trackedEntityInstance = ?", uid)) {
+            while (cursor.moveToNext()) {
+                writer.beginObject();
+                put(writer, "attribute", cursor, 0);
+                put(writer, "value", cursor, 1);
+                writer.endObject();
+            }
+        }
+        writer.endArray();
+    }
+
+    // Events are exported on their own, with their enrollment uid, as the Web API accepts them.
+    private static void writeEnrollments(DatabaseAdapter databaseAdapter, JsonWriter writer, String uid)
+            throws IOException {
+        writer.name("enrollments").beginArray();
+        try (Cursor cursor = databaseAdapter.query("SELECT uid, program, organisationUnit, enrollmentDate, "
+                + "incidentDate, status, followup, deleted FROM Enrollment WHERE trackedEntityInstance = ?", uid)) {
+            while (cursor.moveToNext()) {
+                writer.beginObject();
+                put(writer, "enrollment", cursor, 0);
+                put(writer, "program", cursor, 1);
+                put(writer, "orgUnit", cursor, 2);
+                put(writer, "enrollmentDate", cursor, 3);
+                put(writer, "incidentDate", cursor, 4);
+                put(writer, "status", cursor, 5);
+                writer.name("followup").value(cursor.getInt(6) == 1);
+                writer.name("deleted").value(cursor.getInt(7) == 1);
+                writer.endObject();
+            }
+        }
+        writer.endArray();
+    }
+
+    private static int writeEvents(DatabaseAdapter databaseAdapter, JsonWriter writer) throws IOException {
+        int records = 0;
+        writer.beginArray();
+        try (Cursor cursor = databaseAdapter.query("SELECT uid, enrollment, program, programStage, "
+                + "organisationUnit, eventDate, completedDate, dueDate, status, attributeOptionCombo, deleted "
+                + "FROM Event WHERE " + DIRTY)) {
+            while (cursor.moveToNext()) {
+                String uid = cursor.getString(0);
+                writer.beginObject();
+                put(writer, "event", cursor, 0);
+                put(writer, "enrollment", cursor, 1);
+                put(writer, "program", cursor, 2);
+                put(writer, "programStage", cursor, 3);
+                put(writer, "orgUnit", cursor, 4);
+                put(writer, "eventDate", cursor, 5);
+                put(writer, "completedDate", cursor, 6);
+                put(writer, "dueDate", cursor, 7);
+                put(writer, "status", cursor, 8);
+                put(writer, "attributeOptionCombo", cursor, 9);
+                writer.name("deleted").value(cursor.getInt(10) == 1);
+                writeEventDataValues(databaseAdapter, writer, uid);
+                writer.endObject();
+                records++;
+            }
+        }
+        writer.endArray();
+        return records;
+    }
+
+    private static void writeEventDataValues(DatabaseAdapter databaseAdapter, JsonWriter writer, String uid)
+            throws IOException {
+        writer.name("dataValues").beginArray();
+        try (Cursor cursor = databaseAdapter.query("SELECT dataElement, value, providedElsewhere "
+                + "FROM TrackedEntityDataValue WHERE event = ?", uid)) {
+            while (cursor.moveToNext()) {
+                writer.beginObject();
+                put(writer, "dataElement", cursor, 0);
+                put(writer, "value", cursor, 1);
+                writer.name("providedElsewhere").value(cursor.getInt(2) == 1);
+                writer.endObject();
+            }
+        }
+        writer.endArray();
+    }
+
+    private static int writeDataValues(DatabaseAdapter databaseAdapter, JsonWriter writer) throws IOException {
+        int records = 0;
+        writer.beginArray();
+        try (Cursor cursor = databaseAdapter.query("SELECT dataElement, period, organisationUnit, "
+                + "categoryOptionCombo, attributeOptionCombo, value, comment, followUp "
+                + "FROM DataValue WHERE " + DIRTY)) {
+            while (cursor.moveToNext()) {
+                writer.beginObject();
+                put(writer, "dataElement", cursor, 0);
+                put(writer, "period", cursor, 1);
+                put(writer, "orgUnit", cursor, 2);
+                put(writer, "categoryOptionCombo", cursor, 3);
+                put(writer, "attributeOptionCombo", cursor, 4);
+                put(writer, "value", cursor, 5);
+                put(writer, "comment", cursor, 6);
+                writer.name("followup").value(cursor.getInt(7) == 1);
+                writer.endObject();
+                records++;
+            }
+        }
+        writer.endArray();
+        return records;
+    }
+
+    private static void writeManifest(JsonWriter writer, List<PackageEntry> entries) throws IOException {
+        D2 d2 = Sdk.d2();
+        SystemInfo systemInfo = d2.systemInfoModule().systemInfo().blockingGet();
+        UserCredentials credentials = d2.userModule().userCredentials().blockingGet();
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        writer.beginObject()
+                .name("version").value(FORMAT_VERSION)
+                .name("created").value(format.format(new Date()))
+                .name("serverUrl").value(systemInfo == null ? null : systemInfo.contextPath())
+                .name("username").value(credentials == null ? null : credentials.username());
+        writer.name("entries").beginArray();
+        for (PackageEntry entry : entries) {
+            writer.beginObject()
+                    .name("name").value(entry.getName())
+                    .name("records").value(entry.getRecords())
+                    .name("bytes").value(entry.getBytes())
+                    .name("sha256").value(entry.getSha256())
+                    .endObject();
+        }
+        writer.endArray().endObject();
+    }
+
+    private static void put(JsonWriter writer, String name, Cursor cursor, int column) throws IOException {
+        if (!cursor.isNull(column)) {
+            writer.name(name).value(cursor.getString(column));
+        }
+    }
+
+    private interface SectionContent {
+        int write(JsonWriter writer) throws IOException;
+    }
+}
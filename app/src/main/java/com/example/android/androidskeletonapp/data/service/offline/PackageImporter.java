@@ -0,0 +1,178 @@
+package com.example.android.androidskeletonapp.data.service.offline;
+
+import android.util.JsonReader;
+import android.util.Log;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+
+import org.hisp.dhis.android.core.arch.db.access.DatabaseAdapter;
+import org.hisp.dhis.android.core.arch.db.access.Transaction;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+
+/**
+ * Imports a package exported from the DHIS2 Web API or by {@link PackageExporter}, as plain or
+ * gzip JSON with {@code trackedEntityInstances}, {@code events} and {@code dataValues} arrays.
+ * The file is parsed as a stream and only one record is held in memory at a time, so the package
+ * size is not limited by the heap.
+ * The package is read twice: first to check it against its manifest, so a damaged package is
+ * rejected before anything is written, then to import it. Only packages of {@link PackageExporter}
+ * have a manifest; their records are local changes of the exporting device and stay marked for
+ * upload.
+ * Records are written in transactions of {@link #DEFAULT_BATCH_SIZE}; if an import is stopped,
+ * the committed batches stay and importing the same package again completes it.
+ */
+public class PackageImporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final String TAG = "PackageImporter";
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int batchSize;
+
+    /**
+     * Opens the package from the start, once per pass.
+     */
+    public interface Source {
+        InputStream open() throws IOException;
+    }
+
+    public PackageImporter() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    PackageImporter(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Emits progress after every committed batch. {@code totalBytes} is the package size, or -1
+     * when unknown.
+     */
+    public Observable<ImportProgress> importPackage(Source source, long totalBytes) {
+        return Observable.create(emitter -> {
+            long verifyStart = System.currentTimeMillis();
+            PackageManifest manifest;
+            try (InputStream input = source.open()) {
+                manifest = PackageVerifier.verify(decompress(input));
+            }
+            if (manifest != null) {
+                Log.i(TAG, "Verified " + manifest.getEntries().size() + " sections in "
+                        + (System.currentTimeMillis() - verifyStart) + " ms");
+            }
+
+            DatabaseAdapter databaseAdapter = Sdk.d2().databaseAdapter();
+            PackageWriter writer = new PackageWriter(databaseAdapter, KnownMetadata.load(databaseAdapter),
+                    manifest != null);
+            long start = System.currentTimeMillis();
+            try (CountingInputStream counting = new CountingInputStream(source.open());
+                 JsonReader reader = new JsonReader(new InputStreamReader(decompress(counting), "UTF-8"))) {
+                Batch batch = new Batch(databaseAdapter);
+                try {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        if (!PackageExporter.TRACKED_ENTITY_INSTANCES.equals(name)
+                                && !PackageExporter.EVENTS.equals(name)
+                                && !PackageExporter.DATA_VALUES.equals(name)) {
+                            reader.skipValue();
+                            continue;
+                        }
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            if (emitter.isDisposed()) {
+                                return;
+                            }
+                            Map<String, Object> record = JsonValues.readObject(reader);
+                            if (PackageExporter.TRACKED_ENTITY_INSTANCES.equals(name)) {
+                                writer.writeTrackedEntityInstance(record);
+                            } else if (PackageExporter.EVENTS.equals(name)) {
+                                writer.writeEvent(record);
+                            } else {
+                                writer.writeDataValue(record);
+                            }
+                            if (batch.recordWritten()) {
+                                emit(emitter, writer, counting, totalBytes, start);
+                            }
+                        }
+                        reader.endArray();
+                    }
+                    reader.endObject();
+                    batch.commit();
+                } finally {
+                    batch.end();
+                    writer.close();
+                }
+                ImportProgress progress = emit(emitter, writer, counting, totalBytes, start);
+                Log.i(TAG, "Imported " + progress.getRecords() + " records, skipped " + progress.getSkipped()
+                        + ", in " + progress.getElapsedMillis() + " ms ("
+                        + Math.round(progress.getRecordsPerSecond()) + " records/s)");
+            }
+            emitter.onComplete();
+        });
+    }
+
+    private static ImportProgress emit(ObservableEmitter<ImportProgress> emitter, PackageWriter writer,
+                                       CountingInputStream counting, long totalBytes, long start) {
+        ImportProgress progress = new ImportProgress(writer.getRecords(), writer.getSkipped(),
+                counting.getCount(), totalBytes, System.currentTimeMillis() - start);
+        emitter.onNext(progress);
+        return progress;
+    }
+
+    private static InputStream decompress(InputStream input) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(input, BUFFER_SIZE);
+        buffered.mark(2);
+        int magic = buffered.read() | (buffered.read() << 8);
+        buffered.reset();
+        return magic == GZIP_MAGIC ? new GZIPInputStream(buffered, BUFFER_SIZE) : buffered;
+    }
+
+    /**
+     * The open transaction, committed and replaced every {@code batchSize} records.
+     */
+    private final class Batch {
+
+        private final DatabaseAdapter databaseAdapter;
+        private Transaction transaction;
+        private int pending;
+
+        Batch(DatabaseAdapter databaseAdapter) {
+            this.databaseAdapter = databaseAdapter;
+            this.transaction = databaseAdapter.beginNewTransaction();
+        }
+
+        boolean recordWritten() {
+            if (++pending < batchSize) {
+                return false;
+            }
+            commit();
+            transaction = databaseAdapter.beginNewTransaction();
+            return true;
+        }
+
+        void commit() {
+            transaction.setSuccessful();
+            transaction.end();
+            transaction = null;
+            pending = 0;
+        }
+
+        // Rolls back an uncommitted batch; does nothing after a final commit.
+        void end() {
+            if (transaction != null) {
+                transaction.end();
+            }
+        }
+    }
+}
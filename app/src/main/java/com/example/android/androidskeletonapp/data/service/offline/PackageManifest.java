@@ -0,0 +1,80 @@
+package com.example.android.androidskeletonapp.data.service.offline;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The {@code manifest} member {@link PackageExporter} closes a package with. Only packages
+ * exported by the app have one; packages exported from the Web API do not.
+ */
+class PackageManifest {
+
+    private final int version;
+    private final List<PackageEntry> entries;
+
+    private PackageManifest(int version, List<PackageEntry> entries) {
+        this.version = version;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    static PackageManifest read(JsonReader reader) throws IOException {
+        int version = 0;
+        List<PackageEntry> entries = new ArrayList<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("version".equals(name)) {
+                version = reader.nextInt();
+            } else if ("entries".equals(name)) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    entries.add(readEntry(reader));
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new PackageManifest(version, entries);
+    }
+
+    int getVersion() {
+        return version;
+    }
+
+    List<PackageEntry> getEntries() {
+        return entries;
+    }
+
+    private static PackageEntry readEntry(JsonReader reader) throws IOException {
+        String name = null;
+        int records = 0;
+        long bytes = 0;
+        String sha256 = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+            } else if ("name".equals(field)) {
+                name = reader.nextString();
+            } else if ("records".equals(field)) {
+                records = reader.nextInt();
+            } else if ("bytes".equals(field)) {
+                bytes = reader.nextLong();
+            } else if ("sha256".equals(field)) {
+                sha256 = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new PackageEntry(name, records, bytes, sha256);
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.android.androidskeletonapp.data.service.offline;
+
+import android.util.JsonReader;
+
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Checks a package against its manifest before anything of it is imported. The manifest comes
+ * last, so the whole package is read once up front: the raw bytes of every member value of the
+ * package object are hashed and the elements of its arrays counted, the way
+ * {@link PackageExporter} measured them, and the manifest is compared once reached. Records are
+ * not parsed, so this pass costs a fraction of the import that follows it.
+ */
+class PackageVerifier {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+        }
+    };
+
+    private enum Position {
+        BEFORE_OBJECT,
+        BEFORE_NAME,
+        NAME,
+        AFTER_NAME,
+        BEFORE_VALUE,
+        VALUE,
+        DONE
+    }
+
+    private final Map<String, PackageEntry> sections = new HashMap<>();
+    private final ByteArrayOutputStream name = new ByteArrayOutputStream();
+    private Position position = Position.BEFORE_OBJECT;
+
+    // The value being read.
+    private String section;
+    private ChecksumOutputStream checksum;
+    @Nullable
+    private ByteArrayOutputStream manifest;
+    private int records;
+    private int depth;
+    private boolean array;
+    private boolean expectElement;
+    private boolean inString;
+    private boolean escaped;
+
+    private PackageVerifier() {
+    }
+
+    /**
+     * @param input the decompressed package.
+     * @return the manifest, or null when the package has none.
+     * @throws IOException when the package is cut short or a section differs from the manifest.
+     */
+    @Nullable
+    static PackageManifest verify(InputStream input) throws IOException {
+        PackageVerifier verifier = new PackageVerifier();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while (verifier.position != Position.DONE && (read = input.read(buffer)) > 0) {
+            verifier.scan(buffer, read);
+        }
+        if (verifier.position != Position.DONE) {
+            throw new IOException("The package ends before its last section is complete");
+        }
+        return verifier.checkManifest();
+    }
+
+    private void scan(byte[] buffer, int length) throws IOException {
+        int valueStart = position == Position.VALUE ? 0 : -1;
+        for (int i = 0; i < length && position != Position.DONE; i++) {
+            byte b = buffer[i];
+            if (position == Position.BEFORE_VALUE && !isWhitespace(b)) {
+                startValue();
+                valueStart = i;
+                position = Position.VALUE;
+            }
+            switch (position) {
+                case BEFORE_OBJECT:
+                    if (b == '{') {
+                        position = Position.BEFORE_NAME;
+                    } else if (!isWhitespace(b)) {
+                        // Not an object, which the import itself reports.
+                        position = Position.DONE;
+                    }
+                    break;
+                case BEFORE_NAME:
+                    if (b == '"') {
+                        name.reset();
+                        escaped = false;
+                        position = Position.NAME;
+                    } else if (b == '}') {
+                        position = Position.DONE;
+                    }
+                    break;
+                case NAME:
+                    if (escaped) {
+                        escaped = false;
+                        name.write(b);
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        position = Position.AFTER_NAME;
+                    } else {
+                        name.write(b);
+                    }
+                    break;
+                case AFTER_NAME:
+                    if (b == ':') {
+                        position = Position.BEFORE_VALUE;
+                    }
+                    break;
+                case VALUE:
+                    if (endsValue(b)) {
+                        checksum.write(buffer, valueStart, i - valueStart);
+                        endValue();
+                        valueStart = -1;
+                        position = b == '}' ? Position.DONE : Position.BEFORE_NAME;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (position == Position.VALUE) {
+            checksum.write(buffer, valueStart, length - valueStart);
+        }
+    }
+
+    private void startValue() {
+        section = new String(name.toByteArray(), UTF_8);
+        boolean isManifest = PackageExporter.MANIFEST.equals(section);
+        if (isManifest) {
+            manifest = new ByteArrayOutputStream();
+        }
+        checksum = new ChecksumOutputStream(isManifest ? manifest : DISCARD);
+        records = 0;
+        depth = 0;
+        array = false;
+        expectElement = false;
+        inString = false;
+        escaped = false;
+    }
+
+    // Counts the elements of a top level array on the way; true for the byte after the value.
+    private boolean endsValue(byte b) {
+        if (inString) {
+            if (escaped) {
+                escaped = false;
+            } else if (b == '\\') {
+                escaped = true;
+            } else if (b == '"') {
+                inString = false;
+            }
+            return false;
+        }
+        if (depth == 0 && (b == ',' || b == '}')) {
+            return true;
+        }
+        if (depth == 1 && array && expectElement && !isWhitespace(b) && b != ']') {
+            records++;
+            expectElement = false;
+        }
+        if (b == '"') {
+            inString = true;
+        } else if (b == '[' || b == '{') {
+            if (depth == 0) {
+                array = b == '[';
+            }
+            depth++;
+            if (depth == 1) {
+                expectElement = true;
+            }
+        } else if (b == ']' || b == '}') {
+            depth--;
+        } else if (b == ',' && depth == 1) {
+            expectElement = true;
+        }
+        return false;
+    }
+
+    private void endValue() {
+        sections.put(section, new PackageEntry(section, records, checksum.getCount(), checksum.getSha256()));
+    }
+
+    @Nullable
+    private PackageManifest checkManifest() throws IOException {
+        if (manifest == null) {
+            return null;
+        }
+        PackageManifest read;
+        try (JsonReader reader = new JsonReader(new InputStreamReader(
+                new ByteArrayInputStream(manifest.toByteArray()), UTF_8))) {
+            read = PackageManifest.read(reader);
+        }
+        if (read.getVersion() > PackageExporter.FORMAT_VERSION) {
+            throw new IOException("Package format " + read.getVersion() + " is newer than the supported "
+                    + PackageExporter.FORMAT_VERSION);
+        }
+        for (PackageEntry expected : read.getEntries()) {
+            PackageEntry actual = sections.get(expected.getName());
+            if (actual == null
+                    || actual.getRecords() != expected.getRecords()
+                    || actual.getBytes() != expected.getBytes()
+                    || !actual.getSha256().equals(expected.getSha256())) {
+                throw new IOException("Section " + expected.getName() + " does not match the package manifest");
+            }
+        }
+        return read;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.android.androidskeletonapp.data.service.offline;
+
+import android.database.sqlite.SQLiteStatement;
+
+import androidx.annotation.Nullable;
+
+import com.example.android.androidskeletonapp.data.service.search.SearchIndexEngine;
+
+import org.hisp.dhis.android.core.arch.db.access.DatabaseAdapter;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static com.example.android.androidskeletonapp.data.service.offline.JsonValues.bool;
+import static com.example.android.androidskeletonapp.data.service.offline.JsonValues.objects;
+import static com.example.android.androidskeletonapp.data.service.offline.JsonValues.string;
+
+/**
+ * Writes records in the DHIS2 Web API JSON layout straight into the SDK tables with precompiled
+ * statements. Records from the server are marked as synced. Records another device exported
+ * with local changes are marked for upload: to update where this device already holds the row,
+ * to post where it does not. Re-importing a package updates the rows it wrote before in place,
+ * and records with local changes that are not uploaded yet are left alone. Records pointing at
+ * metadata or an enrollment that is not on the device are skipped.
+ */
+class PackageWriter {
+
+    private static final String SYNCED = "SYNCED";
+    private static final String TO_UPDATE = "TO_UPDATE";
+    private static final String TO_POST = "TO_POST";
+
+    private final KnownMetadata metadata;
+    private final String updatedState;
+    private final String insertedState;
+
+    private final Upsert trackedEntityInstance;
+    private final Upsert attributeValue;
+    private final Upsert enrollment;
+    private final Upsert event;
+    private final Upsert eventDataValue;
+    private final Upsert dataValue;
+    private final SQLiteStatement dirtyTrackedEntityInstance;
+    private final SQLiteStatement dirtyEnrollment;
+    private final SQLiteStatement dirtyEvent;
+    private final SQLiteStatement dirtyDataValue;
+    private final SQLiteStatement storedEnrollment;
+
+    private int records;
+    private int skipped;
+
+    /**
+     * @param pending whether the records are local changes of another device, which still have to
+     *                be uploaded.
+     */
+    PackageWriter(DatabaseAdapter databaseAdapter, KnownMetadata metadata, boolean pending) {
+        this.metadata = metadata;
+        this.updatedState = pending ? TO_UPDATE : SYNCED;
+        this.insertedState = pending ? TO_POST : SYNCED;
+        trackedEntityInstance = new Upsert(databaseAdapter, "TrackedEntityInstance",
+                new String[]{"created", "lastUpdated", "organisationUnit", "trackedEntityType", "state", "deleted"},
+                "uid");
+        attributeValue = new Upsert(databaseAdapter, "TrackedEntityAttributeValue",
+                new String[]{"value", "created", "lastUpdated"},
+                "trackedEntityAttribute", "trackedEntityInstance");
+        enrollment = new Upsert(databaseAdapter, "Enrollment",
+                new String[]{"created", "lastUpdated", "organisationUnit", "program", "enrollmentDate",
+                        "incidentDate", "status", "trackedEntityInstance", "state", "followup", "deleted"},
+                "uid");
+        event = new Upsert(databaseAdapter, "Event",
+                new String[]{"enrollment", "created", "lastUpdated", "status", "program", "programStage",
+                        "organisationUnit", "eventDate", "completedDate", "dueDate", "attributeOptionCombo",
+                        "state", "deleted"},
+                "uid");
+        eventDataValue = new Upsert(databaseAdapter, "TrackedEntityDataValue",
+                new String[]{"storedBy", "value", "created", "lastUpdated", "providedElsewhere"},
+                "event", "dataElement");
+        dataValue = new Upsert(databaseAdapter, "DataValue",
+                new String[]{"value", "storedBy", "created", "lastUpdated", "comment", "state", "followUp"},
+                "dataElement", "period", "organisationUnit", "categoryOptionCombo", "attributeOptionCombo");
+        dirtyTrackedEntityInstance = databaseAdapter.compileStatement("SELECT COUNT(*) FROM TrackedEntityInstance "
+                + "WHERE uid = ? AND state NOT IN ('SYNCED', 'RELATIONSHIP')");
+        dirtyEnrollment = databaseAdapter.compileStatement("SELECT COUNT(*) FROM Enrollment "
+                + "WHERE uid = ? AND state NOT IN ('SYNCED', 'RELATIONSHIP')");
+        dirtyEvent = databaseAdapter.compileStatement("SELECT COUNT(*) FROM Event "
+                + "WHERE uid = ? AND state NOT IN ('SYNCED', 'RELATIONSHIP')");
+        dirtyDataValue = databaseAdapter.compileStatement("SELECT COUNT(*) FROM DataValue "
+                + "WHERE dataElement = ? AND period = ? AND organisationUnit = ? AND categoryOptionCombo = ? "
+                + "AND attributeOptionCombo = ? AND state != 'SYNCED'");
+        storedEnrollment = databaseAdapter.compileStatement("SELECT COUNT(*) FROM Enrollment WHERE uid = ?");
+    }
+
+    void writeTrackedEntityInstance(Map<String, Object> json) {
+        String uid = string(json, "trackedEntityInstance");
+        if (uid == null
+                || !metadata.organisationUnits.contains(string(json, "orgUnit"))
+                || !metadata.trackedEntityTypes.contains(string(json, "trackedEntityType"))
+                || count(dirtyTrackedEntityInstance, uid)) {
+            skipped++;
+            return;
+        }
+        trackedEntityInstance.bind(string(json, "created"), string(json, "lastUpdated"),
+                string(json, "orgUnit"), string(json, "trackedEntityType"))
+                .bindState(5, updatedState, insertedState)
+                .bindLong(6, bool(json, "deleted") ? 1 : 0)
+                .bindKeys(uid)
+                .execute();
+        records++;
+
+        for (Map<String, Object> attribute : objects(json, "attributes")) {
+            String attributeUid = string(attribute, "attribute");
+            if (metadata.trackedEntityAttributes.contains(attributeUid)) {
+                attributeValue.bind(string(attribute, "value"), string(attribute, "created"),
+                        string(attribute, "lastUpdated"))
+                        .bindKeys(attributeUid, uid)
+                        .execute();
+            }
+        }
+        SearchIndexEngine.markChanged(Collections.singleton(uid));
+        for (Map<String, Object> enrollmentJson : objects(json, "enrollments")) {
+            writeEnrollment(enrollmentJson, uid);
+        }
+    }
+
+    void writeEvent(Map<String, Object> json) {
+        String enrollmentUid = string(json, "enrollment");
+        // An event of an enrollment that is neither stored nor in the package would be an orphan.
+        if (enrollmentUid != null && !count(storedEnrollment, enrollmentUid)) {
+            skipped++;
+            return;
+        }
+        writeEvent(json, enrollmentUid);
+    }
+
+    void writeDataValue(Map<String, Object> json) {
+        String[] keys = {string(json, "dataElement"), string(json, "period"), string(json, "orgUnit"),
+                string(json, "categoryOptionCombo"), string(json, "attributeOptionCombo")};
+        if (!metadata.dataElements.contains(keys[0])
+                || !metadata.periods.contains(keys[1])
+                || !metadata.organisationUnits.contains(keys[2])
+                || !metadata.categoryOptionCombos.contains(keys[3])
+                || !metadata.categoryOptionCombos.contains(keys[4])
+                || count(dirtyDataValue, keys)) {
+            skipped++;
+            return;
+        }
+        dataValue.bind(string(json, "value"), string(json, "storedBy"), string(json, "created"),
+                string(json, "lastUpdated"), string(json, "comment"))
+                .bindState(6, updatedState, insertedState)
+                .bindLong(7, bool(json, "followup") ? 1 : 0)
+                .bindKeys(keys)
+                .execute();
+        records++;
+    }
+
+    int getRecords() {
+        return records;
+    }
+
+    int getSkipped() {
+        return skipped;
+    }
+
+    void close() {
+        for (Upsert upsert : new Upsert[]{trackedEntityInstance, attributeValue, enrollment, event,
+                eventDataValue, dataValue}) {
+            upsert.close();
+        }
+        for (SQLiteStatement statement : new SQLiteStatement[]{dirtyTrackedEntityInstance, dirtyEnrollment,
+                dirtyEvent, dirtyDataValue, storedEnrollment}) {
+            statement.close();
+        }
+    }
+
+    private void writeEnrollment(Map<String, Object> json, String trackedEntityInstanceUid) {
+        String uid = string(json, "enrollment");
+        if (uid == null
+                || !metadata.organisationUnits.contains(string(json, "orgUnit"))
+                || !metadata.programs.contains(string(json, "program"))
+                || count(dirtyEnrollment, uid)) {
+            skipped++;
+            return;
+        }
+        enrollment.bind(string(json, "created"), string(json, "lastUpdated"), string(json, "orgUnit"),
+                string(json, "program"), string(json, "enrollmentDate"), string(json, "incidentDate"),
+                string(json, "status"), trackedEntityInstanceUid)
+                .bindState(9, updatedState, insertedState)
+                .bindLong(10, bool(json, "followup") ? 1 : 0)
+                .bindLong(11, bool(json, "deleted") ? 1 : 0)
+                .bindKeys(uid)
+                .execute();
+        records++;
+
+        for (Map<String, Object> eventJson : objects(json, "events")) {
+            writeEvent(eventJson, uid);
+        }
+    }
+
+    private void writeEvent(Map<String, Object> json, @Nullable String enrollmentUid) {
+        String uid = string(json, "event");
+        String attributeOptionCombo = string(json, "attributeOptionCombo");
+        if (uid == null
+                || !metadata.organisationUnits.contains(string(json, "orgUnit"))
+                || !metadata.programs.contains(string(json, "program"))
+                || !metadata.programStages.contains(string(json, "programStage"))
+                || attributeOptionCombo != null && !metadata.categoryOptionCombos.contains(attributeOptionCombo)
+                || count(dirtyEvent, uid)) {
+            skipped++;
+            return;
+        }
+        event.bind(enrollmentUid, string(json, "created"), string(json, "lastUpdated"),
+                string(json, "status"), string(json, "program"), string(json, "programStage"),
+                string(json, "orgUnit"), string(json, "eventDate"), string(json, "completedDate"),
+                string(json, "dueDate"), attributeOptionCombo)
+                .bindState(12, updatedState, insertedState)
+                .bindLong(13, bool(json, "deleted") ? 1 : 0)
+                .bindKeys(uid)
+                .execute();
+        records++;
+
+        for (Map<String, Object> value : objects(json, "dataValues")) {
+            String dataElement = string(value, "dataElement");
+            if (metadata.dataElements.contains(dataElement)) {
+                eventDataValue.bind(string(value, "storedBy"), string(value, "value"),
+                        string(value, "created"), string(value, "lastUpdated"))
+                        .bindLong(5, bool(value, "providedElsewhere") ? 1 : 0)
+                        .bindKeys(uid, dataElement)
+                        .execute();
+            }
+        }
+    }
+
+    private static boolean count(SQLiteStatement statement, String... arguments) {
+        for (int i = 0; i < arguments.length; i++) {
+            statement.bindString(i + 1, arguments[i]);
+        }
+        return statement.simpleQueryForLong() > 0;
+    }
+
+    private static void bindString(SQLiteStatement statement, int index, @Nullable String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    /**
+     * Updates a row in place and inserts it only when there is none. INSERT OR REPLACE deletes the
+     * existing row first, and the SDK's foreign keys cascade that delete to its children, including
+     * ones with local changes. The upsert clause of SQLite is newer than the minimum SDK's. Both
+     * statements take the value columns first and the key columns last.
+     */
+    private static final class Upsert {
+
+        private final SQLiteStatement update;
+        private final SQLiteStatement insert;
+        private final int valueCount;
+
+        Upsert(DatabaseAdapter databaseAdapter, String table, String[] values, String... keys) {
+            StringBuilder set = new StringBuilder();
+            StringBuilder columns = new StringBuilder();
+            StringBuilder placeholders = new StringBuilder();
+            for (String column : values) {
+                set.append(set.length() == 0 ? "" : ", ").append(column).append(" = ?");
+                columns.append(columns.length() == 0 ? "" : ", ").append(column);
+                placeholders.append(placeholders.length() == 0 ? "?" : ", ?");
+            }
+            StringBuilder where = new StringBuilder();
+            for (String key : keys) {
+                where.append(where.length() == 0 ? "" : " AND ").append(key).append(" = ?");
+                columns.append(", ").append(key);
+                placeholders.append(", ?");
+            }
+            update = databaseAdapter.compileStatement("UPDATE " + table + " SET " + set + " WHERE " + where);
+            insert = databaseAdapter.compileStatement(
+                    "INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")");
+            valueCount = values.length;
+        }
+
+        // Binds the leading value columns, starting at index 1.
+        Upsert bind(@Nullable String... values) {
+            update.clearBindings();
+            insert.clearBindings();
+            for (int i = 0; i < values.length; i++) {
+                bindString(update, i + 1, values[i]);
+                bindString(insert, i + 1, values[i]);
+            }
+            return this;
+        }
+
+        // The state depends on whether the row was there before.
+        Upsert bindState(int index, String updated, String inserted) {
+            update.bindString(index, updated);
+            insert.bindString(index, inserted);
+            return this;
+        }
+
+        Upsert bindLong(int index, long value) {
+            update.bindLong(index, value);
+            insert.bindLong(index, value);
+            return this;
+        }
+
+        Upsert bindKeys(String... keys) {
+            for (int i = 0; i < keys.length; i++) {
+                update.bindString(valueCount + i + 1, keys[i]);
+                insert.bindString(valueCount + i + 1, keys[i]);
+            }
+            return this;
+        }
+
+        void execute() {
+            if (update.executeUpdateDelete() == 0) {
+                insert.executeInsert();
+            }
+        }
+
+        void close() {
+            update.close();
+            insert.close();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.android.androidskeletonapp.data.service.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+
+/**
+ * Stops calls to a server that keeps failing. After {@code failureThreshold} transient or
+ * overload failures in a row the circuit opens and calls fail at once with
+ * {@link CircuitOpenException}. Once {@code openMillis} have passed, a single probe call is let
+ * through: its success closes the circuit, its failure opens it again. Permanent failures do not
+ * count, since the server answered.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Scheduler clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int failureThreshold, long openMillis, Scheduler clock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold must be positive");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Fails the calls made while the circuit is open. Each subscription is one call, so a retried
+     * call asks the breaker again.
+     */
+    public CompletableTransformer protectCompletable() {
+        return upstream -> Completable.defer(() -> {
+            acquire();
+            return upstream
+                    .doOnComplete(this::onSuccess)
+                    .doOnError(this::onFailure)
+                    .doOnDispose(this::release);
+        });
+    }
+
+    public <T> ObservableTransformer<T, T> protect() {
+        return upstream -> Observable.defer(() -> {
+            acquire();
+            return upstream
+                    .doOnComplete(this::onSuccess)
+                    .doOnError(this::onFailure)
+                    .doOnDispose(this::release);
+        });
+    }
+
+    synchronized void acquire() {
+        if (state == State.OPEN) {
+            long waited = now() - openedAt;
+            if (waited < openMillis) {
+                throw new CircuitOpenException(openMillis - waited);
+            }
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                throw new CircuitOpenException(openMillis);
+            }
+            probeInFlight = true;
+        }
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    synchronized void onFailure(Throwable throwable) {
+        if (throwable instanceof CircuitOpenException) {
+            return;
+        }
+        if (!FailureClassifier.classify(throwable).isRetryable()) {
+            onSuccess();
+            return;
+        }
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = now();
+            probeInFlight = false;
+        }
+    }
+
+    // A probe that was cancelled lets the next call probe instead.
+    private synchronized void release() {
+        probeInFlight = false;
+    }
+
+    private long now() {
+        return clock.now(TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.android.androidskeletonapp.data.service.resilience;
+
+public class CircuitOpenException extends RuntimeException {
+
+    private final long retryAfterMillis;
+
+    CircuitOpenException(long retryAfterMillis) {
+        super("Circuit open, server overloaded; retry in " + retryAfterMillis + " ms");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
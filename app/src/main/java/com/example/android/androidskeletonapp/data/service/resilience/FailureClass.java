@@ -0,0 +1,20 @@
+package com.example.android.androidskeletonapp.data.service.resilience;
+
+public enum FailureClass {
+    /**
+     * Network hiccups, timeouts and server errors; worth retrying.
+     */
+    TRANSIENT,
+    /**
+     * The server says it is busy (429, 503) or the circuit is open; retry, but back off further.
+     */
+    OVERLOAD,
+    /**
+     * Requests that will fail the same way again, such as 4xx responses or local bugs.
+     */
+    PERMANENT;
+
+    public boolean isRetryable() {
+        return this != PERMANENT;
+    }
+}
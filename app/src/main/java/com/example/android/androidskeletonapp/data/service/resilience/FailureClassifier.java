@@ -0,0 +1,66 @@
+package com.example.android.androidskeletonapp.data.service.resilience;
+
+import androidx.annotation.Nullable;
+
+import org.hisp.dhis.android.core.maintenance.D2Error;
+
+import java.io.IOException;
+
+import io.reactivex.exceptions.CompositeException;
+
+public class FailureClassifier {
+
+    public static FailureClass classify(Throwable throwable) {
+        Throwable current = throwable;
+        // Wrapped causes are followed until something conclusive is found.
+        for (int depth = 0; current != null && depth < 10; depth++) {
+            if (current instanceof CircuitOpenException) {
+                return FailureClass.OVERLOAD;
+            }
+            if (current instanceof HttpStatusException) {
+                return classifyHttp(((HttpStatusException) current).getCode());
+            }
+            if (current instanceof D2Error) {
+                D2Error error = (D2Error) current;
+                if (error.httpErrorCode() != null) {
+                    return classifyHttp(error.httpErrorCode());
+                }
+                current = error.originalException();
+                continue;
+            }
+            if (current instanceof IOException) {
+                return FailureClass.TRANSIENT;
+            }
+            current = next(current);
+        }
+        return FailureClass.PERMANENT;
+    }
+
+    public static FailureClass classifyHttp(int code) {
+        if (code == 429 || code == 503) {
+            return FailureClass.OVERLOAD;
+        }
+        if (code == 408 || code >= 500) {
+            return FailureClass.TRANSIENT;
+        }
+        return FailureClass.PERMANENT;
+    }
+
+    @Nullable
+    private static Throwable next(Throwable throwable) {
+        if (throwable instanceof CompositeException) {
+            // The most hopeful failure wins, so one transient error among others is still retried.
+            FailureClass best = FailureClass.PERMANENT;
+            Throwable bestThrowable = null;
+            for (Throwable inner : ((CompositeException) throwable).getExceptions()) {
+                FailureClass failureClass = classify(inner);
+                if (bestThrowable == null || failureClass.ordinal() < best.ordinal()) {
+                    best = failureClass;
+                    bestThrowable = inner;
+                }
+            }
+            return bestThrowable;
+        }
+        return throwable.getCause() == throwable ? null : throwable.getCause();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.android.androidskeletonapp.data.service.resilience;
+
+import java.io.IOException;
+
+/**
+ * An unsuccessful HTTP response from a call made outside the SDK.
+ */
+public class HttpStatusException extends IOException {
+
+    private final int code;
+
+    public HttpStatusException(int code) {
+        super("HTTP " + code);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.android.androidskeletonapp.data.service.resilience;
+
+import com.example.android.androidskeletonapp.data.service.RetryWithBackoff;
+
+import java.util.Random;
+
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * The retry policy and circuit breaker shared by every sync stream talking to the server, so an
+ * overloaded server seen by one stream also holds back the others.
+ */
+public class SyncResilience {
+
+    public static final int MAX_RETRIES = 4;
+    public static final long INITIAL_RETRY_DELAY_MILLIS = 1000;
+    public static final long MAX_RETRY_DELAY_MILLIS = 30_000;
+    public static final int FAILURE_THRESHOLD = 5;
+    public static final long OPEN_MILLIS = 60_000;
+
+    private static final CircuitBreaker breaker =
+            new CircuitBreaker(FAILURE_THRESHOLD, OPEN_MILLIS, Schedulers.computation());
+    private static final Random random = new Random();
+
+    public static CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    public static RetryWithBackoff retry() {
+        return new RetryWithBackoff(MAX_RETRIES, INITIAL_RETRY_DELAY_MILLIS, MAX_RETRY_DELAY_MILLIS, random);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.android.androidskeletonapp.data.service.rules;
+
+import androidx.annotation.NonNull;
+
+import org.apache.commons.jexl2.JexlEngine;
+import org.hisp.dhis.rules.RuleExpressionEvaluator;
+
+public class JexlRuleExpressionEvaluator implements RuleExpressionEvaluator {
+
+    private final JexlEngine jexl;
+
+    public JexlRuleExpressionEvaluator() {
+        this.jexl = new JexlEngine();
+        this.jexl.setStrict(true);
+        this.jexl.setSilent(false);
+    }
+
+    @NonNull
+    @Override
+    public String evaluate(@NonNull String expression) {
+        return jexl.createExpression(expression).evaluate(null).toString();
+    }
+}
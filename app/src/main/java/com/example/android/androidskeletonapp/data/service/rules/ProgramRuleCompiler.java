@@ -0,0 +1,225 @@
+package com.example.android.androidskeletonapp.data.service.rules;
+
+import androidx.annotation.Nullable;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+
+import org.hisp.dhis.android.core.common.ObjectWithUid;
+import org.hisp.dhis.android.core.common.ValueType;
+import org.hisp.dhis.android.core.constant.Constant;
+import org.hisp.dhis.android.core.dataelement.DataElement;
+import org.hisp.dhis.android.core.program.ProgramRule;
+import org.hisp.dhis.android.core.program.ProgramRuleAction;
+import org.hisp.dhis.android.core.program.ProgramRuleVariable;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.rules.RuleEngineContext;
+import org.hisp.dhis.rules.models.Rule;
+import org.hisp.dhis.rules.models.RuleAction;
+import org.hisp.dhis.rules.models.RuleActionAssign;
+import org.hisp.dhis.rules.models.RuleActionDisplayKeyValuePair;
+import org.hisp.dhis.rules.models.RuleActionDisplayText;
+import org.hisp.dhis.rules.models.RuleActionErrorOnCompletion;
+import org.hisp.dhis.rules.models.RuleActionHideField;
+import org.hisp.dhis.rules.models.RuleActionSetMandatoryField;
+import org.hisp.dhis.rules.models.RuleActionShowError;
+import org.hisp.dhis.rules.models.RuleActionShowWarning;
+import org.hisp.dhis.rules.models.RuleActionWarningOnCompletion;
+import org.hisp.dhis.rules.models.RuleValueType;
+import org.hisp.dhis.rules.models.RuleVariable;
+import org.hisp.dhis.rules.models.RuleVariableAttribute;
+import org.hisp.dhis.rules.models.RuleVariableCalculatedValue;
+import org.hisp.dhis.rules.models.RuleVariableCurrentEvent;
+import org.hisp.dhis.rules.models.RuleVariableNewestEvent;
+import org.hisp.dhis.rules.models.RuleVariableNewestStageEvent;
+import org.hisp.dhis.rules.models.RuleVariablePreviousEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translates the program rules and rule variables stored by the SDK into a rule engine context.
+ */
+class ProgramRuleCompiler {
+
+    static RuleEngineContext compile(String programUid) {
+        List<ProgramRule> programRules = Sdk.d2().programModule().programRules()
+                .byProgramUid().eq(programUid)
+                .withProgramRuleActions()
+                .blockingGet();
+        List<ProgramRuleVariable> programRuleVariables = Sdk.d2().programModule().programRuleVariables()
+                .byProgramUid().eq(programUid)
+                .blockingGet();
+
+        List<Rule> rules = new ArrayList<>();
+        for (ProgramRule programRule : programRules) {
+            rules.add(toRule(programRule));
+        }
+
+        Map<String, ValueType> dataElementTypes = dataElementTypes();
+        Map<String, ValueType> attributeTypes = attributeTypes();
+        List<RuleVariable> variables = new ArrayList<>();
+        for (ProgramRuleVariable variable : programRuleVariables) {
+            RuleVariable ruleVariable = toRuleVariable(variable, dataElementTypes, attributeTypes);
+            if (ruleVariable != null) {
+                variables.add(ruleVariable);
+            }
+        }
+
+        return RuleEngineContext.builder(new JexlRuleExpressionEvaluator())
+                .rules(rules)
+                .ruleVariables(variables)
+                .supplementaryData(Collections.emptyMap())
+                .calculatedValueMap(Collections.emptyMap())
+                .constantsValue(constants())
+                .build();
+    }
+
+    private static Rule toRule(ProgramRule programRule) {
+        List<RuleAction> actions = new ArrayList<>();
+        if (programRule.programRuleActions() != null) {
+            for (ProgramRuleAction action : programRule.programRuleActions()) {
+                RuleAction ruleAction = toRuleAction(action);
+                if (ruleAction != null) {
+                    actions.add(ruleAction);
+                }
+            }
+        }
+        return Rule.create(uid(programRule.programStage()), programRule.priority(),
+                programRule.condition() == null ? "" : programRule.condition(), actions, programRule.name());
+    }
+
+    // Actions that only change the data entry form, like hiding sections, have no effect on bulk
+    // validation and are skipped.
+    @Nullable
+    private static RuleAction toRuleAction(ProgramRuleAction action) {
+        String field = action.dataElement() != null
+                ? action.dataElement().uid()
+                : uid(action.trackedEntityAttribute());
+        String content = action.content() == null ? "" : action.content();
+        String data = action.data() == null ? "" : action.data();
+        if (action.programRuleActionType() == null) {
+            return null;
+        }
+        switch (action.programRuleActionType()) {
+            case SHOWWARNING:
+                return RuleActionShowWarning.create(content, data, nullToEmpty(field));
+            case WARNINGONCOMPLETE:
+                return RuleActionWarningOnCompletion.create(content, data, nullToEmpty(field));
+            case SHOWERROR:
+                return RuleActionShowError.create(content, data, nullToEmpty(field));
+            case ERRORONCOMPLETE:
+                return RuleActionErrorOnCompletion.create(content, data, nullToEmpty(field));
+            case ASSIGN:
+                return RuleActionAssign.create(action.content(), data, field);
+            case DISPLAYTEXT:
+                return RuleActionDisplayText.createForFeedback(content, data);
+            case DISPLAYKEYVALUEPAIR:
+                return RuleActionDisplayKeyValuePair.createForFeedback(content, data);
+            case HIDEFIELD:
+                return field == null ? null : RuleActionHideField.create(content, field);
+            case SETMANDATORYFIELD:
+                return field == null ? null : RuleActionSetMandatoryField.create(field);
+            default:
+                return null;
+        }
+    }
+
+    @Nullable
+    private static RuleVariable toRuleVariable(ProgramRuleVariable variable,
+                                               Map<String, ValueType> dataElementTypes,
+                                               Map<String, ValueType> attributeTypes) {
+        String name = variable.name();
+        String dataElement = uid(variable.dataElement());
+        String attribute = uid(variable.trackedEntityAttribute());
+        if (name == null || variable.programRuleVariableSourceType() == null) {
+            return null;
+        }
+        switch (variable.programRuleVariableSourceType()) {
+            case DATAELEMENT_CURRENT_EVENT:
+                return dataElement == null ? null
+                        : RuleVariableCurrentEvent.create(name, dataElement, valueType(dataElementTypes.get(dataElement)));
+            case DATAELEMENT_NEWEST_EVENT_PROGRAM:
+                return dataElement == null ? null
+                        : RuleVariableNewestEvent.create(name, dataElement, valueType(dataElementTypes.get(dataElement)));
+            case DATAELEMENT_NEWEST_EVENT_PROGRAM_STAGE:
+                String programStage = uid(variable.programStage());
+                return dataElement == null || programStage == null ? null
+                        : RuleVariableNewestStageEvent.create(name, dataElement, programStage,
+                        valueType(dataElementTypes.get(dataElement)));
+            case DATAELEMENT_PREVIOUS_EVENT:
+                return dataElement == null ? null
+                        : RuleVariablePreviousEvent.create(name, dataElement, valueType(dataElementTypes.get(dataElement)));
+            case TEI_ATTRIBUTE:
+                return attribute == null ? null
+                        : RuleVariableAttribute.create(name, attribute, valueType(attributeTypes.get(attribute)));
+            case CALCULATED_VALUE:
+                return RuleVariableCalculatedValue.create(name, "", RuleValueType.TEXT);
+            default:
+                return null;
+        }
+    }
+
+    private static RuleValueType valueType(@Nullable ValueType valueType) {
+        if (valueType == null) {
+            return RuleValueType.TEXT;
+        }
+        switch (valueType) {
+            case NUMBER:
+            case INTEGER:
+            case INTEGER_POSITIVE:
+            case INTEGER_NEGATIVE:
+            case INTEGER_ZERO_OR_POSITIVE:
+            case PERCENTAGE:
+            case UNIT_INTERVAL:
+                return RuleValueType.NUMERIC;
+            case BOOLEAN:
+            case TRUE_ONLY:
+                return RuleValueType.BOOLEAN;
+            case DATE:
+            case DATETIME:
+                return RuleValueType.DATE;
+            default:
+                return RuleValueType.TEXT;
+        }
+    }
+
+    private static Map<String, ValueType> dataElementTypes() {
+        Map<String, ValueType> types = new HashMap<>();
+        for (DataElement dataElement : Sdk.d2().dataElementModule().dataElements().blockingGet()) {
+            types.put(dataElement.uid(), dataElement.valueType());
+        }
+        return types;
+    }
+
+    // Rule conditions refer to constants as C{uid}.
+    private static Map<String, String> constants() {
+        Map<String, String> constants = new HashMap<>();
+        for (Constant constant : Sdk.d2().constantModule().constants().blockingGet()) {
+            if (constant.value() != null) {
+                constants.put(constant.uid(), String.valueOf(constant.value()));
+            }
+        }
+        return constants;
+    }
+
+    private static Map<String, ValueType> attributeTypes() {
+        Map<String, ValueType> types = new HashMap<>();
+        for (TrackedEntityAttribute attribute : Sdk.d2().trackedEntityModule().trackedEntityAttributes()
+                .blockingGet()) {
+            types.put(attribute.uid(), attribute.valueType());
+        }
+        return types;
+    }
+
+    @Nullable
+    private static String uid(@Nullable ObjectWithUid object) {
+        return object == null ? null : object.uid();
+    }
+
+    private static String nullToEmpty(@Nullable String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.android.androidskeletonapp.data.service.rules;
+
+import androidx.annotation.Nullable;
+
+import org.hisp.dhis.rules.RuleEngine;
+import org.hisp.dhis.rules.RuleEngineContext;
+import org.hisp.dhis.rules.models.RuleEffect;
+import org.hisp.dhis.rules.models.RuleEnrollment;
+import org.hisp.dhis.rules.models.RuleEvent;
+import org.hisp.dhis.rules.models.TriggerEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Evaluates evaluation units in parallel batches, one batch per thread. The rule engine context is
+ * compiled once per program and shared; engines are cheap and built per evaluation, because an
+ * engine holds the events of the enrollment it evaluates.
+ * <p>
+ * The threads belong to the caller, so that evaluating page after page does not start and stop a
+ * pool for each page.
+ */
+public class RuleBatchEvaluator {
+
+    private final Executor executor;
+    private final int threads;
+
+    public RuleBatchEvaluator(Executor executor, int threads) {
+        this.executor = executor;
+        this.threads = Math.max(1, threads);
+    }
+
+    public RuleEffectSummary evaluate(RuleEngineContext context, List<RuleEvaluationUnit> units)
+            throws Exception {
+        long start = System.currentTimeMillis();
+        int batchSize = batchSize(units.size(), threads);
+        List<FutureTask<RuleEffectSummary.Builder>> batches = new ArrayList<>();
+        try {
+            for (int i = 0; i < units.size(); i += batchSize) {
+                List<RuleEvaluationUnit> batch = units.subList(i, Math.min(i + batchSize, units.size()));
+                FutureTask<RuleEffectSummary.Builder> task =
+                        new FutureTask<>(() -> evaluateBatch(context, batch));
+                batches.add(task);
+                executor.execute(task);
+            }
+
+            RuleEffectSummary.Builder summary = new RuleEffectSummary.Builder();
+            for (FutureTask<RuleEffectSummary.Builder> batch : batches) {
+                summary.add(batch.get());
+            }
+            return summary.build(System.currentTimeMillis() - start);
+        } finally {
+            // Batches still queued after a failure must not keep the threads busy.
+            for (FutureTask<RuleEffectSummary.Builder> batch : batches) {
+                batch.cancel(false);
+            }
+        }
+    }
+
+    // One batch per thread: smaller batches only add scheduling, larger ones leave threads idle.
+    static int batchSize(int units, int threads) {
+        return Math.max(1, (units + threads - 1) / threads);
+    }
+
+    private static RuleEffectSummary.Builder evaluateBatch(RuleEngineContext context,
+                                                           List<RuleEvaluationUnit> batch) {
+        RuleEffectSummary.Builder summary = new RuleEffectSummary.Builder();
+        for (RuleEvaluationUnit unit : batch) {
+            RuleEnrollment enrollment = unit.getEnrollment();
+            if (enrollment != null) {
+                RuleEngine engine = engine(context, enrollment, unit.getEvents());
+                evaluate(summary, () -> engine.evaluate(enrollment).call());
+            }
+            // The engine refuses to evaluate an event that is also part of its context.
+            for (RuleEvent event : unit.getEvents()) {
+                List<RuleEvent> otherEvents = new ArrayList<>(unit.getEvents());
+                otherEvents.remove(event);
+                RuleEngine engine = engine(context, enrollment, otherEvents);
+                evaluate(summary, () -> engine.evaluate(event).call());
+            }
+        }
+        return summary;
+    }
+
+    private static RuleEngine engine(RuleEngineContext context, @Nullable RuleEnrollment enrollment,
+                                     List<RuleEvent> events) {
+        RuleEngine.Builder builder = context.toEngineBuilder()
+                .triggerEnvironment(TriggerEnvironment.ANDROIDCLIENT)
+                .events(events);
+        if (enrollment != null) {
+            builder.enrollment(enrollment);
+        }
+        return builder.build();
+    }
+
+    // A rule that fails on one event must not abort the evaluation of the others.
+    private static void evaluate(RuleEffectSummary.Builder summary, EffectsCall call) {
+        try {
+            summary.addEffects(call.call());
+        } catch (Exception e) {
+            summary.addFailure();
+        }
+    }
+
+    private interface EffectsCall {
+        List<RuleEffect> call() throws Exception;
+    }
+}
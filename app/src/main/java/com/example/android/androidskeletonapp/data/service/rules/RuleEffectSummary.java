@@ -0,0 +1,125 @@
+package com.example.android.androidskeletonapp.data.service.rules;
+
+import org.hisp.dhis.rules.models.RuleAction;
+import org.hisp.dhis.rules.models.RuleActionAssign;
+import org.hisp.dhis.rules.models.RuleActionErrorOnCompletion;
+import org.hisp.dhis.rules.models.RuleActionShowError;
+import org.hisp.dhis.rules.models.RuleActionShowWarning;
+import org.hisp.dhis.rules.models.RuleActionWarningOnCompletion;
+import org.hisp.dhis.rules.models.RuleEffect;
+
+import java.util.List;
+
+public class RuleEffectSummary {
+
+    private final long evaluations;
+    private final long warnings;
+    private final long errors;
+    private final long assignedValues;
+    private final long otherEffects;
+    private final long failedEvaluations;
+    private final long durationMillis;
+
+    RuleEffectSummary(long evaluations, long warnings, long errors, long assignedValues, long otherEffects,
+                      long failedEvaluations, long durationMillis) {
+        this.evaluations = evaluations;
+        this.warnings = warnings;
+        this.errors = errors;
+        this.assignedValues = assignedValues;
+        this.otherEffects = otherEffects;
+        this.failedEvaluations = failedEvaluations;
+        this.durationMillis = durationMillis;
+    }
+
+    public static RuleEffectSummary empty() {
+        return new RuleEffectSummary(0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public long getWarnings() {
+        return warnings;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getAssignedValues() {
+        return assignedValues;
+    }
+
+    public long getOtherEffects() {
+        return otherEffects;
+    }
+
+    public long getFailedEvaluations() {
+        return failedEvaluations;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public double getEvaluationsPerSecond() {
+        return durationMillis == 0 ? evaluations : evaluations * 1000.0 / durationMillis;
+    }
+
+    RuleEffectSummary plus(RuleEffectSummary other) {
+        return new RuleEffectSummary(
+                evaluations + other.evaluations,
+                warnings + other.warnings,
+                errors + other.errors,
+                assignedValues + other.assignedValues,
+                otherEffects + other.otherEffects,
+                failedEvaluations + other.failedEvaluations,
+                durationMillis + other.durationMillis);
+    }
+
+    static class Builder {
+
+        private long evaluations;
+        private long warnings;
+        private long errors;
+        private long assignedValues;
+        private long otherEffects;
+        private long failedEvaluations;
+
+        void addEffects(List<RuleEffect> effects) {
+            evaluations++;
+            for (RuleEffect effect : effects) {
+                RuleAction action = effect.ruleAction();
+                if (action instanceof RuleActionShowWarning || action instanceof RuleActionWarningOnCompletion) {
+                    warnings++;
+                } else if (action instanceof RuleActionShowError || action instanceof RuleActionErrorOnCompletion) {
+                    errors++;
+                } else if (action instanceof RuleActionAssign) {
+                    assignedValues++;
+                } else {
+                    otherEffects++;
+                }
+            }
+        }
+
+        void addFailure() {
+            evaluations++;
+            failedEvaluations++;
+        }
+
+        void add(Builder other) {
+            evaluations += other.evaluations;
+            warnings += other.warnings;
+            errors += other.errors;
+            assignedValues += other.assignedValues;
+            otherEffects += other.otherEffects;
+            failedEvaluations += other.failedEvaluations;
+        }
+
+        RuleEffectSummary build(long durationMillis) {
+            return new RuleEffectSummary(evaluations, warnings, errors, assignedValues, otherEffects,
+                    failedEvaluations, durationMillis);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.android.androidskeletonapp.data.service.rules;
+
+import org.hisp.dhis.rules.RuleEngineContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiled rule engine contexts per program. They only depend on metadata, so the cache is
+ * invalidated when a metadata sync downloads changes.
+ */
+public class RuleEngineCache {
+
+    private static final Map<String, RuleEngineContext> contexts = new ConcurrentHashMap<>();
+
+    static RuleEngineContext get(String programUid) {
+        RuleEngineContext context = contexts.get(programUid);
+        if (context == null) {
+            context = ProgramRuleCompiler.compile(programUid);
+            contexts.put(programUid, context);
+        }
+        return context;
+    }
+
+    public static void invalidate() {
+        contexts.clear();
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.android.androidskeletonapp.data.service.rules;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
+
+import org.hisp.dhis.android.core.enrollment.Enrollment;
+import org.hisp.dhis.android.core.event.Event;
+import org.hisp.dhis.android.core.program.ProgramRule;
+import org.hisp.dhis.android.core.program.ProgramStage;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttributeValue;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityDataValue;
+import org.hisp.dhis.rules.RuleEngineContext;
+import org.hisp.dhis.rules.models.RuleAttributeValue;
+import org.hisp.dhis.rules.models.RuleDataValue;
+import org.hisp.dhis.rules.models.RuleEnrollment;
+import org.hisp.dhis.rules.models.RuleEvent;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.reactivex.Single;
+
+/**
+ * Evaluates the program rules of every program against the events and enrollments stored on the
+ * device and writes a summary of the resulting effects.
+ */
+public class RuleEvaluationService {
+
+    private static final String DIRECTORY = "rules";
+
+    private static final int PAGE_SIZE = 500;
+
+    private static final String ENROLLMENT_PAGE = "SELECT uid FROM Enrollment"
+            + " WHERE program = ? AND uid > ? ORDER BY uid LIMIT " + PAGE_SIZE;
+    private static final String ORPHAN_ENROLLMENT_PAGE = "SELECT DISTINCT enrollment FROM Event"
+            + " WHERE program = ? AND enrollment > ? AND enrollment NOT IN (SELECT uid FROM Enrollment)"
+            + " ORDER BY enrollment LIMIT " + PAGE_SIZE;
+    private static final String SINGLE_EVENT_PAGE = "SELECT uid FROM Event"
+            + " WHERE program = ? AND uid > ? AND enrollment IS NULL ORDER BY uid LIMIT " + PAGE_SIZE;
+
+    private final Context context;
+    private final RuleBatchEvaluator evaluator;
+
+    // The evaluation itself runs on a sync thread, which waits on the compute threads.
+    public RuleEvaluationService(Context context) {
+        this.context = context.getApplicationContext();
+        this.evaluator = new RuleBatchEvaluator(AppSchedulers.compute()::scheduleDirect,
+                AppSchedulers.COMPUTE_THREADS);
+    }
+
+    public Single<RuleEffectSummary> evaluateAll() {
+        return Single.fromCallable(() -> {
+            Map<String, RuleEffectSummary> summaries = new LinkedHashMap<>();
+            RuleEffectSummary total = RuleEffectSummary.empty();
+            for (String programUid : programsWithRules()) {
+                RuleEffectSummary summary = evaluate(programUid);
+                summaries.put(programUid, summary);
+                total = total.plus(summary);
+            }
+            write(summaries, total);
+            return total;
+        }).subscribeOn(AppSchedulers.sync());
+    }
+
+    private static Set<String> programsWithRules() {
+        Set<String> programs = new LinkedHashSet<>();
+        for (ProgramRule programRule : Sdk.d2().programModule().programRules().blockingGet()) {
+            if (programRule.program() != null) {
+                programs.add(programRule.program().uid());
+            }
+        }
+        return programs;
+    }
+
+    // A program can hold more events and enrollments than fit in memory at once, so they are read
+    // and evaluated a page at a time. Pages are keyed on the uid, which stays stable while a sync
+    // adds rows behind the cursor.
+    private RuleEffectSummary evaluate(String programUid) throws Exception {
+        RuleEngineContext context = RuleEngineCache.get(programUid);
+        Map<String, String> stageNames = stageNames(programUid);
+        RuleEffectSummary summary = RuleEffectSummary.empty();
+
+        List<String> page;
+        String after = "";
+        while (!(page = page(ENROLLMENT_PAGE, programUid, after)).isEmpty()) {
+            summary = summary.plus(evaluator.evaluate(context, enrollmentUnits(page, stageNames)));
+            after = page.get(page.size() - 1);
+        }
+        // Events whose enrollment is not stored are still checked together.
+        after = "";
+        while (!(page = page(ORPHAN_ENROLLMENT_PAGE, programUid, after)).isEmpty()) {
+            summary = summary.plus(evaluator.evaluate(context, orphanUnits(page, stageNames)));
+            after = page.get(page.size() - 1);
+        }
+        after = "";
+        while (!(page = page(SINGLE_EVENT_PAGE, programUid, after)).isEmpty()) {
+            summary = summary.plus(evaluator.evaluate(context, singleEventUnits(page, stageNames)));
+            after = page.get(page.size() - 1);
+        }
+        return summary;
+    }
+
+    private static List<String> page(String sql, String programUid, String after) {
+        List<String> uids = new ArrayList<>();
+        try (Cursor cursor = Sdk.d2().databaseAdapter().query(sql, programUid, after)) {
+            while (cursor.moveToNext()) {
+                uids.add(cursor.getString(0));
+            }
+        }
+        return uids;
+    }
+
+    private static Map<String, String> stageNames(String programUid) {
+        Map<String, String> stageNames = new HashMap<>();
+        for (ProgramStage stage : Sdk.d2().programModule().programStages()
+                .byProgramUid().eq(programUid).blockingGet()) {
+            stageNames.put(stage.uid(), stage.displayName());
+        }
+        return stageNames;
+    }
+
+    private static List<RuleEvaluationUnit> enrollmentUnits(List<String> enrollmentUids,
+                                                            Map<String, String> stageNames) {
+        Map<String, List<RuleEvent>> eventsByEnrollment = eventsByEnrollment(enrollmentUids, stageNames);
+        List<Enrollment> enrollments = Sdk.d2().enrollmentModule().enrollments()
+                .byUid().in(enrollmentUids).blockingGet();
+        Set<String> instances = new HashSet<>();
+        for (Enrollment enrollment : enrollments) {
+            instances.add(enrollment.trackedEntityInstance());
+        }
+        Map<String, List<RuleAttributeValue>> attributeValues = attributeValues(instances);
+
+        List<RuleEvaluationUnit> units = new ArrayList<>();
+        for (Enrollment enrollment : enrollments) {
+            List<RuleEvent> events = eventsByEnrollment.get(enrollment.uid());
+            units.add(new RuleEvaluationUnit(toRuleEnrollment(enrollment, attributeValues),
+                    events == null ? Collections.emptyList() : events));
+        }
+        return units;
+    }
+
+    private static List<RuleEvaluationUnit> orphanUnits(List<String> enrollmentUids,
+                                                        Map<String, String> stageNames) {
+        List<RuleEvaluationUnit> units = new ArrayList<>();
+        for (List<RuleEvent> events : eventsByEnrollment(enrollmentUids, stageNames).values()) {
+            units.add(new RuleEvaluationUnit(null, events));
+        }
+        return units;
+    }
+
+    private static List<RuleEvaluationUnit> singleEventUnits(List<String> eventUids,
+                                                             Map<String, String> stageNames) {
+        List<RuleEvaluationUnit> units = new ArrayList<>();
+        for (Event event : Sdk.d2().eventModule().events()
+                .byUid().in(eventUids)
+                .withTrackedEntityDataValues()
+                .blockingGet()) {
+            units.add(new RuleEvaluationUnit(null, Collections.singletonList(toRuleEvent(event, stageNames))));
+        }
+        return units;
+    }
+
+    private static Map<String, List<RuleEvent>> eventsByEnrollment(List<String> enrollmentUids,
+                                                                   Map<String, String> stageNames) {
+        Map<String, List<RuleEvent>> eventsByEnrollment = new HashMap<>();
+        for (Event event : Sdk.d2().eventModule().events()
+                .byEnrollmentUid().in(enrollmentUids)
+                .withTrackedEntityDataValues()
+                .blockingGet()) {
+            List<RuleEvent> events = eventsByEnrollment.get(event.enrollment());
+            if (events == null) {
+                events = new ArrayList<>();
+                eventsByEnrollment.put(event.enrollment(), events);
+            }
+            events.add(toRuleEvent(event, stageNames));
+        }
+        return eventsByEnrollment;
+    }
+
+    private static RuleEvent toRuleEvent(Event event, Map<String, String> stageNames) {
+        Date eventDate = event.eventDate() != null ? event.eventDate() : new Date();
+        List<RuleDataValue> dataValues = new ArrayList<>();
+        if (event.trackedEntityDataValues() != null) {
+            for (TrackedEntityDataValue value : event.trackedEntityDataValues()) {
+                if (value.value() != null) {
+                    dataValues.add(RuleDataValue.create(eventDate, event.programStage(),
+                            value.dataElement(), value.value()));
+                }
+            }
+        }
+        String stageName = stageNames.get(event.programStage());
+        return RuleEvent.builder()
+                .event(event.uid())
+                .programStage(event.programStage())
+                .programStageName(stageName == null ? "" : stageName)
+                .status(eventStatus(event))
+                .eventDate(eventDate)
+                .dueDate(event.dueDate() != null ? event.dueDate() : eventDate)
+                .organisationUnit(event.organisationUnit())
+                .organisationUnitCode("")
+                .dataValues(dataValues)
+                .build();
+    }
+
+    private static RuleEvent.Status eventStatus(Event event) {
+        if (event.status() == null) {
+            return RuleEvent.Status.ACTIVE;
+        }
+        try {
+            return RuleEvent.Status.valueOf(event.status().name());
+        } catch (IllegalArgumentException e) {
+            return RuleEvent.Status.ACTIVE;
+        }
+    }
+
+    private static RuleEnrollment toRuleEnrollment(Enrollment enrollment,
+                                                   Map<String, List<RuleAttributeValue>> attributeValues) {
+        Date enrollmentDate = enrollment.enrollmentDate() != null ? enrollment.enrollmentDate() : new Date();
+        List<RuleAttributeValue> values = attributeValues.get(enrollment.trackedEntityInstance());
+        return RuleEnrollment.create(enrollment.uid(),
+                enrollment.incidentDate() != null ? enrollment.incidentDate() : enrollmentDate,
+                enrollmentDate,
+                enrollmentStatus(enrollment),
+                enrollment.organisationUnit(),
+                "",
+                values == null ? Collections.emptyList() : values,
+                enrollment.program());
+    }
+
+    private static RuleEnrollment.Status enrollmentStatus(Enrollment enrollment) {
+        if (enrollment.status() == null) {
+            return RuleEnrollment.Status.ACTIVE;
+        }
+        try {
+            return RuleEnrollment.Status.valueOf(enrollment.status().name());
+        } catch (IllegalArgumentException e) {
+            return RuleEnrollment.Status.ACTIVE;
+        }
+    }
+
+    // Loaded once per page and grouped in memory, instead of one query per enrollment.
+    private static Map<String, List<RuleAttributeValue>> attributeValues(Set<String> instances) {
+        Map<String, List<RuleAttributeValue>> values = new HashMap<>();
+        for (TrackedEntityAttributeValue value : Sdk.d2().trackedEntityModule().trackedEntityAttributeValues()
+                .byTrackedEntityInstance().in(new ArrayList<>(instances))
+                .blockingGet()) {
+            if (value.value() == null) {
+                continue;
+            }
+            List<RuleAttributeValue> teiValues = values.get(value.trackedEntityInstance());
+            if (teiValues == null) {
+                teiValues = new ArrayList<>();
+                values.put(value.trackedEntityInstance(), teiValues);
+            }
+            teiValues.add(RuleAttributeValue.create(value.trackedEntityAttribute(), value.value()));
+        }
+        return values;
+    }
+
+    private void write(Map<String, RuleEffectSummary> summaries, RuleEffectSummary total) throws IOException {
+        JSONObject programs = new JSONObject();
+        JSONObject json = new JSONObject();
+        try {
+            for (Map.Entry<String, RuleEffectSummary> entry : summaries.entrySet()) {
+                programs.put(entry.getKey(), toJson(entry.getValue()));
+            }
+            json.put("total", toJson(total)).put("programs", programs);
+        } catch (JSONException e) {
+            throw new IOException("Unable to serialize rule effects", e);
+        }
+
+        File directory = new File(context.getFilesDir(), DIRECTORY);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        File file = new File(directory, "rule-effects-" + System.currentTimeMillis() + ".json");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"))) {
+            writer.write(json.toString());
+        }
+    }
+
+    private static JSONObject toJson(RuleEffectSummary summary) throws JSONException {
+        return new JSONObject()
+                .put("evaluations", summary.getEvaluations())
+                .put("warnings", summary.getWarnings())
+                .put("errors", summary.getErrors())
+                .put("assignedValues", summary.getAssignedValues())
+                .put("otherEffects", summary.getOtherEffects())
+                .put("failedEvaluations", summary.getFailedEvaluations())
+                .put("durationMillis", summary.getDurationMillis())
+                .put("evaluationsPerSecond", summary.getEvaluationsPerSecond());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.android.androidskeletonapp.data.service.rules;
+
+import androidx.annotation.Nullable;
+
+import org.hisp.dhis.rules.models.RuleEnrollment;
+import org.hisp.dhis.rules.models.RuleEvent;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Events that have to be evaluated together: the events of one enrollment, so rule variables can
+ * see earlier events, or a single event of a program without registration.
+ */
+public class RuleEvaluationUnit {
+
+    @Nullable
+    private final RuleEnrollment enrollment;
+    private final List<RuleEvent> events;
+
+    public RuleEvaluationUnit(@Nullable RuleEnrollment enrollment, List<RuleEvent> events) {
+        this.enrollment = enrollment;
+        this.events = Collections.unmodifiableList(events);
+    }
+
+    @Nullable
+    public RuleEnrollment getEnrollment() {
+        return enrollment;
+    }
+
+    public List<RuleEvent> getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.android.androidskeletonapp.data.service.scheduling;
+
+import com.example.android.androidskeletonapp.data.service.adaptive.AdaptiveDownload;
+
+import java.util.Arrays;
+import java.util.List;
+
+import io.reactivex.Scheduler;
+
+/**
+ * Keeps reads the user is waiting for off the threads doing bulk sync work. Each kind of work has
+ * its own bounded pool, so a sync that keeps every sync thread busy only queues more sync work,
+ * and the sync threads run at background priority so they yield the CPU to interactive ones.
+ */
+public class AppSchedulers {
+
+    public static final int INTERACTIVE_THREADS = 4;
+    // The most downloads the adaptive controller lets run at once, plus the two upload streams.
+    public static final int SYNC_THREADS = AdaptiveDownload.MAX_CONCURRENT_REQUESTS + 2;
+    public static final int COMPUTE_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    // Android maps Java priority 4 to nice 10, THREAD_PRIORITY_BACKGROUND; 3 would be nice 13.
+    private static final int SYNC_THREAD_PRIORITY = 4;
+
+    private static final SchedulerPool interactive =
+            new SchedulerPool("interactive", INTERACTIVE_THREADS, Thread.NORM_PRIORITY);
+    private static final SchedulerPool sync =
+            new SchedulerPool("sync", SYNC_THREADS, SYNC_THREAD_PRIORITY);
+    private static final SchedulerPool compute =
+            new SchedulerPool("compute", COMPUTE_THREADS, SYNC_THREAD_PRIORITY);
+
+    /**
+     * Database reads and light network calls whose results a screen is waiting to show.
+     */
+    public static Scheduler interactive() {
+        return interactive.scheduler();
+    }
+
+    /**
+     * Downloads, uploads, index refreshes, exports and other bulk work.
+     */
+    public static Scheduler sync() {
+        return sync.scheduler();
+    }
+
+    /**
+     * CPU-bound bulk work split across the cores, such as rule evaluation. Tasks never wait on the
+     * database or the network, so one thread per core keeps every core busy.
+     */
+    public static Scheduler compute() {
+        return compute.scheduler();
+    }
+
+    public static List<PoolMetrics> metrics() {
+        return Arrays.asList(interactive.metrics(), sync.metrics(), compute.metrics());
+    }
+}
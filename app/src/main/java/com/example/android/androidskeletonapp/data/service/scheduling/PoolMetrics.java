@@ -0,0 +1,56 @@
+package com.example.android.androidskeletonapp.data.service.scheduling;
+
+import java.util.Locale;
+
+public class PoolMetrics {
+
+    private final String name;
+    private final int queueDepth;
+    private final int activeThreads;
+    private final long startedTasks;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+
+    public PoolMetrics(String name, int queueDepth, int activeThreads, long startedTasks, long totalWaitNanos,
+                       long maxWaitNanos) {
+        this.name = name;
+        this.queueDepth = queueDepth;
+        this.activeThreads = activeThreads;
+        this.startedTasks = startedTasks;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Tasks submitted but not started yet.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getActiveThreads() {
+        return activeThreads;
+    }
+
+    public long getStartedTasks() {
+        return startedTasks;
+    }
+
+    public double getAverageWaitMillis() {
+        return startedTasks == 0 ? 0 : totalWaitNanos / 1_000_000.0 / startedTasks;
+    }
+
+    public double getMaxWaitMillis() {
+        return maxWaitNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s: %d queued, %d active, %d started, wait avg %.1f ms max %.1f ms",
+                name, queueDepth, activeThreads, startedTasks, getAverageWaitMillis(), getMaxWaitMillis());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.android.androidskeletonapp.data.service.scheduling;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * A fixed number of threads at one priority, exposed as a {@link Scheduler}. Tasks beyond the
+ * thread count queue up instead of starting more threads, and the time each task spends queued
+ * is measured. Idle threads stop after a while, so an unused pool holds no threads.
+ */
+public class SchedulerPool implements Executor {
+
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final Scheduler scheduler;
+
+    private final AtomicLong startedTasks = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public SchedulerPool(String name, int threads, int threadPriority) {
+        this.name = name;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(threadPriority);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.scheduler = Schedulers.from(this);
+    }
+
+    public Scheduler scheduler() {
+        return scheduler;
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        long queued = System.nanoTime();
+        executor.execute(() -> {
+            long wait = System.nanoTime() - queued;
+            startedTasks.incrementAndGet();
+            totalWaitNanos.addAndGet(wait);
+            maxWaitNanos.accumulateAndGet(wait, Math::max);
+            command.run();
+        });
+    }
+
+    public PoolMetrics metrics() {
+        return new PoolMetrics(name, executor.getQueue().size(), executor.getActiveCount(),
+                startedTasks.get(), totalWaitNanos.get(), maxWaitNanos.get());
+    }
+}
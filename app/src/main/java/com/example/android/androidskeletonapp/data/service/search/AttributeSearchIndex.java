@@ -0,0 +1,147 @@
+package com.example.android.androidskeletonapp.data.service.search;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Inverted index from normalized attribute-value tokens to tracked entity instances. Every query
+ * token is matched as a prefix of some indexed token, and all query tokens must match, so
+ * "ma jo" finds "Maria Jones". Not thread safe while it changes; an index that no longer changes
+ * can be searched from several threads at once.
+ */
+public class AttributeSearchIndex {
+
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<String, Integer> documentIds = new HashMap<>();
+    private final List<String> uids = new ArrayList<>();
+    private final List<String[]> documentTokens = new ArrayList<>();
+    // Ids of removed documents are reused, so churn does not grow the id space.
+    private final BitSet freeIds = new BitSet();
+
+    /**
+     * Indexes a tracked entity instance under the tokens of its attribute values, replacing
+     * whatever it was indexed under before.
+     */
+    public void put(String uid, Collection<String> values) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String value : values) {
+            tokens.addAll(TokenNormalizer.tokens(value));
+        }
+        remove(uid);
+        if (tokens.isEmpty()) {
+            return;
+        }
+        int id = allocate(uid);
+        String[] tokenArray = tokens.toArray(new String[0]);
+        documentTokens.set(id, tokenArray);
+        for (String token : tokenArray) {
+            PostingList list = postings.get(token);
+            if (list == null) {
+                list = new PostingList();
+                postings.put(token, list);
+            }
+            list.add(id);
+        }
+    }
+
+    public void remove(String uid) {
+        Integer id = documentIds.remove(uid);
+        if (id == null) {
+            return;
+        }
+        for (String token : documentTokens.get(id)) {
+            PostingList list = postings.get(token);
+            list.remove(id);
+            if (list.isEmpty()) {
+                postings.remove(token);
+            }
+        }
+        documentTokens.set(id, null);
+        uids.set(id, null);
+        freeIds.set(id);
+    }
+
+    /**
+     * Returns up to {@code limit} uids matching every token of the query, in index order. An empty
+     * query matches nothing.
+     */
+    public List<String> search(String query, int limit) {
+        List<String> result = new ArrayList<>();
+        List<String> tokens = TokenNormalizer.tokens(query);
+        if (tokens.isEmpty()) {
+            return result;
+        }
+        BitSet matches = null;
+        for (String token : new LinkedHashSet<>(tokens)) {
+            BitSet tokenMatches = prefixMatches(token);
+            if (matches == null) {
+                matches = tokenMatches;
+            } else {
+                matches.and(tokenMatches);
+            }
+            if (matches.isEmpty()) {
+                return result;
+            }
+        }
+        for (int id = matches.nextSetBit(0); id >= 0 && result.size() < limit; id = matches.nextSetBit(id + 1)) {
+            result.add(uids.get(id));
+        }
+        return result;
+    }
+
+    public int size() {
+        return documentIds.size();
+    }
+
+    public int tokenCount() {
+        return postings.size();
+    }
+
+    /**
+     * An independent copy to apply changes to while this index keeps answering searches. Token
+     * arrays are never modified once stored, so they are shared.
+     */
+    public AttributeSearchIndex copy() {
+        AttributeSearchIndex copy = new AttributeSearchIndex();
+        for (Map.Entry<String, PostingList> entry : postings.entrySet()) {
+            copy.postings.put(entry.getKey(), entry.getValue().copy());
+        }
+        copy.documentIds.putAll(documentIds);
+        copy.uids.addAll(uids);
+        copy.documentTokens.addAll(documentTokens);
+        copy.freeIds.or(freeIds);
+        return copy;
+    }
+
+    private BitSet prefixMatches(String prefix) {
+        BitSet bits = new BitSet(uids.size());
+        NavigableMap<String, PostingList> range =
+                postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        for (PostingList list : range.values()) {
+            list.addTo(bits);
+        }
+        return bits;
+    }
+
+    private int allocate(String uid) {
+        int id = freeIds.nextSetBit(0);
+        if (id >= 0) {
+            freeIds.clear(id);
+            uids.set(id, uid);
+        } else {
+            id = uids.size();
+            uids.add(uid);
+            documentTokens.add(null);
+        }
+        documentIds.put(uid, id);
+        return id;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.android.androidskeletonapp.data.service.search;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Sorted document ids of one token, kept in a plain int array so 100k documents do not cost 100k
+ * boxed integers.
+ */
+class PostingList {
+
+    private int[] ids = new int[2];
+    private int size;
+
+    void add(int id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+    }
+
+    void remove(int id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+    }
+
+    void addTo(BitSet bits) {
+        for (int i = 0; i < size; i++) {
+            bits.set(ids[i]);
+        }
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    PostingList copy() {
+        PostingList copy = new PostingList();
+        copy.ids = Arrays.copyOf(ids, ids.length);
+        copy.size = size;
+        return copy;
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.android.androidskeletonapp.data.service.search;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.reactivex.Single;
+
+/**
+ * Keeps an {@link AttributeSearchIndex} over the downloaded tracked entity instances. The first
+ * refresh indexes every instance. Later refreshes only re-read the instances marked as changed
+ * since, by the tracker download and the package import, which are the only writers of instances
+ * in the app. The SDK stores the server's lastUpdated, which a download can move backwards, so
+ * the table itself cannot tell what changed.
+ * <p>
+ * Every refresh applies its changes to a copy of the index and swaps it in once done, so searches
+ * keep answering from the previous index meanwhile and never wait for a refresh.
+ */
+public class SearchIndexEngine {
+
+    public static final int DEFAULT_LIMIT = 200;
+
+    private static final String TAG = "SearchIndexEngine";
+    private static final String QUERY = "SELECT t.uid, t.deleted, t.state, v.value "
+            + "FROM TrackedEntityInstance t "
+            + "LEFT JOIN TrackedEntityAttributeValue v ON v.trackedEntityInstance = t.uid";
+    private static final String ORDER = " ORDER BY t.uid";
+    // Well below SQLite's limit of 999 bound arguments.
+    private static final int REINDEX_BATCH_SIZE = 500;
+
+    private static final Object loadLock = new Object();
+    private static volatile AttributeSearchIndex index = new AttributeSearchIndex();
+    private static volatile boolean loaded;
+
+    // Guarded by itself. Changes are only tracked once a full load started, as until then the
+    // full load reads them anyway.
+    private static final Set<String> changed = new HashSet<>();
+    private static boolean tracking;
+
+    public static Single<Integer> refresh() {
+        return Single.fromCallable(SearchIndexEngine::load).subscribeOn(AppSchedulers.sync());
+    }
+
+    /**
+     * Marks instances whose rows or attribute values were written, so the next refresh re-reads
+     * them. That refresh has to run after the writes are committed.
+     */
+    public static void markChanged(Collection<String> trackedEntityInstanceUids) {
+        synchronized (changed) {
+            if (tracking) {
+                changed.addAll(trackedEntityInstanceUids);
+            }
+        }
+    }
+
+    /**
+     * Uids of the instances matching every token of the query. Indexes everything first if
+     * nothing has been indexed in this process yet.
+     */
+    public static Single<List<String>> search(String query, int limit) {
+        return Single.fromCallable(() -> {
+            if (!loaded) {
+                synchronized (loadLock) {
+                    if (!loaded) {
+                        load();
+                    }
+                }
+            }
+            return index.search(query, limit);
+        }).subscribeOn(AppSchedulers.interactive());
+    }
+
+    public static void clear() {
+        synchronized (loadLock) {
+            synchronized (changed) {
+                tracking = false;
+                changed.clear();
+            }
+            index = new AttributeSearchIndex();
+            loaded = false;
+        }
+    }
+
+    private static int load() {
+        synchronized (loadLock) {
+            long start = System.currentTimeMillis();
+            List<String> uids;
+            synchronized (changed) {
+                // Instances written after this point stay marked for the next refresh.
+                tracking = true;
+                uids = new ArrayList<>(changed);
+                changed.clear();
+            }
+            int instances = 0;
+            AttributeSearchIndex next;
+            if (!loaded) {
+                next = new AttributeSearchIndex();
+                try (Cursor cursor = Sdk.d2().databaseAdapter().query(QUERY + ORDER)) {
+                    instances = apply(next, cursor);
+                }
+            } else if (uids.isEmpty()) {
+                return 0;
+            } else {
+                next = index.copy();
+                for (int i = 0; i < uids.size(); i += REINDEX_BATCH_SIZE) {
+                    instances += reindex(next, uids.subList(i, Math.min(i + REINDEX_BATCH_SIZE, uids.size())));
+                }
+            }
+            index = next;
+            loaded = true;
+            Log.i(TAG, "Indexed " + instances + " instances in " + (System.currentTimeMillis() - start) + " ms, "
+                    + next.size() + " searchable, " + next.tokenCount() + " tokens");
+            return instances;
+        }
+    }
+
+    // Instances whose rows are gone are only removed.
+    private static int reindex(AttributeSearchIndex target, List<String> uids) {
+        for (String uid : uids) {
+            target.remove(uid);
+        }
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < uids.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        try (Cursor cursor = Sdk.d2().databaseAdapter().query(
+                QUERY + " WHERE t.uid IN (" + placeholders + ")" + ORDER, uids.toArray(new String[0]))) {
+            return apply(target, cursor);
+        }
+    }
+
+    // Rows arrive grouped by instance; each group replaces that instance's entry.
+    private static int apply(AttributeSearchIndex target, Cursor cursor) {
+        int instances = 0;
+        String current = null;
+        boolean searchable = false;
+        List<String> values = new ArrayList<>();
+        while (cursor.moveToNext()) {
+            String uid = cursor.getString(0);
+            if (!uid.equals(current)) {
+                if (current != null) {
+                    store(target, current, searchable, values);
+                    instances++;
+                }
+                current = uid;
+                searchable = cursor.getInt(1) != 1 && !"RELATIONSHIP".equals(cursor.getString(2));
+                values.clear();
+            }
+            if (!cursor.isNull(3)) {
+                values.add(cursor.getString(3));
+            }
+        }
+        if (current != null) {
+            store(target, current, searchable, values);
+            instances++;
+        }
+        return instances;
+    }
+
+    private static void store(AttributeSearchIndex target, String uid, boolean searchable,
+                              List<String> values) {
+        if (searchable) {
+            target.put(uid, values);
+        } else {
+            target.remove(uid);
+        }
+    }
+}
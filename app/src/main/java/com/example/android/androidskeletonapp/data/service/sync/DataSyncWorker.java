@@ -0,0 +1,120 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.RxWorker;
+import androidx.work.WorkerParameters;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.R;
+import com.example.android.androidskeletonapp.data.service.SyncCounter;
+import com.example.android.androidskeletonapp.data.service.SyncStatusService;
+import com.example.android.androidskeletonapp.data.service.adaptive.AdaptiveDownload;
+import com.example.android.androidskeletonapp.data.service.aggregate.AggregateEngine;
+import com.example.android.androidskeletonapp.data.service.download.CheckpointStore;
+import com.example.android.androidskeletonapp.data.service.download.DownloadPageProgress;
+import com.example.android.androidskeletonapp.data.service.download.SharedPreferencesCheckpointStore;
+import com.example.android.androidskeletonapp.data.service.download.TrackedEntityInstanceDownloadEngine;
+import com.example.android.androidskeletonapp.data.service.resilience.SyncResilience;
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
+import com.example.android.androidskeletonapp.data.service.search.SearchIndexEngine;
+import com.example.android.androidskeletonapp.data.service.telemetry.Stage;
+import com.example.android.androidskeletonapp.data.service.telemetry.SyncTelemetry;
+import com.example.android.androidskeletonapp.data.service.tracing.Tracing;
+
+import java.util.Set;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+
+public class DataSyncWorker extends RxWorker {
+
+    public static final String KEY_COMPLETED_PAGES = "completed_pages";
+    public static final String KEY_TOTAL_PAGES = "total_pages";
+
+    private static final String STAGES = "data_sync_stages";
+    private static final String PAGES = "tracked_entity_instance_pages";
+    private static final String STAGE_TRACKED_ENTITY_INSTANCES = "tracked_entity_instances";
+    private static final String STAGE_AGGREGATED_DATA = "aggregated_data";
+
+    public DataSyncWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Single<Result> createWork() {
+        setForegroundAsync(SyncNotifications.foregroundInfo(getApplicationContext(), SyncJob.DATA,
+                R.string.syncing_data));
+        // Keyed by this work request, which keeps its id across retries, so a new sync never
+        // trusts the stages or pages of an earlier one that was cancelled or replaced.
+        CheckpointStore stages = checkpointStore(STAGES);
+        CheckpointStore pages = checkpointStore(PAGES);
+        return SyncEngine.loggedIn(getApplicationContext())
+                .flatMapCompletable(d2 -> download(stages, pages))
+                .compose(Tracing.traceCompletable("download_data"))
+                .doOnComplete(stages::clear)
+                .doOnComplete(() -> SyncEngine.scheduleMaintenance(getApplicationContext()))
+                .toSingleDefault(Result.success())
+                .doOnError(Throwable::printStackTrace)
+                .onErrorReturn(throwable -> {
+                    if (SyncEngine.shouldRetry(throwable, getRunAttemptCount())) {
+                        return Result.retry();
+                    }
+                    // Giving up means the next sync starts over instead of trusting stale stages or pages.
+                    stages.clear();
+                    pages.clear();
+                    return Result.failure();
+                })
+                .doFinally(() -> SyncStatusService.reconcile(
+                        SyncCounter.TRACKED_ENTITY_INSTANCES, SyncCounter.DATA_VALUES))
+                .compose(SyncEngine.jobs().shared());
+    }
+
+    private CheckpointStore checkpointStore(String prefix) {
+        String name = prefix + "_" + getId();
+        SharedPreferencesCheckpointStore.removeOthers(getApplicationContext(), prefix + "_", name);
+        return new SharedPreferencesCheckpointStore(getApplicationContext(), name);
+    }
+
+    /**
+     * Stages that finished in an earlier attempt of this sync are skipped on a retry, and a failing
+     * stage does not cancel the other one. Within the tracker stage, finished pages are kept in
+     * {@code pages}, which the engine clears once every page is downloaded.
+     */
+    private Completable download(CheckpointStore stages, CheckpointStore pages) {
+        Set<String> completed = stages.completedPages();
+        Completable trackedEntityInstances = TrackedEntityInstanceDownloadEngine
+                .create(pages)
+                .download()
+                .doOnNext(progress -> setProgressAsync(new Data.Builder()
+                        .putInt(KEY_COMPLETED_PAGES, progress.getCompletedPages())
+                        .putInt(KEY_TOTAL_PAGES, progress.getTotalPages())
+                        .build()))
+                // The counter ticks up while pages are still downloading, and is recounted once the
+                // worker is done.
+                .doOnNext(progress -> SyncStatusService.increment(
+                        SyncCounter.TRACKED_ENTITY_INSTANCES, progress.getRecords()))
+                .compose(SyncTelemetry.instrument(Stage.TRACKED_ENTITY_INSTANCES, DownloadPageProgress::getRecords))
+                .ignoreElements()
+                .andThen(SearchIndexEngine.refresh().ignoreElement())
+                .doOnComplete(() -> stages.markCompleted(STAGE_TRACKED_ENTITY_INSTANCES));
+        Completable aggregatedData = Completable.defer(() -> Sdk.d2().aggregatedModule().data().download()
+                .compose(SyncResilience.breaker().protect())
+                .compose(SyncTelemetry.instrument(Stage.AGGREGATED_DATA, progress -> 1))
+                .ignoreElements()
+                .subscribeOn(AppSchedulers.sync())
+                // The aggregate download takes one of the requests the tracker pages would run.
+                .compose(AdaptiveDownload.controller().limit()))
+                .retryWhen(SyncResilience.retry())
+                .doOnComplete(() -> SyncStatusService.reconcile(SyncCounter.DATA_VALUES))
+                .andThen(AggregateEngine.refresh().ignoreElement())
+                .doOnComplete(() -> stages.markCompleted(STAGE_AGGREGATED_DATA));
+
+        return Completable.mergeArrayDelayError(
+                completed.contains(STAGE_TRACKED_ENTITY_INSTANCES) ? Completable.complete() : trackedEntityInstances,
+                completed.contains(STAGE_AGGREGATED_DATA) ? Completable.complete() : aggregatedData);
+    }
+}
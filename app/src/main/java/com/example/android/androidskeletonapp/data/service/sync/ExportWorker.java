@@ -0,0 +1,60 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.RxWorker;
+import androidx.work.WorkerParameters;
+
+import com.example.android.androidskeletonapp.R;
+import com.example.android.androidskeletonapp.SkeletonApplication;
+import com.example.android.androidskeletonapp.data.service.offline.PackageExporter;
+import com.example.android.androidskeletonapp.data.service.telemetry.Stage;
+import com.example.android.androidskeletonapp.data.service.telemetry.SyncTelemetry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import io.reactivex.Single;
+
+public class ExportWorker extends RxWorker {
+
+    public static final String KEY_URI = "uri";
+    public static final String KEY_RECORDS = "records";
+    public static final String KEY_DURATION_MILLIS = "duration_millis";
+
+    public ExportWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Single<Result> createWork() {
+        setForegroundAsync(SyncNotifications.foregroundInfo(getApplicationContext(), SyncJob.EXPORT,
+                R.string.exporting_package));
+        Uri uri = Uri.parse(getInputData().getString(KEY_URI));
+        return SkeletonApplication.from(getApplicationContext()).d2()
+                .flatMap(d2 -> Single.using(
+                        () -> openOutput(uri),
+                        output -> new PackageExporter().exportPackage(output),
+                        OutputStream::close))
+                .compose(SyncTelemetry.instrumentSingle(Stage.PACKAGE_EXPORT, report -> report.getRecords()))
+                .map(report -> Result.success(new Data.Builder()
+                        .putInt(KEY_RECORDS, report.getRecords())
+                        .putLong(KEY_DURATION_MILLIS, report.getDurationMillis())
+                        .build()))
+                .doOnError(Throwable::printStackTrace)
+                .onErrorReturnItem(Result.failure())
+                .compose(SyncEngine.jobs().shared());
+    }
+
+    private OutputStream openOutput(Uri uri) throws IOException {
+        OutputStream output = getApplicationContext().getContentResolver().openOutputStream(uri);
+        if (output == null) {
+            throw new IOException("Cannot open " + uri);
+        }
+        return output;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.RxWorker;
+import androidx.work.WorkerParameters;
+
+import com.example.android.androidskeletonapp.R;
+import com.example.android.androidskeletonapp.SkeletonApplication;
+import com.example.android.androidskeletonapp.data.service.SyncCounter;
+import com.example.android.androidskeletonapp.data.service.SyncStatusService;
+import com.example.android.androidskeletonapp.data.service.offline.PackageImporter;
+import com.example.android.androidskeletonapp.data.service.aggregate.AggregateEngine;
+import com.example.android.androidskeletonapp.data.service.search.SearchIndexEngine;
+import com.example.android.androidskeletonapp.data.service.telemetry.Stage;
+import com.example.android.androidskeletonapp.data.service.telemetry.SyncTelemetry;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import io.reactivex.Single;
+
+public class ImportWorker extends RxWorker {
+
+    public static final String KEY_URI = "uri";
+    public static final String KEY_RECORDS = "records";
+    public static final String KEY_SKIPPED = "skipped";
+    public static final String KEY_PERCENTAGE = "percentage";
+    public static final String KEY_RECORDS_PER_SECOND = "records_per_second";
+
+    public ImportWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Single<Result> createWork() {
+        setForegroundAsync(SyncNotifications.foregroundInfo(getApplicationContext(), SyncJob.IMPORT,
+                R.string.importing_package));
+        Uri uri = Uri.parse(getInputData().getString(KEY_URI));
+        return SkeletonApplication.from(getApplicationContext()).d2()
+                .flatMapObservable(d2 -> new PackageImporter().importPackage(() -> openInput(uri), size(uri)))
+                .doOnNext(progress -> setProgressAsync(new Data.Builder()
+                        .putInt(KEY_RECORDS, progress.getRecords())
+                        .putInt(KEY_PERCENTAGE, progress.getPercentage())
+                        .build()))
+                .lastOrError()
+                .compose(SyncTelemetry.instrumentSingle(Stage.PACKAGE_IMPORT, progress -> progress.getRecords()))
+                .flatMap(progress -> SearchIndexEngine.refresh().map(instances -> progress))
+                .flatMap(progress -> AggregateEngine.refresh().map(values -> progress))
+                .doOnSuccess(progress -> SyncEngine.scheduleMaintenance(getApplicationContext()))
+                .map(progress -> Result.success(new Data.Builder()
+                        .putInt(KEY_RECORDS, progress.getRecords())
+                        .putInt(KEY_SKIPPED, progress.getSkipped())
+                        .putDouble(KEY_RECORDS_PER_SECOND, progress.getRecordsPerSecond())
+                        .build()))
+                .doOnError(Throwable::printStackTrace)
+                .onErrorReturnItem(Result.failure())
+                .doFinally(() -> SyncStatusService.reconcile(
+                        SyncCounter.TRACKED_ENTITY_INSTANCES, SyncCounter.SINGLE_EVENTS, SyncCounter.DATA_VALUES))
+                .compose(SyncEngine.jobs().shared());
+    }
+
+    private InputStream openInput(Uri uri) throws IOException {
+        InputStream input = getApplicationContext().getContentResolver().openInputStream(uri);
+        if (input == null) {
+            throw new IOException("Cannot open " + uri);
+        }
+        return input;
+    }
+
+    private long size(Uri uri) {
+        ContentResolver resolver = getApplicationContext().getContentResolver();
+        try (AssetFileDescriptor descriptor = resolver.openAssetFileDescriptor(uri, "r")) {
+            return descriptor == null ? -1 : descriptor.getLength();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableEmitter;
+import io.reactivex.Single;
+import io.reactivex.SingleTransformer;
+
+/**
+ * Bounds the sync jobs running at once. WorkManager's executor cannot: an RxWorker only uses it
+ * to subscribe, and its work goes on on other schedulers after the executor thread is released.
+ * Up to {@code maxShared} shared jobs run side by side. An exclusive job, like a wipe, waits for
+ * the running jobs and holds every later job back until it is done. Jobs start in the order they
+ * asked, so a waiting exclusive job is not starved by a stream of shared ones.
+ */
+class JobGate {
+
+    private final int maxShared;
+
+    private int shared;
+    private boolean exclusive;
+    private final Deque<Permit> waiting = new ArrayDeque<>();
+
+    JobGate(int maxShared) {
+        this.maxShared = maxShared;
+    }
+
+    <T> SingleTransformer<T, T> shared() {
+        return gate(false);
+    }
+
+    <T> SingleTransformer<T, T> exclusive() {
+        return gate(true);
+    }
+
+    synchronized int getRunning() {
+        return exclusive ? 1 : shared;
+    }
+
+    private <T> SingleTransformer<T, T> gate(boolean exclusive) {
+        return upstream -> Single.defer(() -> {
+            Permit permit = new Permit(exclusive);
+            return Completable.create(emitter -> acquire(permit, emitter))
+                    .andThen(upstream)
+                    .doFinally(() -> release(permit));
+        });
+    }
+
+    private void acquire(Permit permit, CompletableEmitter emitter) {
+        List<Permit> granted;
+        synchronized (this) {
+            permit.emitter = emitter;
+            waiting.add(permit);
+            granted = grant();
+        }
+        complete(granted);
+    }
+
+    private void release(Permit permit) {
+        List<Permit> granted;
+        synchronized (this) {
+            if (permit.granted) {
+                permit.granted = false;
+                if (permit.exclusive) {
+                    exclusive = false;
+                } else {
+                    shared--;
+                }
+            } else {
+                waiting.remove(permit);
+            }
+            granted = grant();
+        }
+        complete(granted);
+    }
+
+    private List<Permit> grant() {
+        List<Permit> granted = new ArrayList<>();
+        while (!waiting.isEmpty() && !exclusive) {
+            Permit next = waiting.peek();
+            if (next.exclusive ? shared > 0 : shared >= maxShared) {
+                break;
+            }
+            waiting.poll();
+            next.granted = true;
+            if (next.exclusive) {
+                exclusive = true;
+            } else {
+                shared++;
+            }
+            granted.add(next);
+        }
+        return granted;
+    }
+
+    // Started outside the lock: the job subscribes right away and may run on this thread.
+    private static void complete(List<Permit> granted) {
+        for (Permit permit : granted) {
+            permit.emitter.onComplete();
+        }
+    }
+
+    private static class Permit {
+        final boolean exclusive;
+        CompletableEmitter emitter;
+        boolean granted;
+
+        Permit(boolean exclusive) {
+            this.exclusive = exclusive;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.RxWorker;
+import androidx.work.WorkerParameters;
+
+import com.example.android.androidskeletonapp.SkeletonApplication;
+import com.example.android.androidskeletonapp.data.service.maintenance.DatabaseMaintenance;
+import com.example.android.androidskeletonapp.data.service.telemetry.Stage;
+import com.example.android.androidskeletonapp.data.service.telemetry.SyncTelemetry;
+
+import io.reactivex.Single;
+
+public class MaintenanceWorker extends RxWorker {
+
+    public static final String KEY_BYTES_BEFORE = "bytes_before";
+    public static final String KEY_BYTES_AFTER = "bytes_after";
+    public static final String KEY_QUERY_MILLIS_BEFORE = "query_millis_before";
+    public static final String KEY_QUERY_MILLIS_AFTER = "query_millis_after";
+
+    public MaintenanceWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Single<Result> createWork() {
+        return SkeletonApplication.from(getApplicationContext()).d2()
+                .map(d2 -> new DatabaseMaintenance(d2.databaseAdapter()).run())
+                .compose(SyncTelemetry.instrumentSingle(Stage.DB_MAINTENANCE,
+                        report -> (int) Math.max(0, report.getBytesBefore() - report.getBytesAfter())))
+                .map(report -> Result.success(new Data.Builder()
+                        .putLong(KEY_BYTES_BEFORE, report.getBytesBefore())
+                        .putLong(KEY_BYTES_AFTER, report.getBytesAfter())
+                        .putLong(KEY_QUERY_MILLIS_BEFORE, report.getQueryMillisBefore())
+                        .putLong(KEY_QUERY_MILLIS_AFTER, report.getQueryMillisAfter())
+                        .build()))
+                .doOnError(Throwable::printStackTrace)
+                .onErrorReturnItem(Result.failure())
+                // A vacuum rewrites the whole file, so no sync may write to it meanwhile.
+                .compose(SyncEngine.jobs().exclusive());
+    }
+}
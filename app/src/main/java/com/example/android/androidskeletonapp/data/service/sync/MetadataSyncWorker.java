@@ -0,0 +1,74 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.RxWorker;
+import androidx.work.WorkerParameters;
+
+import com.example.android.androidskeletonapp.R;
+import com.example.android.androidskeletonapp.data.service.SyncCounter;
+import com.example.android.androidskeletonapp.data.service.SyncStatusService;
+import com.example.android.androidskeletonapp.data.service.metadata.MetadataDeltaSync;
+import com.example.android.androidskeletonapp.data.service.rules.RuleEngineCache;
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
+import com.example.android.androidskeletonapp.data.service.telemetry.Stage;
+import com.example.android.androidskeletonapp.data.service.telemetry.SyncTelemetry;
+import com.example.android.androidskeletonapp.data.service.tracing.Tracing;
+
+import io.reactivex.Single;
+
+public class MetadataSyncWorker extends RxWorker {
+
+    public static final String KEY_FULL_REFRESH = "full_refresh";
+    public static final String KEY_SKIPPED = "skipped";
+    public static final String KEY_CHANGED_MODULES = "changed_modules";
+    public static final String KEY_DURATION_MILLIS = "duration_millis";
+    public static final String KEY_BYTES_TRANSFERRED = "bytes_transferred";
+    public static final String KEY_TIME_SAVED_MILLIS = "time_saved_millis";
+    public static final String KEY_BYTES_SAVED = "bytes_saved";
+
+    // Two metadata downloads must never write the same tables at the same time. The sync job of
+    // its own and the one chained before a data sync both run here, so they take turns; a
+    // waiting one holds neither a thread nor a job slot.
+    private static final JobGate metadata = new JobGate(1);
+
+    public MetadataSyncWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Single<Result> createWork() {
+        setForegroundAsync(SyncNotifications.foregroundInfo(getApplicationContext(), SyncJob.METADATA,
+                R.string.syncing_metadata));
+        boolean fullRefresh = getInputData().getBoolean(KEY_FULL_REFRESH, false);
+        return SyncEngine.loggedIn(getApplicationContext())
+                .flatMap(d2 -> new MetadataDeltaSync(getApplicationContext()).sync(fullRefresh)
+                        .subscribeOn(AppSchedulers.sync()))
+                .doOnSuccess(report -> {
+                    if (!report.isSkipped()) {
+                        RuleEngineCache.invalidate();
+                        SyncStatusService.reconcile(SyncCounter.PROGRAMS, SyncCounter.DATA_SETS);
+                    }
+                })
+                // Inside the metadata gate, so a waiting download does not count the running one's bytes.
+                .compose(SyncTelemetry.instrumentSingle(fullRefresh ? Stage.METADATA_FULL : Stage.METADATA_DELTA,
+                        report -> report.getChangedModules().size()))
+                .compose(Tracing.traceSingle("sync_metadata"))
+                .map(report -> Result.success(new Data.Builder()
+                        .putBoolean(KEY_SKIPPED, report.isSkipped())
+                        .putInt(KEY_CHANGED_MODULES, report.getChangedModules().size())
+                        .putLong(KEY_DURATION_MILLIS, report.getDurationMillis())
+                        .putLong(KEY_BYTES_TRANSFERRED, report.getBytesTransferred())
+                        .putLong(KEY_TIME_SAVED_MILLIS, report.getTimeSavedMillis())
+                        .putLong(KEY_BYTES_SAVED, report.getBytesSaved())
+                        .build()))
+                .doOnError(Throwable::printStackTrace)
+                .onErrorReturn(throwable -> SyncEngine.shouldRetry(throwable, getRunAttemptCount())
+                        ? Result.retry() : Result.failure())
+                .compose(SyncEngine.jobs().shared())
+                .compose(metadata.shared());
+    }
+}
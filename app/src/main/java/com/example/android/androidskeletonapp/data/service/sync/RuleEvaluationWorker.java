@@ -0,0 +1,48 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.RxWorker;
+import androidx.work.WorkerParameters;
+
+import com.example.android.androidskeletonapp.R;
+import com.example.android.androidskeletonapp.SkeletonApplication;
+import com.example.android.androidskeletonapp.data.service.rules.RuleEvaluationService;
+import com.example.android.androidskeletonapp.data.service.telemetry.Stage;
+import com.example.android.androidskeletonapp.data.service.telemetry.SyncTelemetry;
+
+import io.reactivex.Single;
+
+public class RuleEvaluationWorker extends RxWorker {
+
+    public static final String KEY_EVALUATIONS = "evaluations";
+    public static final String KEY_WARNINGS = "warnings";
+    public static final String KEY_ERRORS = "errors";
+    public static final String KEY_EVALUATIONS_PER_SECOND = "evaluations_per_second";
+
+    public RuleEvaluationWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Single<Result> createWork() {
+        setForegroundAsync(SyncNotifications.foregroundInfo(getApplicationContext(), SyncJob.DATA,
+                R.string.evaluating_program_rules));
+        return SkeletonApplication.from(getApplicationContext()).d2()
+                .flatMap(d2 -> new RuleEvaluationService(getApplicationContext()).evaluateAll())
+                .compose(SyncTelemetry.instrumentSingle(Stage.RULE_EVALUATION,
+                        summary -> (int) summary.getEvaluations()))
+                .map(summary -> Result.success(new Data.Builder()
+                        .putLong(KEY_EVALUATIONS, summary.getEvaluations())
+                        .putLong(KEY_WARNINGS, summary.getWarnings())
+                        .putLong(KEY_ERRORS, summary.getErrors())
+                        .putDouble(KEY_EVALUATIONS_PER_SECOND, summary.getEvaluationsPerSecond())
+                        .build()))
+                .doOnError(Throwable::printStackTrace)
+                .onErrorReturnItem(Result.failure())
+                .compose(SyncEngine.jobs().shared());
+    }
+}
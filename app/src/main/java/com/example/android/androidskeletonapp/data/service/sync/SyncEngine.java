@@ -0,0 +1,189 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Build;
+
+import androidx.lifecycle.LiveData;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.ListenableWorker;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import com.example.android.androidskeletonapp.SkeletonApplication;
+import com.example.android.androidskeletonapp.data.service.login.SessionPendingException;
+import com.example.android.androidskeletonapp.data.service.resilience.FailureClassifier;
+import com.example.android.androidskeletonapp.data.service.wipe.WipeScope;
+
+import org.hisp.dhis.android.core.D2;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Single;
+
+/**
+ * Runs sync work through WorkManager so it outlives the activity that started it. Each job has
+ * its own unique work name, so a request for a job that is already queued or running is merged
+ * into it. A data sync is chained behind a metadata sync and followed by a
+ * program rule evaluation of the downloaded data. Jobs run as foreground work through a
+ * {@link JobGate}, which bounds the number running at once and runs a wipe on its own.
+ * Metadata and data syncs that fail
+ * transiently, or that run before an offline login was confirmed, are handed back to
+ * WorkManager, which runs them again with exponential backoff.
+ * Syncs, imports and wipes that change a lot of data are followed by a database maintenance pass
+ * once the device is idle; it runs in the background on its own, like a wipe, and is not
+ * reported as a sync.
+ */
+public class SyncEngine {
+
+    public static final int MAX_CONCURRENT_JOBS = 2;
+    public static final int MAX_RUN_ATTEMPTS = 3;
+    public static final long RETRY_BACKOFF_SECONDS = 30;
+
+    static final String TAG_SYNC = "sync_engine";
+
+    private static final Set<UUID> reportedWork = Collections.synchronizedSet(new HashSet<>());
+    private static final JobGate jobs = new JobGate(MAX_CONCURRENT_JOBS);
+
+    public static void syncMetadata(Context context, boolean fullRefresh) {
+        WorkManager.getInstance(context).enqueueUniqueWork(SyncJob.METADATA.getUniqueWorkName(),
+                fullRefresh ? ExistingWorkPolicy.REPLACE : ExistingWorkPolicy.KEEP,
+                metadataRequest(SyncJob.METADATA, fullRefresh));
+    }
+
+    public static void syncData(Context context) {
+        WorkManager.getInstance(context)
+                .beginUniqueWork(SyncJob.DATA.getUniqueWorkName(), ExistingWorkPolicy.KEEP,
+                        metadataRequest(SyncJob.DATA, false))
+                .then(request(DataSyncWorker.class, SyncJob.DATA, Data.EMPTY, true))
+                .then(request(RuleEvaluationWorker.class, SyncJob.DATA, Data.EMPTY, false))
+                .enqueue();
+    }
+
+    public static void upload(Context context) {
+        WorkManager.getInstance(context).enqueueUniqueWork(SyncJob.UPLOAD.getUniqueWorkName(),
+                ExistingWorkPolicy.KEEP, request(UploadWorker.class, SyncJob.UPLOAD, Data.EMPTY, true));
+    }
+
+    public static void wipe(Context context, WipeScope scope, boolean includeMetadata) {
+        Data input = new Data.Builder()
+                .putString(WipeWorker.KEY_SCOPE, scope.name())
+                .putBoolean(WipeWorker.KEY_INCLUDE_METADATA, includeMetadata)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(SyncJob.WIPE.getUniqueWorkName(),
+                ExistingWorkPolicy.KEEP, request(WipeWorker.class, SyncJob.WIPE, input, false));
+    }
+
+    public static void importPackage(Context context, Uri uri) {
+        Data input = new Data.Builder()
+                .putString(ImportWorker.KEY_URI, uri.toString())
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(SyncJob.IMPORT.getUniqueWorkName(),
+                ExistingWorkPolicy.KEEP, request(ImportWorker.class, SyncJob.IMPORT, input, false));
+    }
+
+    public static void exportPackage(Context context, Uri uri) {
+        Data input = new Data.Builder()
+                .putString(ExportWorker.KEY_URI, uri.toString())
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(SyncJob.EXPORT.getUniqueWorkName(),
+                ExistingWorkPolicy.KEEP, request(ExportWorker.class, SyncJob.EXPORT, input, false));
+    }
+
+    public static void scheduleMaintenance(Context context) {
+        Constraints.Builder constraints = new Constraints.Builder()
+                .setRequiresBatteryNotLow(true);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            constraints.setRequiresDeviceIdle(true);
+        } else {
+            constraints.setRequiresCharging(true);
+        }
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(MaintenanceWorker.class)
+                .setConstraints(constraints.build())
+                .addTag(SyncJob.MAINTENANCE.getTag())
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(SyncJob.MAINTENANCE.getUniqueWorkName(),
+                ExistingWorkPolicy.KEEP, request);
+    }
+
+    public static LiveData<List<WorkInfo>> getWorkInfos(Context context) {
+        return WorkManager.getInstance(context).getWorkInfosByTagLiveData(TAG_SYNC);
+    }
+
+    /**
+     * Returns true only the first time it is called for a finished work, so results that
+     * WorkManager keeps reporting are shown once.
+     */
+    public static boolean markReported(WorkInfo workInfo) {
+        return workInfo.getState().isFinished() && reportedWork.add(workInfo.getId());
+    }
+
+    /**
+     * Forgets reported work that WorkManager no longer returns, given all the work it currently
+     * returns, so the reported ids do not pile up for the life of the process.
+     */
+    public static void pruneReported(List<WorkInfo> workInfos) {
+        Set<UUID> current = new HashSet<>();
+        for (WorkInfo workInfo : workInfos) {
+            current.add(workInfo.getId());
+        }
+        reportedWork.retainAll(current);
+    }
+
+    static JobGate jobs() {
+        return jobs;
+    }
+
+    /**
+     * The SDK, for a job that talks to the server. After an offline login the SDK has no session
+     * until the server confirms the credentials, and the job fails with a
+     * {@link SessionPendingException}, which is always retried.
+     */
+    static Single<D2> loggedIn(Context context) {
+        return SkeletonApplication.from(context).d2()
+                .flatMap(d2 -> d2.userModule().isLogged()
+                        .flatMap(logged -> logged ? Single.just(d2) : Single.error(new SessionPendingException())));
+    }
+
+    /**
+     * True when a failed network job should be handed back to WorkManager to run again later,
+     * rather than reported as failed.
+     */
+    static boolean shouldRetry(Throwable throwable, int runAttemptCount) {
+        if (throwable instanceof SessionPendingException) {
+            return true;
+        }
+        return runAttemptCount + 1 < MAX_RUN_ATTEMPTS && FailureClassifier.classify(throwable).isRetryable();
+    }
+
+    private static OneTimeWorkRequest metadataRequest(SyncJob job, boolean fullRefresh) {
+        Data input = new Data.Builder()
+                .putBoolean(MetadataSyncWorker.KEY_FULL_REFRESH, fullRefresh)
+                .build();
+        return request(MetadataSyncWorker.class, job, input, true);
+    }
+
+    private static OneTimeWorkRequest request(Class<? extends ListenableWorker> worker, SyncJob job,
+                                              Data input, boolean requiresNetwork) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(requiresNetwork ? NetworkType.CONNECTED : NetworkType.NOT_REQUIRED)
+                .build();
+        return new OneTimeWorkRequest.Builder(worker)
+                .setConstraints(constraints)
+                .setInputData(input)
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, RETRY_BACKOFF_SECONDS, TimeUnit.SECONDS)
+                .addTag(TAG_SYNC)
+                .addTag(job.getTag())
+                .build();
+    }
+}
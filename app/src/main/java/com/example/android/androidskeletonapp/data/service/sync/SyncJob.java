@@ -0,0 +1,25 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+public enum SyncJob {
+    METADATA("metadata_sync"),
+    DATA("data_sync"),
+    UPLOAD("upload"),
+    WIPE("wipe"),
+    IMPORT("import"),
+    EXPORT("export"),
+    MAINTENANCE("db_maintenance");
+
+    private final String uniqueWorkName;
+
+    SyncJob(String uniqueWorkName) {
+        this.uniqueWorkName = uniqueWorkName;
+    }
+
+    String getUniqueWorkName() {
+        return uniqueWorkName;
+    }
+
+    public String getTag() {
+        return uniqueWorkName;
+    }
+}
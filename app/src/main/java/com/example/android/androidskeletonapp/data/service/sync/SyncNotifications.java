@@ -0,0 +1,46 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.os.Build;
+
+import androidx.annotation.StringRes;
+import androidx.core.app.NotificationCompat;
+import androidx.work.ForegroundInfo;
+
+import com.example.android.androidskeletonapp.R;
+
+/**
+ * Runs sync jobs as foreground work, so a long sync is not stopped by WorkManager's ten minute
+ * limit for background work. Each job has its own ongoing notification.
+ */
+class SyncNotifications {
+
+    private static final String CHANNEL_ID = "sync";
+    private static final int NOTIFICATION_ID_BASE = 1000;
+
+    static ForegroundInfo foregroundInfo(Context context, SyncJob job, @StringRes int title) {
+        createChannel(context);
+        Notification notification = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setContentTitle(context.getString(title))
+                .setSmallIcon(R.mipmap.ic_dhis_launcher)
+                .setOngoing(true)
+                .setOnlyAlertOnce(true)
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .build();
+        return new ForegroundInfo(NOTIFICATION_ID_BASE + job.ordinal(), notification);
+    }
+
+    private static void createChannel(Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return;
+        }
+        NotificationManager manager = context.getSystemService(NotificationManager.class);
+        if (manager != null && manager.getNotificationChannel(CHANNEL_ID) == null) {
+            manager.createNotificationChannel(new NotificationChannel(CHANNEL_ID,
+                    context.getString(R.string.sync_channel), NotificationManager.IMPORTANCE_LOW));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.RxWorker;
+import androidx.work.WorkerParameters;
+
+import com.example.android.androidskeletonapp.R;
+import com.example.android.androidskeletonapp.data.service.login.SessionPendingException;
+import com.example.android.androidskeletonapp.data.service.telemetry.Stage;
+import com.example.android.androidskeletonapp.data.service.telemetry.SyncTelemetry;
+import com.example.android.androidskeletonapp.data.service.upload.UploadScheduler;
+import com.example.android.androidskeletonapp.data.service.upload.UploadStreamReport;
+
+import java.util.List;
+
+import io.reactivex.Single;
+
+public class UploadWorker extends RxWorker {
+
+    public static final String KEY_STREAMS = "streams";
+    public static final String KEY_RECORDS = "records";
+    public static final String KEY_RECORDS_PER_SECOND = "records_per_second";
+    public static final String KEY_FAILED_BATCHES = "failed_batches";
+
+    public UploadWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Single<Result> createWork() {
+        setForegroundAsync(SyncNotifications.foregroundInfo(getApplicationContext(), SyncJob.UPLOAD,
+                R.string.uploading_data));
+        return SyncEngine.loggedIn(getApplicationContext())
+                .flatMap(d2 -> new UploadScheduler().upload())
+                .compose(SyncTelemetry.instrumentSingle(Stage.UPLOAD, UploadWorker::uploadedRecords))
+                .map(reports -> Result.success(toData(reports)))
+                .doOnError(Throwable::printStackTrace)
+                .onErrorReturn(throwable -> throwable instanceof SessionPendingException
+                        ? Result.retry() : Result.failure())
+                .compose(SyncEngine.jobs().shared());
+    }
+
+    private static int uploadedRecords(List<UploadStreamReport> reports) {
+        int records = 0;
+        for (UploadStreamReport report : reports) {
+            records += report.getRecords();
+        }
+        return records;
+    }
+
+    private static Data toData(List<UploadStreamReport> reports) {
+        String[] streams = new String[reports.size()];
+        int[] records = new int[reports.size()];
+        double[] recordsPerSecond = new double[reports.size()];
+        int[] failedBatches = new int[reports.size()];
+        for (int i = 0; i < reports.size(); i++) {
+            UploadStreamReport report = reports.get(i);
+            streams[i] = report.getStream().name();
+            records[i] = report.getRecords();
+            recordsPerSecond[i] = report.getRecordsPerSecond();
+            failedBatches[i] = report.getFailedBatches();
+        }
+        return new Data.Builder()
+                .putStringArray(KEY_STREAMS, streams)
+                .putIntArray(KEY_RECORDS, records)
+                .putDoubleArray(KEY_RECORDS_PER_SECOND, recordsPerSecond)
+                .putIntArray(KEY_FAILED_BATCHES, failedBatches)
+                .build();
+    }
+}
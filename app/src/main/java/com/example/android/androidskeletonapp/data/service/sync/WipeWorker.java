@@ -0,0 +1,81 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.RxWorker;
+import androidx.work.WorkerParameters;
+
+import com.example.android.androidskeletonapp.R;
+import com.example.android.androidskeletonapp.SkeletonApplication;
+import com.example.android.androidskeletonapp.data.service.SyncCounter;
+import com.example.android.androidskeletonapp.data.service.SyncStatusService;
+import com.example.android.androidskeletonapp.data.service.aggregate.AggregateEngine;
+import com.example.android.androidskeletonapp.data.service.search.SearchIndexEngine;
+import com.example.android.androidskeletonapp.data.service.telemetry.Stage;
+import com.example.android.androidskeletonapp.data.service.telemetry.SyncTelemetry;
+import com.example.android.androidskeletonapp.data.service.wipe.WipeEngine;
+import com.example.android.androidskeletonapp.data.service.wipe.WipeScope;
+
+import io.reactivex.Single;
+
+public class WipeWorker extends RxWorker {
+
+    public static final String KEY_SCOPE = "scope";
+    public static final String KEY_INCLUDE_METADATA = "include_metadata";
+    public static final String KEY_DELETED_ROWS = "deleted_rows";
+    public static final String KEY_TOTAL_ROWS = "total_rows";
+
+    public WipeWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
+        super(context, workerParams);
+    }
+
+    @NonNull
+    @Override
+    public Single<Result> createWork() {
+        setForegroundAsync(SyncNotifications.foregroundInfo(getApplicationContext(), SyncJob.WIPE,
+                R.string.wiping_data));
+        WipeScope scope = WipeScope.valueOf(getInputData().getString(KEY_SCOPE));
+        boolean includeMetadata = getInputData().getBoolean(KEY_INCLUDE_METADATA, false);
+        return SkeletonApplication.from(getApplicationContext()).d2()
+                .flatMapObservable(d2 -> new WipeEngine(getApplicationContext()).wipe(scope, includeMetadata))
+                .doOnNext(progress -> setProgressAsync(new Data.Builder()
+                        .putInt(KEY_DELETED_ROWS, progress.getDeletedRows())
+                        .putInt(KEY_TOTAL_ROWS, progress.getTotalRows())
+                        .build()))
+                .lastOrError()
+                .compose(SyncTelemetry.instrumentSingle(stage(scope), progress -> progress.getDeletedRows()))
+                .doOnSuccess(progress -> {
+                    // Wiping metadata goes through the SDK, which takes all data with it.
+                    if (includeMetadata) {
+                        SyncStatusService.reset(SyncCounter.values());
+                    } else {
+                        SyncStatusService.reset(scope.getCounters().toArray(new SyncCounter[0]));
+                    }
+                    if (includeMetadata || scope != WipeScope.TRACKER_DATA) {
+                        AggregateEngine.clear();
+                    }
+                    if (includeMetadata || scope != WipeScope.AGGREGATE_DATA) {
+                        SearchIndexEngine.clear();
+                    }
+                    SyncEngine.scheduleMaintenance(getApplicationContext());
+                })
+                .map(progress -> Result.success())
+                .doOnError(throwable -> SyncStatusService.reconcile(SyncCounter.values()))
+                .doOnError(Throwable::printStackTrace)
+                .onErrorReturnItem(Result.failure())
+                .compose(SyncEngine.jobs().exclusive());
+    }
+
+    private static Stage stage(WipeScope scope) {
+        switch (scope) {
+            case TRACKER_DATA:
+                return Stage.WIPE_TRACKER_DATA;
+            case AGGREGATE_DATA:
+                return Stage.WIPE_AGGREGATE_DATA;
+            default:
+                return Stage.WIPE_EVERYTHING;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.android.androidskeletonapp.data.service.telemetry;
+
+import android.content.Context;
+
+import com.example.android.androidskeletonapp.data.service.scheduling.PoolMetrics;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Locale;
+
+public class MetricsExporter {
+
+    private static final String DIRECTORY = "telemetry";
+    private static final String POOL_CSV_HEADER =
+            "pool,queue_depth,active_threads,started_tasks,average_wait_millis,max_wait_millis";
+    private static final String CSV_HEADER =
+            "stage,app_version,start_millis,duration_millis,records,unit,records_per_second,"
+                    + "bytes_sent,bytes_received,errors";
+
+    public static File exportCsv(Context context, List<StageMetric> metrics) throws IOException {
+        File file = newFile(context, "csv");
+        try (Writer writer = writer(file)) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+            for (StageMetric metric : metrics) {
+                writer.write(String.format(Locale.US, "%s,%s,%d,%d,%d,%s,%.2f,%d,%d,%d\n",
+                        metric.getStage(),
+                        metric.getAppVersion(),
+                        metric.getStartMillis(),
+                        metric.getDurationMillis(),
+                        metric.getRecords(),
+                        metric.getUnit(),
+                        metric.getRecordsPerSecond(),
+                        metric.getBytesSent(),
+                        metric.getBytesReceived(),
+                        metric.getErrors()));
+            }
+        }
+        return file;
+    }
+
+    public static File exportJson(Context context, List<StageMetric> metrics) throws IOException {
+        JSONArray array = new JSONArray();
+        try {
+            for (StageMetric metric : metrics) {
+                array.put(new JSONObject()
+                        .put("stage", metric.getStage())
+                        .put("appVersion", metric.getAppVersion())
+                        .put("startMillis", metric.getStartMillis())
+                        .put("durationMillis", metric.getDurationMillis())
+                        .put("records", metric.getRecords())
+                        .put("unit", metric.getUnit())
+                        .put("recordsPerSecond", metric.getRecordsPerSecond())
+                        .put("bytesSent", metric.getBytesSent())
+                        .put("bytesReceived", metric.getBytesReceived())
+                        .put("errors", metric.getErrors()));
+            }
+        } catch (JSONException e) {
+            throw new IOException("Unable to serialize sync metrics", e);
+        }
+
+        File file = newFile(context, "json");
+        try (Writer writer = writer(file)) {
+            writer.write(array.toString());
+        }
+        return file;
+    }
+
+    public static File exportPools(Context context, List<PoolMetrics> pools) throws IOException {
+        File file = newFile(context, "scheduler-metrics-", "csv");
+        try (Writer writer = writer(file)) {
+            writer.write(POOL_CSV_HEADER);
+            writer.write('\n');
+            for (PoolMetrics pool : pools) {
+                writer.write(String.format(Locale.US, "%s,%d,%d,%d,%.2f,%.2f\n",
+                        pool.getName(),
+                        pool.getQueueDepth(),
+                        pool.getActiveThreads(),
+                        pool.getStartedTasks(),
+                        pool.getAverageWaitMillis(),
+                        pool.getMaxWaitMillis()));
+            }
+        }
+        return file;
+    }
+
+    private static File newFile(Context context, String extension) throws IOException {
+        return newFile(context, "sync-metrics-", extension);
+    }
+
+    private static File newFile(Context context, String prefix, String extension) throws IOException {
+        File directory = new File(context.getFilesDir(), DIRECTORY);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        return new File(directory, prefix + System.currentTimeMillis() + "." + extension);
+    }
+
+    private static Writer writer(File file) throws IOException {
+        return new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"));
+    }
+}
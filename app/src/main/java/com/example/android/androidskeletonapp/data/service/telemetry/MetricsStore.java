@@ -0,0 +1,41 @@
+package com.example.android.androidskeletonapp.data.service.telemetry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size ring buffer of stage metrics; once full, the oldest metric is overwritten.
+ */
+public class MetricsStore {
+
+    private final StageMetric[] metrics;
+    private int next;
+    private int size;
+
+    MetricsStore(int capacity) {
+        this.metrics = new StageMetric[capacity];
+    }
+
+    synchronized void record(StageMetric metric) {
+        metrics[next] = metric;
+        next = (next + 1) % metrics.length;
+        size = Math.min(size + 1, metrics.length);
+    }
+
+    public synchronized List<StageMetric> snapshot() {
+        List<StageMetric> snapshot = new ArrayList<>(size);
+        int oldest = (next - size + metrics.length) % metrics.length;
+        for (int i = 0; i < size; i++) {
+            snapshot.add(metrics[(oldest + i) % metrics.length]);
+        }
+        return snapshot;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < metrics.length; i++) {
+            metrics[i] = null;
+        }
+        next = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.android.androidskeletonapp.data.service.telemetry;
+
+import java.util.Locale;
+
+/**
+ * The instrumented stages. Each stage counts one unit of records and owns one kind of traffic,
+ * and a stage owning no traffic records no bytes. Traffic is counted for the whole process, so a
+ * stage only counts its own bytes while no other stage owning the same traffic is recording:
+ * each job is unique work, and the two metadata stages are recorded inside the gate that makes
+ * metadata downloads take turns.
+ */
+public enum Stage {
+    METADATA_FULL("modules", Traffic.METADATA),
+    METADATA_DELTA("modules", Traffic.METADATA),
+    TRACKED_ENTITY_INSTANCES("instances", Traffic.TRACKER_DOWNLOAD),
+    AGGREGATED_DATA("resources", Traffic.AGGREGATE_DOWNLOAD),
+    UPLOAD("records", Traffic.UPLOAD),
+    RULE_EVALUATION("evaluations", Traffic.NONE),
+    WIPE_TRACKER_DATA("rows", Traffic.NONE),
+    WIPE_AGGREGATE_DATA("rows", Traffic.NONE),
+    WIPE_EVERYTHING("rows", Traffic.NONE),
+    PACKAGE_IMPORT("records", Traffic.NONE),
+    PACKAGE_EXPORT("records", Traffic.NONE),
+    DB_MAINTENANCE("bytes_freed", Traffic.NONE);
+
+    private final String unit;
+    private final Traffic traffic;
+
+    Stage(String unit, Traffic traffic) {
+        this.unit = unit;
+        this.traffic = traffic;
+    }
+
+    public String getName() {
+        return name().toLowerCase(Locale.US);
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    Traffic getTraffic() {
+        return traffic;
+    }
+}
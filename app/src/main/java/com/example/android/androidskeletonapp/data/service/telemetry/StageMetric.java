@@ -0,0 +1,67 @@
+package com.example.android.androidskeletonapp.data.service.telemetry;
+
+public class StageMetric {
+
+    private final String stage;
+    private final String appVersion;
+    private final long startMillis;
+    private final long durationMillis;
+    private final long records;
+    private final String unit;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final int errors;
+
+    StageMetric(String stage, String appVersion, long startMillis, long durationMillis, long records,
+                String unit, long bytesSent, long bytesReceived, int errors) {
+        this.stage = stage;
+        this.appVersion = appVersion;
+        this.startMillis = startMillis;
+        this.durationMillis = durationMillis;
+        this.records = records;
+        this.unit = unit;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.errors = errors;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public String getAppVersion() {
+        return appVersion;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    public int getErrors() {
+        return errors;
+    }
+
+    public double getRecordsPerSecond() {
+        return durationMillis == 0 ? records : records * 1000.0 / durationMillis;
+    }
+}
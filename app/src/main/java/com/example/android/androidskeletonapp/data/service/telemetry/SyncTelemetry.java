@@ -0,0 +1,113 @@
+package com.example.android.androidskeletonapp.data.service.telemetry;
+
+import com.example.android.androidskeletonapp.BuildConfig;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableTransformer;
+import io.reactivex.Observable;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Single;
+import io.reactivex.SingleTransformer;
+import io.reactivex.functions.Function;
+import okhttp3.Interceptor;
+
+/**
+ * Records per-stage duration, throughput, bytes and errors of the sync streams. Bytes and HTTP
+ * errors come from the network interceptor, which sorts requests by {@link Traffic}; a stage
+ * only records the traffic it owns, so overlapping stages do not count the same bytes.
+ */
+public class SyncTelemetry {
+
+    private static final int CAPACITY = 500;
+
+    private static final MetricsStore store = new MetricsStore(CAPACITY);
+    private static final TrafficInterceptor trafficInterceptor = new TrafficInterceptor();
+
+    public static MetricsStore store() {
+        return store;
+    }
+
+    public static Interceptor networkInterceptor() {
+        return trafficInterceptor;
+    }
+
+    public static <T> ObservableTransformer<T, T> instrument(Stage stage, Function<T, Integer> records) {
+        return upstream -> Observable.defer(() -> {
+            StageRecorder recorder = new StageRecorder(stage);
+            return upstream
+                    .doOnSubscribe(disposable -> recorder.start())
+                    .doOnNext(item -> recorder.addRecords(records.apply(item)))
+                    .doOnError(throwable -> recorder.finish(true))
+                    .doOnComplete(() -> recorder.finish(false))
+                    .doOnDispose(() -> recorder.finish(true));
+        });
+    }
+
+    public static <T> SingleTransformer<T, T> instrumentSingle(Stage stage, Function<T, Integer> records) {
+        return upstream -> Single.defer(() -> {
+            StageRecorder recorder = new StageRecorder(stage);
+            return upstream
+                    .doOnSubscribe(disposable -> recorder.start())
+                    .doOnSuccess(item -> {
+                        recorder.addRecords(records.apply(item));
+                        recorder.finish(false);
+                    })
+                    .doOnError(throwable -> recorder.finish(true))
+                    .doOnDispose(() -> recorder.finish(true));
+        });
+    }
+
+    public static CompletableTransformer instrumentCompletable(Stage stage) {
+        return upstream -> Completable.defer(() -> {
+            StageRecorder recorder = new StageRecorder(stage);
+            return upstream
+                    .doOnSubscribe(disposable -> recorder.start())
+                    .doOnComplete(() -> recorder.finish(false))
+                    .doOnError(throwable -> recorder.finish(true))
+                    .doOnDispose(() -> recorder.finish(true));
+        });
+    }
+
+    private static class StageRecorder {
+
+        private final Stage stage;
+        private final Traffic traffic;
+        private final AtomicLong records = new AtomicLong();
+        private long start;
+        private long bytesSentAtStart;
+        private long bytesReceivedAtStart;
+        private long errorsAtStart;
+        private boolean finished;
+
+        StageRecorder(Stage stage) {
+            this.stage = stage;
+            this.traffic = stage.getTraffic();
+        }
+
+        synchronized void start() {
+            start = System.currentTimeMillis();
+            bytesSentAtStart = trafficInterceptor.bytesSent(traffic);
+            bytesReceivedAtStart = trafficInterceptor.bytesReceived(traffic);
+            errorsAtStart = trafficInterceptor.errors(traffic);
+        }
+
+        void addRecords(long count) {
+            records.addAndGet(count);
+        }
+
+        synchronized void finish(boolean failed) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            int errors = (int) (trafficInterceptor.errors(traffic) - errorsAtStart) + (failed ? 1 : 0);
+            store.record(new StageMetric(stage.getName(), BuildConfig.VERSION_NAME, start,
+                    System.currentTimeMillis() - start, records.get(), stage.getUnit(),
+                    trafficInterceptor.bytesSent(traffic) - bytesSentAtStart,
+                    trafficInterceptor.bytesReceived(traffic) - bytesReceivedAtStart,
+                    errors));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.android.androidskeletonapp.data.service.telemetry;
+
+import com.example.android.androidskeletonapp.data.service.metadata.MetadataModule;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The kinds of requests the sync stages make, told apart by method and API resource. Every
+ * request is exactly one kind, which is how its bytes end up in exactly one stage.
+ */
+public enum Traffic {
+    NONE,
+    METADATA,
+    TRACKER_DOWNLOAD,
+    AGGREGATE_DOWNLOAD,
+    UPLOAD,
+    OTHER;
+
+    private static final Set<String> TRACKER_RESOURCES = new HashSet<>(Arrays.asList(
+            "trackedEntityInstances", "events", "enrollments", "relationships"));
+    private static final Set<String> AGGREGATE_RESOURCES = new HashSet<>(Arrays.asList(
+            "dataValueSets", "completeDataSetRegistrations", "dataApprovals"));
+
+    static Traffic of(String method, List<String> pathSegments) {
+        int apiIndex = pathSegments.indexOf("api");
+        if (apiIndex < 0 || apiIndex + 1 >= pathSegments.size()) {
+            return OTHER;
+        }
+        String resource = pathSegments.get(apiIndex + 1);
+        boolean data = TRACKER_RESOURCES.contains(resource) || AGGREGATE_RESOURCES.contains(resource);
+        if (data && !"GET".equals(method)) {
+            return UPLOAD;
+        }
+        if (TRACKER_RESOURCES.contains(resource)) {
+            return TRACKER_DOWNLOAD;
+        }
+        if (AGGREGATE_RESOURCES.contains(resource)) {
+            return AGGREGATE_DOWNLOAD;
+        }
+        for (MetadataModule module : MetadataModule.values()) {
+            if (module.getResource().split("/")[0].equals(resource)) {
+                return METADATA;
+            }
+        }
+        return OTHER;
+    }
+}
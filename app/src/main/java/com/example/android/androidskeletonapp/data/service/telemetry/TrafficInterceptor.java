@@ -0,0 +1,107 @@
+package com.example.android.androidskeletonapp.data.service.telemetry;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Network interceptor counting the bytes on the wire and failed requests, per kind of
+ * {@link Traffic}. Response bytes are counted as the body is consumed, so streaming responses
+ * are not buffered.
+ */
+class TrafficInterceptor implements Interceptor {
+
+    private final AtomicLongArray bytesSent = new AtomicLongArray(Traffic.values().length);
+    private final AtomicLongArray bytesReceived = new AtomicLongArray(Traffic.values().length);
+    private final AtomicLongArray errors = new AtomicLongArray(Traffic.values().length);
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        int traffic = Traffic.of(request.method(), request.url().pathSegments()).ordinal();
+        RequestBody requestBody = request.body();
+        if (requestBody != null && requestBody.contentLength() > 0) {
+            bytesSent.addAndGet(traffic, requestBody.contentLength());
+        }
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            errors.incrementAndGet(traffic);
+            throw e;
+        }
+        if (!response.isSuccessful() && response.code() != 304) {
+            errors.incrementAndGet(traffic);
+        }
+
+        ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+        return response.newBuilder()
+                .body(new CountingResponseBody(body, bytesReceived, traffic))
+                .build();
+    }
+
+    long bytesSent(Traffic traffic) {
+        return bytesSent.get(traffic.ordinal());
+    }
+
+    long bytesReceived(Traffic traffic) {
+        return bytesReceived.get(traffic.ordinal());
+    }
+
+    long errors(Traffic traffic) {
+        return errors.get(traffic.ordinal());
+    }
+
+    private static class CountingResponseBody extends ResponseBody {
+
+        private final ResponseBody delegate;
+        private final BufferedSource source;
+
+        CountingResponseBody(ResponseBody delegate, AtomicLongArray counters, int index) {
+            this.delegate = delegate;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                    long read = super.read(sink, byteCount);
+                    if (read > 0) {
+                        counters.addAndGet(index, read);
+                    }
+                    return read;
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType() {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return delegate.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+}
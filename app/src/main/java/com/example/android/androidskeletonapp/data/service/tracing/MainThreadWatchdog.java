@@ -0,0 +1,90 @@
+package com.example.android.androidskeletonapp.data.service.tracing;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Posts a tick to the main thread every {@code thresholdMillis} and records a stall when the tick
+ * has not run by then. The main thread stack is taken at that moment, while the stall is still
+ * going on, and the span lasts until the tick finally runs. An idle main thread costs one message
+ * per interval.
+ */
+public class MainThreadWatchdog implements Runnable {
+
+    public static final String STALL = "main_thread_stall";
+
+    private static final int MAX_STACK_FRAMES = 40;
+
+    private final Executor mainExecutor;
+    private final Thread mainThread;
+    private final long thresholdMillis;
+    private final SpanRing ring;
+    private volatile Thread thread;
+
+    public MainThreadWatchdog(Executor mainExecutor, Thread mainThread, long thresholdMillis, SpanRing ring) {
+        this.mainExecutor = mainExecutor;
+        this.mainThread = mainThread;
+        this.thresholdMillis = thresholdMillis;
+        this.ring = ring;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        thread = new Thread(this, "main-thread-watchdog");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Stops ticking. A stall that is still going on is dropped; {@link #start()} ticks again.
+     */
+    public synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return thread != null;
+    }
+
+    @Override
+    public void run() {
+        Thread self = Thread.currentThread();
+        try {
+            while (thread == self) {
+                CountDownLatch tick = new CountDownLatch(1);
+                long posted = System.nanoTime();
+                mainExecutor.execute(tick::countDown);
+                if (tick.await(thresholdMillis, TimeUnit.MILLISECONDS)) {
+                    // The rest of the interval is slept off so a busy main thread is not ticked faster.
+                    long left = thresholdMillis - (System.nanoTime() - posted) / 1_000_000;
+                    if (left > 0) {
+                        Thread.sleep(left);
+                    }
+                    continue;
+                }
+                String stack = format(mainThread.getStackTrace());
+                tick.await();
+                long duration = System.nanoTime() - posted;
+                ring.add(new Span(Span.Kind.STALL, STALL, mainThread.getName(),
+                        Span.wallClockAgo(duration), duration, 0, stack));
+            }
+        } catch (InterruptedException e) {
+            // Stopped.
+        }
+    }
+
+    private static String format(StackTraceElement[] stack) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < stack.length && i < MAX_STACK_FRAMES; i++) {
+            builder.append("at ").append(stack[i]).append('\n');
+        }
+        return builder.toString();
+    }
+}
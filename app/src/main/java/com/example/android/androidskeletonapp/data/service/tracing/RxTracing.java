@@ -0,0 +1,311 @@
+package com.example.android.androidskeletonapp.data.service.tracing;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableObserver;
+import io.reactivex.Maybe;
+import io.reactivex.MaybeObserver;
+import io.reactivex.Observable;
+import io.reactivex.Observer;
+import io.reactivex.Single;
+import io.reactivex.SingleObserver;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.LambdaConsumerIntrospection;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * RxJava hooks recording spans. Only the last subscription of a chain is traced: the one made by
+ * {@code subscribe(...)} with lambdas or by a blocking call. The operators in between subscribe
+ * to each other too, and tracing those would cost a span per operator. Scheduler hops quicker
+ * than {@code minHopNanos} are dropped, so the buffer holds the hops worth looking at. Hooks set
+ * before {@link #install} keep running behind these and are put back by {@link #uninstall}.
+ */
+class RxTracing {
+
+    static final String COMPLETE = "complete";
+    static final String ERROR = "error";
+    static final String DISPOSE = "dispose";
+
+    private static BiFunction<? super Observable, ? super Observer, ? extends Observer> previousObservable;
+    private static BiFunction<? super Single, ? super SingleObserver, ? extends SingleObserver> previousSingle;
+    private static BiFunction<? super Maybe, ? super MaybeObserver, ? extends MaybeObserver> previousMaybe;
+    private static BiFunction<? super Completable, ? super CompletableObserver, ? extends CompletableObserver>
+            previousCompletable;
+    private static Function<? super Runnable, ? extends Runnable> previousSchedule;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static synchronized void install(SpanRing ring, long minHopNanos) {
+        BiFunction<? super Observable, ? super Observer, ? extends Observer> observable =
+                previousObservable = RxJavaPlugins.getOnObservableSubscribe();
+        RxJavaPlugins.setOnObservableSubscribe((source, observer) -> {
+            Span.Kind kind = kindOf(observer);
+            Observer traced = kind == null ? observer : new TracingObserver(ring, kind, source, observer);
+            return observable == null ? traced : observable.apply(source, traced);
+        });
+        BiFunction<? super Single, ? super SingleObserver, ? extends SingleObserver> single =
+                previousSingle = RxJavaPlugins.getOnSingleSubscribe();
+        RxJavaPlugins.setOnSingleSubscribe((source, observer) -> {
+            Span.Kind kind = kindOf(observer);
+            SingleObserver traced = kind == null ? observer : new TracingSingleObserver(ring, kind, source, observer);
+            return single == null ? traced : single.apply(source, traced);
+        });
+        BiFunction<? super Maybe, ? super MaybeObserver, ? extends MaybeObserver> maybe =
+                previousMaybe = RxJavaPlugins.getOnMaybeSubscribe();
+        RxJavaPlugins.setOnMaybeSubscribe((source, observer) -> {
+            Span.Kind kind = kindOf(observer);
+            MaybeObserver traced = kind == null ? observer : new TracingMaybeObserver(ring, kind, source, observer);
+            return maybe == null ? traced : maybe.apply(source, traced);
+        });
+        BiFunction<? super Completable, ? super CompletableObserver, ? extends CompletableObserver> completable =
+                previousCompletable = RxJavaPlugins.getOnCompletableSubscribe();
+        RxJavaPlugins.setOnCompletableSubscribe((source, observer) -> {
+            Span.Kind kind = kindOf(observer);
+            CompletableObserver traced = kind == null
+                    ? observer : new TracingCompletableObserver(ring, kind, source, observer);
+            return completable == null ? traced : completable.apply(source, traced);
+        });
+        Function<? super Runnable, ? extends Runnable> schedule =
+                previousSchedule = RxJavaPlugins.getScheduleHandler();
+        RxJavaPlugins.setScheduleHandler(run ->
+                new TracingRunnable(ring, minHopNanos, schedule == null ? run : schedule.apply(run)));
+    }
+
+    static synchronized void uninstall() {
+        RxJavaPlugins.setOnObservableSubscribe(previousObservable);
+        RxJavaPlugins.setOnSingleSubscribe(previousSingle);
+        RxJavaPlugins.setOnMaybeSubscribe(previousMaybe);
+        RxJavaPlugins.setOnCompletableSubscribe(previousCompletable);
+        RxJavaPlugins.setScheduleHandler(previousSchedule);
+        previousObservable = null;
+        previousSingle = null;
+        previousMaybe = null;
+        previousCompletable = null;
+        previousSchedule = null;
+    }
+
+    /**
+     * The blocking operators wait on an observer that is itself a latch; checking for the latch
+     * keeps this to public types instead of RxJava's internal observer classes.
+     */
+    private static Span.Kind kindOf(Object observer) {
+        if (observer instanceof CountDownLatch) {
+            return Span.Kind.BLOCKING;
+        }
+        if (observer instanceof LambdaConsumerIntrospection) {
+            return Span.Kind.CHAIN;
+        }
+        return null;
+    }
+
+    private abstract static class TracedSubscription implements Disposable {
+
+        private final SpanRing ring;
+        private final Span.Kind kind;
+        private final String name;
+        private final String thread = Thread.currentThread().getName();
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile Disposable upstream;
+        private volatile boolean disposed;
+
+        TracedSubscription(SpanRing ring, Span.Kind kind, Object source) {
+            this.ring = ring;
+            this.kind = kind;
+            this.name = source.getClass().getName();
+        }
+
+        // A dispose that came before the upstream is passed on to it.
+        void setUpstream(Disposable upstream) {
+            this.upstream = upstream;
+            if (disposed) {
+                upstream.dispose();
+            }
+        }
+
+        void finish(String outcome) {
+            if (finished.compareAndSet(false, true)) {
+                long duration = System.nanoTime() - startNanos;
+                ring.add(new Span(kind, name, thread, Span.wallClockAgo(duration), duration, 0, outcome));
+            }
+        }
+
+        @Override
+        public void dispose() {
+            disposed = true;
+            finish(DISPOSE);
+            Disposable current = upstream;
+            if (current != null) {
+                current.dispose();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            Disposable current = upstream;
+            return current == null ? disposed : current.isDisposed();
+        }
+    }
+
+    private static class TracingObserver<T> extends TracedSubscription implements Observer<T> {
+
+        private final Observer<T> downstream;
+
+        TracingObserver(SpanRing ring, Span.Kind kind, Object source, Observer<T> downstream) {
+            super(ring, kind, source);
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            setUpstream(d);
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T t) {
+            downstream.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            finish(ERROR);
+            downstream.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            finish(COMPLETE);
+            downstream.onComplete();
+        }
+    }
+
+    private static class TracingSingleObserver<T> extends TracedSubscription implements SingleObserver<T> {
+
+        private final SingleObserver<T> downstream;
+
+        TracingSingleObserver(SpanRing ring, Span.Kind kind, Object source, SingleObserver<T> downstream) {
+            super(ring, kind, source);
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            setUpstream(d);
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onSuccess(T t) {
+            finish(COMPLETE);
+            downstream.onSuccess(t);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            finish(ERROR);
+            downstream.onError(e);
+        }
+    }
+
+    private static class TracingMaybeObserver<T> extends TracedSubscription implements MaybeObserver<T> {
+
+        private final MaybeObserver<T> downstream;
+
+        TracingMaybeObserver(SpanRing ring, Span.Kind kind, Object source, MaybeObserver<T> downstream) {
+            super(ring, kind, source);
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            setUpstream(d);
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onSuccess(T t) {
+            finish(COMPLETE);
+            downstream.onSuccess(t);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            finish(ERROR);
+            downstream.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            finish(COMPLETE);
+            downstream.onComplete();
+        }
+    }
+
+    private static class TracingCompletableObserver extends TracedSubscription implements CompletableObserver {
+
+        private final CompletableObserver downstream;
+
+        TracingCompletableObserver(SpanRing ring, Span.Kind kind, Object source, CompletableObserver downstream) {
+            super(ring, kind, source);
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            setUpstream(d);
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            finish(ERROR);
+            downstream.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            finish(COMPLETE);
+            downstream.onComplete();
+        }
+    }
+
+    /**
+     * Times a task from the moment it was handed to a scheduler. Periodic tasks run many times;
+     * only their first run includes the wait. The wall clock is only read for hops that are kept.
+     */
+    private static class TracingRunnable implements Runnable {
+
+        private final SpanRing ring;
+        private final long minHopNanos;
+        private final Runnable delegate;
+        private final String scheduledFrom = Thread.currentThread().getName();
+        private final long scheduledNanos = System.nanoTime();
+        private boolean ran;
+
+        TracingRunnable(SpanRing ring, long minHopNanos, Runnable delegate) {
+            this.ring = ring;
+            this.minHopNanos = minHopNanos;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            long started = System.nanoTime();
+            long ready = ran ? started : scheduledNanos;
+            ran = true;
+            try {
+                delegate.run();
+            } finally {
+                long duration = System.nanoTime() - ready;
+                if (duration >= minHopNanos) {
+                    ring.add(new Span(Span.Kind.HOP, scheduledFrom, Thread.currentThread().getName(),
+                            Span.wallClockAgo(duration), duration, started - ready, null));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.android.androidskeletonapp.data.service.tracing;
+
+import androidx.annotation.Nullable;
+
+public class Span {
+
+    public enum Kind {
+        // A chain wrapped with one of the Tracing transformers.
+        NAMED,
+        // A chain subscribed with lambdas, from subscribe to terminal event or dispose.
+        CHAIN,
+        // A blockingGet(), blockingAwait() or similar call, which holds its thread until it returns.
+        BLOCKING,
+        // A task handed to a scheduler, from scheduling to the end of its run, named after the
+        // thread that scheduled it.
+        HOP,
+        // A main thread message that ran longer than the watchdog threshold.
+        STALL
+    }
+
+    private final Kind kind;
+    private final String name;
+    private final String thread;
+    private final long startMillis;
+    private final long durationNanos;
+    private final long waitNanos;
+    @Nullable
+    private final String detail;
+
+    public Span(Kind kind, String name, String thread, long startMillis, long durationNanos, long waitNanos,
+                @Nullable String detail) {
+        this.kind = kind;
+        this.name = name;
+        this.thread = thread;
+        this.startMillis = startMillis;
+        this.durationNanos = durationNanos;
+        this.waitNanos = waitNanos;
+        this.detail = detail;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getThread() {
+        return thread;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * For hops, the part of the duration spent queued before the task ran.
+     */
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    /**
+     * How a chain ended, or the main thread stack of a stall.
+     */
+    @Nullable
+    public String getDetail() {
+        return detail;
+    }
+
+    // Spans are timed with nanoTime; the wall clock is read once, when the span ends.
+    static long wallClockAgo(long nanos) {
+        return System.currentTimeMillis() - nanos / 1_000_000;
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + name + " on " + thread + ": " + durationNanos / 1000 + " us";
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.android.androidskeletonapp.data.service.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed size buffer keeping the most recent spans. Writers claim a slot with a single atomic
+ * increment and never wait for each other or for readers. A snapshot taken while spans are being
+ * added may miss a span whose slot was claimed but not written yet.
+ */
+public class SpanRing {
+
+    private final AtomicReferenceArray<Span> slots;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+
+    public SpanRing(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public void add(Span span) {
+        long index = cursor.getAndIncrement();
+        slots.set((int) (index & mask), span);
+    }
+
+    /**
+     * Spans still in the buffer, oldest first.
+     */
+    public List<Span> snapshot() {
+        long end = cursor.get();
+        long start = Math.max(0, end - slots.length());
+        List<Span> spans = new ArrayList<>((int) (end - start));
+        for (long index = start; index < end; index++) {
+            Span span = slots.get((int) (index & mask));
+            if (span != null) {
+                spans.add(span);
+            }
+        }
+        return spans;
+    }
+
+    /**
+     * Spans added since the buffer was created, including the ones already overwritten.
+     */
+    public long recorded() {
+        return cursor.get();
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
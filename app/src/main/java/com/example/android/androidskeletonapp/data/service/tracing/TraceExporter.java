@@ -0,0 +1,77 @@
+package com.example.android.androidskeletonapp.data.service.tracing;
+
+import android.content.Context;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes spans in the Chrome trace event format, which chrome://tracing and Perfetto open
+ * directly. Each thread gets its own track.
+ */
+public class TraceExporter {
+
+    private static final String DIRECTORY = "telemetry";
+
+    public static File export(Context context, List<Span> spans) throws IOException {
+        JSONArray events = new JSONArray();
+        Map<String, Integer> threadIds = new HashMap<>();
+        try {
+            for (Span span : spans) {
+                Integer threadId = threadIds.get(span.getThread());
+                if (threadId == null) {
+                    threadId = threadIds.size() + 1;
+                    threadIds.put(span.getThread(), threadId);
+                    events.put(new JSONObject()
+                            .put("name", "thread_name")
+                            .put("ph", "M")
+                            .put("pid", 0)
+                            .put("tid", threadId)
+                            .put("args", new JSONObject().put("name", span.getThread())));
+                }
+                JSONObject args = new JSONObject();
+                if (span.getWaitNanos() > 0) {
+                    args.put("waitMicros", span.getWaitNanos() / 1000);
+                }
+                if (span.getDetail() != null) {
+                    args.put("detail", span.getDetail());
+                }
+                events.put(new JSONObject()
+                        .put("name", span.getName())
+                        .put("cat", span.getKind().name().toLowerCase(Locale.US))
+                        .put("ph", "X")
+                        .put("ts", span.getStartMillis() * 1000)
+                        .put("dur", span.getDurationNanos() / 1000)
+                        .put("pid", 0)
+                        .put("tid", threadId)
+                        .put("args", args));
+            }
+        } catch (JSONException e) {
+            throw new IOException("Unable to serialize traces", e);
+        }
+
+        File directory = new File(context.getFilesDir(), DIRECTORY);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        File file = new File(directory, "traces-" + System.currentTimeMillis() + ".json");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"))) {
+            writer.write(new JSONObject().put("traceEvents", events).toString());
+        } catch (JSONException e) {
+            throw new IOException("Unable to serialize traces", e);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.android.androidskeletonapp.data.service.tracing;
+
+import android.app.Application;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.io.IOException;
+
+import io.reactivex.Completable;
+import io.reactivex.CompletableTransformer;
+import io.reactivex.Single;
+import io.reactivex.SingleTransformer;
+
+/**
+ * Always-on tracing: Rx chains, blocking calls and slow scheduler hops through RxJava hooks,
+ * main thread stalls through a watchdog that runs while an activity is started, all kept in one
+ * ring buffer. Recording a span costs two clock reads and one allocation, and nothing else is
+ * kept, so it stays on in release builds.
+ */
+public class Tracing {
+
+    public static final int CAPACITY = 4096;
+    public static final long MIN_HOP_NANOS = 1_000_000;
+    public static final long STALL_THRESHOLD_MILLIS = 500;
+
+    private static final SpanRing ring = new SpanRing(CAPACITY);
+    private static MainThreadWatchdog watchdog;
+
+    public static synchronized void install(Application application) {
+        if (watchdog != null) {
+            return;
+        }
+        RxTracing.install(ring, MIN_HOP_NANOS);
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        watchdog = new MainThreadWatchdog(mainHandler::post, Looper.getMainLooper().getThread(),
+                STALL_THRESHOLD_MILLIS, ring);
+        application.registerActivityLifecycleCallbacks(new WatchdogLifecycle(watchdog));
+    }
+
+    public static SpanRing ring() {
+        return ring;
+    }
+
+    public static CompletableTransformer traceCompletable(String name) {
+        return upstream -> Completable.defer(() -> {
+            NamedSpan span = new NamedSpan(name);
+            return upstream
+                    .doOnComplete(() -> span.finish(RxTracing.COMPLETE))
+                    .doOnError(throwable -> span.finish(RxTracing.ERROR))
+                    .doOnDispose(() -> span.finish(RxTracing.DISPOSE));
+        });
+    }
+
+    public static <T> SingleTransformer<T, T> traceSingle(String name) {
+        return upstream -> Single.defer(() -> {
+            NamedSpan span = new NamedSpan(name);
+            return upstream
+                    .doOnSuccess(item -> span.finish(RxTracing.COMPLETE))
+                    .doOnError(throwable -> span.finish(RxTracing.ERROR))
+                    .doOnDispose(() -> span.finish(RxTracing.DISPOSE));
+        });
+    }
+
+    public static File dump(Context context) throws IOException {
+        return TraceExporter.export(context, ring.snapshot());
+    }
+
+    private static class NamedSpan {
+
+        private final String name;
+        private final String thread = Thread.currentThread().getName();
+        private final long startNanos = System.nanoTime();
+        private boolean finished;
+
+        NamedSpan(String name) {
+            this.name = name;
+        }
+
+        synchronized void finish(String outcome) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            long duration = System.nanoTime() - startNanos;
+            ring.add(new Span(Span.Kind.NAMED, name, thread, Span.wallClockAgo(duration), duration, 0,
+                    outcome));
+        }
+    }
+}
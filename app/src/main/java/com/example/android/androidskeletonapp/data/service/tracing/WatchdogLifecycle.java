@@ -0,0 +1,54 @@
+package com.example.android.androidskeletonapp.data.service.tracing;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+
+/**
+ * Runs the watchdog only while an activity is started. With nothing on screen a stalled main
+ * thread is not seen by anyone, and ticking it would keep waking a process that only runs
+ * background work. The callbacks come on the main thread, so the count needs no lock.
+ */
+class WatchdogLifecycle implements Application.ActivityLifecycleCallbacks {
+
+    private final MainThreadWatchdog watchdog;
+    private int started;
+
+    WatchdogLifecycle(MainThreadWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    @Override
+    public void onActivityStarted(Activity activity) {
+        if (started++ == 0) {
+            watchdog.start();
+        }
+    }
+
+    @Override
+    public void onActivityStopped(Activity activity) {
+        if (started > 0 && --started == 0) {
+            watchdog.stop();
+        }
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+    }
+
+    @Override
+    public void onActivityResumed(Activity activity) {
+    }
+
+    @Override
+    public void onActivityPaused(Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+    }
+}
@@ -0,0 +1,283 @@
+package com.example.android.androidskeletonapp.data.service.upload;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.resilience.SyncResilience;
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
+
+import org.hisp.dhis.android.core.common.State;
+import org.hisp.dhis.android.core.datavalue.DataValue;
+import org.hisp.dhis.android.core.datavalue.DataValueCollectionRepository;
+import org.hisp.dhis.android.core.event.Event;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Single;
+
+/**
+ * Uploads dirty tracker and aggregate data in size-capped batches. The dirty records are counted
+ * per stream first, and streams with none are not read at all. Tracked entity instances go
+ * before events, because events can belong to their enrollments, while data values are uploaded
+ * in parallel. A batch that still fails after its retries is counted and the stream goes on; once
+ * the shared circuit breaker opens, the remaining batches wait for it instead of piling on.
+ */
+public class UploadScheduler {
+
+    public static final int DEFAULT_BATCH_SIZE = 50;
+
+    // The states the SDK's own upload sends: new, changed and deleted records, and the ones the
+    // server rejected or accepted with warnings, which are sent again.
+    public static final List<State> DIRTY_STATES = Collections.unmodifiableList(Arrays.asList(
+            State.TO_POST, State.TO_UPDATE, State.TO_DELETE, State.ERROR, State.WARNING));
+
+    private final int batchSize;
+
+    public UploadScheduler() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public UploadScheduler(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public static Map<UploadStream, Integer> countDirty() {
+        Map<UploadStream, Integer> counts = new EnumMap<>(UploadStream.class);
+        counts.put(UploadStream.TRACKED_ENTITY_INSTANCES, Sdk.d2().trackedEntityModule()
+                .trackedEntityInstances().byState().in(DIRTY_STATES).blockingCount());
+        counts.put(UploadStream.EVENTS, Sdk.d2().eventModule().events()
+                .byState().in(DIRTY_STATES).blockingCount());
+        counts.put(UploadStream.DATA_VALUES, Sdk.d2().dataValueModule().dataValues()
+                .byState().in(DIRTY_STATES).blockingCount());
+        return counts;
+    }
+
+    public Single<List<UploadStreamReport>> upload() {
+        return Single.fromCallable(UploadScheduler::countDirty)
+                .subscribeOn(AppSchedulers.sync())
+                .flatMap(counts -> {
+                    Single<UploadStreamReport> events =
+                            ifDirty(counts, UploadStream.EVENTS, uploadEvents());
+                    Single<List<UploadStreamReport>> tracker =
+                            ifDirty(counts, UploadStream.TRACKED_ENTITY_INSTANCES, uploadTrackedEntityInstances())
+                                    .flatMap(teiReport -> events.map(eventReport ->
+                                            Arrays.asList(teiReport, eventReport)))
+                                    .subscribeOn(AppSchedulers.sync());
+                    Single<UploadStreamReport> aggregate =
+                            ifDirty(counts, UploadStream.DATA_VALUES, uploadDataValues())
+                                    .subscribeOn(AppSchedulers.sync());
+
+                    return Single.zip(tracker, aggregate, (trackerReports, dataValueReport) -> {
+                        List<UploadStreamReport> reports = new ArrayList<>(trackerReports);
+                        reports.add(dataValueReport);
+                        return Collections.unmodifiableList(reports);
+                    });
+                });
+    }
+
+    private static Single<UploadStreamReport> ifDirty(Map<UploadStream, Integer> counts, UploadStream stream,
+                                                      Single<UploadStreamReport> upload) {
+        return counts.get(stream) == 0 ? Single.just(new UploadStreamReport(stream, 0, 0, 0, 0)) : upload;
+    }
+
+    private Single<UploadStreamReport> uploadTrackedEntityInstances() {
+        return Single.defer(() -> {
+            List<String> uids = new ArrayList<>();
+            for (TrackedEntityInstance tei : Sdk.d2().trackedEntityModule().trackedEntityInstances()
+                    .byState().in(DIRTY_STATES).blockingGet()) {
+                uids.add(tei.uid());
+            }
+            List<Batch> batches = new ArrayList<>();
+            for (List<String> chunk : chunk(uids)) {
+                batches.add(new Batch(chunk.size(), Completable.defer(() -> Sdk.d2().trackedEntityModule()
+                        .trackedEntityInstances().byUid().in(chunk).upload().ignoreElements())));
+            }
+            return uploadBatches(UploadStream.TRACKED_ENTITY_INSTANCES, batches);
+        });
+    }
+
+    private Single<UploadStreamReport> uploadEvents() {
+        return Single.defer(() -> {
+            List<String> uids = new ArrayList<>();
+            for (Event event : Sdk.d2().eventModule().events().byState().in(DIRTY_STATES).blockingGet()) {
+                uids.add(event.uid());
+            }
+            List<Batch> batches = new ArrayList<>();
+            for (List<String> chunk : chunk(uids)) {
+                batches.add(new Batch(chunk.size(), Completable.defer(() -> Sdk.d2().eventModule().events()
+                        .byUid().in(chunk).upload().ignoreElements())));
+            }
+            return uploadBatches(UploadStream.EVENTS, batches);
+        });
+    }
+
+    /**
+     * Data values have no uid, so a batch is selected by their key columns. Values are grouped by
+     * period, then org unit, data element and category option combos; whole groups are packed up
+     * to the batch size, and a group too large for one batch is split by the next column. The
+     * filters of a batch then select exactly its values.
+     */
+    private Single<UploadStreamReport> uploadDataValues() {
+        return Single.defer(() -> {
+            List<DataValue> dataValues = Sdk.d2().dataValueModule().dataValues()
+                    .byState().in(DIRTY_STATES).blockingGet();
+            List<Batch> batches = new ArrayList<>();
+            packDataValues(dataValues, 0, repository -> repository, batches);
+            return uploadBatches(UploadStream.DATA_VALUES, batches);
+        });
+    }
+
+    private void packDataValues(List<DataValue> dataValues, int level, DataValueScope scope, List<Batch> batches) {
+        DataValueKey key = DataValueKey.values()[level];
+        Map<String, List<DataValue>> groups = new LinkedHashMap<>();
+        for (DataValue dataValue : dataValues) {
+            String value = key.of(dataValue);
+            List<DataValue> group = groups.get(value);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(value, group);
+            }
+            group.add(dataValue);
+        }
+
+        List<String> packed = new ArrayList<>();
+        int records = 0;
+        for (Map.Entry<String, List<DataValue>> group : groups.entrySet()) {
+            int size = group.getValue().size();
+            if (size > batchSize && level + 1 < DataValueKey.values().length) {
+                List<String> single = Collections.singletonList(group.getKey());
+                packDataValues(group.getValue(), level + 1,
+                        repository -> key.filter(scope.apply(repository), single), batches);
+                continue;
+            }
+            if (!packed.isEmpty() && records + size > batchSize) {
+                batches.add(dataValueBatch(scope, key, packed, records));
+                packed = new ArrayList<>();
+                records = 0;
+            }
+            packed.add(group.getKey());
+            records += size;
+        }
+        if (!packed.isEmpty()) {
+            batches.add(dataValueBatch(scope, key, packed, records));
+        }
+    }
+
+    private static Batch dataValueBatch(DataValueScope scope, DataValueKey key, List<String> values, int records) {
+        return new Batch(records, Completable.defer(() -> key.filter(
+                scope.apply(Sdk.d2().dataValueModule().dataValues()), values).upload().ignoreElements()));
+    }
+
+    private Single<UploadStreamReport> uploadBatches(UploadStream stream, List<Batch> batches) {
+        AtomicInteger records = new AtomicInteger();
+        AtomicInteger failedBatches = new AtomicInteger();
+        long start = System.currentTimeMillis();
+
+        return Observable.fromIterable(batches)
+                .concatMapCompletable(batch -> batch.upload
+                        .compose(SyncResilience.breaker().protectCompletable())
+                        .retryWhen(SyncResilience.retry())
+                        .doOnComplete(() -> records.addAndGet(batch.records))
+                        .onErrorComplete(throwable -> {
+                            throwable.printStackTrace();
+                            failedBatches.incrementAndGet();
+                            return true;
+                        }))
+                .toSingle(() -> new UploadStreamReport(stream, records.get(), batches.size(),
+                        failedBatches.get(), System.currentTimeMillis() - start));
+    }
+
+    private List<List<String>> chunk(List<String> uids) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < uids.size(); i += batchSize) {
+            chunks.add(uids.subList(i, Math.min(i + batchSize, uids.size())));
+        }
+        return chunks;
+    }
+
+    private interface DataValueScope {
+        DataValueCollectionRepository apply(DataValueCollectionRepository repository);
+    }
+
+    // The columns of a data value's key, from the coarsest grouping to the finest.
+    private enum DataValueKey {
+        PERIOD {
+            @Override
+            String of(DataValue dataValue) {
+                return dataValue.period();
+            }
+
+            @Override
+            DataValueCollectionRepository filter(DataValueCollectionRepository repository, List<String> values) {
+                return repository.byPeriod().in(values);
+            }
+        },
+        ORGANISATION_UNIT {
+            @Override
+            String of(DataValue dataValue) {
+                return dataValue.organisationUnit();
+            }
+
+            @Override
+            DataValueCollectionRepository filter(DataValueCollectionRepository repository, List<String> values) {
+                return repository.byOrganisationUnitUid().in(values);
+            }
+        },
+        DATA_ELEMENT {
+            @Override
+            String of(DataValue dataValue) {
+                return dataValue.dataElement();
+            }
+
+            @Override
+            DataValueCollectionRepository filter(DataValueCollectionRepository repository, List<String> values) {
+                return repository.byDataElementUid().in(values);
+            }
+        },
+        CATEGORY_OPTION_COMBO {
+            @Override
+            String of(DataValue dataValue) {
+                return dataValue.categoryOptionCombo();
+            }
+
+            @Override
+            DataValueCollectionRepository filter(DataValueCollectionRepository repository, List<String> values) {
+                return repository.byCategoryOptionComboUid().in(values);
+            }
+        },
+        ATTRIBUTE_OPTION_COMBO {
+            @Override
+            String of(DataValue dataValue) {
+                return dataValue.attributeOptionCombo();
+            }
+
+            @Override
+            DataValueCollectionRepository filter(DataValueCollectionRepository repository, List<String> values) {
+                return repository.byAttributeOptionComboUid().in(values);
+            }
+        };
+
+        abstract String of(DataValue dataValue);
+
+        abstract DataValueCollectionRepository filter(DataValueCollectionRepository repository, List<String> values);
+    }
+
+    private static class Batch {
+
+        private final int records;
+        private final Completable upload;
+
+        Batch(int records, Completable upload) {
+            this.records = records;
+            this.upload = upload;
+        }
+    }
+}
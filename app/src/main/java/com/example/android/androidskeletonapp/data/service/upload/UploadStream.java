@@ -0,0 +1,7 @@
+package com.example.android.androidskeletonapp.data.service.upload;
+
+public enum UploadStream {
+    TRACKED_ENTITY_INSTANCES,
+    EVENTS,
+    DATA_VALUES
+}
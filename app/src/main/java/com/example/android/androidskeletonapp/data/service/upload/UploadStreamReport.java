@@ -0,0 +1,42 @@
+package com.example.android.androidskeletonapp.data.service.upload;
+
+public class UploadStreamReport {
+
+    private final UploadStream stream;
+    private final int records;
+    private final int batches;
+    private final int failedBatches;
+    private final long durationMillis;
+
+    UploadStreamReport(UploadStream stream, int records, int batches, int failedBatches, long durationMillis) {
+        this.stream = stream;
+        this.records = records;
+        this.batches = batches;
+        this.failedBatches = failedBatches;
+        this.durationMillis = durationMillis;
+    }
+
+    public UploadStream getStream() {
+        return stream;
+    }
+
+    public int getRecords() {
+        return records;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public int getFailedBatches() {
+        return failedBatches;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public double getRecordsPerSecond() {
+        return durationMillis == 0 ? records : records * 1000.0 / durationMillis;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.android.androidskeletonapp.data.service.wipe;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.network.NetworkSettings;
+import com.example.android.androidskeletonapp.data.service.rules.RuleEngineCache;
+
+import org.hisp.dhis.android.core.arch.db.access.DatabaseAdapter;
+import org.hisp.dhis.android.core.arch.db.access.Transaction;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import io.reactivex.Observable;
+
+/**
+ * Deletes data in chunks of bounded size, each in its own transaction, so the database stays
+ * available to other work during a long wipe. Metadata is only wiped on explicit request: keeping
+ * it lets the next data sync skip the metadata download.
+ */
+public class WipeEngine {
+
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final Context context;
+    private final int chunkSize;
+
+    public WipeEngine(Context context) {
+        this(context, DEFAULT_CHUNK_SIZE);
+    }
+
+    WipeEngine(Context context, int chunkSize) {
+        this.context = context.getApplicationContext();
+        this.chunkSize = chunkSize;
+    }
+
+    public Observable<WipeProgress> wipe(WipeScope scope, boolean includeMetadata) {
+        return Observable.create(emitter -> {
+            DatabaseAdapter databaseAdapter = Sdk.d2().databaseAdapter();
+
+            Map<String, Integer> rows = new LinkedHashMap<>();
+            int totalRows = 0;
+            Set<String> existingTables = existingTables(databaseAdapter);
+            for (String table : scope.getTables()) {
+                if (!existingTables.contains(table)) {
+                    continue;
+                }
+                int count = count(databaseAdapter, table);
+                rows.put(table, count);
+                totalRows += count;
+            }
+
+            int deletedRows = 0;
+            emitter.onNext(new WipeProgress(null, 0, totalRows));
+            for (Map.Entry<String, Integer> table : rows.entrySet()) {
+                if (table.getValue() == 0) {
+                    continue;
+                }
+                int deleted;
+                do {
+                    if (emitter.isDisposed()) {
+                        return;
+                    }
+                    deleted = deleteChunk(databaseAdapter, table.getKey());
+                    deletedRows += deleted;
+                    emitter.onNext(new WipeProgress(table.getKey(), Math.min(deletedRows, totalRows), totalRows));
+                } while (deleted == chunkSize);
+            }
+            deleteResources(databaseAdapter, scope);
+
+            if (includeMetadata) {
+                Sdk.d2().wipeModule().wipeEverything();
+                NetworkSettings.clearMetadataCache(context);
+                RuleEngineCache.invalidate();
+            }
+            emitter.onComplete();
+        });
+    }
+
+    private int deleteChunk(DatabaseAdapter databaseAdapter, String table) {
+        Transaction transaction = databaseAdapter.beginNewTransaction();
+        try {
+            int deleted = databaseAdapter.delete(table,
+                    "_id IN (SELECT _id FROM " + table + " LIMIT " + chunkSize + ")", null);
+            transaction.setSuccessful();
+            return deleted;
+        } finally {
+            transaction.end();
+        }
+    }
+
+    private static void deleteResources(DatabaseAdapter databaseAdapter, WipeScope scope) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < scope.getResourceTypes().size(); i++) {
+            placeholders.append(i == 0 ? "?" : ",?");
+        }
+        databaseAdapter.delete("Resource", "resourceType IN (" + placeholders + ")",
+                scope.getResourceTypes().toArray(new String[0]));
+    }
+
+    // Not every SDK version has every table of a scope.
+    private static Set<String> existingTables(DatabaseAdapter databaseAdapter) {
+        Set<String> tables = new HashSet<>();
+        try (Cursor cursor = databaseAdapter.query("SELECT name FROM sqlite_master WHERE type = 'table'")) {
+            while (cursor.moveToNext()) {
+                tables.add(cursor.getString(0));
+            }
+        }
+        return tables;
+    }
+
+    private static int count(DatabaseAdapter databaseAdapter, String table) {
+        try (Cursor cursor = databaseAdapter.query("SELECT COUNT(*) FROM " + table)) {
+            return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        }
+    }
+}
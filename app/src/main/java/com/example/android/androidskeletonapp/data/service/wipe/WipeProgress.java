@@ -0,0 +1,34 @@
+package com.example.android.androidskeletonapp.data.service.wipe;
+
+import androidx.annotation.Nullable;
+
+public class WipeProgress {
+
+    @Nullable
+    private final String table;
+    private final int deletedRows;
+    private final int totalRows;
+
+    WipeProgress(@Nullable String table, int deletedRows, int totalRows) {
+        this.table = table;
+        this.deletedRows = deletedRows;
+        this.totalRows = totalRows;
+    }
+
+    @Nullable
+    public String getTable() {
+        return table;
+    }
+
+    public int getDeletedRows() {
+        return deletedRows;
+    }
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    public int getPercentage() {
+        return totalRows == 0 ? 100 : (int) (deletedRows * 100L / totalRows);
+    }
+}
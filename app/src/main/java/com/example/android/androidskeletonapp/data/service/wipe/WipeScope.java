@@ -0,0 +1,60 @@
+package com.example.android.androidskeletonapp.data.service.wipe;
+
+import com.example.android.androidskeletonapp.data.service.SyncCounter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * What a wipe deletes. Tables are listed children first, so deleting a chunk never cascades into
+ * an unbounded delete of dependent rows.
+ */
+public enum WipeScope {
+    TRACKER_DATA(
+            Arrays.asList("TrackedEntityDataValue", "Note", "Event", "TrackedEntityAttributeValue",
+                    "RelationshipItem", "Relationship", "Enrollment", "TrackedEntityInstance"),
+            Arrays.asList("EVENT", "TRACKED_ENTITY_INSTANCE", "RELATIONSHIP"),
+            Arrays.asList(SyncCounter.TRACKED_ENTITY_INSTANCES, SyncCounter.SINGLE_EVENTS)),
+    AGGREGATE_DATA(
+            Arrays.asList("DataValue", "DataSetCompleteRegistration", "DataApproval"),
+            Arrays.asList("DATA_VALUE", "DATA_SET_COMPLETE_REGISTRATION", "DATA_APPROVAL"),
+            Collections.singletonList(SyncCounter.DATA_VALUES)),
+    EVERYTHING(
+            concat(TRACKER_DATA.tables, AGGREGATE_DATA.tables),
+            concat(TRACKER_DATA.resourceTypes, AGGREGATE_DATA.resourceTypes),
+            concat(TRACKER_DATA.counters, AGGREGATE_DATA.counters));
+
+    private final List<String> tables;
+    private final List<String> resourceTypes;
+    private final List<SyncCounter> counters;
+
+    WipeScope(List<String> tables, List<String> resourceTypes, List<SyncCounter> counters) {
+        this.tables = tables;
+        this.resourceTypes = resourceTypes;
+        this.counters = counters;
+    }
+
+    List<String> getTables() {
+        return tables;
+    }
+
+    /**
+     * The SDK remembers when each resource type was last downloaded; those rows must go too, or the
+     * next sync would only ask for changes since then.
+     */
+    List<String> getResourceTypes() {
+        return resourceTypes;
+    }
+
+    public List<SyncCounter> getCounters() {
+        return counters;
+    }
+
+    private static <T> List<T> concat(List<T> first, List<T> second) {
+        List<T> all = new ArrayList<>(first);
+        all.addAll(second);
+        return Collections.unmodifiableList(all);
+    }
+}
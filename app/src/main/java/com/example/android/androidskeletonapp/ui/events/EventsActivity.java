@@ -0,0 +1,52 @@
+package com.example.android.androidskeletonapp.ui.events;
+
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.paging.DataSource;
+import androidx.paging.PagedList;
+
+import com.example.android.androidskeletonapp.R;
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.ui.list.ListActivity;
+import com.example.android.androidskeletonapp.ui.list.ListItem;
+import com.example.android.androidskeletonapp.ui.list.ListPaging;
+
+import org.hisp.dhis.android.core.event.Event;
+
+import java.text.DateFormat;
+
+public class EventsActivity extends ListActivity {
+
+    public static Intent getEventsActivityIntent(Context context) {
+        return new Intent(context, EventsActivity.class);
+    }
+
+    @Override
+    protected int titleRes() {
+        return R.string.events_without_registration;
+    }
+
+    @Override
+    protected LiveData<PagedList<ListItem>> pagedItems() {
+        DateFormat dateFormat = android.text.format.DateFormat.getDateFormat(this);
+        return ListPaging.build(new DataSource.Factory<Event, ListItem>() {
+            @NonNull
+            @Override
+            public DataSource<Event, ListItem> create() {
+                return Sdk.d2().eventModule().events()
+                        .byEnrollmentUid().isNull()
+                        .getDataSource()
+                        .map(event -> toListItem(event, dateFormat));
+            }
+        });
+    }
+
+    private static ListItem toListItem(Event event, DateFormat dateFormat) {
+        String title = event.eventDate() == null ? event.uid() : dateFormat.format(event.eventDate());
+        String subtitle = event.program() + " · " + event.status();
+        return new ListItem(event.uid(), title, subtitle);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.android.androidskeletonapp.ui.list;
+
+import android.os.Bundle;
+import android.view.View;
+import android.widget.TextView;
+
+import androidx.annotation.StringRes;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+import androidx.lifecycle.LiveData;
+import androidx.paging.PagedList;
+import androidx.recyclerview.widget.DividerItemDecoration;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.android.androidskeletonapp.R;
+
+/**
+ * Base screen for the downloaded-data lists. Subclasses only say which rows to page in.
+ */
+public abstract class ListActivity extends AppCompatActivity {
+
+    private ListItemAdapter adapter;
+    private TextView emptyText;
+    private LiveData<PagedList<ListItem>> items;
+
+    @StringRes
+    protected abstract int titleRes();
+
+    protected abstract LiveData<PagedList<ListItem>> pagedItems();
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_list);
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        setTitle(titleRes());
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        }
+
+        RecyclerView recyclerView = findViewById(R.id.listRecyclerView);
+        emptyText = findViewById(R.id.listEmptyText);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setHasFixedSize(true);
+        recyclerView.addItemDecoration(new DividerItemDecoration(this, layoutManager.getOrientation()));
+
+        adapter = new ListItemAdapter();
+        recyclerView.setAdapter(adapter);
+
+        showItems(pagedItems());
+    }
+
+    /**
+     * Replaces the rows on screen, for example with search results.
+     */
+    protected void showItems(LiveData<PagedList<ListItem>> newItems) {
+        if (items != null) {
+            items.removeObservers(this);
+        }
+        items = newItems;
+        items.observe(this, pagedList -> {
+            adapter.submitList(pagedList);
+            emptyText.setVisibility(pagedList.isEmpty() ? View.VISIBLE : View.GONE);
+        });
+    }
+
+    @Override
+    public boolean onSupportNavigateUp() {
+        finish();
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.android.androidskeletonapp.ui.list;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+
+/**
+ * The two lines a list row shows, mapped from an SDK model on the paging thread so binding a
+ * row does no work beyond setting text.
+ */
+public class ListItem {
+
+    static final DiffUtil.ItemCallback<ListItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<ListItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ListItem oldItem, @NonNull ListItem newItem) {
+            return oldItem.uid.equals(newItem.uid);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ListItem oldItem, @NonNull ListItem newItem) {
+            return oldItem.title.equals(newItem.title) && oldItem.subtitle.equals(newItem.subtitle);
+        }
+    };
+
+    private final String uid;
+    private final String title;
+    private final String subtitle;
+
+    public ListItem(String uid, String title, String subtitle) {
+        this.uid = uid;
+        this.title = title;
+        this.subtitle = subtitle;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getSubtitle() {
+        return subtitle;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.android.androidskeletonapp.ui.list;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.paging.PagedListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.android.androidskeletonapp.R;
+
+/**
+ * Diffs are computed by the paging library on a background thread, so a page arriving while the
+ * user scrolls never blocks the main thread.
+ */
+public class ListItemAdapter extends PagedListAdapter<ListItem, ListItemAdapter.ListItemHolder> {
+
+    public ListItemAdapter() {
+        super(ListItem.DIFF_CALLBACK);
+    }
+
+    @NonNull
+    @Override
+    public ListItemHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_list, parent, false);
+        return new ListItemHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ListItemHolder holder, int position) {
+        ListItem item = getItem(position);
+        holder.title.setText(item == null ? "" : item.getTitle());
+        holder.subtitle.setText(item == null ? "" : item.getSubtitle());
+    }
+
+    static class ListItemHolder extends RecyclerView.ViewHolder {
+
+        private final TextView title;
+        private final TextView subtitle;
+
+        ListItemHolder(@NonNull View itemView) {
+            super(itemView);
+            title = itemView.findViewById(R.id.itemTitle);
+            subtitle = itemView.findViewById(R.id.itemSubtitle);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.android.androidskeletonapp.ui.list;
+
+import androidx.lifecycle.LiveData;
+import androidx.paging.DataSource;
+import androidx.paging.LivePagedListBuilder;
+import androidx.paging.PagedList;
+
+/**
+ * Paging settings shared by the list screens. Pages are prefetched well before the user reaches
+ * them, and pages far from the visible rows are dropped, so memory stays flat however many rows
+ * the database holds.
+ */
+public class ListPaging {
+
+    static final int PAGE_SIZE = 50;
+    static final int PREFETCH_DISTANCE = 100;
+    static final int MAX_SIZE = 400;
+
+    public static <K> LiveData<PagedList<ListItem>> build(DataSource.Factory<K, ListItem> factory) {
+        PagedList.Config config = new PagedList.Config.Builder()
+                .setPageSize(PAGE_SIZE)
+                .setInitialLoadSizeHint(PAGE_SIZE * 2)
+                .setPrefetchDistance(PREFETCH_DISTANCE)
+                .setMaxSize(MAX_SIZE)
+                .setEnablePlaceholders(false)
+                .build();
+        return new LivePagedListBuilder<>(factory, config).build();
+    }
+}
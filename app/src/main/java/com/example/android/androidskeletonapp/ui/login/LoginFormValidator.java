@@ -0,0 +1,53 @@
+package com.example.android.androidskeletonapp.ui.login;
+
+import java.util.regex.Pattern;
+
+/**
+ * Validates the login form without Android dependencies, so it can be benchmarked on the JVM.
+ * The URL pattern is injected because {@code Patterns.WEB_URL} is only available on a device.
+ */
+public class LoginFormValidator {
+
+    public enum Result {
+        VALID,
+        INVALID_SERVER_URL,
+        INVALID_USERNAME,
+        INVALID_PASSWORD
+    }
+
+    private final Pattern serverUrlPattern;
+
+    public LoginFormValidator(Pattern serverUrlPattern) {
+        this.serverUrlPattern = serverUrlPattern;
+    }
+
+    public Result validate(String serverUrl, String username, String password) {
+        if (!isServerUrlValid(serverUrl)) {
+            return Result.INVALID_SERVER_URL;
+        } else if (!isUserNameValid(username)) {
+            return Result.INVALID_USERNAME;
+        } else if (!isPasswordValid(password)) {
+            return Result.INVALID_PASSWORD;
+        } else {
+            return Result.VALID;
+        }
+    }
+
+    public boolean isServerUrlValid(String serverUrl) {
+        if (serverUrl == null) {
+            return false;
+        }
+        return serverUrlPattern.matcher(serverUrl).matches();
+    }
+
+    private boolean isUserNameValid(String username) {
+        if (username == null) {
+            return false;
+        }
+        return !username.trim().isEmpty();
+    }
+
+    private boolean isPasswordValid(String password) {
+        return password != null && password.trim().length() > 5;
+    }
+}
@@ -7,20 +7,55 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.android.androidskeletonapp.R;
-import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.login.OfflineLoginService;
+import com.example.android.androidskeletonapp.data.service.login.ServerPrewarmer;
 
 import org.hisp.dhis.android.core.user.User;
 
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
 import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.PublishSubject;
 
 public class LoginViewModel extends ViewModel {
 
+    private static final long VALIDATION_DEBOUNCE_MILLIS = 300;
+
     private MutableLiveData<LoginFormState> loginFormState = new MutableLiveData<>();
     private MutableLiveData<LoginResult> loginResult = new MutableLiveData<>();
+    private final LoginFormValidator validator = new LoginFormValidator(Patterns.WEB_URL);
+
+    private final PublishSubject<FormInput> formInput = PublishSubject.create();
+    private final CompositeDisposable disposables = new CompositeDisposable();
+
+    private final OfflineLoginService offlineLoginService;
+    private final ServerPrewarmer serverPrewarmer;
+
+    LoginViewModel(OfflineLoginService offlineLoginService, ServerPrewarmer serverPrewarmer) {
+        this.offlineLoginService = offlineLoginService;
+        this.serverPrewarmer = serverPrewarmer;
 
-    LoginViewModel() {
+        // Keystrokes are validated once typing pauses, and off the main thread.
+        Observable<FormInput> input = formInput
+                .debounce(VALIDATION_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS, Schedulers.computation())
+                .share();
+        disposables.add(input
+                .map(form -> validator.validate(form.serverUrl, form.username, form.password))
+                .distinctUntilChanged()
+                .subscribe(this::postFormState, Throwable::printStackTrace));
+        // Once the server URL is valid, the connection is warmed up while the user types the rest.
+        disposables.add(input
+                .map(form -> form.serverUrl)
+                .distinctUntilChanged()
+                .filter(validator::isServerUrlValid)
+                .switchMapCompletable(serverUrl -> serverPrewarmer.prewarm(serverUrl)
+                        .doOnError(Throwable::printStackTrace)
+                        .onErrorComplete())
+                .subscribe());
     }
 
     LiveData<LoginFormState> getLoginFormState() {
@@ -32,8 +67,10 @@ public class LoginViewModel extends ViewModel {
     }
 
     public Single<User> login(String username, String password, String serverUrl) {
-        return Sdk.d2().userModule().logIn(username, password, serverUrl)
-                .subscribeOn(Schedulers.io())
+        // A local match lets the user in at once; the server confirms the credentials afterwards.
+        return offlineLoginService.logInLocally(username, password, serverUrl)
+                .doOnSuccess(user -> offlineLoginService.verifyInBackground(username, password, serverUrl))
+                .switchIfEmpty(offlineLoginService.logInOnline(username, password, serverUrl))
                 .observeOn(AndroidSchedulers.mainThread())
                 .doOnSuccess(user -> {
                     if (user != null) {
@@ -49,32 +86,40 @@ public class LoginViewModel extends ViewModel {
     }
 
     void loginDataChanged(String serverUrl, String username, String password) {
-        if (!isServerUrlValid(serverUrl)) {
-            loginFormState.setValue(new LoginFormState(R.string.invalid_server_url, null, null));
-        } if (!isUserNameValid(username)) {
-            loginFormState.setValue(new LoginFormState(null, R.string.invalid_username, null));
-        } else if (!isPasswordValid(password)) {
-            loginFormState.setValue(new LoginFormState(null, null, R.string.invalid_password));
-        } else {
-            loginFormState.setValue(new LoginFormState(true));
-        }
+        formInput.onNext(new FormInput(serverUrl, username, password));
     }
 
-    private boolean isServerUrlValid(String serverUrl) {
-        if (serverUrl == null) {
-            return false;
+    private void postFormState(LoginFormValidator.Result result) {
+        switch (result) {
+            case INVALID_SERVER_URL:
+                loginFormState.postValue(new LoginFormState(R.string.invalid_server_url, null, null));
+                break;
+            case INVALID_USERNAME:
+                loginFormState.postValue(new LoginFormState(null, R.string.invalid_username, null));
+                break;
+            case INVALID_PASSWORD:
+                loginFormState.postValue(new LoginFormState(null, null, R.string.invalid_password));
+                break;
+            default:
+                loginFormState.postValue(new LoginFormState(true));
         }
-        return Patterns.WEB_URL.matcher(serverUrl).matches();
     }
 
-    private boolean isUserNameValid(String username) {
-        if (username == null) {
-            return false;
-        }
-        return !username.trim().isEmpty();
+    @Override
+    protected void onCleared() {
+        disposables.clear();
     }
 
-    private boolean isPasswordValid(String password) {
-        return password != null && password.trim().length() > 5;
+    private static class FormInput {
+
+        private final String serverUrl;
+        private final String username;
+        private final String password;
+
+        FormInput(String serverUrl, String username, String password) {
+            this.serverUrl = serverUrl;
+            this.username = username;
+            this.password = password;
+        }
     }
 }
@@ -1,17 +1,28 @@
 package com.example.android.androidskeletonapp.ui.login;
 
+import android.content.Context;
+
 import androidx.annotation.NonNull;
 import androidx.lifecycle.ViewModel;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.example.android.androidskeletonapp.data.service.login.OfflineLoginService;
+import com.example.android.androidskeletonapp.data.service.login.ServerPrewarmer;
+
 public class LoginViewModelFactory implements ViewModelProvider.Factory {
 
+    private final Context context;
+
+    public LoginViewModelFactory(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
     @NonNull
     @Override
     @SuppressWarnings("unchecked")
     public <T extends ViewModel> T create(@NonNull Class<T> modelClass) {
         if (modelClass.isAssignableFrom(LoginViewModel.class)) {
-            return (T) new LoginViewModel();
+            return (T) new LoginViewModel(new OfflineLoginService(context), new ServerPrewarmer());
         } else {
             throw new IllegalArgumentException("Unknown ViewModel class");
         }
@@ -3,38 +3,87 @@ package com.example.android.androidskeletonapp.ui.main;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Bundle;
+import android.text.format.Formatter;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.CheckBox;
 import android.widget.ProgressBar;
+import android.widget.RadioGroup;
 import android.widget.TextView;
+import android.widget.Toast;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.StringRes;
 import androidx.appcompat.app.ActionBarDrawerToggle;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import androidx.core.view.GravityCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
+import androidx.work.Data;
+import androidx.work.WorkInfo;
 
 import com.example.android.androidskeletonapp.R;
+import com.example.android.androidskeletonapp.SkeletonApplication;
+import com.example.android.androidskeletonapp.StartupTrace;
 import com.example.android.androidskeletonapp.data.Sdk;
-import com.example.android.androidskeletonapp.data.service.SyncStatusHelper;
+import com.example.android.androidskeletonapp.data.service.ActivityStarter;
+import com.example.android.androidskeletonapp.data.service.SyncStatusService;
+import com.example.android.androidskeletonapp.data.service.SyncStatusSnapshot;
+import com.example.android.androidskeletonapp.data.service.aggregate.AggregateDimension;
+import com.example.android.androidskeletonapp.data.service.aggregate.AggregateEngine;
+import com.example.android.androidskeletonapp.data.service.aggregate.AggregateQuery;
+import com.example.android.androidskeletonapp.data.service.aggregate.AggregateRow;
+import com.example.android.androidskeletonapp.data.service.login.OfflineLoginService;
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
+import com.example.android.androidskeletonapp.data.service.sync.DataSyncWorker;
+import com.example.android.androidskeletonapp.data.service.sync.ExportWorker;
+import com.example.android.androidskeletonapp.data.service.sync.ImportWorker;
+import com.example.android.androidskeletonapp.data.service.sync.MetadataSyncWorker;
+import com.example.android.androidskeletonapp.data.service.sync.RuleEvaluationWorker;
+import com.example.android.androidskeletonapp.data.service.sync.SyncEngine;
+import com.example.android.androidskeletonapp.data.service.sync.SyncJob;
+import com.example.android.androidskeletonapp.data.service.sync.UploadWorker;
+import com.example.android.androidskeletonapp.data.service.sync.WipeWorker;
+import com.example.android.androidskeletonapp.data.service.telemetry.MetricsExporter;
+import com.example.android.androidskeletonapp.data.service.telemetry.StageMetric;
+import com.example.android.androidskeletonapp.data.service.telemetry.SyncTelemetry;
+import com.example.android.androidskeletonapp.data.service.tracing.Tracing;
+import com.example.android.androidskeletonapp.data.service.upload.UploadStream;
+import com.example.android.androidskeletonapp.data.service.wipe.WipeScope;
+import com.example.android.androidskeletonapp.ui.events.EventsActivity;
+import com.example.android.androidskeletonapp.ui.login.LoginActivity;
+import com.example.android.androidskeletonapp.ui.trackedentityinstances.TrackedEntityInstancesActivity;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.navigation.NavigationView;
 import com.google.android.material.snackbar.Snackbar;
 
-import org.hisp.dhis.android.core.arch.call.D2Progress;
+import org.hisp.dhis.android.core.dataelement.DataElement;
 import org.hisp.dhis.android.core.user.User;
 
 import java.text.MessageFormat;
-
-import io.reactivex.Observable;
+import java.text.NumberFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import io.reactivex.Single;
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.CompositeDisposable;
-import io.reactivex.schedulers.Schedulers;
 
 import static com.example.android.androidskeletonapp.data.service.LogOutService.logOut;
 
 public class MainActivity extends AppCompatActivity implements NavigationView.OnNavigationItemSelectedListener {
 
+    private static final int REQUEST_IMPORT_PACKAGE = 1;
+    private static final int REQUEST_EXPORT_PACKAGE = 2;
+
     private CompositeDisposable compositeDisposable;
 
     private FloatingActionButton syncMetadataButton;
@@ -44,6 +93,7 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
     private ProgressBar progressBar;
 
     private boolean isSyncing = false;
+    private boolean syncWorkObserved = false;
 
     public static Intent getMainActivityIntent(Context context) {
         return new Intent(context, MainActivity.class);
@@ -56,12 +106,38 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
 
         compositeDisposable = new CompositeDisposable();
 
-        User user = getUser();
-        TextView greeting = findViewById(R.id.greeting);
-        greeting.setText(String.format("Hi %s!", user.displayName()));
-
         inflateMainView();
-        createNavigationView(user);
+        createNavigationView();
+
+        SyncStatusService.snapshot().observe(this, snapshot -> {
+            if (snapshot != null) {
+                StartupTrace.shared().mark(StartupTrace.COUNTERS_LOADED);
+            }
+            updateSyncDataAndButtons();
+        });
+        SyncEngine.getWorkInfos(this).observe(this, this::onSyncWorkChanged);
+        OfflineLoginService.credentialsRejected().observe(this, rejected -> {
+            if (Boolean.TRUE.equals(rejected)) {
+                OfflineLoginService.consumeRejection();
+                Toast.makeText(this, R.string.offline_login_rejected, Toast.LENGTH_LONG).show();
+                ActivityStarter.startActivity(this, LoginActivity.getLoginActivityIntent(this), true);
+            }
+        });
+        OfflineLoginService.verificationFailed().observe(this, failed -> {
+            if (Boolean.TRUE.equals(failed)) {
+                OfflineLoginService.consumeVerificationFailure();
+                Toast.makeText(this, R.string.offline_login_unconfirmed, Toast.LENGTH_LONG).show();
+            }
+        });
+
+        // The greeting and counters keep their placeholders until the user and snapshot are loaded.
+        loadUser();
+
+        StartupTrace.shared().mark(StartupTrace.MAIN_CREATED);
+        getWindow().getDecorView().post(() -> {
+            StartupTrace.shared().mark(StartupTrace.FIRST_FRAME);
+            SkeletonApplication.logStartup();
+        });
     }
 
     @Override
@@ -70,11 +146,19 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         updateSyncDataAndButtons();
     }
 
-    private User getUser() {
-        return Sdk.d2().userModule().user().blockingGet();
+    private void loadUser() {
+        compositeDisposable.add(SkeletonApplication.from(this).d2()
+                .flatMap(d2 -> d2.userModule().user().get())
+                .subscribeOn(AppSchedulers.interactive())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(user -> {
+                    StartupTrace.shared().mark(StartupTrace.USER_LOADED);
+                    showUser(user);
+                    SyncStatusService.refreshIfEmpty();
+                    AggregateEngine.refreshIfEmpty();
+                }, Throwable::printStackTrace));
     }
 
-
     @Override
     public void onBackPressed() {
         DrawerLayout drawer = findViewById(R.id.drawerLayout);
@@ -101,26 +185,36 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         progressBar = findViewById(R.id.syncProgressBar);
 
         syncMetadataButton.setOnClickListener(view -> {
-            setSyncing();
             Snackbar.make(view, "Syncing metadata", Snackbar.LENGTH_LONG)
                     .setAction("Action", null).show();
-            syncStatusText.setText(R.string.syncing_metadata);
-            syncMetadata();
+            SyncEngine.syncMetadata(this, false);
+        });
+
+        syncMetadataButton.setOnLongClickListener(view -> {
+            Snackbar.make(view, "Refreshing all metadata", Snackbar.LENGTH_LONG)
+                    .setAction("Action", null).show();
+            SyncEngine.syncMetadata(this, true);
+            return true;
         });
 
         syncDataButton.setOnClickListener(view -> {
-            setSyncing();
             Snackbar.make(view, "Syncing data", Snackbar.LENGTH_LONG)
                     .setAction("Action", null).show();
-            syncStatusText.setText(R.string.syncing_data);
-            downloadData();
+            SyncEngine.syncData(this);
         });
+
+        findViewById(R.id.trackedEntityInstancesCard).setOnClickListener(view -> ActivityStarter.startActivity(this,
+                TrackedEntityInstancesActivity.getTrackedEntityInstancesActivityIntent(this), false));
+        findViewById(R.id.singleEventsCard).setOnClickListener(view -> ActivityStarter.startActivity(this,
+                EventsActivity.getEventsActivityIntent(this), false));
+        findViewById(R.id.dataValuesCard).setOnClickListener(view -> showDataValueTotals());
     }
 
-    private void setSyncing() {
+    private void setSyncing(String message) {
         isSyncing = true;
         progressBar.setVisibility(View.VISIBLE);
         syncStatusText.setVisibility(View.VISIBLE);
+        syncStatusText.setText(message);
         updateSyncDataAndButtons();
     }
 
@@ -153,27 +247,23 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
     private void updateSyncDataAndButtons() {
         disableAllButtons();
 
-        int programCount = SyncStatusHelper.programCount();
-        int dataSetCount = SyncStatusHelper.dataSetCount();
-        int trackedEntityInstanceCount = SyncStatusHelper.trackedEntityInstanceCount();
-        int singleEventCount = SyncStatusHelper.singleEventCount();
-        int dataValueCount = SyncStatusHelper.dataValueCount();
+        SyncStatusSnapshot snapshot = SyncStatusService.currentSnapshot();
 
-        enablePossibleButtons(programCount + dataSetCount > 0);
+        enablePossibleButtons(snapshot.isMetadataSynced());
 
         TextView downloadedProgramsText = findViewById(R.id.programsDownloadedText);
         TextView downloadedDataSetsText = findViewById(R.id.dataSetsDownloadedText);
         TextView downloadedTeisText = findViewById(R.id.trackedEntityInstancesDownloadedText);
         TextView singleEventsDownloadedText = findViewById(R.id.singleEventsDownloadedText);
         TextView downloadedDataValuesText = findViewById(R.id.dataValuesDownloadedText);
-        downloadedProgramsText.setText(MessageFormat.format("{0}", programCount));
-        downloadedDataSetsText.setText(MessageFormat.format("{0}", dataSetCount));
-        downloadedTeisText.setText(MessageFormat.format("{0}", trackedEntityInstanceCount));
-        singleEventsDownloadedText.setText(MessageFormat.format("{0}", singleEventCount));
-        downloadedDataValuesText.setText(MessageFormat.format("{0}", dataValueCount));
+        downloadedProgramsText.setText(MessageFormat.format("{0}", snapshot.getProgramCount()));
+        downloadedDataSetsText.setText(MessageFormat.format("{0}", snapshot.getDataSetCount()));
+        downloadedTeisText.setText(MessageFormat.format("{0}", snapshot.getTrackedEntityInstanceCount()));
+        singleEventsDownloadedText.setText(MessageFormat.format("{0}", snapshot.getSingleEventCount()));
+        downloadedDataValuesText.setText(MessageFormat.format("{0}", snapshot.getDataValueCount()));
     }
 
-    private void createNavigationView(User user) {
+    private void createNavigationView() {
         Toolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
         DrawerLayout drawer = findViewById(R.id.drawerLayout);
@@ -183,78 +273,299 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         drawer.addDrawerListener(toggle);
         toggle.syncState();
         navigationView.setNavigationItemSelectedListener(this);
-        View headerView = navigationView.getHeaderView(0);
+    }
 
+    private void showUser(User user) {
+        TextView greeting = findViewById(R.id.greeting);
+        greeting.setText(String.format("Hi %s!", user.displayName()));
+
+        NavigationView navigationView = findViewById(R.id.navView);
+        View headerView = navigationView.getHeaderView(0);
         TextView firstName = headerView.findViewById(R.id.firstName);
         TextView email = headerView.findViewById(R.id.email);
         firstName.setText(user.firstName());
         email.setText(user.email());
     }
 
-    private void syncMetadata() {
-        compositeDisposable.add(downloadMetadata()
-                .subscribeOn(Schedulers.io())
+    private void onSyncWorkChanged(List<WorkInfo> workInfos) {
+        SyncEngine.pruneReported(workInfos);
+        WorkInfo running = null;
+        for (WorkInfo workInfo : workInfos) {
+            if (!workInfo.getState().isFinished()) {
+                if (running == null) {
+                    running = workInfo;
+                }
+            } else if (SyncEngine.markReported(workInfo) && syncWorkObserved) {
+                showSyncResult(workInfo);
+            }
+        }
+        // Work that finished before this screen started observing is not reported again.
+        syncWorkObserved = true;
+
+        if (running != null) {
+            setSyncing(syncStatusMessage(running));
+        } else if (isSyncing) {
+            setSyncingFinished();
+        }
+    }
+
+    private String syncStatusMessage(WorkInfo workInfo) {
+        Set<String> tags = workInfo.getTags();
+        if (tags.contains(SyncJob.UPLOAD.getTag())) {
+            return getString(R.string.uploading_data);
+        } else if (tags.contains(SyncJob.EXPORT.getTag())) {
+            return getString(R.string.exporting_package);
+        } else if (tags.contains(SyncJob.IMPORT.getTag())) {
+            int records = workInfo.getProgress().getInt(ImportWorker.KEY_RECORDS, 0);
+            if (records > 0) {
+                return getString(R.string.importing_package_progress, records,
+                        workInfo.getProgress().getInt(ImportWorker.KEY_PERCENTAGE, 0));
+            }
+            return getString(R.string.importing_package);
+        } else if (tags.contains(SyncJob.WIPE.getTag())) {
+            int totalRows = workInfo.getProgress().getInt(WipeWorker.KEY_TOTAL_ROWS, 0);
+            if (totalRows > 0) {
+                return getString(R.string.wiping_data_progress,
+                        workInfo.getProgress().getInt(WipeWorker.KEY_DELETED_ROWS, 0), totalRows);
+            }
+            return getString(R.string.wiping_data);
+        } else if (tags.contains(RuleEvaluationWorker.class.getName())) {
+            return getString(R.string.evaluating_program_rules);
+        } else if (tags.contains(SyncJob.DATA.getTag())
+                && tags.contains(DataSyncWorker.class.getName())) {
+            int totalPages = workInfo.getProgress().getInt(DataSyncWorker.KEY_TOTAL_PAGES, 0);
+            if (totalPages > 0) {
+                return getString(R.string.syncing_data_pages,
+                        workInfo.getProgress().getInt(DataSyncWorker.KEY_COMPLETED_PAGES, 0), totalPages);
+            }
+            return getString(R.string.syncing_data);
+        } else {
+            return getString(R.string.syncing_metadata);
+        }
+    }
+
+    private void showSyncResult(WorkInfo workInfo) {
+        if (workInfo.getState() != WorkInfo.State.SUCCEEDED) {
+            Snackbar.make(syncMetadataButton, R.string.sync_failed, Snackbar.LENGTH_LONG).show();
+        } else if (workInfo.getTags().contains(SyncJob.METADATA.getTag())) {
+            showMetadataSyncReport(workInfo.getOutputData());
+        } else if (workInfo.getTags().contains(SyncJob.UPLOAD.getTag())) {
+            showUploadReports(workInfo.getOutputData());
+        } else if (workInfo.getTags().contains(RuleEvaluationWorker.class.getName())) {
+            showRuleEvaluationReport(workInfo.getOutputData());
+        } else if (workInfo.getTags().contains(SyncJob.IMPORT.getTag())) {
+            showImportReport(workInfo.getOutputData());
+        } else if (workInfo.getTags().contains(SyncJob.EXPORT.getTag())) {
+            showExportReport(workInfo.getOutputData());
+        }
+    }
+
+    private void showExportReport(Data report) {
+        String message = getString(R.string.export_report,
+                report.getInt(ExportWorker.KEY_RECORDS, 0),
+                report.getLong(ExportWorker.KEY_DURATION_MILLIS, 0) / 1000.0);
+        Snackbar.make(syncMetadataButton, message, Snackbar.LENGTH_LONG).show();
+    }
+
+    private void showImportReport(Data report) {
+        String message = getString(R.string.import_report,
+                report.getInt(ImportWorker.KEY_RECORDS, 0),
+                report.getDouble(ImportWorker.KEY_RECORDS_PER_SECOND, 0),
+                report.getInt(ImportWorker.KEY_SKIPPED, 0));
+        Snackbar.make(syncMetadataButton, message, Snackbar.LENGTH_LONG).show();
+    }
+
+    private void showRuleEvaluationReport(Data report) {
+        String message = getString(R.string.rule_evaluation_report,
+                report.getLong(RuleEvaluationWorker.KEY_EVALUATIONS, 0),
+                report.getLong(RuleEvaluationWorker.KEY_WARNINGS, 0),
+                report.getLong(RuleEvaluationWorker.KEY_ERRORS, 0),
+                report.getDouble(RuleEvaluationWorker.KEY_EVALUATIONS_PER_SECOND, 0));
+        Snackbar.make(syncMetadataButton, message, Snackbar.LENGTH_LONG).show();
+    }
+
+    private void showMetadataSyncReport(Data report) {
+        String message;
+        if (report.getBoolean(MetadataSyncWorker.KEY_SKIPPED, false)) {
+            message = getString(R.string.metadata_unchanged,
+                    report.getLong(MetadataSyncWorker.KEY_TIME_SAVED_MILLIS, 0) / 1000.0,
+                    Formatter.formatShortFileSize(this,
+                            report.getLong(MetadataSyncWorker.KEY_BYTES_SAVED, 0)));
+        } else {
+            message = getString(R.string.metadata_downloaded,
+                    report.getInt(MetadataSyncWorker.KEY_CHANGED_MODULES, 0),
+                    report.getLong(MetadataSyncWorker.KEY_DURATION_MILLIS, 0) / 1000.0,
+                    Formatter.formatShortFileSize(this,
+                            report.getLong(MetadataSyncWorker.KEY_BYTES_TRANSFERRED, 0)));
+        }
+        Snackbar.make(syncMetadataButton, message, Snackbar.LENGTH_LONG).show();
+    }
+
+    private void showUploadReports(Data report) {
+        String[] streams = report.getStringArray(UploadWorker.KEY_STREAMS);
+        int[] records = report.getIntArray(UploadWorker.KEY_RECORDS);
+        double[] recordsPerSecond = report.getDoubleArray(UploadWorker.KEY_RECORDS_PER_SECOND);
+        int[] failedBatches = report.getIntArray(UploadWorker.KEY_FAILED_BATCHES);
+        if (streams == null || records == null || recordsPerSecond == null || failedBatches == null) {
+            return;
+        }
+
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < streams.length; i++) {
+            if (message.length() > 0) {
+                message.append('\n');
+            }
+            message.append(getString(R.string.upload_stream_report,
+                    getString(uploadStreamName(UploadStream.valueOf(streams[i]))),
+                    records[i],
+                    recordsPerSecond[i],
+                    failedBatches[i]));
+        }
+        Snackbar.make(syncDataButton, message, Snackbar.LENGTH_LONG).show();
+    }
+
+    @StringRes
+    private static int uploadStreamName(UploadStream stream) {
+        switch (stream) {
+            case TRACKED_ENTITY_INSTANCES:
+                return R.string.tracked_entity_instances;
+            case EVENTS:
+                return R.string.events;
+            default:
+                return R.string.data_values;
+        }
+    }
+
+    private void exportSyncMetrics() {
+        compositeDisposable.add(Single.fromCallable(() -> {
+            List<StageMetric> metrics = SyncTelemetry.store().snapshot();
+            MetricsExporter.exportJson(this, metrics);
+            MetricsExporter.exportPools(this, AppSchedulers.metrics());
+            return MetricsExporter.exportCsv(this, metrics);
+        })
+                .subscribeOn(AppSchedulers.sync())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(file -> Snackbar.make(syncMetadataButton,
+                        getString(R.string.metrics_exported, file.getParent()), Snackbar.LENGTH_LONG).show(),
+                        Throwable::printStackTrace));
+    }
+
+    private void exportTraces() {
+        compositeDisposable.add(Single.fromCallable(() -> Tracing.dump(this))
+                .subscribeOn(AppSchedulers.sync())
                 .observeOn(AndroidSchedulers.mainThread())
-                .doOnError(Throwable::printStackTrace)
-                .doOnComplete(this::setSyncingFinished)
-                .subscribe());
+                .subscribe(file -> Snackbar.make(syncMetadataButton,
+                        getString(R.string.traces_exported, file.getPath()), Snackbar.LENGTH_LONG).show(),
+                        Throwable::printStackTrace));
     }
 
-    private Observable<D2Progress> downloadMetadata() {
-        return Sdk.d2().metadataModule().download();
+    private void pickImportPackage() {
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT)
+                .addCategory(Intent.CATEGORY_OPENABLE)
+                .setType("*/*");
+        startActivityForResult(intent, REQUEST_IMPORT_PACKAGE);
     }
 
-    private void downloadData() {
-        compositeDisposable.add(
-                Observable.merge(
-                        downloadTrackedEntityInstances(),
-                        downloadAggregatedData()
-                )
-                        .subscribeOn(Schedulers.io())
-                        .observeOn(AndroidSchedulers.mainThread())
-                        .doOnComplete(this::setSyncingFinished)
-                        .doOnError(Throwable::printStackTrace)
-                        .subscribe());
+    private void pickExportPackage() {
+        String name = new SimpleDateFormat("'dhis2-pending-'yyyyMMdd-HHmmss'.json.gz'", Locale.US).format(new Date());
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT)
+                .addCategory(Intent.CATEGORY_OPENABLE)
+                .setType("application/gzip")
+                .putExtra(Intent.EXTRA_TITLE, name);
+        startActivityForResult(intent, REQUEST_EXPORT_PACKAGE);
     }
 
-    private Observable<D2Progress> downloadTrackedEntityInstances() {
-        return Sdk.d2().trackedEntityModule().trackedEntityInstanceDownloader()
-                .limit(10).limitByOrgunit(false).limitByProgram(false).download();
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (resultCode != RESULT_OK || data == null || data.getData() == null) {
+            return;
+        }
+        // The import and export run in workers that may outlive this activity's grant.
+        if (requestCode == REQUEST_IMPORT_PACKAGE) {
+            getContentResolver().takePersistableUriPermission(data.getData(), Intent.FLAG_GRANT_READ_URI_PERMISSION);
+            SyncEngine.importPackage(this, data.getData());
+        } else if (requestCode == REQUEST_EXPORT_PACKAGE) {
+            getContentResolver().takePersistableUriPermission(data.getData(), Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
+            SyncEngine.exportPackage(this, data.getData());
+        }
     }
 
-    private Observable<D2Progress> downloadAggregatedData() {
-        return Sdk.d2().aggregatedModule().data().download();
+    private void showDataValueTotals() {
+        compositeDisposable.add(AggregateEngine.query(AggregateQuery.builder()
+                .groupBy(AggregateDimension.DATA_ELEMENT)
+                .build())
+                .observeOn(AppSchedulers.interactive())
+                .map(this::formatTotals)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(lines -> new AlertDialog.Builder(this)
+                        .setTitle(AggregateEngine.isComplete()
+                                ? R.string.data_value_totals : R.string.data_value_totals_partial)
+                        .setItems(lines, null)
+                        .setPositiveButton(android.R.string.ok, null)
+                        .show(), Throwable::printStackTrace));
     }
 
-    private void uploadData() {
-        compositeDisposable.add(
-                Sdk.d2().trackedEntityModule().trackedEntityInstances().upload()
-                        .concatWith(Sdk.d2().dataValueModule().dataValues().upload())
-                        .concatWith(Sdk.d2().eventModule().events().upload())
-                        .subscribeOn(Schedulers.io())
-                        .observeOn(AndroidSchedulers.mainThread())
-                        .doOnComplete(this::setSyncingFinished)
-                        .doOnError(Throwable::printStackTrace)
-                        .subscribe());
+    private String[] formatTotals(List<AggregateRow> rows) {
+        Map<String, String> names = new HashMap<>();
+        List<String> uids = new ArrayList<>();
+        for (AggregateRow row : rows) {
+            uids.add(row.get(AggregateDimension.DATA_ELEMENT));
+        }
+        for (DataElement dataElement : Sdk.d2().dataElementModule().dataElements()
+                .byUid().in(uids).blockingGet()) {
+            names.put(dataElement.uid(), dataElement.displayName());
+        }
+        List<String> lines = new ArrayList<>();
+        for (AggregateRow row : rows) {
+            String uid = row.get(AggregateDimension.DATA_ELEMENT);
+            String name = names.get(uid);
+            lines.add(getString(R.string.data_value_total, name == null ? uid : name,
+                    NumberFormat.getInstance().format(row.getSum()), row.getCount()));
+        }
+        Collections.sort(lines);
+        return lines.toArray(new String[0]);
     }
 
-    private void wipeData() {
-        compositeDisposable.add(
-                Observable.fromCallable(() -> Sdk.d2().wipeModule().wipeData())
-                        .subscribeOn(Schedulers.io())
-                        .observeOn(AndroidSchedulers.mainThread())
-                        .doOnError(Throwable::printStackTrace)
-                        .doOnComplete(this::setSyncingFinished)
-                        .subscribe());
+    private void showWipeDialog() {
+        View view = getLayoutInflater().inflate(R.layout.dialog_wipe, null);
+        RadioGroup scopeGroup = view.findViewById(R.id.wipeScope);
+        CheckBox metadataCheckBox = view.findViewById(R.id.wipeMetadata);
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.wipe_data)
+                .setView(view)
+                .setPositiveButton(R.string.wipe, (dialog, which) -> {
+                    WipeScope scope;
+                    int checked = scopeGroup.getCheckedRadioButtonId();
+                    if (checked == R.id.wipeAggregateData) {
+                        scope = WipeScope.AGGREGATE_DATA;
+                    } else if (checked == R.id.wipeEverything) {
+                        scope = WipeScope.EVERYTHING;
+                    } else {
+                        scope = WipeScope.TRACKER_DATA;
+                    }
+                    SyncEngine.wipe(this, scope, metadataCheckBox.isChecked());
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
     }
 
     @Override
     public boolean onNavigationItemSelected(MenuItem item) {
         int id = item.getItemId();
 
-        if (id == R.id.navWipeData) {
-            syncStatusText.setText(R.string.wiping_data);
-            wipeData();
+        if (id == R.id.navUploadData) {
+            SyncEngine.upload(this);
+        } else if (id == R.id.navExportMetrics) {
+            exportSyncMetrics();
+        } else if (id == R.id.navExportTraces) {
+            exportTraces();
+        } else if (id == R.id.navExportPackage) {
+            pickExportPackage();
+        } else if (id == R.id.navImportPackage) {
+            pickImportPackage();
+        } else if (id == R.id.navWipeData) {
+            showWipeDialog();
         } else if (id == R.id.navExit) {
             compositeDisposable.add(logOut(this));
         }
@@ -5,21 +5,18 @@ import android.os.Bundle;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.android.androidskeletonapp.R;
-import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.SkeletonApplication;
+import com.example.android.androidskeletonapp.StartupTrace;
 import com.example.android.androidskeletonapp.data.service.ActivityStarter;
+import com.example.android.androidskeletonapp.data.service.scheduling.AppSchedulers;
 import com.example.android.androidskeletonapp.ui.login.LoginActivity;
 import com.example.android.androidskeletonapp.ui.main.MainActivity;
-import com.facebook.stetho.Stetho;
-
-import org.hisp.dhis.android.core.D2Manager;
 
 import io.reactivex.android.schedulers.AndroidSchedulers;
 import io.reactivex.disposables.Disposable;
-import io.reactivex.schedulers.Schedulers;
 
 public class SplashActivity extends AppCompatActivity {
 
-    private final static boolean DEBUG = true;
     private Disposable disposable;
 
     @Override
@@ -27,25 +24,22 @@ public class SplashActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_splash);
 
-        if (DEBUG) {
-            Stetho.initializeWithDefaults(this);
-        }
+        StartupTrace.shared().mark(StartupTrace.SPLASH_CREATED);
 
-        disposable = D2Manager.instantiateD2(Sdk.getD2Configuration(this))
+        disposable = SkeletonApplication.from(this).d2()
                 .flatMap(d2 -> d2.userModule().isLogged())
-                .doOnSuccess(isLogged -> {
+                .subscribeOn(AppSchedulers.interactive())
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(isLogged -> {
                     if (isLogged) {
                         ActivityStarter.startActivity(this, MainActivity.getMainActivityIntent(this),true);
                     } else {
                         ActivityStarter.startActivity(this, LoginActivity.getLoginActivityIntent(this),true);
                     }
-                }).doOnError(throwable -> {
+                }, throwable -> {
                     throwable.printStackTrace();
                     ActivityStarter.startActivity(this, LoginActivity.getLoginActivityIntent(this),true);
-                })
-                .subscribeOn(Schedulers.io())
-                .observeOn(AndroidSchedulers.mainThread())
-                .subscribe();
+                });
     }
 
     @Override
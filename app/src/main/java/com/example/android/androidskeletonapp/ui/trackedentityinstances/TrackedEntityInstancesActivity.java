@@ -0,0 +1,141 @@
+package com.example.android.androidskeletonapp.ui.trackedentityinstances;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.view.Menu;
+
+import androidx.annotation.NonNull;
+import androidx.appcompat.widget.SearchView;
+import androidx.lifecycle.LiveData;
+import androidx.paging.DataSource;
+import androidx.paging.PagedList;
+
+import com.example.android.androidskeletonapp.R;
+import com.example.android.androidskeletonapp.data.Sdk;
+import com.example.android.androidskeletonapp.data.service.search.SearchIndexEngine;
+import com.example.android.androidskeletonapp.ui.list.ListActivity;
+import com.example.android.androidskeletonapp.ui.list.ListItem;
+import com.example.android.androidskeletonapp.ui.list.ListPaging;
+
+import org.hisp.dhis.android.core.common.State;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityAttributeValue;
+import org.hisp.dhis.android.core.trackedentity.TrackedEntityInstance;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Single;
+import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.subjects.PublishSubject;
+
+public class TrackedEntityInstancesActivity extends ListActivity {
+
+    private static final int TITLE_ATTRIBUTES = 2;
+    private static final long SEARCH_DEBOUNCE_MILLIS = 300;
+
+    private final PublishSubject<String> queries = PublishSubject.create();
+    private final CompositeDisposable disposables = new CompositeDisposable();
+
+    public static Intent getTrackedEntityInstancesActivityIntent(Context context) {
+        return new Intent(context, TrackedEntityInstancesActivity.class);
+    }
+
+    @Override
+    protected int titleRes() {
+        return R.string.tracked_entity_instances;
+    }
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        disposables.add(queries
+                .debounce(SEARCH_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)
+                .map(String::trim)
+                // The unfiltered list is already showing.
+                .startWith("")
+                .distinctUntilChanged()
+                .skip(1)
+                .switchMapSingle(query -> query.isEmpty()
+                        ? Single.fromCallable(this::pagedItems)
+                        : SearchIndexEngine.search(query, SearchIndexEngine.DEFAULT_LIMIT).map(this::matchingItems))
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(this::showItems, Throwable::printStackTrace));
+    }
+
+    @Override
+    protected void onDestroy() {
+        disposables.clear();
+        super.onDestroy();
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_search, menu);
+        SearchView searchView = (SearchView) menu.findItem(R.id.actionSearch).getActionView();
+        searchView.setQueryHint(getString(R.string.search_tracked_entity_instances_hint));
+        searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                queries.onNext(query);
+                return true;
+            }
+
+            @Override
+            public boolean onQueryTextChange(String query) {
+                queries.onNext(query);
+                return true;
+            }
+        });
+        return true;
+    }
+
+    @Override
+    protected LiveData<PagedList<ListItem>> pagedItems() {
+        return ListPaging.build(new DataSource.Factory<TrackedEntityInstance, ListItem>() {
+            @NonNull
+            @Override
+            public DataSource<TrackedEntityInstance, ListItem> create() {
+                return Sdk.d2().trackedEntityModule().trackedEntityInstances()
+                        .byState().neq(State.RELATIONSHIP)
+                        .withTrackedEntityAttributeValues()
+                        .getDataSource()
+                        .map(TrackedEntityInstancesActivity::toListItem);
+            }
+        });
+    }
+
+    // The index already excludes relationship-only instances, so only the uids need filtering.
+    private LiveData<PagedList<ListItem>> matchingItems(List<String> uids) {
+        return ListPaging.build(new DataSource.Factory<TrackedEntityInstance, ListItem>() {
+            @NonNull
+            @Override
+            public DataSource<TrackedEntityInstance, ListItem> create() {
+                return Sdk.d2().trackedEntityModule().trackedEntityInstances()
+                        .byUid().in(uids)
+                        .withTrackedEntityAttributeValues()
+                        .getDataSource()
+                        .map(TrackedEntityInstancesActivity::toListItem);
+            }
+        });
+    }
+
+    private static ListItem toListItem(TrackedEntityInstance trackedEntityInstance) {
+        StringBuilder title = new StringBuilder();
+        List<TrackedEntityAttributeValue> values = trackedEntityInstance.trackedEntityAttributeValues();
+        if (values != null) {
+            for (int i = 0; i < values.size() && i < TITLE_ATTRIBUTES; i++) {
+                if (title.length() > 0) {
+                    title.append(' ');
+                }
+                title.append(values.get(i).value());
+            }
+        }
+        if (title.length() == 0) {
+            title.append(trackedEntityInstance.uid());
+        }
+        String subtitle = trackedEntityInstance.organisationUnit() + " · " + trackedEntityInstance.state();
+        return new ListItem(trackedEntityInstance.uid(), title.toString(), subtitle);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.android.androidskeletonapp.data;
+
+import android.content.Context;
+
+import com.example.android.androidskeletonapp.data.network.NetworkSettings;
+import com.example.android.androidskeletonapp.data.network.TimingInterceptor;
+
+import java.util.Collections;
+import java.util.List;
+
+import okhttp3.Interceptor;
+
+public class NetworkProfile {
+
+    public static void initialize(Context context) {
+        // Release builds have no debugging tools to set up.
+    }
+
+    static List<Interceptor> networkInterceptors() {
+        return Collections.singletonList(new TimingInterceptor(NetworkSettings.SLOW_REQUEST_MILLIS));
+    }
+}
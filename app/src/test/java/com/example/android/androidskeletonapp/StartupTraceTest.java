@@ -0,0 +1,82 @@
+package com.example.android.androidskeletonapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Tests the trace harness with a fake clock; StartupInstrumentedTest measures real startup on a device.
+public class StartupTraceTest {
+
+    private FakeClock clock;
+    private StartupTrace trace;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        trace = new StartupTrace(clock);
+    }
+
+    @Test
+    public void measures_each_phase_from_the_previous_mark() {
+        clock.advanceMillis(40);
+        trace.mark(StartupTrace.APPLICATION_CREATED);
+        clock.advanceMillis(25);
+        trace.mark(StartupTrace.SPLASH_CREATED);
+        clock.advanceMillis(90);
+        trace.mark(StartupTrace.MAIN_CREATED);
+
+        Map<String, Long> phases = trace.phaseMillis();
+        assertEquals(Arrays.asList(StartupTrace.APPLICATION_CREATED, StartupTrace.SPLASH_CREATED,
+                StartupTrace.MAIN_CREATED), Arrays.asList(phases.keySet().toArray()));
+        assertEquals(40L, (long) phases.get(StartupTrace.APPLICATION_CREATED));
+        assertEquals(25L, (long) phases.get(StartupTrace.SPLASH_CREATED));
+        assertEquals(90L, (long) phases.get(StartupTrace.MAIN_CREATED));
+        assertEquals(155L, trace.totalMillis());
+    }
+
+    @Test
+    public void ignores_repeated_marks() {
+        clock.advanceMillis(10);
+        trace.mark(StartupTrace.FIRST_FRAME);
+        clock.advanceMillis(500);
+        trace.mark(StartupTrace.FIRST_FRAME);
+
+        assertEquals(10L, (long) trace.phaseMillis().get(StartupTrace.FIRST_FRAME));
+    }
+
+    @Test
+    public void reports_main_thread_phases_over_budget() {
+        clock.advanceMillis(50);
+        trace.mark(StartupTrace.APPLICATION_CREATED);
+        clock.advanceMillis(400);
+        trace.mark(StartupTrace.MAIN_CREATED);
+        // Work behind a placeholder is not part of the main-thread budget.
+        clock.advanceMillis(2000);
+        trace.mark(StartupTrace.USER_LOADED);
+
+        List<String> violations = trace.overBudget(StartupTrace.MAIN_THREAD_BUDGETS);
+
+        assertEquals(1, violations.size());
+        assertTrue(violations.get(0).startsWith(StartupTrace.MAIN_CREATED));
+    }
+
+    private static class FakeClock implements StartupTrace.Clock {
+
+        private long nanos = 1_000_000_000L;
+
+        @Override
+        public long nanoTime() {
+            return nanos;
+        }
+
+        void advanceMillis(long millis) {
+            nanos += millis * 1_000_000;
+        }
+    }
+}
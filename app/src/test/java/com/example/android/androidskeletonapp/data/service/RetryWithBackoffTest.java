@@ -0,0 +1,51 @@
+package com.example.android.androidskeletonapp.data.service;
+
+import com.example.android.androidskeletonapp.data.service.resilience.HttpStatusException;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RetryWithBackoffTest {
+
+    @Test
+    public void jitters_delays_between_half_and_full_step_up_to_the_cap() {
+        RetryWithBackoff retry = new RetryWithBackoff(10, 100, 1000, new Random(7));
+        for (int i = 0; i < 100; i++) {
+            long first = retry.delayMillis(0);
+            long third = retry.delayMillis(2);
+            long capped = retry.delayMillis(40);
+            assertTrue(first >= 50 && first <= 100);
+            assertTrue(third >= 200 && third <= 400);
+            assertTrue(capped >= 500 && capped <= 1000);
+        }
+    }
+
+    @Test
+    public void retries_transient_failures_only() {
+        AtomicInteger transientCalls = new AtomicInteger();
+        Completable.fromAction(() -> {
+            if (transientCalls.incrementAndGet() < 3) {
+                throw new IOException("timeout");
+            }
+        }).retryWhen(new RetryWithBackoff(3, 1, 4, new Random(1)))
+                .test().awaitDone(5, TimeUnit.SECONDS).assertComplete();
+        assertEquals(3, transientCalls.get());
+
+        AtomicInteger permanentCalls = new AtomicInteger();
+        Completable.fromAction(() -> {
+            permanentCalls.incrementAndGet();
+            throw new HttpStatusException(401);
+        }).retryWhen(new RetryWithBackoff(3, 1, 4, new Random(1)))
+                .test().awaitDone(5, TimeUnit.SECONDS).assertError(HttpStatusException.class);
+        assertEquals(1, permanentCalls.get());
+    }
+}
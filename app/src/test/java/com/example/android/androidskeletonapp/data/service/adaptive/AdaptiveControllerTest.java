@@ -0,0 +1,312 @@
+package com.example.android.androidskeletonapp.data.service.adaptive;
+
+import androidx.annotation.Nullable;
+
+import com.example.android.androidskeletonapp.data.service.download.CheckpointStore;
+import com.example.android.androidskeletonapp.data.service.download.DownloadPage;
+import com.example.android.androidskeletonapp.data.service.download.PageDownloader;
+import com.example.android.androidskeletonapp.data.service.download.TrackedEntityInstanceDownloadEngine;
+import com.example.android.androidskeletonapp.data.service.resilience.HttpStatusException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.CompletableSubject;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveControllerTest {
+
+    private static final long READ_TIMEOUT_MILLIS = 1000;
+    private static final long TARGET_LATENCY_MILLIS = READ_TIMEOUT_MILLIS / 3;
+    private static final long BASE_LATENCY_MILLIS = 10;
+    private static final int RECORD_BYTES = 100;
+    private static final int RECORDS_PER_PAIR = 200;
+    private static final String MODELLED_LATENCY = "X-Modelled-Latency";
+
+    private MockWebServer server;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong records = new AtomicLong();
+    // Server time per record, multiplied by the requests sharing the link.
+    private volatile long millisPerRecord;
+    // Off, the server answers at once and the modelled latency is only seen through a fake clock.
+    private volatile boolean realTime = true;
+    // Time the modelled link was busy, each response taking its share of the requests in flight.
+    private final AtomicLong linkMicros = new AtomicLong();
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                int sharing = inFlight.incrementAndGet();
+                try {
+                    int pageNumber = Integer.parseInt(request.getRequestUrl().queryParameter("page"));
+                    int pageSize = Integer.parseInt(request.getRequestUrl().queryParameter("pageSize"));
+                    int pageRecords = Math.max(0, Math.min(pageSize, RECORDS_PER_PAIR - (pageNumber - 1) * pageSize));
+                    long latency = BASE_LATENCY_MILLIS + pageRecords * millisPerRecord * sharing;
+                    if (realTime) {
+                        Thread.sleep(latency);
+                    }
+                    StringBuilder body = new StringBuilder();
+                    for (int i = 0; i < pageRecords * RECORD_BYTES; i++) {
+                        body.append('x');
+                    }
+                    return new MockResponse()
+                            .setHeader(MODELLED_LATENCY, latency)
+                            .setBody(body.toString());
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void grows_page_size_on_every_fast_response_and_concurrency_once_per_round() {
+        AdaptiveController controller = new AdaptiveController(10, 50, 100, 1, 2, 4, 1000);
+
+        controller.onResponse(100, 1000);
+        assertEquals(60, controller.getPageSize());
+        assertEquals(2, controller.getConcurrency());
+
+        controller.onResponse(100, 1000);
+        assertEquals(70, controller.getPageSize());
+        assertEquals(3, controller.getConcurrency());
+        assertEquals(10_000, controller.getBytesPerSecond());
+    }
+
+    @Test
+    public void halves_once_per_round_on_slow_or_failed_requests() {
+        AdaptiveController controller = new AdaptiveController(10, 80, 100, 1, 4, 8, 1000);
+
+        controller.onResponse(2000, 1000);
+        assertEquals(40, controller.getPageSize());
+        assertEquals(2, controller.getConcurrency());
+
+        // The four requests in flight at the cut do not cut again.
+        for (int i = 0; i < 4; i++) {
+            controller.onFailure();
+        }
+        assertEquals(40, controller.getPageSize());
+
+        controller.onFailure();
+        assertEquals(20, controller.getPageSize());
+        assertEquals(1, controller.getConcurrency());
+
+        for (int i = 0; i < 10; i++) {
+            controller.onFailure();
+        }
+        assertEquals(10, controller.getPageSize());
+        assertEquals(1, controller.getConcurrency());
+    }
+
+    @Test
+    public void limit_holds_calls_back_until_a_slot_is_free() {
+        AdaptiveController controller = new AdaptiveController(10, 10, 100, 1, 1, 2, 1000);
+        CompletableSubject first = CompletableSubject.create();
+        CompletableSubject second = CompletableSubject.create();
+        CompletableSubject third = CompletableSubject.create();
+
+        TestObserver<Void> firstObserver = first.compose(controller.limit()).test();
+        second.compose(controller.limit()).test();
+        TestObserver<Void> thirdObserver = third.compose(controller.limit()).test();
+        assertTrue(first.hasObservers());
+        assertFalse(second.hasObservers());
+
+        // A fast response raises the concurrency to two.
+        controller.onResponse(10, 100);
+        assertTrue(second.hasObservers());
+        assertFalse(third.hasObservers());
+
+        thirdObserver.dispose();
+        first.onComplete();
+        firstObserver.assertComplete();
+        assertFalse(third.hasObservers());
+    }
+
+    @Test
+    public void slow_link_shrinks_requests_instead_of_timing_out() {
+        millisPerRecord = 2;
+        List<DownloadPage> pages = pages(24);
+
+        // Without retries, a single timed out page fails the download.
+        AdaptiveController adaptive = controller();
+        engine(adaptive).download(pages).test().awaitDone(30, TimeUnit.SECONDS).assertComplete();
+
+        engine(AdaptiveController.fixed(200, 6)).download(pages).test()
+                .awaitDone(30, TimeUnit.SECONDS).assertError(Throwable.class);
+
+        assertTrue(adaptive.getBytesPerSecond() > 0);
+    }
+
+    @Test
+    public void fast_link_grows_requests_beyond_the_defaults() {
+        millisPerRecord = 0;
+        realTime = false;
+        List<DownloadPage> pages = pages(40);
+        FakeClock clock = new FakeClock();
+
+        engine(AdaptiveController.fixed(10, 1), clock).download(pages).test()
+                .awaitDone(30, TimeUnit.SECONDS).assertComplete();
+        assertEquals(pages.size() * RECORDS_PER_PAIR, records.getAndSet(0));
+        double timidRecordsPerMilli = pages.size() * RECORDS_PER_PAIR * 1000.0 / linkMicros.getAndSet(0);
+
+        AdaptiveController adaptive = controller();
+        engine(adaptive, clock).download(pages).test().awaitDone(30, TimeUnit.SECONDS).assertComplete();
+        // The page size changes within pairs without skipping or repeating instances.
+        assertEquals(pages.size() * RECORDS_PER_PAIR, records.get());
+        double adaptiveRecordsPerMilli = pages.size() * RECORDS_PER_PAIR * 1000.0 / linkMicros.get();
+
+        assertTrue(adaptive.getPageSize() > AdaptiveDownload.INITIAL_PAGE_SIZE);
+        assertTrue(adaptive.getConcurrency() > AdaptiveDownload.INITIAL_CONCURRENT_REQUESTS);
+        assertTrue(adaptiveRecordsPerMilli > timidRecordsPerMilli * 2);
+    }
+
+    private static AdaptiveController controller() {
+        return new AdaptiveController(
+                AdaptiveDownload.MIN_PAGE_SIZE, AdaptiveDownload.INITIAL_PAGE_SIZE, AdaptiveDownload.MAX_PAGE_SIZE,
+                AdaptiveDownload.MIN_CONCURRENT_REQUESTS, AdaptiveDownload.INITIAL_CONCURRENT_REQUESTS,
+                AdaptiveDownload.MAX_CONCURRENT_REQUESTS, TARGET_LATENCY_MILLIS);
+    }
+
+    private TrackedEntityInstanceDownloadEngine engine(AdaptiveController controller) {
+        return engine(controller, null);
+    }
+
+    /**
+     * With a {@code clock}, the latency the controller sees is the one the server modelled.
+     */
+    private TrackedEntityInstanceDownloadEngine engine(AdaptiveController controller, @Nullable FakeClock clock) {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .readTimeout(READ_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+                .retryOnConnectionFailure(false)
+                .addNetworkInterceptor(new AdaptiveInterceptor(controller,
+                        Collections.singleton("trackedEntityInstances"),
+                        clock == null ? System::nanoTime : clock))
+                .build();
+        return new TrackedEntityInstanceDownloadEngine(new MockServerPageDownloader(client, controller, clock),
+                new InMemoryCheckpointStore(), Schedulers.io(), controller, null, null);
+    }
+
+    private static List<DownloadPage> pages(int count) {
+        List<DownloadPage> pages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            pages.add(new DownloadPage("program", "orgUnit" + i));
+        }
+        return pages;
+    }
+
+    private class MockServerPageDownloader implements PageDownloader {
+
+        private final OkHttpClient client;
+        private final AdaptiveController controller;
+        @Nullable
+        private final FakeClock clock;
+
+        MockServerPageDownloader(OkHttpClient client, AdaptiveController controller, @Nullable FakeClock clock) {
+            this.client = client;
+            this.controller = controller;
+            this.clock = clock;
+        }
+
+        @Override
+        public Single<Integer> download(DownloadPage page, int pageNumber, int pageSize) {
+            return Single.fromCallable(() -> {
+                Request request = new Request.Builder()
+                        .url(server.url("/api/trackedEntityInstances").newBuilder()
+                                .addQueryParameter("ou", page.getOrgUnitUid())
+                                .addQueryParameter("page", String.valueOf(pageNumber))
+                                .addQueryParameter("pageSize", String.valueOf(pageSize))
+                                .build())
+                        .build();
+                try (Response response = client.newCall(request).execute()) {
+                    if (!response.isSuccessful()) {
+                        throw new HttpStatusException(response.code());
+                    }
+                    long latency = Long.parseLong(response.header(MODELLED_LATENCY));
+                    linkMicros.addAndGet(latency * 1000 / controller.getConcurrency());
+                    if (clock != null) {
+                        // Passes before the body is read, where the interceptor stops measuring.
+                        clock.advanceMillis(latency);
+                    }
+                    int pageRecords = response.body().string().length() / RECORD_BYTES;
+                    records.addAndGet(pageRecords);
+                    return pageRecords;
+                }
+            });
+        }
+    }
+
+    /**
+     * Time per thread, since each request is measured on the thread that runs it.
+     */
+    private static class FakeClock implements AdaptiveInterceptor.Clock {
+
+        private final ThreadLocal<long[]> nanos = new ThreadLocal<long[]>() {
+            @Override
+            protected long[] initialValue() {
+                return new long[1];
+            }
+        };
+
+        @Override
+        public long nanoTime() {
+            return nanos.get()[0];
+        }
+
+        void advanceMillis(long millis) {
+            nanos.get()[0] += millis * 1_000_000;
+        }
+    }
+
+    private static class InMemoryCheckpointStore implements CheckpointStore {
+
+        private final Set<String> completed = Collections.synchronizedSet(new HashSet<>());
+
+        @Override
+        public Set<String> completedPages() {
+            return new HashSet<>(completed);
+        }
+
+        @Override
+        public void markCompleted(String pageKey) {
+            completed.add(pageKey);
+        }
+
+        @Override
+        public void clear() {
+            completed.clear();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.android.androidskeletonapp.data.service.aggregate;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DataValueColumnStoreTest {
+
+    private static final int DATA_ELEMENTS = 50;
+    private static final int PERIODS = 12;
+    private static final int ORGANISATION_UNITS = 500;
+
+    @Test
+    public void sums_values_by_data_element() {
+        DataValueColumnStore store = new DataValueColumnStore(AggregateEngine.MEMORY_BUDGET_BYTES);
+        store.upsert("de1", "201901", "ou1", "coc", "aoc", "10");
+        store.upsert("de1", "201902", "ou1", "coc", "aoc", "5");
+        store.upsert("de2", "201901", "ou1", "coc", "aoc", "7");
+        store.upsert("de2", "201901", "ou2", "coc", "aoc", "not a number");
+
+        List<AggregateRow> rows = store.query(AggregateQuery.builder()
+                .groupBy(AggregateDimension.DATA_ELEMENT)
+                .build());
+
+        assertEquals(2, rows.size());
+        for (AggregateRow row : rows) {
+            assertNull(row.get(AggregateDimension.PERIOD));
+            if ("de1".equals(row.get(AggregateDimension.DATA_ELEMENT))) {
+                assertEquals(15, row.getSum(), 0);
+                assertEquals(2, row.getCount());
+            } else {
+                assertEquals(7, row.getSum(), 0);
+                assertEquals(1, row.getCount());
+            }
+        }
+    }
+
+    @Test
+    public void updates_existing_values() {
+        DataValueColumnStore store = new DataValueColumnStore(AggregateEngine.MEMORY_BUDGET_BYTES);
+        store.upsert("de1", "201901", "ou1", "coc", "aoc", "10");
+        store.upsert("de1", "201901", "ou1", "coc", "aoc", "12");
+        store.upsert("de1", "201901", "ou1", "coc2", "aoc", "3");
+
+        assertEquals(2, store.size());
+        assertEquals(15, total(store, AggregateQuery.builder().build()), 0);
+    }
+
+    @Test
+    public void filters_on_dimensions() {
+        DataValueColumnStore store = syntheticStore(AggregateEngine.MEMORY_BUDGET_BYTES);
+
+        List<AggregateRow> rows = store.query(AggregateQuery.builder()
+                .groupBy(AggregateDimension.PERIOD)
+                .filter(AggregateDimension.ORGANISATION_UNIT, "ou7")
+                .filter(AggregateDimension.DATA_ELEMENT, "de3")
+                .build());
+
+        assertEquals(PERIODS, rows.size());
+        for (AggregateRow row : rows) {
+            assertEquals(1, row.getCount());
+        }
+        assertTrue(store.query(AggregateQuery.builder()
+                .filter(AggregateDimension.ORGANISATION_UNIT, "unknown")
+                .build()).isEmpty());
+    }
+
+    @Test
+    public void groups_every_value_by_two_dimensions() {
+        DataValueColumnStore store = syntheticStore(AggregateEngine.MEMORY_BUDGET_BYTES);
+
+        List<AggregateRow> rows = store.query(AggregateQuery.builder()
+                .groupBy(AggregateDimension.DATA_ELEMENT, AggregateDimension.PERIOD)
+                .build());
+
+        assertEquals(DATA_ELEMENTS * PERIODS * ORGANISATION_UNITS, store.size());
+        assertEquals(DATA_ELEMENTS * PERIODS, rows.size());
+        for (AggregateRow row : rows) {
+            int de = Integer.parseInt(row.get(AggregateDimension.DATA_ELEMENT).substring(2));
+            int pe = Integer.parseInt(row.get(AggregateDimension.PERIOD).substring(4)) - 1;
+            // The values are de + pe + ou for every org unit ou.
+            double expected = ORGANISATION_UNITS * (de + pe) + ORGANISATION_UNITS * (ORGANISATION_UNITS - 1) / 2.0;
+            assertEquals(ORGANISATION_UNITS, row.getCount());
+            assertEquals(expected, row.getSum(), 0);
+        }
+    }
+
+    @Test
+    public void stays_within_the_memory_budget() {
+        long budget = 1024 * 1024;
+        DataValueColumnStore store = syntheticStore(budget);
+
+        assertFalse(store.isComplete());
+        assertTrue(store.size() > 0);
+        assertTrue(store.estimatedBytes() <= budget);
+    }
+
+    private static DataValueColumnStore syntheticStore(long budget) {
+        DataValueColumnStore store = new DataValueColumnStore(budget);
+        for (int de = 0; de < DATA_ELEMENTS; de++) {
+            for (int pe = 0; pe < PERIODS; pe++) {
+                for (int ou = 0; ou < ORGANISATION_UNITS; ou++) {
+                    store.upsert("de" + de, String.format(Locale.US, "2019%02d", pe + 1), "ou" + ou,
+                            "coc", "aoc", String.valueOf(de + pe + ou));
+                }
+            }
+        }
+        return store;
+    }
+
+    private static double total(DataValueColumnStore store, AggregateQuery query) {
+        double total = 0;
+        for (AggregateRow row : store.query(query)) {
+            total += row.getSum();
+        }
+        return total;
+    }
+}
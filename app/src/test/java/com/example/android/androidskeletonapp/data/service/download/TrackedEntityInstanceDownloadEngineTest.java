@@ -0,0 +1,302 @@
+package com.example.android.androidskeletonapp.data.service.download;
+
+import com.example.android.androidskeletonapp.data.service.RetryWithBackoff;
+import com.example.android.androidskeletonapp.data.service.resilience.CircuitBreaker;
+import com.example.android.androidskeletonapp.data.service.resilience.HttpStatusException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.exceptions.CompositeException;
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TrackedEntityInstanceDownloadEngineTest {
+
+    private static final int PAGE_DELAY_MILLIS = 100;
+    private static final String FAILURE_STATUS = "status";
+    private static final String FAILURE_DISCONNECT = "disconnect";
+
+    private MockWebServer server;
+    private OkHttpClient client;
+    private InMemoryCheckpointStore checkpointStore;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final Set<String> failingPages = Collections.synchronizedSet(new HashSet<>());
+    private final Set<String> notFoundPages = Collections.synchronizedSet(new HashSet<>());
+    // Failures injected into the first requests of every page, in order.
+    private volatile List<String> injectedFailures = Collections.emptyList();
+    private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    // Instances held by a pair on the server; pairs not listed have none.
+    private final Map<String, Integer> instances = new ConcurrentHashMap<>();
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(PAGE_DELAY_MILLIS);
+                    String page = request.getRequestUrl().queryParameter("program") + "/"
+                            + request.getRequestUrl().queryParameter("ou");
+                    if (failingPages.contains(page)) {
+                        return new MockResponse().setResponseCode(503);
+                    }
+                    if (notFoundPages.contains(page)) {
+                        return new MockResponse().setResponseCode(404);
+                    }
+                    String failure = injectedFailure(page);
+                    if (FAILURE_STATUS.equals(failure)) {
+                        return new MockResponse().setResponseCode(503);
+                    } else if (FAILURE_DISCONNECT.equals(failure)) {
+                        return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+                    }
+                    return new MockResponse().setBody(body(page, request));
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+        server.start();
+        // Dropped connections must reach the engine instead of being retried by OkHttp.
+        client = new OkHttpClient.Builder().retryOnConnectionFailure(false).build();
+        checkpointStore = new InMemoryCheckpointStore();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    public void downloads_all_pages_with_bounded_parallelism() {
+        List<DownloadPage> pages = pages(4, 3);
+
+        long start = System.currentTimeMillis();
+        engine(3).download(pages).test().awaitDone(10, TimeUnit.SECONDS).assertComplete();
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(pages.size(), server.getRequestCount());
+        assertTrue(maxInFlight.get() <= 3);
+        assertTrue(maxInFlight.get() > 1);
+        // Serial download would need pages * delay; parallel pages must beat it clearly.
+        assertTrue(elapsed < pages.size() * PAGE_DELAY_MILLIS);
+        assertTrue(checkpointStore.completedPages().isEmpty());
+    }
+
+    @Test
+    public void pages_through_pairs_holding_more_instances_than_one_page() {
+        List<DownloadPage> pages = pages(1, 3);
+        instances.put(pages.get(0).key(), 125);
+        instances.put(pages.get(1).key(), 100);
+
+        List<DownloadPageProgress> progress = engine(3).download(pages).test()
+                .awaitDone(10, TimeUnit.SECONDS).assertComplete().values();
+
+        // 50 + 50 + 25, then 50 + 50 + an empty page, then one empty page.
+        assertEquals(7, server.getRequestCount());
+        int records = 0;
+        for (DownloadPageProgress pageProgress : progress) {
+            records += pageProgress.getRecords();
+        }
+        assertEquals(225, records);
+        assertTrue(checkpointStore.completedPages().isEmpty());
+    }
+
+    @Test
+    public void changes_page_size_only_where_a_page_of_the_new_size_starts() {
+        assertEquals(20, TrackedEntityInstanceDownloadEngine.nextPageSize(100, 50, 20));
+        assertEquals(200, TrackedEntityInstanceDownloadEngine.nextPageSize(200, 50, 200));
+        assertEquals(50, TrackedEntityInstanceDownloadEngine.nextPageSize(150, 50, 100));
+        assertEquals(50, TrackedEntityInstanceDownloadEngine.nextPageSize(100, 50, 30));
+    }
+
+    @Test
+    public void resumes_from_checkpoint_after_failure() {
+        List<DownloadPage> pages = pages(2, 3);
+        failingPages.add(pages.get(4).key());
+
+        engine(1).download(pages).test().awaitDone(10, TimeUnit.SECONDS).assertError(IOException.class);
+        // The failed page does not stop the pages after it.
+        assertEquals(5, checkpointStore.completedPages().size());
+
+        failingPages.clear();
+        int requestsBeforeResume = server.getRequestCount();
+        engine(1).download(pages).test().awaitDone(10, TimeUnit.SECONDS).assertComplete();
+
+        assertEquals(1, server.getRequestCount() - requestsBeforeResume);
+        assertTrue(checkpointStore.completedPages().isEmpty());
+    }
+
+    @Test
+    public void retries_injected_failures_until_every_page_is_downloaded() {
+        List<DownloadPage> pages = pages(3, 3);
+        // Every page first gets a 503, then a dropped connection, then succeeds.
+        injectedFailures = Arrays.asList(FAILURE_STATUS, FAILURE_DISCONNECT);
+
+        engine(3, new CircuitBreaker(100, 1000, Schedulers.computation()), retry(3))
+                .download(pages).test().awaitDone(10, TimeUnit.SECONDS).assertComplete();
+
+        assertEquals(pages.size() * 3, server.getRequestCount());
+        assertTrue(checkpointStore.completedPages().isEmpty());
+    }
+
+    @Test
+    public void does_not_retry_permanent_failures() {
+        List<DownloadPage> pages = pages(1, 2);
+        notFoundPages.add(pages.get(0).key());
+
+        engine(1, new CircuitBreaker(100, 1000, Schedulers.computation()), retry(3))
+                .download(pages).test().awaitDone(10, TimeUnit.SECONDS).assertError(HttpStatusException.class);
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, checkpointStore.completedPages().size());
+    }
+
+    @Test
+    public void open_circuit_stops_requests_and_resume_fetches_only_the_rest() {
+        List<DownloadPage> pages = pages(2, 3);
+        for (DownloadPage page : pages.subList(2, pages.size())) {
+            failingPages.add(page.key());
+        }
+        CircuitBreaker breaker = new CircuitBreaker(3, 60_000, Schedulers.computation());
+
+        engine(1, breaker, retry(0)).download(pages).test().awaitDone(10, TimeUnit.SECONDS)
+                .assertError(CompositeException.class);
+
+        // Two pages succeed, three failures open the circuit and the last page never reaches the server.
+        assertEquals(5, server.getRequestCount());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, checkpointStore.completedPages().size());
+
+        failingPages.clear();
+        engine(1, new CircuitBreaker(3, 60_000, Schedulers.computation()), retry(0))
+                .download(pages).test().awaitDone(10, TimeUnit.SECONDS).assertComplete();
+
+        assertEquals(9, server.getRequestCount());
+    }
+
+    private TrackedEntityInstanceDownloadEngine engine(int maxConcurrentPages) {
+        return new TrackedEntityInstanceDownloadEngine(new MockServerPageDownloader(), checkpointStore,
+                Schedulers.io(), 50, maxConcurrentPages);
+    }
+
+    private TrackedEntityInstanceDownloadEngine engine(int maxConcurrentPages, CircuitBreaker breaker,
+                                                       RetryWithBackoff retry) {
+        return new TrackedEntityInstanceDownloadEngine(new MockServerPageDownloader(), checkpointStore,
+                Schedulers.io(), 50, maxConcurrentPages, breaker, retry);
+    }
+
+    private static RetryWithBackoff retry(int maxRetries) {
+        return new RetryWithBackoff(maxRetries, 10, 50, new Random(42));
+    }
+
+    private String injectedFailure(String page) {
+        attempts.putIfAbsent(page, new AtomicInteger());
+        int attempt = attempts.get(page).getAndIncrement();
+        List<String> failures = injectedFailures;
+        return attempt < failures.size() ? failures.get(attempt) : null;
+    }
+
+    private String body(String page, RecordedRequest request) {
+        int pageNumber = Integer.parseInt(request.getRequestUrl().queryParameter("page"));
+        int pageSize = Integer.parseInt(request.getRequestUrl().queryParameter("pageSize"));
+        Integer total = instances.get(page);
+        int first = (pageNumber - 1) * pageSize;
+        int last = Math.min(total == null ? 0 : total, first + pageSize);
+        StringBuilder body = new StringBuilder("{\"trackedEntityInstances\":[");
+        for (int i = first; i < last; i++) {
+            body.append(i == first ? "" : ",").append("{\"trackedEntityInstance\":\"tei").append(i).append("\"}");
+        }
+        return body.append("]}").toString();
+    }
+
+    private static List<DownloadPage> pages(int programs, int orgUnits) {
+        List<DownloadPage> pages = new ArrayList<>();
+        for (int p = 0; p < programs; p++) {
+            for (int o = 0; o < orgUnits; o++) {
+                pages.add(new DownloadPage("program" + p, "orgUnit" + o));
+            }
+        }
+        return pages;
+    }
+
+    private class MockServerPageDownloader implements PageDownloader {
+
+        @Override
+        public Single<Integer> download(DownloadPage page, int pageNumber, int pageSize) {
+            return Single.fromCallable(() -> {
+                Request request = new Request.Builder()
+                        .url(server.url("/api/trackedEntityInstances").newBuilder()
+                                .addQueryParameter("program", page.getProgramUid())
+                                .addQueryParameter("ou", page.getOrgUnitUid())
+                                .addQueryParameter("page", String.valueOf(pageNumber))
+                                .addQueryParameter("pageSize", String.valueOf(pageSize))
+                                .build())
+                        .build();
+                try (Response response = client.newCall(request).execute()) {
+                    if (!response.isSuccessful()) {
+                        throw new HttpStatusException(response.code());
+                    }
+                    return count(response.body().string(), "\"trackedEntityInstance\"");
+                }
+            });
+        }
+    }
+
+    private static int count(String text, String token) {
+        int count = 0;
+        for (int i = text.indexOf(token); i >= 0; i = text.indexOf(token, i + token.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    private static class InMemoryCheckpointStore implements CheckpointStore {
+
+        private final Set<String> completed = Collections.synchronizedSet(new HashSet<>());
+
+        @Override
+        public Set<String> completedPages() {
+            return new HashSet<>(completed);
+        }
+
+        @Override
+        public void markCompleted(String pageKey) {
+            completed.add(pageKey);
+        }
+
+        @Override
+        public void clear() {
+            completed.clear();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.android.androidskeletonapp.data.service.login;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PasswordHasherTest {
+
+    private final PasswordHasher hasher = new PasswordHasher();
+
+    @Test
+    public void verifies_the_hashed_password() throws Exception {
+        String hash = hasher.hash("Android123");
+
+        assertTrue(hasher.verify("Android123", hash));
+        assertFalse(hasher.verify("android123", hash));
+        assertFalse(hasher.verify("", hash));
+    }
+
+    @Test
+    public void salts_every_hash() throws Exception {
+        assertNotEquals(hasher.hash("Android123"), hasher.hash("Android123"));
+    }
+
+    @Test
+    public void verifies_hashes_saved_with_another_iteration_count() throws Exception {
+        String hash = new PasswordHasher(1000).hash("Android123");
+
+        assertTrue(hasher.verify("Android123", hash));
+    }
+
+    @Test
+    public void rejects_malformed_hashes() throws Exception {
+        assertFalse(hasher.verify("Android123", ""));
+        assertFalse(hasher.verify("Android123", "10000:zz:00"));
+        assertFalse(hasher.verify("Android123", "many:00:00"));
+    }
+}
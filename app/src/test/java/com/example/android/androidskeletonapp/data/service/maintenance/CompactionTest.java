@@ -0,0 +1,29 @@
+package com.example.android.androidskeletonapp.data.service.maintenance;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompactionTest {
+
+    private static final int AUTO_VACUUM_NONE = 0;
+
+    @Test
+    public void leaves_a_mostly_full_file_alone() {
+        assertEquals(Compaction.NONE, Compaction.choose(1000, 50, Compaction.AUTO_VACUUM_INCREMENTAL, true));
+        assertEquals(Compaction.NONE, Compaction.choose(0, 0, AUTO_VACUUM_NONE, true));
+    }
+
+    @Test
+    public void vacuums_incrementally_once_the_file_is_converted() {
+        assertEquals(Compaction.INCREMENTAL,
+                Compaction.choose(1000, 100, Compaction.AUTO_VACUUM_INCREMENTAL, false));
+    }
+
+    @Test
+    public void converts_with_a_full_vacuum_only_when_enough_is_free_and_the_disk_has_room() {
+        assertEquals(Compaction.NONE, Compaction.choose(1000, 200, AUTO_VACUUM_NONE, true));
+        assertEquals(Compaction.FULL, Compaction.choose(1000, 250, AUTO_VACUUM_NONE, true));
+        assertEquals(Compaction.NONE, Compaction.choose(1000, 900, AUTO_VACUUM_NONE, false));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.android.androidskeletonapp.data.service.offline;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChecksumOutputStreamTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Test
+    public void hashes_and_counts_written_bytes() throws IOException {
+        ChecksumOutputStream checksum = new ChecksumOutputStream(new ByteArrayOutputStream());
+        checksum.write("ab".getBytes(UTF_8));
+        checksum.write('c');
+
+        assertEquals(3, checksum.getCount());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", checksum.getSha256());
+    }
+
+    @Test
+    public void closing_keeps_the_stream_open_for_the_next_section() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            for (String section : new String[]{"[1]", "[2]"}) {
+                ChecksumOutputStream checksum = new ChecksumOutputStream(gzip);
+                checksum.write(section.getBytes(UTF_8));
+                checksum.close();
+            }
+        }
+
+        ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            byte[] buffer = new byte[64];
+            for (int read; (read = gzip.read(buffer)) != -1; ) {
+                inflated.write(buffer, 0, read);
+            }
+        }
+        assertEquals("[1][2]", new String(inflated.toByteArray(), UTF_8));
+    }
+}
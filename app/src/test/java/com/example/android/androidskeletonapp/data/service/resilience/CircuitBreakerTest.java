@@ -0,0 +1,72 @@
+package com.example.android.androidskeletonapp.data.service.resilience;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+import io.reactivex.schedulers.TestScheduler;
+
+import static org.junit.Assert.assertEquals;
+
+public class CircuitBreakerTest {
+
+    private final TestScheduler clock = new TestScheduler();
+    private final CircuitBreaker breaker = new CircuitBreaker(2, 1000, clock);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void opens_after_consecutive_transient_failures() {
+        call(new IOException("timeout")).test().assertError(IOException.class);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        call(new HttpStatusException(503)).test().assertError(HttpStatusException.class);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        call(null).test().assertError(CircuitOpenException.class);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void lets_one_probe_through_after_the_open_period() {
+        call(new IOException()).test();
+        call(new IOException()).test();
+
+        clock.advanceTimeBy(1000, TimeUnit.MILLISECONDS);
+        call(new IOException()).test().assertError(IOException.class);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.advanceTimeBy(1000, TimeUnit.MILLISECONDS);
+        call(null).test().assertComplete();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(4, calls.get());
+    }
+
+    @Test
+    public void permanent_failures_do_not_open_the_circuit() {
+        call(new HttpStatusException(404)).test();
+        call(new HttpStatusException(401)).test();
+        call(new IllegalStateException()).test();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void classifies_failures() {
+        assertEquals(FailureClass.OVERLOAD, FailureClassifier.classify(new HttpStatusException(429)));
+        assertEquals(FailureClass.TRANSIENT, FailureClassifier.classify(new HttpStatusException(502)));
+        assertEquals(FailureClass.PERMANENT, FailureClassifier.classify(new HttpStatusException(400)));
+        assertEquals(FailureClass.TRANSIENT, FailureClassifier.classify(new RuntimeException(new IOException())));
+        assertEquals(FailureClass.PERMANENT, FailureClassifier.classify(new NullPointerException()));
+    }
+
+    private Completable call(Throwable failure) {
+        return Completable.fromAction(() -> {
+            calls.incrementAndGet();
+            if (failure != null) {
+                throw failure instanceof Exception ? (Exception) failure : new RuntimeException(failure);
+            }
+        }).compose(breaker.protectCompletable());
+    }
+}
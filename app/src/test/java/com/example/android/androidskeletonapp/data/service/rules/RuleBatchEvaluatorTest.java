@@ -0,0 +1,72 @@
+package com.example.android.androidskeletonapp.data.service.rules;
+
+import org.hisp.dhis.rules.RuleEngineContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RuleBatchEvaluatorTest {
+
+    private static final int ENROLLMENTS = 2000;
+    private static final int EVENTS_PER_ENROLLMENT = 3;
+
+    private static final int THREADS = 4;
+
+    private RuleEngineContext context;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        context = SyntheticRules.context();
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void evaluates_every_enrollment_and_event() throws Exception {
+        RuleEffectSummary summary = new RuleBatchEvaluator(executor, THREADS).evaluate(context,
+                SyntheticRules.units(ENROLLMENTS, EVENTS_PER_ENROLLMENT));
+
+        int events = ENROLLMENTS * EVENTS_PER_ENROLLMENT;
+        assertEquals(ENROLLMENTS + events, summary.getEvaluations());
+        assertEquals(0, summary.getFailedEvaluations());
+        // Every fifth event is heavy and every seventh has a negative height.
+        assertEquals(events / 5, summary.getWarnings());
+        assertEquals(events / 7 + 1, summary.getErrors());
+        // The assign rule has no program stage, so it also fires for every enrollment.
+        assertEquals(ENROLLMENTS + events, summary.getAssignedValues());
+    }
+
+    @Test
+    public void parallel_evaluation_matches_sequential_evaluation() throws Exception {
+        List<RuleEvaluationUnit> units = SyntheticRules.units(ENROLLMENTS, EVENTS_PER_ENROLLMENT);
+
+        RuleEffectSummary sequential = new RuleBatchEvaluator(executor, 1).evaluate(context, units);
+        RuleEffectSummary parallel = new RuleBatchEvaluator(executor, THREADS).evaluate(context, units);
+
+        assertEquals(sequential.getEvaluations(), parallel.getEvaluations());
+        assertEquals(sequential.getWarnings(), parallel.getWarnings());
+        assertEquals(sequential.getErrors(), parallel.getErrors());
+        assertEquals(sequential.getAssignedValues(), parallel.getAssignedValues());
+        assertTrue(parallel.getEvaluationsPerSecond() > 0);
+    }
+
+    @Test
+    public void splits_a_page_into_one_batch_per_thread() {
+        assertEquals(125, RuleBatchEvaluator.batchSize(500, 4));
+        assertEquals(63, RuleBatchEvaluator.batchSize(500, 8));
+        assertEquals(1, RuleBatchEvaluator.batchSize(3, 8));
+        assertEquals(1, RuleBatchEvaluator.batchSize(0, 8));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.android.androidskeletonapp.data.service.rules;
+
+import org.hisp.dhis.rules.RuleEngineContext;
+import org.hisp.dhis.rules.models.Rule;
+import org.hisp.dhis.rules.models.RuleActionAssign;
+import org.hisp.dhis.rules.models.RuleActionShowError;
+import org.hisp.dhis.rules.models.RuleActionShowWarning;
+import org.hisp.dhis.rules.models.RuleDataValue;
+import org.hisp.dhis.rules.models.RuleEnrollment;
+import org.hisp.dhis.rules.models.RuleEvent;
+import org.hisp.dhis.rules.models.RuleValueType;
+import org.hisp.dhis.rules.models.RuleVariableCurrentEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * A synthetic program shared by the rule tests and benchmarks. Every fifth event is heavy and
+ * warns, every seventh has a negative height and errs, and an assign rule fires for every
+ * enrollment and event.
+ */
+public class SyntheticRules {
+
+    public static final String PROGRAM_STAGE = "programStage";
+    public static final String WEIGHT = "weight";
+    public static final String HEIGHT = "height";
+
+    private SyntheticRules() {
+    }
+
+    public static RuleEngineContext context() {
+        return RuleEngineContext.builder(new JexlRuleExpressionEvaluator())
+                .rules(Arrays.asList(
+                        Rule.create(null, 1, "#{weight} > 100",
+                                Collections.singletonList(RuleActionShowWarning.create("Heavy", "", WEIGHT)),
+                                "heavy"),
+                        Rule.create(null, 2, "#{height} < 0",
+                                Collections.singletonList(RuleActionShowError.create("Negative height", "", HEIGHT)),
+                                "negativeHeight"),
+                        Rule.create(null, 3, "true",
+                                Collections.singletonList(RuleActionAssign.create(null, "#{weight} * 2", "doubleWeight")),
+                                "doubleWeight")))
+                .ruleVariables(Arrays.asList(
+                        RuleVariableCurrentEvent.create(WEIGHT, WEIGHT, RuleValueType.NUMERIC),
+                        RuleVariableCurrentEvent.create(HEIGHT, HEIGHT, RuleValueType.NUMERIC)))
+                .supplementaryData(Collections.emptyMap())
+                .calculatedValueMap(Collections.emptyMap())
+                .constantsValue(Collections.emptyMap())
+                .build();
+    }
+
+    public static List<RuleEvaluationUnit> units(int enrollments, int eventsPerEnrollment) {
+        Date date = new Date();
+        List<RuleEvaluationUnit> units = new ArrayList<>();
+        int eventIndex = 0;
+        for (int i = 0; i < enrollments; i++) {
+            List<RuleEvent> events = new ArrayList<>();
+            for (int j = 0; j < eventsPerEnrollment; j++, eventIndex++) {
+                String weight = eventIndex % 5 == 0 ? "120" : "60";
+                String height = eventIndex % 7 == 0 ? "-1" : "170";
+                events.add(RuleEvent.builder()
+                        .event("event" + eventIndex)
+                        .programStage(PROGRAM_STAGE)
+                        .programStageName(PROGRAM_STAGE)
+                        .status(RuleEvent.Status.ACTIVE)
+                        .eventDate(date)
+                        .dueDate(date)
+                        .organisationUnit("orgUnit")
+                        .organisationUnitCode("")
+                        .dataValues(Arrays.asList(
+                                RuleDataValue.create(date, PROGRAM_STAGE, WEIGHT, weight),
+                                RuleDataValue.create(date, PROGRAM_STAGE, HEIGHT, height)))
+                        .build());
+            }
+            RuleEnrollment enrollment = RuleEnrollment.create("enrollment" + i, date, date,
+                    RuleEnrollment.Status.ACTIVE, "orgUnit", "", Collections.emptyList(), "program");
+            units.add(new RuleEvaluationUnit(enrollment, events));
+        }
+        return units;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.android.androidskeletonapp.data.service.scheduling;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Single;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SchedulerPoolTest {
+
+    @Test
+    public void queues_tasks_beyond_its_threads_and_measures_their_wait() throws InterruptedException {
+        SchedulerPool pool = new SchedulerPool("test", 2, Thread.NORM_PRIORITY);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(5);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        for (int i = 0; i < 5; i++) {
+            pool.execute(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        long queued = System.nanoTime();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        PoolMetrics blocked = pool.metrics();
+        assertEquals(3, blocked.getQueueDepth());
+        assertEquals(2, blocked.getActiveThreads());
+
+        // The queued tasks were handed over before this and start only after the release.
+        long held = System.nanoTime() - queued;
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        PoolMetrics drained = pool.metrics();
+        assertEquals(2, maxRunning.get());
+        assertEquals(5, drained.getStartedTasks());
+        assertTrue(drained.getMaxWaitMillis() >= held / 1_000_000.0);
+    }
+
+    @Test
+    public void interactive_work_is_not_queued_behind_a_busy_sync_pool() throws InterruptedException {
+        SchedulerPool sync = new SchedulerPool("sync", 1, Thread.MIN_PRIORITY);
+        SchedulerPool interactive = new SchedulerPool("interactive", 1, Thread.NORM_PRIORITY);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            sync.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        String thread = Single.fromCallable(() -> Thread.currentThread().getName())
+                .subscribeOn(interactive.scheduler())
+                .timeout(1, TimeUnit.SECONDS)
+                .blockingGet();
+
+        assertTrue(thread.startsWith("interactive-"));
+        assertEquals(2, sync.metrics().getQueueDepth());
+        release.countDown();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.android.androidskeletonapp.data.service.search;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AttributeSearchIndexTest {
+
+    private static final String[] FIRST_NAMES = {"Maria", "José", "Amina", "John", "Fatima", "Mohamed", "Grace"};
+    private static final String[] LAST_NAMES = {"Jones", "Pérez-Núñez", "Okafor", "Smith", "Kamara", "Banda"};
+
+    @Test
+    public void matches_normalized_prefixes_of_all_query_tokens() {
+        AttributeSearchIndex index = new AttributeSearchIndex();
+        index.put("tei1", Arrays.asList("Maria", "Jones", "ID-4711"));
+        index.put("tei2", Arrays.asList("José", "Pérez-Núñez"));
+        index.put("tei3", Arrays.asList("Mario", "Smith"));
+
+        assertEquals(Arrays.asList("tei1", "tei3"), index.search("mar", 10));
+        assertEquals(Collections.singletonList("tei1"), index.search("ma jo", 10));
+        assertEquals(Collections.singletonList("tei2"), index.search("NUNEZ", 10));
+        assertEquals(Collections.singletonList("tei1"), index.search("4711", 10));
+        assertTrue(index.search("mar xyz", 10).isEmpty());
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    public void replaces_and_removes_documents() {
+        AttributeSearchIndex index = new AttributeSearchIndex();
+        index.put("tei1", Arrays.asList("Maria", "Jones"));
+        index.put("tei1", Arrays.asList("Maria", "Smith"));
+
+        assertTrue(index.search("jones", 10).isEmpty());
+        assertEquals(Collections.singletonList("tei1"), index.search("smith", 10));
+
+        index.remove("tei1");
+
+        assertEquals(0, index.size());
+        assertEquals(0, index.tokenCount());
+        assertTrue(index.search("maria", 10).isEmpty());
+
+        index.put("tei2", Collections.singletonList("Grace"));
+        assertEquals(Collections.singletonList("tei2"), index.search("gr", 10));
+    }
+
+    @Test
+    public void copies_do_not_change_the_original() {
+        AttributeSearchIndex index = new AttributeSearchIndex();
+        index.put("tei1", Arrays.asList("Maria", "Jones"));
+        index.put("tei2", Arrays.asList("Maria", "Smith"));
+
+        AttributeSearchIndex copy = index.copy();
+        copy.remove("tei1");
+        copy.put("tei2", Collections.singletonList("Grace"));
+        copy.put("tei3", Collections.singletonList("Maria"));
+
+        assertEquals(Arrays.asList("tei1", "tei2"), index.search("maria", 10));
+        assertTrue(index.search("grace", 10).isEmpty());
+        assertEquals(Collections.singletonList("tei3"), copy.search("maria", 10));
+        assertEquals(Collections.singletonList("tei2"), copy.search("grace", 10));
+    }
+
+    @Test
+    public void respects_the_limit() {
+        AttributeSearchIndex index = new AttributeSearchIndex();
+        for (int i = 0; i < 50; i++) {
+            index.put("tei" + i, Collections.singletonList("Amina"));
+        }
+
+        assertEquals(10, index.search("a", 10).size());
+    }
+
+    @Test
+    public void answers_prefix_queries_on_100k_instances() {
+        AttributeSearchIndex index = new AttributeSearchIndex();
+        for (int i = 0; i < 100_000; i++) {
+            index.put("tei" + i, Arrays.asList(FIRST_NAMES[i % FIRST_NAMES.length],
+                    LAST_NAMES[i % LAST_NAMES.length], "ID" + i));
+        }
+
+        List<String> broad = index.search("ma", 200);
+        List<String> narrow = index.search("amina okaf id4", 200);
+
+        assertEquals(200, broad.size());
+        assertTrue(narrow.contains("tei44"));
+        for (String uid : narrow) {
+            int i = Integer.parseInt(uid.substring(3));
+            assertEquals("Amina", FIRST_NAMES[i % FIRST_NAMES.length]);
+            assertEquals("Okafor", LAST_NAMES[i % LAST_NAMES.length]);
+            assertTrue(String.valueOf(i).startsWith("4"));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.android.androidskeletonapp.data.service.sync;
+
+import org.junit.Test;
+
+import io.reactivex.observers.TestObserver;
+import io.reactivex.subjects.SingleSubject;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JobGateTest {
+
+    private final JobGate gate = new JobGate(2);
+
+    @Test
+    public void runs_shared_jobs_up_to_the_limit() {
+        SingleSubject<String> first = SingleSubject.create();
+        SingleSubject<String> second = SingleSubject.create();
+        SingleSubject<String> third = SingleSubject.create();
+
+        first.compose(gate.<String>shared()).test();
+        second.compose(gate.<String>shared()).test();
+        TestObserver<String> thirdObserver = third.compose(gate.<String>shared()).test();
+        assertTrue(second.hasObservers());
+        assertFalse(third.hasObservers());
+
+        first.onSuccess("first");
+        assertTrue(third.hasObservers());
+        third.onSuccess("third");
+        thirdObserver.assertValue("third");
+    }
+
+    @Test
+    public void exclusive_job_waits_for_running_jobs_and_holds_later_ones_back() {
+        SingleSubject<String> sync = SingleSubject.create();
+        SingleSubject<String> wipe = SingleSubject.create();
+        SingleSubject<String> upload = SingleSubject.create();
+
+        sync.compose(gate.<String>shared()).test();
+        wipe.compose(gate.<String>exclusive()).test();
+        upload.compose(gate.<String>shared()).test();
+        // The upload would fit next to the sync, but the wipe asked first.
+        assertFalse(wipe.hasObservers());
+        assertFalse(upload.hasObservers());
+
+        sync.onSuccess("sync");
+        assertTrue(wipe.hasObservers());
+        assertFalse(upload.hasObservers());
+        assertEquals(1, gate.getRunning());
+
+        wipe.onSuccess("wipe");
+        assertTrue(upload.hasObservers());
+    }
+
+    @Test
+    public void cancelled_waiting_job_gives_up_its_place() {
+        SingleSubject<String> first = SingleSubject.create();
+        SingleSubject<String> second = SingleSubject.create();
+
+        first.compose(gate.<String>exclusive()).test();
+        TestObserver<String> waiting = second.compose(gate.<String>exclusive()).test();
+        waiting.dispose();
+        first.onSuccess("first");
+
+        assertFalse(second.hasObservers());
+        assertEquals(0, gate.getRunning());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.android.androidskeletonapp.data.service.telemetry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TrafficTest {
+
+    @Test
+    public void tells_downloads_from_uploads_of_the_same_resource() {
+        assertEquals(Traffic.TRACKER_DOWNLOAD, Traffic.of("GET", path("trackedEntityInstances")));
+        assertEquals(Traffic.UPLOAD, Traffic.of("POST", path("trackedEntityInstances")));
+        assertEquals(Traffic.AGGREGATE_DOWNLOAD, Traffic.of("GET", path("dataValueSets")));
+        assertEquals(Traffic.UPLOAD, Traffic.of("POST", path("dataValueSets")));
+    }
+
+    @Test
+    public void sorts_metadata_and_everything_else() {
+        assertEquals(Traffic.METADATA, Traffic.of("GET", path("programs")));
+        assertEquals(Traffic.METADATA, Traffic.of("GET", path("system", "info")));
+        assertEquals(Traffic.OTHER, Traffic.of("GET", path("ping")));
+        assertEquals(Traffic.OTHER, Traffic.of("GET", Arrays.asList("dhis", "favicon.ico")));
+    }
+
+    private static List<String> path(String... segments) {
+        List<String> path = new ArrayList<>(Arrays.asList("dhis", "api"));
+        path.addAll(Arrays.asList(segments));
+        return path;
+    }
+}
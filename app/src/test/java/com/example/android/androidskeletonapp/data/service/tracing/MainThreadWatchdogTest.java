@@ -0,0 +1,91 @@
+package com.example.android.androidskeletonapp.data.service.tracing;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MainThreadWatchdogTest {
+
+    private static final long THRESHOLD_MILLIS = 50;
+
+    private ExecutorService main;
+    private Thread mainThread;
+    private SpanRing ring;
+    private MainThreadWatchdog watchdog;
+
+    @Before
+    public void setUp() throws Exception {
+        main = Executors.newSingleThreadExecutor();
+        mainThread = main.submit(Thread::currentThread).get();
+        ring = new SpanRing(16);
+        watchdog = new MainThreadWatchdog(main, mainThread, THRESHOLD_MILLIS, ring);
+    }
+
+    @After
+    public void tearDown() {
+        watchdog.stop();
+        main.shutdownNow();
+    }
+
+    @Test
+    public void records_a_blocked_main_thread_with_its_stack() throws Exception {
+        watchdog.start();
+        main.submit(MainThreadWatchdogTest::blockMainThread).get();
+        Thread.sleep(THRESHOLD_MILLIS * 3);
+
+        List<Span> spans = ring.snapshot();
+        assertEquals(1, spans.size());
+        Span stall = spans.get(0);
+        assertEquals(Span.Kind.STALL, stall.getKind());
+        assertTrue(stall.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(300 - THRESHOLD_MILLIS));
+        assertTrue(stall.getDetail().contains("blockMainThread"));
+    }
+
+    @Test
+    public void records_nothing_while_the_main_thread_is_responsive() throws Exception {
+        watchdog.start();
+        for (int i = 0; i < 10; i++) {
+            main.submit(() -> sleep(5)).get();
+            Thread.sleep(THRESHOLD_MILLIS / 2);
+        }
+
+        assertTrue(ring.snapshot().isEmpty());
+    }
+
+    @Test
+    public void runs_only_while_an_activity_is_started() {
+        WatchdogLifecycle lifecycle = new WatchdogLifecycle(watchdog);
+
+        lifecycle.onActivityStarted(null);
+        lifecycle.onActivityStarted(null);
+        lifecycle.onActivityStopped(null);
+        assertTrue(watchdog.isRunning());
+
+        lifecycle.onActivityStopped(null);
+        assertFalse(watchdog.isRunning());
+
+        lifecycle.onActivityStarted(null);
+        assertTrue(watchdog.isRunning());
+    }
+
+    private static void blockMainThread() {
+        sleep(300);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.android.androidskeletonapp.data.service.tracing;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Observer;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import io.reactivex.functions.Function;
+import io.reactivex.observers.LambdaConsumerIntrospection;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RxTracingTest {
+
+    private final SpanRing ring = new SpanRing(64);
+
+    @After
+    public void tearDown() {
+        RxTracing.uninstall();
+        RxJavaPlugins.reset();
+    }
+
+    @Test
+    public void records_one_span_per_blocking_call_on_the_calling_thread() {
+        RxTracing.install(ring, Long.MAX_VALUE);
+
+        int value = Single.just(1)
+                .map(i -> i + 1)
+                .delay(20, TimeUnit.MILLISECONDS)
+                .blockingGet();
+
+        assertEquals(2, value);
+        List<Span> spans = ring.snapshot();
+        assertEquals(1, spans.size());
+        Span span = spans.get(0);
+        assertEquals(Span.Kind.BLOCKING, span.getKind());
+        assertEquals(Thread.currentThread().getName(), span.getThread());
+        assertEquals(RxTracing.COMPLETE, span.getDetail());
+        assertTrue(span.getDurationNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+    }
+
+    @Test
+    public void records_lambda_subscriptions_until_they_end_or_are_disposed() throws InterruptedException {
+        RxTracing.install(ring, Long.MAX_VALUE);
+
+        Completable.timer(10, TimeUnit.MILLISECONDS).subscribe(() -> { }, Throwable::printStackTrace);
+        Single.error(new IllegalStateException()).subscribe(value -> { }, throwable -> { });
+        Disposable never = Observable.never().subscribe();
+        never.dispose();
+        Thread.sleep(100);
+
+        List<String> outcomes = new ArrayList<>();
+        for (Span span : ring.snapshot()) {
+            assertEquals(Span.Kind.CHAIN, span.getKind());
+            outcomes.add(span.getDetail());
+        }
+        assertEquals(3, outcomes.size());
+        assertTrue(outcomes.contains(RxTracing.COMPLETE));
+        assertTrue(outcomes.contains(RxTracing.ERROR));
+        assertTrue(outcomes.contains(RxTracing.DISPOSE));
+    }
+
+    @Test
+    public void records_scheduler_hops_slower_than_the_threshold() {
+        RxTracing.install(ring, TimeUnit.MILLISECONDS.toNanos(5));
+
+        Completable.fromAction(() -> Thread.sleep(10))
+                .subscribeOn(Schedulers.single())
+                .blockingAwait();
+        Completable.complete()
+                .subscribeOn(Schedulers.single())
+                .blockingAwait();
+
+        List<Span> hops = new ArrayList<>();
+        for (Span span : ring.snapshot()) {
+            if (span.getKind() == Span.Kind.HOP) {
+                hops.add(span);
+            }
+        }
+        assertEquals(1, hops.size());
+        assertEquals(Thread.currentThread().getName(), hops.get(0).getName());
+        assertTrue(hops.get(0).getThread().startsWith("RxSingleScheduler"));
+    }
+
+    @Test
+    public void keeps_hooks_installed_before_and_puts_them_back() {
+        AtomicInteger scheduled = new AtomicInteger();
+        Function<Runnable, Runnable> previous = run -> {
+            scheduled.incrementAndGet();
+            return run;
+        };
+        RxJavaPlugins.setScheduleHandler(previous);
+        RxTracing.install(ring, 0);
+
+        Completable.complete()
+                .subscribeOn(Schedulers.single())
+                .blockingAwait();
+
+        assertEquals(1, scheduled.get());
+        assertTrue(ring.snapshot().size() >= 2);
+        RxTracing.uninstall();
+        assertSame(previous, RxJavaPlugins.getScheduleHandler());
+    }
+
+    @Test
+    public void disposing_before_the_upstream_arrives_disposes_it_on_arrival() {
+        RxTracing.install(ring, Long.MAX_VALUE);
+        Observer<? super Object> traced = RxJavaPlugins.onSubscribe(Observable.never(), new LambdaLikeObserver());
+
+        ((Disposable) traced).dispose();
+        Disposable upstream = Disposables.empty();
+        traced.onSubscribe(upstream);
+
+        assertTrue(upstream.isDisposed());
+        assertEquals(RxTracing.DISPOSE, ring.snapshot().get(0).getDetail());
+    }
+
+    private static class LambdaLikeObserver implements Observer<Object>, LambdaConsumerIntrospection {
+
+        @Override
+        public void onSubscribe(Disposable d) {
+        }
+
+        @Override
+        public void onNext(Object o) {
+        }
+
+        @Override
+        public void onError(Throwable e) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+
+        @Override
+        public boolean hasCustomOnError() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.android.androidskeletonapp.data.service.tracing;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class SpanRingTest {
+
+    @Test
+    public void keeps_the_most_recent_spans_oldest_first() {
+        SpanRing ring = new SpanRing(4);
+        for (int i = 0; i < 6; i++) {
+            ring.add(span("span" + i));
+        }
+
+        List<Span> spans = ring.snapshot();
+        assertEquals(4, spans.size());
+        assertEquals("span2", spans.get(0).getName());
+        assertEquals("span5", spans.get(3).getName());
+        assertEquals(6, ring.recorded());
+    }
+
+    @Test
+    public void concurrent_writers_do_not_lose_spans() throws InterruptedException {
+        SpanRing ring = new SpanRing(4096);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String prefix = "writer" + t + "-";
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    ring.add(span(prefix + i));
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        Set<String> names = new HashSet<>();
+        for (Span span : ring.snapshot()) {
+            names.add(span.getName());
+        }
+        assertEquals(4000, names.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejects_capacities_that_are_not_a_power_of_two() {
+        new SpanRing(1000);
+    }
+
+    private static Span span(String name) {
+        return new Span(Span.Kind.NAMED, name, "test", 0, 0, 0, null);
+    }
+}
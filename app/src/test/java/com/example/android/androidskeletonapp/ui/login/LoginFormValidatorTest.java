@@ -0,0 +1,38 @@
+package com.example.android.androidskeletonapp.ui.login;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LoginFormValidatorTest {
+
+    private final LoginFormValidator validator = new LoginFormValidator(WebUrlPattern.WEB_URL);
+
+    @Test
+    public void accepts_server_urls() {
+        assertTrue(validator.isServerUrlValid("https://play.dhis2.org/android-current"));
+        assertTrue(validator.isServerUrlValid("play.dhis2.org"));
+        assertTrue(validator.isServerUrlValid("http://192.168.1.10:8080/dhis"));
+    }
+
+    @Test
+    public void rejects_malformed_server_urls() {
+        assertFalse(validator.isServerUrlValid("https://play.dhis2.org/android current"));
+        assertFalse(validator.isServerUrlValid("not a url"));
+        assertFalse(validator.isServerUrlValid(null));
+    }
+
+    @Test
+    public void checks_the_server_url_first() {
+        assertEquals(LoginFormValidator.Result.VALID,
+                validator.validate("https://play.dhis2.org/android-current", "android", "Android123"));
+        assertEquals(LoginFormValidator.Result.INVALID_SERVER_URL,
+                validator.validate("https://play.dhis2.org/android current", "", "And"));
+        assertEquals(LoginFormValidator.Result.INVALID_USERNAME,
+                validator.validate("https://play.dhis2.org/android-current", " ", "Android123"));
+        assertEquals(LoginFormValidator.Result.INVALID_PASSWORD,
+                validator.validate("https://play.dhis2.org/android-current", "android", "And"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.android.androidskeletonapp.benchmarks;
+
+import com.example.android.androidskeletonapp.data.service.search.AttributeSearchIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares TEI search through the attribute index with the LIKE query the SDK repository filters
+ * run on {@code TrackedEntityAttributeValue}, on the same fixture of names and IDs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AttributeSearchBenchmark {
+
+    private static final int LIMIT = 200;
+    private static final String REPOSITORY_FILTER_QUERY = "SELECT uid FROM TrackedEntityInstance WHERE uid IN "
+            + "(SELECT trackedEntityInstance FROM TrackedEntityAttributeValue WHERE value LIKE ?) LIMIT " + LIMIT;
+    private static final String[] FIRST_NAMES = {"Maria", "Jose", "Amina", "John", "Fatima", "Mohamed", "Grace"};
+    private static final String[] LAST_NAMES = {"Jones", "Perez", "Okafor", "Smith", "Kamara", "Banda"};
+
+    @Param({"10000", "100000"})
+    public int trackedEntityInstances;
+
+    @Param({"ok", "amina okafor"})
+    public String query;
+
+    private File file;
+    private Connection connection;
+    private AttributeSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void createFixture() throws IOException, SQLException {
+        file = File.createTempFile("attribute-search", ".db");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE TrackedEntityInstance (_id INTEGER PRIMARY KEY AUTOINCREMENT, uid TEXT NOT NULL UNIQUE, state TEXT)");
+            statement.execute("CREATE TABLE TrackedEntityAttributeValue (_id INTEGER PRIMARY KEY AUTOINCREMENT, trackedEntityAttribute TEXT, trackedEntityInstance TEXT, value TEXT, "
+                    + "UNIQUE (trackedEntityAttribute, trackedEntityInstance))");
+        }
+        index = new AttributeSearchIndex();
+        try (PreparedStatement instance = connection.prepareStatement(
+                "INSERT INTO TrackedEntityInstance (uid, state) VALUES (?, 'SYNCED')");
+             PreparedStatement value = connection.prepareStatement(
+                     "INSERT INTO TrackedEntityAttributeValue (trackedEntityAttribute, trackedEntityInstance, value) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < trackedEntityInstances; i++) {
+                String uid = "tei" + i;
+                List<String> values = Arrays.asList(FIRST_NAMES[i % FIRST_NAMES.length],
+                        LAST_NAMES[i / FIRST_NAMES.length % LAST_NAMES.length], "ID" + i);
+                instance.setString(1, uid);
+                instance.addBatch();
+                for (int attribute = 0; attribute < values.size(); attribute++) {
+                    value.setString(1, "attribute" + attribute);
+                    value.setString(2, uid);
+                    value.setString(3, values.get(attribute));
+                    value.addBatch();
+                }
+                index.put(uid, values);
+            }
+            instance.executeBatch();
+            value.executeBatch();
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFixture() throws SQLException {
+        connection.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public List<String> index() {
+        return index.search(query, LIMIT);
+    }
+
+    // A repository filter matches one value per query, so multi-word queries only match values
+    // that contain the whole phrase; the index matches each word against any attribute.
+    @Benchmark
+    public List<String> repositoryFilter() throws SQLException {
+        List<String> uids = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(REPOSITORY_FILTER_QUERY)) {
+            statement.setString(1, "%" + query + "%");
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    uids.add(resultSet.getString(1));
+                }
+            }
+        }
+        return uids;
+    }
+}
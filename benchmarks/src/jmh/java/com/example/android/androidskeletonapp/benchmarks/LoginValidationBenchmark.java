@@ -0,0 +1,39 @@
+package com.example.android.androidskeletonapp.benchmarks;
+
+import com.example.android.androidskeletonapp.ui.login.LoginFormValidator;
+import com.example.android.androidskeletonapp.ui.login.WebUrlPattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the validation that runs on every keystroke of the login form, with the URL pattern
+ * the form uses on a device.
+ */
+@State(Scope.Benchmark)
+public class LoginValidationBenchmark {
+
+    private LoginFormValidator validator;
+
+    @Setup
+    public void setUp() {
+        validator = new LoginFormValidator(WebUrlPattern.WEB_URL);
+    }
+
+    @Benchmark
+    public LoginFormValidator.Result validForm() {
+        return validator.validate("https://play.dhis2.org/android-current", "android", "Android123");
+    }
+
+    @Benchmark
+    public LoginFormValidator.Result invalidServerUrl() {
+        return validator.validate("https://play.dhis2.org/android current", "android", "Android123");
+    }
+
+    @Benchmark
+    public LoginFormValidator.Result shortPassword() {
+        return validator.validate("https://play.dhis2.org/android-current", "android", "And");
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.android.androidskeletonapp.benchmarks;
+
+import com.example.android.androidskeletonapp.data.service.rules.RuleBatchEvaluator;
+import com.example.android.androidskeletonapp.data.service.rules.RuleEffectSummary;
+import com.example.android.androidskeletonapp.data.service.rules.RuleEvaluationUnit;
+import com.example.android.androidskeletonapp.data.service.rules.SyntheticRules;
+
+import org.hisp.dhis.rules.RuleEngineContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Evaluation throughput of {@link RuleBatchEvaluator} on the synthetic program of the rule tests:
+ * one operation is one rule engine evaluation, of an enrollment or of an event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+public class RuleEvaluationBenchmark {
+
+    private static final int ENROLLMENTS = 500;
+    private static final int EVENTS_PER_ENROLLMENT = 3;
+    private static final int EVALUATIONS = ENROLLMENTS * (EVENTS_PER_ENROLLMENT + 1);
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private RuleEngineContext context;
+    private List<RuleEvaluationUnit> units;
+    private ExecutorService executor;
+    private RuleBatchEvaluator evaluator;
+
+    @Setup
+    public void setUp() {
+        context = SyntheticRules.context();
+        units = SyntheticRules.units(ENROLLMENTS, EVENTS_PER_ENROLLMENT);
+        executor = Executors.newFixedThreadPool(threads);
+        evaluator = new RuleBatchEvaluator(executor, threads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVALUATIONS)
+    public RuleEffectSummary evaluate() throws Exception {
+        return evaluator.evaluate(context, units);
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.android.androidskeletonapp.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Runs the count queries behind {@code SyncStatusHelper} against a fixture database with the
+ * tables and columns the SDK creates. The SQL mirrors what the SDK repositories generate for
+ * {@code blockingCount()} with the same filters.
+ */
+@State(Scope.Benchmark)
+public class SyncStatusCountBenchmark {
+
+    private static final String PROGRAM_COUNT = "SELECT COUNT(*) FROM Program";
+    private static final String DATA_SET_COUNT = "SELECT COUNT(*) FROM DataSet";
+    private static final String TRACKED_ENTITY_INSTANCE_COUNT =
+            "SELECT COUNT(*) FROM TrackedEntityInstance WHERE state != 'RELATIONSHIP'";
+    private static final String SINGLE_EVENT_COUNT = "SELECT COUNT(*) FROM Event WHERE enrollment IS NULL";
+    private static final String DATA_VALUE_COUNT = "SELECT COUNT(*) FROM DataValue";
+
+    @Param({"1000", "50000"})
+    public int records;
+
+    private File file;
+    private Connection connection;
+
+    @Setup(Level.Trial)
+    public void createFixture() throws IOException, SQLException {
+        file = File.createTempFile("sync-status", ".db");
+        connection = DriverManager.getConnection("jdbc:sqlite:" + file.getAbsolutePath());
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE Program (_id INTEGER PRIMARY KEY AUTOINCREMENT, uid TEXT NOT NULL UNIQUE, name TEXT)");
+            statement.execute("CREATE TABLE DataSet (_id INTEGER PRIMARY KEY AUTOINCREMENT, uid TEXT NOT NULL UNIQUE, name TEXT)");
+            statement.execute("CREATE TABLE TrackedEntityInstance (_id INTEGER PRIMARY KEY AUTOINCREMENT, uid TEXT NOT NULL UNIQUE, organisationUnit TEXT, state TEXT)");
+            statement.execute("CREATE TABLE Event (_id INTEGER PRIMARY KEY AUTOINCREMENT, uid TEXT NOT NULL UNIQUE, enrollment TEXT, program TEXT, state TEXT)");
+            statement.execute("CREATE TABLE DataValue (_id INTEGER PRIMARY KEY AUTOINCREMENT, dataElement TEXT, period TEXT, organisationUnit TEXT, value TEXT, state TEXT)");
+        }
+
+        insert("INSERT INTO Program (uid, name) VALUES (?, ?)", 20, (statement, i) -> {
+            statement.setString(1, "program" + i);
+            statement.setString(2, "Program " + i);
+        });
+        insert("INSERT INTO DataSet (uid, name) VALUES (?, ?)", 20, (statement, i) -> {
+            statement.setString(1, "dataSet" + i);
+            statement.setString(2, "Data set " + i);
+        });
+        insert("INSERT INTO TrackedEntityInstance (uid, organisationUnit, state) VALUES (?, ?, ?)", records,
+                (statement, i) -> {
+                    statement.setString(1, "tei" + i);
+                    statement.setString(2, "orgUnit" + i % 50);
+                    statement.setString(3, i % 10 == 0 ? "RELATIONSHIP" : "SYNCED");
+                });
+        insert("INSERT INTO Event (uid, enrollment, program, state) VALUES (?, ?, ?, ?)", records,
+                (statement, i) -> {
+                    statement.setString(1, "event" + i);
+                    statement.setString(2, i % 3 == 0 ? null : "enrollment" + i);
+                    statement.setString(3, "program" + i % 20);
+                    statement.setString(4, "SYNCED");
+                });
+        insert("INSERT INTO DataValue (dataElement, period, organisationUnit, value, state) VALUES (?, ?, ?, ?, ?)",
+                records, (statement, i) -> {
+                    statement.setString(1, "dataElement" + i % 100);
+                    statement.setString(2, "2019" + String.format("%02d", i % 12 + 1));
+                    statement.setString(3, "orgUnit" + i % 50);
+                    statement.setString(4, String.valueOf(i));
+                    statement.setString(5, "SYNCED");
+                });
+        connection.commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFixture() throws SQLException {
+        connection.close();
+        file.delete();
+    }
+
+    @Benchmark
+    public int programCount() throws SQLException {
+        return count(PROGRAM_COUNT);
+    }
+
+    @Benchmark
+    public int dataSetCount() throws SQLException {
+        return count(DATA_SET_COUNT);
+    }
+
+    @Benchmark
+    public int trackedEntityInstanceCount() throws SQLException {
+        return count(TRACKED_ENTITY_INSTANCE_COUNT);
+    }
+
+    @Benchmark
+    public int singleEventCount() throws SQLException {
+        return count(SINGLE_EVENT_COUNT);
+    }
+
+    @Benchmark
+    public int dataValueCount() throws SQLException {
+        return count(DATA_VALUE_COUNT);
+    }
+
+    @Benchmark
+    public int snapshot() throws SQLException {
+        return count(PROGRAM_COUNT)
+                + count(DATA_SET_COUNT)
+                + count(TRACKED_ENTITY_INSTANCE_COUNT)
+                + count(SINGLE_EVENT_COUNT)
+                + count(DATA_VALUE_COUNT);
+    }
+
+    private int count(String query) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(query)) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    private void insert(String sql, int rows, RowBinder binder) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < rows; i++) {
+                binder.bind(statement, i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private interface RowBinder {
+        void bind(PreparedStatement statement, int row) throws SQLException;
+    }
+}